@@ -0,0 +1,66 @@
+package benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.Duration;
+
+/**
+ * BenchmarkRunner - Chạy các benchmark với nhiều số thread liên tiếp
+ *
+ * JMH chỉ nhận một số thread cho mỗi lần chạy (-t), nên class này lặp qua danh sách
+ * trong system property "threads" (mặc định 1,4,16). Mỗi lần chạy bật GCProfiler để
+ * báo cáo tốc độ cấp phát (gc.alloc.rate.norm = byte/thao tác); chế độ SampleTime của
+ * các benchmark cho p50/p99/p99.9. Kết quả được ghi ra results-t{N}.json.
+ *
+ * Với -Dembedded=true, InMemoryRedisServer được khởi động ở localhost:6379 trong tiến
+ * trình này (các fork của JMH kết nối tới qua TCP) thay cho Redis thật; -DlatencyMicros
+ * thêm độ trễ giả lập cho mỗi round trip.
+ *
+ * Cách dùng:
+ *   java -Dthreads=1,8 -jar target/benchmarks.jar [regex tên benchmark]
+ *   java -Dembedded=true -DlatencyMicros=200 -jar target/benchmarks.jar CacheBenchmark
+ *
+ * Có thể dùng trực tiếp CLI của JMH thay vì class này:
+ *   java -cp target/benchmarks.jar org.openjdk.jmh.Main CacheBenchmark -t 8 -prof gc
+ */
+public final class BenchmarkRunner {
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws Throwable {
+        Object server = null;
+        if (Boolean.getBoolean("embedded")) {
+            server = Components.START_SERVER.invoke(Components.NEW_IN_MEMORY_SERVER.invoke(6379));
+            Components.SET_SERVER_LATENCY.invoke(server, Duration.ofNanos(Long.getLong("latencyMicros", 0) * 1000));
+        }
+        try {
+            run(args);
+        } finally {
+            Components.close(server);
+        }
+    }
+
+    private static void run(String[] args) throws RunnerException {
+        String include = args.length > 0 ? args[0] : "benchmarks\\..*Benchmark";
+        String[] threadCounts = System.getProperty("threads", "1,4,16").split(",");
+
+        for (String threadCount : threadCounts) {
+            int threads = Integer.parseInt(threadCount.trim());
+            ChainedOptionsBuilder options = new OptionsBuilder()
+                    .include(include)
+                    .threads(threads)
+                    .addProfiler(GCProfiler.class)
+                    .resultFormat(ResultFormatType.JSON)
+                    .result("results-t" + threads + ".json");
+
+            System.out.println("=== " + threads + " thread ===");
+            new Runner(options.build()).run();
+        }
+    }
+}
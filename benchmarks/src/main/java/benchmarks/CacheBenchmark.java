@@ -0,0 +1,101 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * Đo đường cache-aside của RedisCache.get
+ *
+ * - hit: mọi key đã nằm trong Redis (L2), mỗi lần get là một GET cộng giải mã envelope
+ * - miss: key không có sẵn, mỗi lần get chạy loader rồi ghi lại bằng SET. Key được lấy
+ *   từ một tập cố định và bị xóa (DEL) ngay sau lần get để lần sau vẫn miss, nên số key
+ *   sống trong Redis không tăng theo thời gian chạy; thời gian đo gồm cả lệnh DEL này
+ * - localCache = true: bật L1 trong JVM, lần get lặp lại không đi qua mạng
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class CacheBenchmark {
+
+    @Param({"64", "4096", "65536"})
+    public int payloadBytes;
+
+    @Param({"false", "true"})
+    public boolean localCache;
+
+    private static final int KEY_SPACE = 1024;
+
+    private Object cache;
+    private String payload;
+    private String[] keys;
+    private String[] missKeys;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Throwable {
+        char[] chars = new char[payloadBytes];
+        Arrays.fill(chars, 'v');
+        payload = new String(chars);
+
+        Function<String, String> loader = key -> payload;
+        Object serializer = Components.STRING_SERIALIZER.invoke();
+        cache = Components.NEW_CACHE.invoke("bench-cache:" + payloadBytes + ":", serializer, loader, 300);
+        if (localCache) {
+            ToIntFunction<String> weigher = String::length;
+            Components.ENABLE_LOCAL_CACHE.invoke(cache, 64L * 1024 * 1024, weigher, 60_000L);
+        }
+
+        keys = new String[KEY_SPACE];
+        for (int i = 0; i < KEY_SPACE; i++) {
+            keys[i] = "item-" + i;
+            Components.CACHE_PUT.invoke(cache, keys[i], payload);
+        }
+
+        missKeys = new String[KEY_SPACE];
+        for (int i = 0; i < KEY_SPACE; i++) {
+            missKeys[i] = "miss-" + i;
+            Components.CACHE_INVALIDATE.invoke(cache, missKeys[i]);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Throwable {
+        for (String key : keys) {
+            Components.CACHE_INVALIDATE.invoke(cache, key);
+        }
+        Components.close(cache);
+    }
+
+    @Benchmark
+    public Object hit() throws Throwable {
+        return Components.CACHE_GET.invoke(cache, keys[ThreadLocalRandom.current().nextInt(KEY_SPACE)]);
+    }
+
+    @Benchmark
+    public Object miss() throws Throwable {
+        // Xóa ngay sau khi đọc nên lần get sau của key này lại đi hết đường loader + SET
+        String key = missKeys[ThreadLocalRandom.current().nextInt(KEY_SPACE)];
+        Object value = Components.CACHE_GET.invoke(cache, key);
+        Components.CACHE_INVALIDATE.invoke(cache, key);
+        return value;
+    }
+}
@@ -0,0 +1,118 @@
+package benchmarks;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.time.Duration;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * Components - Truy cập các class của dự án chính từ package benchmarks
+ *
+ * Các class cần đo (RedisRateLimiter, RedisDistributedLock, ...) nằm trong default package,
+ * nên không thể import từ một package có tên; JMH lại bắt buộc benchmark phải nằm trong
+ * package có tên. Các MethodHandle dưới đây được tra cứu một lần và giữ trong field
+ * static final, nên JIT coi chúng là hằng số và chi phí gọi tương đương gọi trực tiếp.
+ */
+final class Components {
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.publicLookup();
+
+    static final Class<?> RATE_LIMITER = type("RedisRateLimiter");
+    static final Class<?> LOCK = type("RedisDistributedLock");
+    static final Class<?> SESSION_MANAGER = type("RedisSessionManager");
+    static final Class<?> CACHE = type("RedisCache");
+    static final Class<?> CACHE_SERIALIZER = type("RedisCache$Serializer");
+    static final Class<?> IN_MEMORY_SERVER = type("InMemoryRedisServer");
+    static final Class<?> KEYS = type("RedisKeys");
+
+    static final MethodHandle NEW_RATE_LIMITER = constructor(RATE_LIMITER,
+            MethodType.methodType(void.class, String.class, int.class));
+    static final MethodHandle ALLOW_REQUEST = method(RATE_LIMITER, "allowRequest",
+            MethodType.methodType(boolean.class, String.class, int.class, int.class));
+    static final MethodHandle RESET_LIMIT = method(RATE_LIMITER, "resetLimit",
+            MethodType.methodType(boolean.class, String.class));
+
+    static final MethodHandle NEW_LOCK = constructor(LOCK, MethodType.methodType(void.class));
+    static final MethodHandle ACQUIRE_LOCK = method(LOCK, "acquireLock",
+            MethodType.methodType(boolean.class, String.class, String.class, int.class));
+    static final MethodHandle RELEASE_LOCK = method(LOCK, "releaseLock",
+            MethodType.methodType(boolean.class, String.class, String.class));
+
+    static final MethodHandle NEW_SESSION_MANAGER = constructor(SESSION_MANAGER, MethodType.methodType(void.class));
+    static final MethodHandle CREATE_SESSION = method(SESSION_MANAGER, "createSession",
+            MethodType.methodType(String.class, String.class, Map.class, int.class));
+    static final MethodHandle GET_SESSION = method(SESSION_MANAGER, "getSession",
+            MethodType.methodType(Map.class, String.class));
+
+    static final MethodHandle NEW_CACHE = constructor(CACHE,
+            MethodType.methodType(void.class, String.class, CACHE_SERIALIZER, Function.class, int.class));
+    static final MethodHandle STRING_SERIALIZER = staticMethod(CACHE_SERIALIZER, "string",
+            MethodType.methodType(CACHE_SERIALIZER));
+    static final MethodHandle CACHE_GET = method(CACHE, "get",
+            MethodType.methodType(Object.class, Object.class));
+    static final MethodHandle CACHE_PUT = method(CACHE, "put",
+            MethodType.methodType(void.class, Object.class, Object.class));
+    static final MethodHandle CACHE_INVALIDATE = method(CACHE, "invalidate",
+            MethodType.methodType(void.class, Object.class));
+    static final MethodHandle ENABLE_LOCAL_CACHE = method(CACHE, "enableLocalCache",
+            MethodType.methodType(void.class, long.class, ToIntFunction.class, long.class));
+
+    static final MethodHandle NEW_IN_MEMORY_SERVER = constructor(IN_MEMORY_SERVER,
+            MethodType.methodType(void.class, int.class));
+    static final MethodHandle START_SERVER = method(IN_MEMORY_SERVER, "start",
+            MethodType.methodType(IN_MEMORY_SERVER));
+    static final MethodHandle SET_SERVER_LATENCY = method(IN_MEMORY_SERVER, "setLatency",
+            MethodType.methodType(void.class, Duration.class));
+
+    static final MethodHandle NEW_KEYS = constructor(KEYS, MethodType.methodType(void.class, String.class));
+    static final MethodHandle KEY = method(KEYS, "key",
+            MethodType.methodType(byte[].class, String.class));
+    static final MethodHandle PARSE_LONG = staticMethod(KEYS, "parseLong",
+            MethodType.methodType(long.class, byte[].class));
+
+    private Components() {
+    }
+
+    /**
+     * Đóng một component (mọi component đều implements AutoCloseable)
+     */
+    static void close(Object component) throws Exception {
+        if (component != null) {
+            ((AutoCloseable) component).close();
+        }
+    }
+
+    private static Class<?> type(String name) {
+        try {
+            return Class.forName(name);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException("Không tìm thấy " + name + ", hãy chạy \"mvn install\" ở thư mục gốc", e);
+        }
+    }
+
+    private static MethodHandle constructor(Class<?> type, MethodType signature) {
+        try {
+            return LOOKUP.findConstructor(type, signature);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Không tìm thấy constructor của " + type.getName(), e);
+        }
+    }
+
+    private static MethodHandle method(Class<?> type, String name, MethodType signature) {
+        try {
+            return LOOKUP.findVirtual(type, name, signature);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Không tìm thấy " + type.getName() + "." + name, e);
+        }
+    }
+
+    private static MethodHandle staticMethod(Class<?> type, String name, MethodType signature) {
+        try {
+            return LOOKUP.findStatic(type, name, signature);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Không tìm thấy " + type.getName() + "." + name, e);
+        }
+    }
+}
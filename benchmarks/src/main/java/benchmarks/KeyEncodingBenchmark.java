@@ -0,0 +1,65 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Đo chi phí tạo key và đọc reply số nguyên, không cần Redis
+ *
+ * So sánh cách cũ (ghép chuỗi rồi mã hóa UTF-8 như Jedis làm với key String;
+ * Long.parseLong(new String(reply))) với RedisKeys. Chạy với -prof gc để xem
+ * gc.alloc.rate.norm (byte cấp phát cho mỗi thao tác).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class KeyEncodingBenchmark {
+    private static final String PREFIX = "session:";
+
+    private Object keys;
+    private String sessionId;
+    private byte[] counterReply;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Throwable {
+        keys = Components.NEW_KEYS.invoke(PREFIX);
+        sessionId = UUID.randomUUID().toString();
+        counterReply = "1234567".getBytes(StandardCharsets.US_ASCII);
+    }
+
+    @Benchmark
+    public byte[] concatKey() {
+        return (PREFIX + sessionId).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public byte[] redisKeysKey() throws Throwable {
+        return (byte[]) Components.KEY.invoke(keys, sessionId);
+    }
+
+    @Benchmark
+    public long parseViaString() {
+        return Long.parseLong(new String(counterReply, StandardCharsets.UTF_8));
+    }
+
+    @Benchmark
+    public long parseBytes() throws Throwable {
+        return (long) Components.PARSE_LONG.invoke(counterReply);
+    }
+}
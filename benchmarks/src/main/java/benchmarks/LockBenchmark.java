@@ -0,0 +1,74 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Đo một chu kỳ RedisDistributedLock.acquireLock + releaseLock (SET NX EX rồi script Lua)
+ *
+ * lockKeys = 1: mọi thread tranh nhau một khóa, phần lớn lần acquire thất bại;
+ * lockKeys lớn: hầu như không tranh chấp, đo chi phí thuần của hai lệnh.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class LockBenchmark {
+
+    @Param({"1", "1024"})
+    public int lockKeys;
+
+    private Object lock;
+    private String[] keys;
+
+    /**
+     * Mỗi thread có requestId riêng, như một tiến trình giữ khóa
+     */
+    @State(Scope.Thread)
+    public static class Owner {
+        private static final AtomicInteger SEQUENCE = new AtomicInteger();
+        final String requestId = UUID.randomUUID() + "-" + SEQUENCE.incrementAndGet();
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws Throwable {
+        lock = Components.NEW_LOCK.invoke();
+        keys = new String[lockKeys];
+        for (int i = 0; i < lockKeys; i++) {
+            keys[i] = "bench-lock-" + i;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        Components.close(lock);
+    }
+
+    @Benchmark
+    public boolean acquireAndRelease(Owner owner) throws Throwable {
+        String key = keys[ThreadLocalRandom.current().nextInt(lockKeys)];
+        boolean acquired = (boolean) Components.ACQUIRE_LOCK.invoke(lock, key, owner.requestId, 10);
+        if (acquired) {
+            return (boolean) Components.RELEASE_LOCK.invoke(lock, key, owner.requestId);
+        }
+        return false;
+    }
+}
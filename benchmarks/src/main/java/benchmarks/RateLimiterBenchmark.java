@@ -0,0 +1,70 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Đo RedisRateLimiter.allowRequest: EXISTS rồi SETEX cho request đầu tiên của cửa sổ,
+ * các request sau là EXISTS + GET + INCR (ba round trip)
+ *
+ * clients = 1: mọi thread cùng tăng một bộ đếm (một key nóng);
+ * clients lớn: request trải đều trên nhiều key như lưu lượng thực tế.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class RateLimiterBenchmark {
+
+    @Param({"localhost"})
+    public String host;
+
+    @Param({"6379"})
+    public int port;
+
+    @Param({"1", "10000"})
+    public int clients;
+
+    private Object limiter;
+    private String[] clientIds;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Throwable {
+        limiter = Components.NEW_RATE_LIMITER.invoke(host, port);
+        clientIds = new String[clients];
+        for (int i = 0; i < clients; i++) {
+            clientIds[i] = "bench-client-" + i;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Throwable {
+        for (String clientId : clientIds) {
+            Components.RESET_LIMIT.invoke(limiter, clientId);
+        }
+        Components.close(limiter);
+    }
+
+    @Benchmark
+    public boolean allowRequest() throws Throwable {
+        String clientId = clientIds[ThreadLocalRandom.current().nextInt(clients)];
+        // Giới hạn đủ lớn để mọi request đi hết đường GET + INCR, không dừng sớm ở nhánh từ chối
+        return (boolean) Components.ALLOW_REQUEST.invoke(limiter, clientId, Integer.MAX_VALUE, 60);
+    }
+}
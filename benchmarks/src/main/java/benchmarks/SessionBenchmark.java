@@ -0,0 +1,90 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Đo RedisSessionManager.createSession (HMSET + EXPIRE) và getSession (một HGETALL;
+ * hash rỗng nghĩa là phiên không tồn tại)
+ * với dữ liệu phiên có kích thước khác nhau
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class SessionBenchmark {
+
+    /**
+     * Tổng số byte dữ liệu phiên, chia đều cho 8 field
+     */
+    @Param({"64", "1024", "16384"})
+    public int payloadBytes;
+
+    private Object sessionManager;
+    private String existingSessionId;
+
+    /**
+     * Dữ liệu phiên riêng của mỗi thread, vì createSession ghi thêm userId vào map truyền vào
+     */
+    @State(Scope.Thread)
+    public static class Payload {
+        Map<String, String> userData;
+
+        @Setup(Level.Trial)
+        public void setUp(SessionBenchmark benchmark) {
+            userData = sessionData(benchmark.payloadBytes);
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws Throwable {
+        sessionManager = Components.NEW_SESSION_MANAGER.invoke();
+        existingSessionId = (String) Components.CREATE_SESSION.invoke(
+                sessionManager, "bench-user", sessionData(payloadBytes), 3600);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        Components.close(sessionManager);
+    }
+
+    @Benchmark
+    public String createSession(Payload payload) throws Throwable {
+        // TTL ngắn để các phiên tạo trong lúc đo tự hết hạn
+        return (String) Components.CREATE_SESSION.invoke(sessionManager, "bench-user", payload.userData, 30);
+    }
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public Map<String, String> getSession() throws Throwable {
+        return (Map<String, String>) Components.GET_SESSION.invoke(sessionManager, existingSessionId);
+    }
+
+    private static Map<String, String> sessionData(int payloadBytes) {
+        Map<String, String> data = new HashMap<>();
+        char[] value = new char[Math.max(1, payloadBytes / 8)];
+        Arrays.fill(value, 'x');
+        for (int i = 0; i < 8; i++) {
+            data.put("field" + i, new String(value));
+        }
+        return data;
+    }
+}
@@ -0,0 +1,92 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Đo chi phí của RedisTelemetry: cùng các thao tác với telemetry tắt và bật
+ *
+ * Mỗi giá trị của "telemetry" chạy trong một fork riêng, nên system property
+ * redis.telemetry.enabled (RedisTelemetry.ENABLED_PROPERTY) đặt trong setUp chỉ ảnh hưởng
+ * tới các pool tạo trong fork đó. Chênh lệch throughput giữa hai cấu hình là chi phí
+ * của lớp đo lường; mục tiêu là dưới 1%.
+ *
+ * Độ lệch giữa các fork trên đường mạng thường lớn hơn 1%, nên mỗi cấu hình chạy ba fork
+ * và chỉ so sánh khi khoảng sai số của hai bên không chồng nhau. Chạy kèm -prof gc để
+ * so sánh B/op: telemetry không được làm tăng cấp phát.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(3)
+public class TelemetryBenchmark {
+
+    @Param({"localhost"})
+    public String host;
+
+    @Param({"6379"})
+    public int port;
+
+    @Param({"false", "true"})
+    public String telemetry;
+
+    private Object limiter;
+    private Object lock;
+    private Object sessionManager;
+    private String sessionId;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Throwable {
+        System.setProperty("redis.telemetry.enabled", telemetry);
+        limiter = Components.NEW_RATE_LIMITER.invoke(host, port);
+        lock = Components.NEW_LOCK.invoke();
+        sessionManager = Components.NEW_SESSION_MANAGER.invoke();
+
+        Map<String, String> userData = new HashMap<>();
+        userData.put("role", "bench");
+        sessionId = (String) Components.CREATE_SESSION.invoke(sessionManager, "bench-user", userData, 3600);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Throwable {
+        Components.RESET_LIMIT.invoke(limiter, "bench-telemetry");
+        Components.close(limiter);
+        Components.close(lock);
+        Components.close(sessionManager);
+    }
+
+    @Benchmark
+    public boolean rateLimiter() throws Throwable {
+        return (boolean) Components.ALLOW_REQUEST.invoke(limiter, "bench-telemetry", Integer.MAX_VALUE, 60);
+    }
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public Map<String, String> getSession() throws Throwable {
+        return (Map<String, String>) Components.GET_SESSION.invoke(sessionManager, sessionId);
+    }
+
+    @Benchmark
+    public boolean lockCycle() throws Throwable {
+        String lockKey = "bench-telemetry-" + Thread.currentThread().getId();
+        boolean acquired = (boolean) Components.ACQUIRE_LOCK.invoke(lock, lockKey, "owner", 30);
+        return acquired && (boolean) Components.RELEASE_LOCK.invoke(lock, lockKey, "owner");
+    }
+}
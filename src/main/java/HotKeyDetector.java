@@ -0,0 +1,391 @@
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.exceptions.JedisException;
+import redis.clients.jedis.params.ScanParams;
+import redis.clients.jedis.resps.ScanResult;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * HotKeyDetector - Phát hiện key nóng trong JVM bằng count-min sketch có lấy mẫu
+ *
+ * Khi lưu lượng lệch, vài key (một client của rate limiter, một entry cache, một bộ đếm)
+ * dồn hết vào một core Redis. Các component ghi nhận key mỗi lần truy cập qua
+ * {@link #record}; chỉ 1/sampleInterval lần được đưa vào sketch nên chi phí trên đường
+ * nóng gần như chỉ là một lần sinh số ngẫu nhiên. Cuối mỗi cửa sổ (mặc định 1 giây),
+ * các key chiếm ít nhất hotFraction lượng mẫu (và tối thiểu minSamples mẫu) trở thành
+ * tập key nóng, giới hạn topK key; sketch được chia đôi để key nguội dần.
+ *
+ * Component có key dạng tiền tố + id dùng {@link #record(String, String)} và
+ * {@link #isHot(String, String)}: hash được tính thẳng từ hai phần (bằng hashCode của
+ * chuỗi ghép) và key nóng được tra trong ảnh chụp sắp theo hash, nên đường nóng không
+ * tạo chuỗi ghép cho mỗi request.
+ *
+ * Có thể bổ sung key nóng từ phía Redis bằng {@link #refreshFromRedis}: SCAN + OBJECT FREQ,
+ * giống "redis-cli --hotkeys" (cần maxmemory-policy dạng LFU).
+ *
+ * Các component dùng chung {@link #global()} và tự áp dụng biện pháp giảm tải cho key
+ * nóng: RedisCache chỉ giữ key nóng trong L1 ({@link RedisCache#enableHotKeyCache}),
+ * RedisCounter chia bộ đếm nóng thành nhiều key con, RedisRateLimiter thuê trước một lô
+ * lượt cho client nóng.
+ */
+public final class HotKeyDetector implements AutoCloseable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(HotKeyDetector.class);
+
+    private static final int SKETCH_DEPTH = 4;
+    private static final int SKETCH_WIDTH = 4096;
+    private static final long[] SEEDS = {0x9E3779B97F4A7C15L, 0xC2B2AE3D27D4EB4FL, 0x165667B19E3779F9L, 0x27D4EB2F165667C5L};
+    // Số key ứng viên tối đa trong một cửa sổ, chặn bộ nhớ khi có rất nhiều key
+    private static final int MAX_CANDIDATES = 1024;
+
+    private static final HotKeyDetector GLOBAL = new HotKeyDetector(20, 0.01, 10, 32, Duration.ofSeconds(1));
+
+    private final int sampleInterval;
+    private final double hotFraction;
+    private final long minSamples;
+    private final int topK;
+
+    private final AtomicLongArray sketch = new AtomicLongArray(SKETCH_DEPTH * SKETCH_WIDTH);
+    private final LongAdder sampled = new LongAdder();
+    private final Map<String, Boolean> candidates = new ConcurrentHashMap<>();
+    private volatile Set<String> hotKeys = Collections.emptySet();
+    // Key nóng do Redis báo (OBJECT FREQ), kèm thời điểm hết hiệu lực
+    private final Map<String, Long> externalHotKeys = new ConcurrentHashMap<>();
+    // Cả hai loại key nóng, sắp theo hash để tra theo tiền tố + id
+    private volatile HotSnapshot hotSnapshot = HotSnapshot.EMPTY;
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * Key nóng sắp theo hashCode, kèm thời điểm hết hiệu lực (Long.MAX_VALUE với key nóng
+     * theo lưu lượng trong JVM)
+     */
+    private static final class HotSnapshot {
+        static final HotSnapshot EMPTY = new HotSnapshot(Collections.emptyMap());
+
+        final int[] hashes;
+        final String[] keys;
+        final long[] until;
+
+        HotSnapshot(Map<String, Long> entries) {
+            keys = entries.keySet().toArray(new String[0]);
+            Arrays.sort(keys, Comparator.comparingInt(String::hashCode));
+            hashes = new int[keys.length];
+            until = new long[keys.length];
+            for (int i = 0; i < keys.length; i++) {
+                hashes[i] = keys[i].hashCode();
+                until[i] = entries.get(keys[i]);
+            }
+        }
+
+        boolean contains(String prefix, String id) {
+            if (keys.length == 0) {
+                return false;
+            }
+            int hash = hash(prefix, id);
+            int i = Arrays.binarySearch(hashes, hash);
+            if (i < 0) {
+                return false;
+            }
+            while (i > 0 && hashes[i - 1] == hash) {
+                i--;
+            }
+            int length = prefix.length() + id.length();
+            for (; i < keys.length && hashes[i] == hash; i++) {
+                String key = keys[i];
+                if (key.length() == length && key.startsWith(prefix) && key.startsWith(id, prefix.length())) {
+                    return until[i] == Long.MAX_VALUE || until[i] > System.currentTimeMillis();
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * @param sampleInterval Ghi nhận 1 trong sampleInterval lần truy cập
+     * @param hotFraction Tỷ lệ mẫu tối thiểu trong một cửa sổ để key được coi là nóng
+     * @param minSamples Số mẫu tối thiểu trong một cửa sổ, tránh báo nóng khi lưu lượng thấp
+     * @param topK Số key nóng tối đa
+     * @param window Độ dài cửa sổ đánh giá
+     */
+    public HotKeyDetector(int sampleInterval, double hotFraction, long minSamples, int topK, Duration window) {
+        if (sampleInterval <= 0 || topK <= 0 || minSamples <= 0) {
+            throw new IllegalArgumentException("sampleInterval, topK và minSamples phải lớn hơn 0");
+        }
+        if (hotFraction <= 0 || hotFraction > 1) {
+            throw new IllegalArgumentException("hotFraction phải trong khoảng (0, 1]");
+        }
+        if (window.isZero() || window.isNegative()) {
+            throw new IllegalArgumentException("window phải lớn hơn 0");
+        }
+        this.sampleInterval = sampleInterval;
+        this.hotFraction = hotFraction;
+        this.minSamples = minSamples;
+        this.topK = topK;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "hot-key-detector");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long windowMillis = window.toMillis();
+        scheduler.scheduleAtFixedRate(this::rotate, windowMillis, windowMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Detector dùng chung cho mọi component trong JVM: lấy mẫu 1/20, key nóng khi chiếm
+     * từ 1% số mẫu (tối thiểu 10 mẫu, tức khoảng 200 lượt/giây) trong cửa sổ 1 giây
+     */
+    public static HotKeyDetector global() {
+        return GLOBAL;
+    }
+
+    /**
+     * Ghi nhận một lần truy cập key (có lấy mẫu)
+     */
+    public void record(String key) {
+        if (sample() && add(key.hashCode()) >= minSamples && candidates.size() < MAX_CANDIDATES) {
+            candidates.putIfAbsent(key, Boolean.TRUE);
+        }
+    }
+
+    /**
+     * Như {@code record(prefix + id)}; chuỗi ghép chỉ được tạo khi key trở thành ứng viên nóng
+     */
+    public void record(String prefix, String id) {
+        if (sample() && add(hash(prefix, id)) >= minSamples && candidates.size() < MAX_CANDIDATES) {
+            candidates.putIfAbsent(prefix + id, Boolean.TRUE);
+        }
+    }
+
+    /**
+     * @return true nếu lần truy cập này được lấy mẫu
+     */
+    private boolean sample() {
+        if (sampleInterval > 1 && ThreadLocalRandom.current().nextInt(sampleInterval) != 0) {
+            return false;
+        }
+        sampled.increment();
+        return true;
+    }
+
+    /**
+     * @return true nếu key đang nóng (theo lưu lượng trong JVM này hoặc theo Redis)
+     */
+    public boolean isHot(String key) {
+        if (hotKeys.contains(key)) {
+            return true;
+        }
+        if (externalHotKeys.isEmpty()) {
+            return false;
+        }
+        Long until = externalHotKeys.get(key);
+        return until != null && until > System.currentTimeMillis();
+    }
+
+    /**
+     * Như {@code isHot(prefix + id)} nhưng không tạo chuỗi ghép
+     */
+    public boolean isHot(String prefix, String id) {
+        return hotSnapshot.contains(prefix, id);
+    }
+
+    /**
+     * Tập key nóng của cửa sổ gần nhất (không gồm key do Redis báo)
+     */
+    public Set<String> getHotKeys() {
+        return hotKeys;
+    }
+
+    /**
+     * Ước lượng số mẫu của key trong cửa sổ hiện tại (chỉ lớn hơn hoặc bằng giá trị thật)
+     */
+    public long estimate(String key) {
+        long min = Long.MAX_VALUE;
+        for (int row = 0; row < SKETCH_DEPTH; row++) {
+            min = Math.min(min, sketch.get(index(row, key.hashCode())));
+        }
+        return min;
+    }
+
+    /**
+     * Đánh dấu key nóng trong một khoảng thời gian, ví dụ theo thông tin từ nơi khác
+     */
+    public void markHot(String key, Duration duration) {
+        externalHotKeys.put(key, System.currentTimeMillis() + duration.toMillis());
+        rebuildSnapshot();
+    }
+
+    /**
+     * Quét các key khớp pattern và đánh dấu nóng những key có bộ đếm LFU (OBJECT FREQ)
+     * từ minFrequency trở lên. Bộ đếm LFU của Redis tăng theo logarit: với lfu-log-factor
+     * mặc định (10), khoảng 1.000 lượt truy cập ứng với 18 và 100.000 lượt ứng với 142.
+     *
+     * @param match Pattern của SCAN, ví dụ "product:*"
+     * @param duration Thời gian các key được coi là nóng, nên dài hơn chu kỳ gọi hàm này
+     * @return Các key được đánh dấu nóng
+     */
+    public List<String> refreshFromRedis(JedisPool jedisPool, String match, int minFrequency, Duration duration) {
+        List<String> found = new ArrayList<>();
+        long until = System.currentTimeMillis() + duration.toMillis();
+        ScanParams params = new ScanParams().match(match).count(1000);
+        String cursor = ScanParams.SCAN_POINTER_START;
+
+        try (Jedis jedis = jedisPool.getResource()) {
+            do {
+                ScanResult<String> page = jedis.scan(cursor, params);
+                List<String> keys = page.getResult();
+                // OBJECT FREQ cho cả trang trong một round trip
+                Pipeline pipeline = jedis.pipelined();
+                List<Response<Long>> frequencies = new ArrayList<>(keys.size());
+                for (String key : keys) {
+                    frequencies.add(pipeline.objectFreq(key));
+                }
+                pipeline.sync();
+                for (int i = 0; i < keys.size(); i++) {
+                    Long frequency = frequencies.get(i).get();
+                    if (frequency != null && frequency >= minFrequency) {
+                        externalHotKeys.put(keys.get(i), until);
+                        found.add(keys.get(i));
+                    }
+                }
+                cursor = page.getCursor();
+            } while (!ScanParams.SCAN_POINTER_START.equals(cursor));
+        } catch (JedisException e) {
+            // Ví dụ khi maxmemory-policy không phải LFU: OBJECT FREQ trả lỗi
+            LOGGER.warn("Không lấy được key nóng từ Redis: {}", e.getMessage());
+        }
+        if (!found.isEmpty()) {
+            rebuildSnapshot();
+        }
+        return found;
+    }
+
+    private long add(int keyHash) {
+        long min = Long.MAX_VALUE;
+        for (int row = 0; row < SKETCH_DEPTH; row++) {
+            min = Math.min(min, sketch.incrementAndGet(index(row, keyHash)));
+        }
+        return min;
+    }
+
+    private static int index(int row, int keyHash) {
+        // Trộn hashCode (đã được String cache) với seed riêng của từng hàng
+        long hash = (keyHash ^ SEEDS[row]) * 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        return row * SKETCH_WIDTH + (int) (hash & (SKETCH_WIDTH - 1));
+    }
+
+    /**
+     * Bằng {@code (prefix + id).hashCode()} mà không tạo chuỗi ghép
+     */
+    private static int hash(String prefix, String id) {
+        int hash = prefix.hashCode();
+        for (int i = 0; i < id.length(); i++) {
+            hash = 31 * hash + id.charAt(i);
+        }
+        return hash;
+    }
+
+    private synchronized void rebuildSnapshot() {
+        Map<String, Long> entries = new HashMap<>(externalHotKeys);
+        for (String key : hotKeys) {
+            entries.put(key, Long.MAX_VALUE);
+        }
+        hotSnapshot = entries.isEmpty() ? HotSnapshot.EMPTY : new HotSnapshot(entries);
+    }
+
+    /**
+     * Kết thúc một cửa sổ: chọn tập key nóng mới rồi chia đôi sketch
+     */
+    private void rotate() {
+        try {
+            long total = sampled.sumThenReset();
+            long threshold = Math.max(minSamples, (long) Math.ceil(total * hotFraction));
+            Set<String> previous = hotKeys;
+
+            List<String> hot = new ArrayList<>();
+            Set<String> considered = new HashSet<>(candidates.keySet());
+            considered.addAll(previous);
+            for (String key : considered) {
+                long estimate = estimate(key);
+                // Key đang nóng chỉ nguội khi xuống dưới nửa ngưỡng, tránh bật tắt liên tục
+                if (estimate >= threshold || (previous.contains(key) && estimate >= threshold / 2)) {
+                    hot.add(key);
+                }
+            }
+            if (hot.size() > topK) {
+                hot.sort((a, b) -> Long.compare(estimate(b), estimate(a)));
+                hot = hot.subList(0, topK);
+            }
+            Set<String> next = Collections.unmodifiableSet(new HashSet<>(hot));
+            for (String key : next) {
+                if (!previous.contains(key)) {
+                    LOGGER.info("Phát hiện key nóng: {} (~{} mẫu/cửa sổ)", key, estimate(key));
+                }
+            }
+            hotKeys = next;
+
+            candidates.clear();
+            for (int i = 0; i < sketch.length(); i++) {
+                long value = sketch.get(i);
+                if (value != 0) {
+                    sketch.addAndGet(i, -(value / 2 + (value & 1)));
+                }
+            }
+            long now = System.currentTimeMillis();
+            externalHotKeys.values().removeIf(until -> until <= now);
+            rebuildSnapshot();
+        } catch (RuntimeException e) {
+            // Không để lỗi làm dừng lịch chạy của scheduler
+            LOGGER.warn("Lỗi khi cập nhật key nóng: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Demo: lưu lượng Zipf trên 10.000 key, vài key đầu được phát hiện là nóng
+     */
+    public void demo() throws InterruptedException {
+        System.out.println("=== DEMO HOT KEY DETECTOR ===");
+
+        RedisLoadGenerator.ZipfianGenerator zipf = new RedisLoadGenerator.ZipfianGenerator(10_000, 1.1);
+        long end = System.currentTimeMillis() + 2500;
+        long requests = 0;
+        while (System.currentTimeMillis() < end) {
+            record("product:" + zipf.next());
+            requests++;
+        }
+        System.out.println("Đã ghi nhận " + requests + " lượt truy cập theo phân phối Zipf(1.1)");
+        System.out.println("Key nóng: " + getHotKeys());
+        System.out.println("product:0 nóng? " + isHot("product:0") + ", product:9999 nóng? " + isHot("product:9999"));
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        try (HotKeyDetector detector = new HotKeyDetector(20, 0.01, 10, 32, Duration.ofSeconds(1))) {
+            detector.demo();
+        }
+    }
+}
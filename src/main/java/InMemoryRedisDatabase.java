@@ -0,0 +1,2152 @@
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.LongSupplier;
+
+/**
+ * InMemoryRedisDatabase - Keyspace và các lệnh dữ liệu của {@link InMemoryRedisServer}
+ *
+ * Mô phỏng ngữ nghĩa của Redis cho các kiểu string (kể cả bitmap), hash, list, set,
+ * sorted set và HyperLogLog, cùng TTL theo đồng hồ có thể điều khiển. Mọi lệnh chạy
+ * tuần tự dưới một khóa như Redis đơn luồng. Tham số và giá trị được giữ dưới dạng chuỗi
+ * ISO-8859-1 (mỗi ký tự là một byte) nên dữ liệu nhị phân đi qua nguyên vẹn.
+ *
+ * Đây là bản mô phỏng để kiểm thử, không phải bản sao đầy đủ của Redis: HyperLogLog
+ * đếm chính xác bằng tập hợp, MEMORY USAGE chỉ là ước lượng. Stream hỗ trợ XADD, XLEN,
+ * XDEL, XRANGE, consumer group (XGROUP CREATE/DESTROY, XREADGROUP, XACK, XAUTOCLAIM,
+ * XPENDING) nhưng không có XREAD, XTRIM, XCLAIM hay XINFO.
+ * OBJECT FREQ dùng bộ đếm LFU logarit giống Redis nhưng không giảm dần theo thời gian.
+ */
+public class InMemoryRedisDatabase {
+    private static final byte[] EMPTY = new byte[0];
+    // Tham số bộ đếm LFU như mặc định của Redis (lfu-log-factor 10)
+    private static final int LFU_INIT_VAL = 5;
+    private static final int LFU_LOG_FACTOR = 10;
+
+    /**
+     * Lỗi trả về cho client dưới dạng "-ERR ..." thay vì đóng kết nối
+     */
+    public static class RedisError extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        public RedisError(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * Phản hồi dạng simple string (+OK, +PONG, ...)
+     */
+    public static final class Status {
+        public static final Status OK = new Status("OK");
+        public static final Status QUEUED = new Status("QUEUED");
+
+        private final String value;
+
+        public Status(String value) {
+            this.value = value;
+        }
+
+        public String getValue() {
+            return value;
+        }
+    }
+
+    /**
+     * Nhận sự kiện thay đổi key để server phát keyspace notification
+     */
+    public interface KeyspaceListener {
+        void onEvent(String event, String key);
+    }
+
+    private static final class Entry {
+        Object value;
+        long expiresAt;
+        int frequency = LFU_INIT_VAL;
+
+        Entry(Object value) {
+            this.value = value;
+        }
+    }
+
+    /**
+     * HyperLogLog được mô phỏng bằng tập hợp chính xác
+     */
+    private static final class HyperLogLog {
+        final Set<String> items = new HashSet<>();
+    }
+
+    private static final class SortedSet {
+        final Map<String, Double> scores = new HashMap<>();
+        final TreeSet<String> ordered = new TreeSet<>((a, b) -> {
+            int byScore = Double.compare(scores.get(a), scores.get(b));
+            return byScore != 0 ? byScore : a.compareTo(b);
+        });
+
+        void put(String member, double score) {
+            if (scores.containsKey(member)) {
+                ordered.remove(member);
+            }
+            scores.put(member, score);
+            ordered.add(member);
+        }
+
+        boolean remove(String member) {
+            if (!scores.containsKey(member)) {
+                return false;
+            }
+            ordered.remove(member);
+            scores.remove(member);
+            return true;
+        }
+
+        int rank(String member) {
+            return ordered.headSet(member, false).size();
+        }
+
+        List<String> range(int start, int stop) {
+            List<String> result = new ArrayList<>();
+            int index = 0;
+            for (String member : ordered) {
+                if (index > stop) {
+                    break;
+                }
+                if (index >= start) {
+                    result.add(member);
+                }
+                index++;
+            }
+            return result;
+        }
+    }
+
+    /**
+     * ID của entry trong stream: "millis-sequence"
+     */
+    private static final class StreamId implements Comparable<StreamId> {
+        static final StreamId MIN = new StreamId(0, 0);
+        static final StreamId MAX = new StreamId(Long.MAX_VALUE, Long.MAX_VALUE);
+
+        final long millis;
+        final long sequence;
+
+        StreamId(long millis, long sequence) {
+            this.millis = millis;
+            this.sequence = sequence;
+        }
+
+        /**
+         * @param defaultSequence Sequence dùng khi ID chỉ có phần millis
+         */
+        static StreamId parse(String text, long defaultSequence) {
+            if (text.equals("-")) {
+                return MIN;
+            } else if (text.equals("+")) {
+                return MAX;
+            }
+            try {
+                int dash = text.indexOf('-');
+                if (dash < 0) {
+                    return new StreamId(Long.parseLong(text), defaultSequence);
+                }
+                return new StreamId(Long.parseLong(text.substring(0, dash)), Long.parseLong(text.substring(dash + 1)));
+            } catch (NumberFormatException e) {
+                throw new RedisError("ERR Invalid stream ID specified as stream command argument");
+            }
+        }
+
+        @Override
+        public int compareTo(StreamId other) {
+            int byMillis = Long.compare(millis, other.millis);
+            return byMillis != 0 ? byMillis : Long.compare(sequence, other.sequence);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof StreamId && compareTo((StreamId) other) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(millis) * 31 + Long.hashCode(sequence);
+        }
+
+        @Override
+        public String toString() {
+            return millis + "-" + sequence;
+        }
+    }
+
+    /**
+     * Entry đã giao cho consumer nhưng chưa được XACK (một phần tử của PEL)
+     */
+    private static final class PendingEntry {
+        String consumer;
+        long deliveredAt;
+        long deliveries;
+
+        PendingEntry(String consumer, long deliveredAt) {
+            this.consumer = consumer;
+            this.deliveredAt = deliveredAt;
+            this.deliveries = 1;
+        }
+    }
+
+    private static final class ConsumerGroup {
+        final NavigableMap<StreamId, PendingEntry> pending = new TreeMap<>();
+        StreamId lastDelivered;
+
+        ConsumerGroup(StreamId lastDelivered) {
+            this.lastDelivered = lastDelivered;
+        }
+    }
+
+    /**
+     * Stream giữ các field của entry dạng [field, value, ...]; XDEL không xóa key như Redis
+     */
+    private static final class RedisStream {
+        final NavigableMap<StreamId, List<String>> entries = new TreeMap<>();
+        final Map<String, ConsumerGroup> groups = new LinkedHashMap<>();
+        StreamId lastId = StreamId.MIN;
+    }
+
+    // TreeMap giữ key theo thứ tự để SCAN tiếp tục được từ key cuối cùng đã trả về
+    private final NavigableMap<String, Entry> keyspace = new TreeMap<>();
+    private final Map<Long, String> scanCursors = new HashMap<>();
+    private final LongSupplier clock;
+    private final KeyspaceListener listener;
+    private long nextCursor = 1;
+
+    public InMemoryRedisDatabase(LongSupplier clock, KeyspaceListener listener) {
+        this.clock = clock;
+        this.listener = listener;
+    }
+
+    /**
+     * Thực thi một lệnh; args[0] là tên lệnh
+     *
+     * @return Long, String/byte[] (bulk), Double, Status, List, Map, Set hoặc null
+     * @throws RedisError khi lệnh sai cú pháp, sai kiểu dữ liệu hoặc không được hỗ trợ
+     */
+    public synchronized Object execute(List<String> args) {
+        String name = args.get(0).toUpperCase(Locale.ROOT);
+        switch (name) {
+            // Key
+            case "DEL":
+            case "UNLINK":
+                return del(args);
+            case "EXISTS":
+                return exists(args);
+            case "TYPE":
+                return new Status(type(arg(args, 1, 2)));
+            case "EXPIRE":
+                return expire(args, 1000);
+            case "PEXPIRE":
+                return expire(args, 1);
+            case "TTL":
+                return ttl(arg(args, 1, 2), 1000);
+            case "PTTL":
+                return ttl(arg(args, 1, 2), 1);
+            case "PERSIST":
+                return persist(arg(args, 1, 2));
+            case "RENAME":
+                return rename(args);
+            case "SCAN":
+                return scan(args);
+            case "KEYS":
+                return keys(arg(args, 1, 2));
+            case "DBSIZE":
+                expireDue();
+                return (long) keyspace.size();
+            case "FLUSHDB":
+            case "FLUSHALL":
+                keyspace.clear();
+                scanCursors.clear();
+                return Status.OK;
+            case "MEMORY":
+                return memory(args);
+            case "OBJECT":
+                return object(args);
+
+            // String
+            case "GET":
+                return get(arg(args, 1, 2));
+            case "SET":
+                return set(args);
+            case "SETEX":
+                return setWithTtl(args, 1000);
+            case "PSETEX":
+                return setWithTtl(args, 1);
+            case "SETNX":
+                return setnx(args);
+            case "GETDEL":
+                return getdel(arg(args, 1, 2));
+            case "MGET":
+                return mget(args);
+            case "MSET":
+                return mset(args);
+            case "INCR":
+                return incrBy(arg(args, 1, 2), 1);
+            case "DECR":
+                return incrBy(arg(args, 1, 2), -1);
+            case "INCRBY":
+                checkArity(args, 3);
+                return incrBy(args.get(1), parseLong(args.get(2)));
+            case "DECRBY":
+                checkArity(args, 3);
+                return incrBy(args.get(1), -parseLong(args.get(2)));
+            case "INCRBYFLOAT":
+                checkArity(args, 3);
+                return incrByFloat(args.get(1), parseDouble(args.get(2)));
+            case "STRLEN":
+                byte[] value = string(arg(args, 1, 2));
+                return (long) (value == null ? 0 : value.length);
+            case "APPEND":
+                return append(args);
+            case "SETBIT":
+                return setbit(args);
+            case "GETBIT":
+                return getbit(args);
+            case "BITCOUNT":
+                return bitcount(arg(args, 1, 2));
+
+            // Hash
+            case "HSET":
+            case "HMSET":
+                return hset(args, name.equals("HMSET"));
+            case "HSETNX":
+                return hsetnx(args);
+            case "HGET":
+                return hget(args);
+            case "HMGET":
+                return hmget(args);
+            case "HGETALL":
+                return hgetall(arg(args, 1, 2));
+            case "HDEL":
+                return hdel(args);
+            case "HEXISTS":
+                checkArity(args, 3);
+                Map<String, String> hash = hash(args.get(1), false);
+                return hash != null && hash.containsKey(args.get(2)) ? 1L : 0L;
+            case "HLEN":
+                Map<String, String> lenHash = hash(arg(args, 1, 2), false);
+                return (long) (lenHash == null ? 0 : lenHash.size());
+            case "HKEYS":
+                Map<String, String> keysHash = hash(arg(args, 1, 2), false);
+                return keysHash == null ? new ArrayList<>() : new ArrayList<>(keysHash.keySet());
+            case "HVALS":
+                Map<String, String> valsHash = hash(arg(args, 1, 2), false);
+                return valsHash == null ? new ArrayList<>() : new ArrayList<>(valsHash.values());
+            case "HINCRBY":
+                return hincrBy(args);
+            case "HINCRBYFLOAT":
+                return hincrByFloat(args);
+
+            // List
+            case "LPUSH":
+                return push(args, true);
+            case "RPUSH":
+                return push(args, false);
+            case "LPOP":
+                return pop(args, true);
+            case "RPOP":
+                return pop(args, false);
+            case "LLEN":
+                List<String> lenList = list(arg(args, 1, 2), false);
+                return (long) (lenList == null ? 0 : lenList.size());
+            case "LRANGE":
+                return lrange(args);
+            case "LINDEX":
+                return lindex(args);
+            case "LTRIM":
+                return ltrim(args);
+            case "LREM":
+                return lrem(args);
+
+            // Set
+            case "SADD":
+                return sadd(args);
+            case "SREM":
+                return srem(args);
+            case "SMEMBERS":
+                NavigableSet<String> members = set(arg(args, 1, 2), false);
+                return members == null ? new LinkedHashSet<>() : new LinkedHashSet<>(members);
+            case "SISMEMBER":
+                checkArity(args, 3);
+                NavigableSet<String> checked = set(args.get(1), false);
+                return checked != null && checked.contains(args.get(2)) ? 1L : 0L;
+            case "SMISMEMBER":
+                return smismember(args);
+            case "SCARD":
+                NavigableSet<String> counted = set(arg(args, 1, 2), false);
+                return (long) (counted == null ? 0 : counted.size());
+            case "SINTER":
+                return new LinkedHashSet<>(setAlgebra(args.subList(1, args.size()), "SINTER"));
+            case "SUNION":
+                return new LinkedHashSet<>(setAlgebra(args.subList(1, args.size()), "SUNION"));
+            case "SDIFF":
+                return new LinkedHashSet<>(setAlgebra(args.subList(1, args.size()), "SDIFF"));
+            case "SINTERSTORE":
+            case "SUNIONSTORE":
+            case "SDIFFSTORE":
+                return setAlgebraStore(args, name.substring(0, name.length() - 5));
+            case "SSCAN":
+                return sscan(args);
+
+            // Sorted set
+            case "ZADD":
+                return zadd(args);
+            case "ZINCRBY":
+                return zincrby(args);
+            case "ZSCORE":
+                return zscore(args);
+            case "ZCARD":
+                SortedSet cardinality = zset(arg(args, 1, 2), false);
+                return (long) (cardinality == null ? 0 : cardinality.scores.size());
+            case "ZRANK":
+                return zrank(args, false);
+            case "ZREVRANK":
+                return zrank(args, true);
+            case "ZRANGE":
+                return zrange(args, false);
+            case "ZREVRANGE":
+                return zrange(args, true);
+            case "ZRANGEBYSCORE":
+                return zrangeByScore(args, false);
+            case "ZREVRANGEBYSCORE":
+                return zrangeByScore(args, true);
+            case "ZCOUNT":
+                return zcount(args);
+            case "ZREM":
+                return zrem(args);
+            case "ZUNIONSTORE":
+                return zunionstore(args);
+
+            // Stream
+            case "XADD":
+                return xadd(args);
+            case "XLEN":
+                RedisStream lenStream = stream(arg(args, 1, 2), false);
+                return (long) (lenStream == null ? 0 : lenStream.entries.size());
+            case "XDEL":
+                return xdel(args);
+            case "XRANGE":
+                return xrange(args);
+            case "XGROUP":
+                return xgroup(args);
+            case "XREADGROUP":
+                return xreadgroup(args);
+            case "XACK":
+                return xack(args);
+            case "XAUTOCLAIM":
+                return xautoclaim(args);
+            case "XPENDING":
+                return xpending(args);
+
+            // HyperLogLog
+            case "PFADD":
+                return pfadd(args);
+            case "PFCOUNT":
+                return pfcount(args);
+            case "PFMERGE":
+                return pfmerge(args);
+
+            default:
+                throw new RedisError("ERR unknown command '" + args.get(0) + "'");
+        }
+    }
+
+    /**
+     * Gọi một lệnh từ script mô phỏng, tương đương redis.call
+     */
+    public Object call(String... args) {
+        return execute(Arrays.asList(args));
+    }
+
+    /**
+     * Xóa các key đã hết hạn và phát sự kiện "expired", như cơ chế active expiry của Redis
+     */
+    public synchronized void expireDue() {
+        long now = clock.getAsLong();
+        Iterator<Map.Entry<String, Entry>> iterator = keyspace.entrySet().iterator();
+        List<String> expired = new ArrayList<>();
+        while (iterator.hasNext()) {
+            Map.Entry<String, Entry> entry = iterator.next();
+            if (entry.getValue().expiresAt != 0 && entry.getValue().expiresAt <= now) {
+                iterator.remove();
+                expired.add(entry.getKey());
+            }
+        }
+        for (String key : expired) {
+            listener.onEvent("expired", key);
+        }
+    }
+
+    // ----- Keyspace -----
+
+    private Entry entry(String key) {
+        return entry(key, true);
+    }
+
+    /**
+     * @param touch Tăng bộ đếm LFU của key; OBJECT FREQ đọc mà không tính là một lần truy cập
+     */
+    private Entry entry(String key, boolean touch) {
+        Entry entry = keyspace.get(key);
+        if (entry != null && entry.expiresAt != 0 && entry.expiresAt <= clock.getAsLong()) {
+            keyspace.remove(key);
+            listener.onEvent("expired", key);
+            return null;
+        }
+        if (entry != null && touch) {
+            incrementFrequency(entry);
+        }
+        return entry;
+    }
+
+    /**
+     * Tăng bộ đếm LFU 8 bit theo xác suất 1 / ((counter - LFU_INIT_VAL) * LFU_LOG_FACTOR + 1),
+     * như LFULogIncr của Redis: key càng nóng thì bộ đếm càng khó tăng
+     */
+    private static void incrementFrequency(Entry entry) {
+        if (entry.frequency >= 255) {
+            return;
+        }
+        double base = Math.max(0, entry.frequency - LFU_INIT_VAL);
+        if (ThreadLocalRandom.current().nextDouble() < 1.0 / (base * LFU_LOG_FACTOR + 1)) {
+            entry.frequency++;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T typed(String key, Class<T> type, boolean create, java.util.function.Supplier<T> factory) {
+        Entry entry = entry(key);
+        if (entry == null) {
+            if (!create) {
+                return null;
+            }
+            T value = factory.get();
+            keyspace.put(key, new Entry(value));
+            return value;
+        }
+        if (!type.isInstance(entry.value)) {
+            throw new RedisError("WRONGTYPE Operation against a key holding the wrong kind of value");
+        }
+        return (T) entry.value;
+    }
+
+    private byte[] string(String key) {
+        return typed(key, byte[].class, false, null);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, String> hash(String key, boolean create) {
+        return typed(key, LinkedHashMap.class, create, LinkedHashMap::new);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<String> list(String key, boolean create) {
+        return typed(key, ArrayList.class, create, ArrayList::new);
+    }
+
+    @SuppressWarnings("unchecked")
+    private NavigableSet<String> set(String key, boolean create) {
+        return typed(key, TreeSet.class, create, TreeSet::new);
+    }
+
+    private SortedSet zset(String key, boolean create) {
+        return typed(key, SortedSet.class, create, SortedSet::new);
+    }
+
+    private HyperLogLog hll(String key, boolean create) {
+        return typed(key, HyperLogLog.class, create, HyperLogLog::new);
+    }
+
+    private RedisStream stream(String key, boolean create) {
+        return typed(key, RedisStream.class, create, RedisStream::new);
+    }
+
+    /**
+     * Xóa key nếu collection đã rỗng, như Redis tự xóa hash/list/set không còn phần tử
+     */
+    private void removeIfEmpty(String key, Collection<?> collection) {
+        if (collection.isEmpty()) {
+            keyspace.remove(key);
+        }
+    }
+
+    private void removeIfEmpty(String key, Map<?, ?> map) {
+        if (map.isEmpty()) {
+            keyspace.remove(key);
+        }
+    }
+
+    private void putString(String key, byte[] value, long expiresAt) {
+        Entry entry = new Entry(value);
+        entry.expiresAt = expiresAt;
+        // Ghi đè giữ lại bộ đếm LFU như Redis
+        Entry previous = keyspace.put(key, entry);
+        if (previous != null) {
+            entry.frequency = previous.frequency;
+        }
+        incrementFrequency(entry);
+    }
+
+    private String type(String key) {
+        Entry entry = entry(key);
+        return entry == null ? "none" : typeName(entry.value);
+    }
+
+    private static String typeName(Object value) {
+        if (value instanceof byte[] || value instanceof HyperLogLog) {
+            return "string";
+        } else if (value instanceof LinkedHashMap) {
+            return "hash";
+        } else if (value instanceof ArrayList) {
+            return "list";
+        } else if (value instanceof TreeSet) {
+            return "set";
+        } else if (value instanceof RedisStream) {
+            return "stream";
+        }
+        return "zset";
+    }
+
+    private Object del(List<String> args) {
+        checkMinArity(args, 2);
+        long removed = 0;
+        for (String key : args.subList(1, args.size())) {
+            if (entry(key) != null) {
+                keyspace.remove(key);
+                listener.onEvent("del", key);
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    private Object rename(List<String> args) {
+        checkMinArity(args, 3);
+        Entry entry = entry(args.get(1));
+        if (entry == null) {
+            throw new RedisError("ERR no such key");
+        }
+        keyspace.remove(args.get(1));
+        keyspace.put(args.get(2), entry);
+        listener.onEvent("rename_from", args.get(1));
+        listener.onEvent("rename_to", args.get(2));
+        return Status.OK;
+    }
+
+    private Object exists(List<String> args) {
+        checkMinArity(args, 2);
+        long count = 0;
+        for (String key : args.subList(1, args.size())) {
+            if (entry(key) != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private Object expire(List<String> args, long unitMillis) {
+        checkMinArity(args, 3);
+        Entry entry = entry(args.get(1));
+        if (entry == null) {
+            return 0L;
+        }
+        long amount = parseLong(args.get(2));
+        if (amount <= 0) {
+            keyspace.remove(args.get(1));
+            listener.onEvent("del", args.get(1));
+            return 1L;
+        }
+        entry.expiresAt = clock.getAsLong() + amount * unitMillis;
+        listener.onEvent("expire", args.get(1));
+        return 1L;
+    }
+
+    private Object ttl(String key, long unitMillis) {
+        Entry entry = entry(key);
+        if (entry == null) {
+            return -2L;
+        }
+        if (entry.expiresAt == 0) {
+            return -1L;
+        }
+        long remaining = entry.expiresAt - clock.getAsLong();
+        // Làm tròn lên như Redis để TTL không về 0 khi key còn sống
+        return (remaining + unitMillis - 1) / unitMillis;
+    }
+
+    private Object persist(String key) {
+        Entry entry = entry(key);
+        if (entry == null || entry.expiresAt == 0) {
+            return 0L;
+        }
+        entry.expiresAt = 0;
+        return 1L;
+    }
+
+    /**
+     * SCAN với cursor là key cuối cùng đã trả về: key tồn tại suốt quá trình duyệt luôn
+     * được trả về đúng một lần, kể cả khi keyspace thay đổi
+     */
+    private Object scan(List<String> args) {
+        checkMinArity(args, 2);
+        String pattern = null;
+        String type = null;
+        int count = 10;
+        for (int i = 2; i + 1 < args.size(); i += 2) {
+            String option = args.get(i).toUpperCase(Locale.ROOT);
+            if (option.equals("MATCH")) {
+                pattern = args.get(i + 1);
+            } else if (option.equals("COUNT")) {
+                count = (int) parseLong(args.get(i + 1));
+            } else if (option.equals("TYPE")) {
+                type = args.get(i + 1).toLowerCase(Locale.ROOT);
+            } else {
+                throw new RedisError("ERR syntax error");
+            }
+        }
+
+        long cursor = parseLong(args.get(1));
+        String after = cursor == 0 ? null : scanCursors.remove(cursor);
+        NavigableMap<String, Entry> remaining = after == null ? keyspace : keyspace.tailMap(after, false);
+        if (cursor != 0 && after == null) {
+            remaining = Collections.emptyNavigableMap();
+        }
+
+        long now = clock.getAsLong();
+        List<String> keys = new ArrayList<>();
+        String last = null;
+        int visited = 0;
+        for (Map.Entry<String, Entry> entry : remaining.entrySet()) {
+            if (visited++ == count) {
+                break;
+            }
+            last = entry.getKey();
+            Entry value = entry.getValue();
+            if (value.expiresAt != 0 && value.expiresAt <= now) {
+                continue;
+            }
+            if (pattern != null && !GlobMatcher.matches(pattern, last)) {
+                continue;
+            }
+            if (type != null && !type.equals(typeName(value.value))) {
+                continue;
+            }
+            keys.add(last);
+        }
+
+        String nextCursor = "0";
+        if (last != null && remaining.higherKey(last) != null) {
+            long id = this.nextCursor++;
+            scanCursors.put(id, last);
+            nextCursor = String.valueOf(id);
+        }
+        return Arrays.asList(nextCursor, keys);
+    }
+
+    private Object keys(String pattern) {
+        long now = clock.getAsLong();
+        List<String> result = new ArrayList<>();
+        for (Map.Entry<String, Entry> entry : keyspace.entrySet()) {
+            Entry value = entry.getValue();
+            if ((value.expiresAt == 0 || value.expiresAt > now) && GlobMatcher.matches(pattern, entry.getKey())) {
+                result.add(entry.getKey());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * MEMORY USAGE: ước lượng thô dựa trên kích thước dữ liệu
+     */
+    private Object object(List<String> args) {
+        checkMinArity(args, 3);
+        if (!args.get(1).equalsIgnoreCase("FREQ")) {
+            throw new RedisError("ERR unknown subcommand '" + args.get(1) + "'");
+        }
+        Entry entry = entry(args.get(2), false);
+        return entry == null ? null : (long) entry.frequency;
+    }
+
+    private Object memory(List<String> args) {
+        checkMinArity(args, 3);
+        if (!args.get(1).equalsIgnoreCase("USAGE")) {
+            throw new RedisError("ERR unknown subcommand '" + args.get(1) + "'");
+        }
+        Entry entry = entry(args.get(2));
+        if (entry == null) {
+            return null;
+        }
+        long overhead = 56 + args.get(2).length();
+        Object value = entry.value;
+        if (value instanceof byte[]) {
+            return overhead + ((byte[]) value).length;
+        } else if (value instanceof HyperLogLog) {
+            // HyperLogLog dạng dense của Redis có kích thước cố định
+            return overhead + 12304;
+        } else if (value instanceof Map) {
+            long size = overhead;
+            for (Map.Entry<?, ?> field : ((Map<?, ?>) value).entrySet()) {
+                size += 16 + field.getKey().toString().length() + field.getValue().toString().length();
+            }
+            return size;
+        } else if (value instanceof SortedSet) {
+            long size = overhead;
+            for (String member : ((SortedSet) value).scores.keySet()) {
+                size += 32 + member.length();
+            }
+            return size;
+        } else if (value instanceof RedisStream) {
+            long size = overhead;
+            for (List<String> fields : ((RedisStream) value).entries.values()) {
+                size += 16;
+                for (String field : fields) {
+                    size += field.length();
+                }
+            }
+            return size;
+        }
+        long size = overhead;
+        for (Object item : (Collection<?>) value) {
+            size += 16 + item.toString().length();
+        }
+        return size;
+    }
+
+    // ----- String -----
+
+    private Object get(String key) {
+        Entry entry = entry(key);
+        if (entry == null) {
+            return null;
+        }
+        if (!(entry.value instanceof byte[])) {
+            throw new RedisError("WRONGTYPE Operation against a key holding the wrong kind of value");
+        }
+        return ((byte[]) entry.value).clone();
+    }
+
+    private Object set(List<String> args) {
+        checkMinArity(args, 3);
+        String key = args.get(1);
+        boolean nx = false;
+        boolean xx = false;
+        boolean keepTtl = false;
+        boolean returnOld = false;
+        long expiresAt = 0;
+        for (int i = 3; i < args.size(); i++) {
+            String option = args.get(i).toUpperCase(Locale.ROOT);
+            switch (option) {
+                case "NX":
+                    nx = true;
+                    break;
+                case "XX":
+                    xx = true;
+                    break;
+                case "KEEPTTL":
+                    keepTtl = true;
+                    break;
+                case "GET":
+                    returnOld = true;
+                    break;
+                case "EX":
+                case "PX":
+                case "EXAT":
+                case "PXAT":
+                    if (i + 1 >= args.size()) {
+                        throw new RedisError("ERR syntax error");
+                    }
+                    long amount = parseLong(args.get(++i));
+                    if (amount <= 0) {
+                        throw new RedisError("ERR invalid expire time in 'set' command");
+                    }
+                    long now = clock.getAsLong();
+                    expiresAt = option.equals("EX") ? now + amount * 1000
+                            : option.equals("PX") ? now + amount
+                            : option.equals("EXAT") ? amount * 1000 : amount;
+                    break;
+                default:
+                    throw new RedisError("ERR syntax error");
+            }
+        }
+
+        Entry existing = entry(key);
+        Object old = returnOld ? get(key) : null;
+        if ((nx && existing != null) || (xx && existing == null)) {
+            return returnOld ? old : null;
+        }
+        if (keepTtl && existing != null) {
+            expiresAt = existing.expiresAt;
+        }
+        putString(key, bytes(args.get(2)), expiresAt);
+        listener.onEvent("set", key);
+        return returnOld ? old : Status.OK;
+    }
+
+    private Object setWithTtl(List<String> args, long unitMillis) {
+        checkArity(args, 4);
+        long amount = parseLong(args.get(2));
+        if (amount <= 0) {
+            throw new RedisError("ERR invalid expire time in '" + args.get(0).toLowerCase(Locale.ROOT) + "' command");
+        }
+        putString(args.get(1), bytes(args.get(3)), clock.getAsLong() + amount * unitMillis);
+        listener.onEvent("set", args.get(1));
+        return Status.OK;
+    }
+
+    private Object setnx(List<String> args) {
+        checkArity(args, 3);
+        if (entry(args.get(1)) != null) {
+            return 0L;
+        }
+        putString(args.get(1), bytes(args.get(2)), 0);
+        listener.onEvent("set", args.get(1));
+        return 1L;
+    }
+
+    private Object getdel(String key) {
+        Object value = get(key);
+        if (value != null) {
+            keyspace.remove(key);
+            listener.onEvent("del", key);
+        }
+        return value;
+    }
+
+    private Object mget(List<String> args) {
+        checkMinArity(args, 2);
+        List<Object> values = new ArrayList<>(args.size() - 1);
+        for (String key : args.subList(1, args.size())) {
+            Entry entry = entry(key);
+            values.add(entry != null && entry.value instanceof byte[] ? ((byte[]) entry.value).clone() : null);
+        }
+        return values;
+    }
+
+    private Object mset(List<String> args) {
+        if (args.size() < 3 || args.size() % 2 == 0) {
+            throw wrongArity(args);
+        }
+        for (int i = 1; i < args.size(); i += 2) {
+            putString(args.get(i), bytes(args.get(i + 1)), 0);
+            listener.onEvent("set", args.get(i));
+        }
+        return Status.OK;
+    }
+
+    private Object incrBy(String key, long delta) {
+        Entry entry = entry(key);
+        long current = 0;
+        if (entry != null) {
+            if (!(entry.value instanceof byte[])) {
+                throw new RedisError("WRONGTYPE Operation against a key holding the wrong kind of value");
+            }
+            current = parseInteger(text((byte[]) entry.value));
+        }
+        long updated;
+        try {
+            updated = Math.addExact(current, delta);
+        } catch (ArithmeticException e) {
+            throw new RedisError("ERR increment or decrement would overflow");
+        }
+        if (entry == null) {
+            putString(key, bytes(String.valueOf(updated)), 0);
+        } else {
+            // INCR giữ nguyên TTL của key
+            entry.value = bytes(String.valueOf(updated));
+        }
+        listener.onEvent("incrby", key);
+        return updated;
+    }
+
+    private Object incrByFloat(String key, double delta) {
+        Entry entry = entry(key);
+        double current = 0;
+        if (entry != null) {
+            if (!(entry.value instanceof byte[])) {
+                throw new RedisError("WRONGTYPE Operation against a key holding the wrong kind of value");
+            }
+            current = parseDouble(text((byte[]) entry.value));
+        }
+        String updated = formatDouble(current + delta);
+        if (entry == null) {
+            putString(key, bytes(updated), 0);
+        } else {
+            entry.value = bytes(updated);
+        }
+        listener.onEvent("incrbyfloat", key);
+        return bytes(updated);
+    }
+
+    private Object append(List<String> args) {
+        checkArity(args, 3);
+        Entry entry = entry(args.get(1));
+        byte[] suffix = bytes(args.get(2));
+        if (entry == null) {
+            putString(args.get(1), suffix, 0);
+            return (long) suffix.length;
+        }
+        byte[] current = string(args.get(1));
+        byte[] combined = Arrays.copyOf(current, current.length + suffix.length);
+        System.arraycopy(suffix, 0, combined, current.length, suffix.length);
+        entry.value = combined;
+        listener.onEvent("append", args.get(1));
+        return (long) combined.length;
+    }
+
+    private Object setbit(List<String> args) {
+        checkArity(args, 4);
+        long offset = parseLong(args.get(2));
+        if (offset < 0 || offset >= (1L << 32)) {
+            throw new RedisError("ERR bit offset is not an integer or out of range");
+        }
+        String bitArg = args.get(3);
+        if (!bitArg.equals("0") && !bitArg.equals("1")) {
+            throw new RedisError("ERR bit is not an integer or out of range");
+        }
+
+        Entry entry = entry(args.get(1));
+        byte[] bits = entry == null ? EMPTY : string(args.get(1));
+        int byteIndex = (int) (offset >>> 3);
+        if (byteIndex >= bits.length) {
+            bits = Arrays.copyOf(bits, byteIndex + 1);
+        }
+        // Bitmap của Redis đánh số bit từ bit cao nhất của mỗi byte
+        int mask = 0x80 >>> (offset & 7);
+        long previous = (bits[byteIndex] & mask) != 0 ? 1 : 0;
+        if (bitArg.equals("1")) {
+            bits[byteIndex] |= mask;
+        } else {
+            bits[byteIndex] &= ~mask;
+        }
+        if (entry == null) {
+            putString(args.get(1), bits, 0);
+        } else {
+            entry.value = bits;
+        }
+        listener.onEvent("setbit", args.get(1));
+        return previous;
+    }
+
+    private Object getbit(List<String> args) {
+        checkArity(args, 3);
+        long offset = parseLong(args.get(2));
+        byte[] bits = string(args.get(1));
+        if (bits == null || (offset >>> 3) >= bits.length) {
+            return 0L;
+        }
+        return (bits[(int) (offset >>> 3)] & (0x80 >>> (offset & 7))) != 0 ? 1L : 0L;
+    }
+
+    private Object bitcount(String key) {
+        byte[] bits = string(key);
+        long count = 0;
+        if (bits != null) {
+            for (byte b : bits) {
+                count += Integer.bitCount(b & 0xff);
+            }
+        }
+        return count;
+    }
+
+    // ----- Hash -----
+
+    private Object hset(List<String> args, boolean legacy) {
+        if (args.size() < 4 || args.size() % 2 != 0) {
+            throw wrongArity(args);
+        }
+        Map<String, String> hash = hash(args.get(1), true);
+        long added = 0;
+        for (int i = 2; i < args.size(); i += 2) {
+            if (hash.put(args.get(i), args.get(i + 1)) == null) {
+                added++;
+            }
+        }
+        listener.onEvent("hset", args.get(1));
+        return legacy ? Status.OK : (Object) added;
+    }
+
+    private Object hsetnx(List<String> args) {
+        checkArity(args, 4);
+        Map<String, String> hash = hash(args.get(1), true);
+        if (hash.containsKey(args.get(2))) {
+            return 0L;
+        }
+        hash.put(args.get(2), args.get(3));
+        listener.onEvent("hset", args.get(1));
+        return 1L;
+    }
+
+    private Object hget(List<String> args) {
+        checkArity(args, 3);
+        Map<String, String> hash = hash(args.get(1), false);
+        return hash == null ? null : hash.get(args.get(2));
+    }
+
+    private Object hmget(List<String> args) {
+        checkMinArity(args, 3);
+        Map<String, String> hash = hash(args.get(1), false);
+        List<Object> values = new ArrayList<>(args.size() - 2);
+        for (String field : args.subList(2, args.size())) {
+            values.add(hash == null ? null : hash.get(field));
+        }
+        return values;
+    }
+
+    private Object hgetall(String key) {
+        Map<String, String> hash = hash(key, false);
+        return hash == null ? new LinkedHashMap<>() : new LinkedHashMap<>(hash);
+    }
+
+    private Object hdel(List<String> args) {
+        checkMinArity(args, 3);
+        Map<String, String> hash = hash(args.get(1), false);
+        if (hash == null) {
+            return 0L;
+        }
+        long removed = 0;
+        for (String field : args.subList(2, args.size())) {
+            if (hash.remove(field) != null) {
+                removed++;
+            }
+        }
+        removeIfEmpty(args.get(1), hash);
+        listener.onEvent("hdel", args.get(1));
+        return removed;
+    }
+
+    private Object hincrBy(List<String> args) {
+        checkArity(args, 4);
+        Map<String, String> hash = hash(args.get(1), true);
+        String current = hash.get(args.get(2));
+        long updated;
+        try {
+            updated = Math.addExact(current == null ? 0 : parseInteger(current), parseLong(args.get(3)));
+        } catch (ArithmeticException e) {
+            throw new RedisError("ERR increment or decrement would overflow");
+        }
+        hash.put(args.get(2), String.valueOf(updated));
+        listener.onEvent("hincrby", args.get(1));
+        return updated;
+    }
+
+    private Object hincrByFloat(List<String> args) {
+        checkArity(args, 4);
+        Map<String, String> hash = hash(args.get(1), true);
+        String current = hash.get(args.get(2));
+        String updated = formatDouble((current == null ? 0 : parseDouble(current)) + parseDouble(args.get(3)));
+        hash.put(args.get(2), updated);
+        listener.onEvent("hincrbyfloat", args.get(1));
+        return updated;
+    }
+
+    // ----- List -----
+
+    private Object push(List<String> args, boolean head) {
+        checkMinArity(args, 3);
+        List<String> list = list(args.get(1), true);
+        for (String value : args.subList(2, args.size())) {
+            if (head) {
+                list.add(0, value);
+            } else {
+                list.add(value);
+            }
+        }
+        listener.onEvent(head ? "lpush" : "rpush", args.get(1));
+        return (long) list.size();
+    }
+
+    private Object pop(List<String> args, boolean head) {
+        checkMinArity(args, 2);
+        List<String> list = list(args.get(1), false);
+        boolean withCount = args.size() > 2;
+        if (list == null) {
+            return null;
+        }
+        int count = withCount ? (int) parseLong(args.get(2)) : 1;
+        List<String> popped = new ArrayList<>();
+        for (int i = 0; i < count && !list.isEmpty(); i++) {
+            popped.add(head ? list.remove(0) : list.remove(list.size() - 1));
+        }
+        removeIfEmpty(args.get(1), list);
+        listener.onEvent(head ? "lpop" : "rpop", args.get(1));
+        return withCount ? popped : popped.get(0);
+    }
+
+    private Object lrange(List<String> args) {
+        checkArity(args, 4);
+        List<String> list = list(args.get(1), false);
+        if (list == null) {
+            return new ArrayList<>();
+        }
+        int[] range = range(parseLong(args.get(2)), parseLong(args.get(3)), list.size());
+        return range == null ? new ArrayList<>() : new ArrayList<>(list.subList(range[0], range[1] + 1));
+    }
+
+    private Object lindex(List<String> args) {
+        checkArity(args, 3);
+        List<String> list = list(args.get(1), false);
+        if (list == null) {
+            return null;
+        }
+        long index = parseLong(args.get(2));
+        if (index < 0) {
+            index += list.size();
+        }
+        return index < 0 || index >= list.size() ? null : list.get((int) index);
+    }
+
+    private Object ltrim(List<String> args) {
+        checkArity(args, 4);
+        List<String> list = list(args.get(1), false);
+        if (list == null) {
+            return Status.OK;
+        }
+        int[] range = range(parseLong(args.get(2)), parseLong(args.get(3)), list.size());
+        if (range == null) {
+            list.clear();
+        } else {
+            List<String> kept = new ArrayList<>(list.subList(range[0], range[1] + 1));
+            list.clear();
+            list.addAll(kept);
+        }
+        removeIfEmpty(args.get(1), list);
+        listener.onEvent("ltrim", args.get(1));
+        return Status.OK;
+    }
+
+    private Object lrem(List<String> args) {
+        checkArity(args, 4);
+        List<String> list = list(args.get(1), false);
+        if (list == null) {
+            return 0L;
+        }
+        long count = parseLong(args.get(2));
+        String value = args.get(3);
+        long removed = 0;
+        if (count >= 0) {
+            Iterator<String> iterator = list.iterator();
+            while (iterator.hasNext() && (count == 0 || removed < count)) {
+                if (iterator.next().equals(value)) {
+                    iterator.remove();
+                    removed++;
+                }
+            }
+        } else {
+            for (int i = list.size() - 1; i >= 0 && removed < -count; i--) {
+                if (list.get(i).equals(value)) {
+                    list.remove(i);
+                    removed++;
+                }
+            }
+        }
+        removeIfEmpty(args.get(1), list);
+        listener.onEvent("lrem", args.get(1));
+        return removed;
+    }
+
+    // ----- Set -----
+
+    private Object sadd(List<String> args) {
+        checkMinArity(args, 3);
+        NavigableSet<String> set = set(args.get(1), true);
+        long added = 0;
+        for (String member : args.subList(2, args.size())) {
+            if (set.add(member)) {
+                added++;
+            }
+        }
+        listener.onEvent("sadd", args.get(1));
+        return added;
+    }
+
+    private Object srem(List<String> args) {
+        checkMinArity(args, 3);
+        NavigableSet<String> set = set(args.get(1), false);
+        if (set == null) {
+            return 0L;
+        }
+        long removed = 0;
+        for (String member : args.subList(2, args.size())) {
+            if (set.remove(member)) {
+                removed++;
+            }
+        }
+        removeIfEmpty(args.get(1), set);
+        listener.onEvent("srem", args.get(1));
+        return removed;
+    }
+
+    private Object smismember(List<String> args) {
+        checkMinArity(args, 3);
+        NavigableSet<String> set = set(args.get(1), false);
+        List<Long> result = new ArrayList<>(args.size() - 2);
+        for (String member : args.subList(2, args.size())) {
+            result.add(set != null && set.contains(member) ? 1L : 0L);
+        }
+        return result;
+    }
+
+    private Set<String> setAlgebra(List<String> keys, String operation) {
+        if (keys.isEmpty()) {
+            throw new RedisError("ERR wrong number of arguments for '" + operation.toLowerCase(Locale.ROOT) + "' command");
+        }
+        NavigableSet<String> first = set(keys.get(0), false);
+        Set<String> result = first == null ? new TreeSet<>() : new TreeSet<>(first);
+        for (String key : keys.subList(1, keys.size())) {
+            NavigableSet<String> other = set(key, false);
+            Set<String> members = other == null ? Collections.emptySet() : other;
+            if (operation.equals("SINTER")) {
+                result.retainAll(members);
+            } else if (operation.equals("SUNION")) {
+                result.addAll(members);
+            } else {
+                result.removeAll(members);
+            }
+        }
+        return result;
+    }
+
+    private Object setAlgebraStore(List<String> args, String operation) {
+        checkMinArity(args, 3);
+        Set<String> result = setAlgebra(args.subList(2, args.size()), operation);
+        keyspace.remove(args.get(1));
+        if (!result.isEmpty()) {
+            set(args.get(1), true).addAll(result);
+        }
+        listener.onEvent(operation.toLowerCase(Locale.ROOT) + "store", args.get(1));
+        return (long) result.size();
+    }
+
+    /**
+     * SSCAN với cursor là vị trí trong thứ tự sắp xếp của phần tử
+     */
+    private Object sscan(List<String> args) {
+        checkMinArity(args, 3);
+        String pattern = null;
+        int count = 10;
+        for (int i = 3; i + 1 < args.size(); i += 2) {
+            String option = args.get(i).toUpperCase(Locale.ROOT);
+            if (option.equals("MATCH")) {
+                pattern = args.get(i + 1);
+            } else if (option.equals("COUNT")) {
+                count = (int) parseLong(args.get(i + 1));
+            } else {
+                throw new RedisError("ERR syntax error");
+            }
+        }
+
+        NavigableSet<String> set = set(args.get(1), false);
+        long cursor = parseLong(args.get(2));
+        String after = cursor == 0 ? null : scanCursors.remove(cursor);
+        if (set == null || (cursor != 0 && after == null)) {
+            return Arrays.asList("0", new ArrayList<>());
+        }
+
+        NavigableSet<String> remaining = after == null ? set : set.tailSet(after, false);
+        List<String> members = new ArrayList<>();
+        String last = null;
+        int visited = 0;
+        for (String member : remaining) {
+            if (visited++ == count) {
+                break;
+            }
+            last = member;
+            if (pattern == null || GlobMatcher.matches(pattern, member)) {
+                members.add(member);
+            }
+        }
+
+        String nextCursor = "0";
+        if (last != null && remaining.higher(last) != null) {
+            long id = this.nextCursor++;
+            scanCursors.put(id, last);
+            nextCursor = String.valueOf(id);
+        }
+        return Arrays.asList(nextCursor, members);
+    }
+
+    // ----- Sorted set -----
+
+    private Object zadd(List<String> args) {
+        checkMinArity(args, 4);
+        boolean nx = false;
+        boolean xx = false;
+        boolean changed = false;
+        boolean incr = false;
+        int i = 2;
+        for (; i < args.size(); i++) {
+            String option = args.get(i).toUpperCase(Locale.ROOT);
+            if (option.equals("NX")) {
+                nx = true;
+            } else if (option.equals("XX")) {
+                xx = true;
+            } else if (option.equals("CH")) {
+                changed = true;
+            } else if (option.equals("INCR")) {
+                incr = true;
+            } else {
+                break;
+            }
+        }
+        if ((args.size() - i) % 2 != 0 || i == args.size()) {
+            throw new RedisError("ERR syntax error");
+        }
+
+        SortedSet zset = zset(args.get(1), true);
+        long count = 0;
+        Double last = null;
+        for (; i < args.size(); i += 2) {
+            double score = parseDouble(args.get(i));
+            String member = args.get(i + 1);
+            Double existing = zset.scores.get(member);
+            if ((nx && existing != null) || (xx && existing == null)) {
+                continue;
+            }
+            double updated = incr && existing != null ? existing + score : score;
+            zset.put(member, updated);
+            last = updated;
+            if (existing == null || (changed && existing != updated)) {
+                count++;
+            }
+        }
+        removeIfEmpty(args.get(1), zset.scores);
+        listener.onEvent("zadd", args.get(1));
+        if (incr) {
+            return last;
+        }
+        return count;
+    }
+
+    private Object zincrby(List<String> args) {
+        checkArity(args, 4);
+        SortedSet zset = zset(args.get(1), true);
+        Double existing = zset.scores.get(args.get(3));
+        double updated = (existing == null ? 0 : existing) + parseDouble(args.get(2));
+        zset.put(args.get(3), updated);
+        listener.onEvent("zincr", args.get(1));
+        return updated;
+    }
+
+    private Object zscore(List<String> args) {
+        checkArity(args, 3);
+        SortedSet zset = zset(args.get(1), false);
+        return zset == null ? null : zset.scores.get(args.get(2));
+    }
+
+    private Object zrank(List<String> args, boolean reverse) {
+        checkArity(args, 3);
+        SortedSet zset = zset(args.get(1), false);
+        if (zset == null || !zset.scores.containsKey(args.get(2))) {
+            return null;
+        }
+        long rank = zset.rank(args.get(2));
+        return reverse ? zset.scores.size() - 1 - rank : rank;
+    }
+
+    private Object zrange(List<String> args, boolean reverse) {
+        checkMinArity(args, 4);
+        boolean withScores = args.size() > 4 && args.get(4).equalsIgnoreCase("WITHSCORES");
+        SortedSet zset = zset(args.get(1), false);
+        if (zset == null) {
+            return new ArrayList<>();
+        }
+        int size = zset.scores.size();
+        int[] range = range(parseLong(args.get(2)), parseLong(args.get(3)), size);
+        if (range == null) {
+            return new ArrayList<>();
+        }
+        List<String> members;
+        if (reverse) {
+            members = zset.range(size - 1 - range[1], size - 1 - range[0]);
+            Collections.reverse(members);
+        } else {
+            members = zset.range(range[0], range[1]);
+        }
+        return withScores(zset, members, withScores);
+    }
+
+    private Object zrangeByScore(List<String> args, boolean reverse) {
+        checkMinArity(args, 4);
+        // ZREVRANGEBYSCORE nhận max trước min
+        String minArg = reverse ? args.get(3) : args.get(2);
+        String maxArg = reverse ? args.get(2) : args.get(3);
+        boolean withScores = false;
+        int offset = 0;
+        int limit = -1;
+        for (int i = 4; i < args.size(); i++) {
+            String option = args.get(i).toUpperCase(Locale.ROOT);
+            if (option.equals("WITHSCORES")) {
+                withScores = true;
+            } else if (option.equals("LIMIT") && i + 2 < args.size()) {
+                offset = (int) parseLong(args.get(++i));
+                limit = (int) parseLong(args.get(++i));
+            } else {
+                throw new RedisError("ERR syntax error");
+            }
+        }
+
+        SortedSet zset = zset(args.get(1), false);
+        if (zset == null) {
+            return new ArrayList<>();
+        }
+        List<String> matched = new ArrayList<>();
+        Iterator<String> iterator = reverse ? zset.ordered.descendingIterator() : zset.ordered.iterator();
+        while (iterator.hasNext()) {
+            String member = iterator.next();
+            if (inScoreRange(zset.scores.get(member), minArg, maxArg)) {
+                matched.add(member);
+            }
+        }
+        int from = Math.min(offset, matched.size());
+        int to = limit < 0 ? matched.size() : Math.min(matched.size(), from + limit);
+        return withScores(zset, matched.subList(from, to), withScores);
+    }
+
+    private Object zcount(List<String> args) {
+        checkArity(args, 4);
+        SortedSet zset = zset(args.get(1), false);
+        long count = 0;
+        if (zset != null) {
+            for (double score : zset.scores.values()) {
+                if (inScoreRange(score, args.get(2), args.get(3))) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    private Object zrem(List<String> args) {
+        checkMinArity(args, 3);
+        SortedSet zset = zset(args.get(1), false);
+        if (zset == null) {
+            return 0L;
+        }
+        long removed = 0;
+        for (String member : args.subList(2, args.size())) {
+            if (zset.remove(member)) {
+                removed++;
+            }
+        }
+        removeIfEmpty(args.get(1), zset.scores);
+        listener.onEvent("zrem", args.get(1));
+        return removed;
+    }
+
+    private Object zunionstore(List<String> args) {
+        checkMinArity(args, 4);
+        int numKeys = (int) parseLong(args.get(2));
+        if (numKeys <= 0 || args.size() < 3 + numKeys) {
+            throw new RedisError("ERR syntax error");
+        }
+        double[] weights = new double[numKeys];
+        Arrays.fill(weights, 1);
+        String aggregate = "SUM";
+        for (int i = 3 + numKeys; i < args.size(); i++) {
+            String option = args.get(i).toUpperCase(Locale.ROOT);
+            if (option.equals("WEIGHTS")) {
+                for (int w = 0; w < numKeys; w++) {
+                    weights[w] = parseDouble(args.get(++i));
+                }
+            } else if (option.equals("AGGREGATE")) {
+                aggregate = args.get(++i).toUpperCase(Locale.ROOT);
+            } else {
+                throw new RedisError("ERR syntax error");
+            }
+        }
+
+        Map<String, Double> union = new HashMap<>();
+        for (int k = 0; k < numKeys; k++) {
+            SortedSet source = zset(args.get(3 + k), false);
+            if (source == null) {
+                continue;
+            }
+            for (Map.Entry<String, Double> member : source.scores.entrySet()) {
+                double score = member.getValue() * weights[k];
+                Double current = union.get(member.getKey());
+                if (current == null) {
+                    union.put(member.getKey(), score);
+                } else if (aggregate.equals("MIN")) {
+                    union.put(member.getKey(), Math.min(current, score));
+                } else if (aggregate.equals("MAX")) {
+                    union.put(member.getKey(), Math.max(current, score));
+                } else {
+                    union.put(member.getKey(), current + score);
+                }
+            }
+        }
+
+        keyspace.remove(args.get(1));
+        if (!union.isEmpty()) {
+            SortedSet destination = zset(args.get(1), true);
+            for (Map.Entry<String, Double> member : union.entrySet()) {
+                destination.put(member.getKey(), member.getValue());
+            }
+        }
+        listener.onEvent("zunionstore", args.get(1));
+        return (long) union.size();
+    }
+
+    private static List<Object> withScores(SortedSet zset, List<String> members, boolean withScores) {
+        List<Object> result = new ArrayList<>(withScores ? members.size() * 2 : members.size());
+        for (String member : members) {
+            result.add(member);
+            if (withScores) {
+                result.add(formatDouble(zset.scores.get(member)));
+            }
+        }
+        return result;
+    }
+
+    private static boolean inScoreRange(double score, String min, String max) {
+        return compareBound(score, min, true) && compareBound(score, max, false);
+    }
+
+    private static boolean compareBound(double score, String bound, boolean lower) {
+        boolean exclusive = bound.startsWith("(");
+        double value = parseDouble(exclusive ? bound.substring(1) : bound);
+        if (lower) {
+            return exclusive ? score > value : score >= value;
+        }
+        return exclusive ? score < value : score <= value;
+    }
+
+    // ----- HyperLogLog -----
+
+    private Object pfadd(List<String> args) {
+        checkMinArity(args, 2);
+        boolean created = entry(args.get(1)) == null;
+        HyperLogLog hll = hll(args.get(1), true);
+        boolean changed = created;
+        for (String item : args.subList(2, args.size())) {
+            changed |= hll.items.add(item);
+        }
+        listener.onEvent("pfadd", args.get(1));
+        return changed ? 1L : 0L;
+    }
+
+    private Object pfcount(List<String> args) {
+        checkMinArity(args, 2);
+        Set<String> union = new HashSet<>();
+        for (String key : args.subList(1, args.size())) {
+            HyperLogLog hll = hll(key, false);
+            if (hll != null) {
+                union.addAll(hll.items);
+            }
+        }
+        return (long) union.size();
+    }
+
+    private Object pfmerge(List<String> args) {
+        checkMinArity(args, 2);
+        Set<String> union = new HashSet<>();
+        for (String key : args.subList(1, args.size())) {
+            HyperLogLog hll = hll(key, false);
+            if (hll != null) {
+                union.addAll(hll.items);
+            }
+        }
+        hll(args.get(1), true).items.addAll(union);
+        listener.onEvent("pfadd", args.get(1));
+        return Status.OK;
+    }
+
+    // ----- Stream -----
+
+    private Object xadd(List<String> args) {
+        checkMinArity(args, 5);
+        if ((args.size() - 3) % 2 != 0) {
+            throw wrongArity(args);
+        }
+        String key = args.get(1);
+        RedisStream existing = stream(key, false);
+        StreamId last = existing == null ? StreamId.MIN : existing.lastId;
+        StreamId id;
+        if (args.get(2).equals("*")) {
+            long now = clock.getAsLong();
+            id = now > last.millis ? new StreamId(now, 0) : new StreamId(last.millis, last.sequence + 1);
+        } else {
+            id = StreamId.parse(args.get(2), 0);
+            if (id.compareTo(last) <= 0) {
+                throw new RedisError("ERR The ID specified in XADD is equal or smaller than the target stream top item");
+            }
+        }
+
+        RedisStream stream = existing == null ? stream(key, true) : existing;
+        stream.entries.put(id, new ArrayList<>(args.subList(3, args.size())));
+        stream.lastId = id;
+        listener.onEvent("xadd", key);
+        // Đánh thức các client đang chờ XREADGROUP BLOCK
+        notifyAll();
+        return id.toString();
+    }
+
+    private Object xdel(List<String> args) {
+        checkMinArity(args, 3);
+        RedisStream stream = stream(args.get(1), false);
+        if (stream == null) {
+            return 0L;
+        }
+        long removed = 0;
+        for (String id : args.subList(2, args.size())) {
+            if (stream.entries.remove(StreamId.parse(id, 0)) != null) {
+                removed++;
+            }
+        }
+        if (removed > 0) {
+            listener.onEvent("xdel", args.get(1));
+        }
+        return removed;
+    }
+
+    private Object xrange(List<String> args) {
+        checkMinArity(args, 4);
+        long count = Long.MAX_VALUE;
+        if (args.size() == 6 && args.get(4).equalsIgnoreCase("COUNT")) {
+            count = parseLong(args.get(5));
+        } else if (args.size() != 4) {
+            throw new RedisError("ERR syntax error");
+        }
+
+        List<Object> result = new ArrayList<>();
+        RedisStream stream = stream(args.get(1), false);
+        if (stream == null) {
+            return result;
+        }
+        StreamId start = StreamId.parse(args.get(2), 0);
+        StreamId end = StreamId.parse(args.get(3), Long.MAX_VALUE);
+        if (start.compareTo(end) > 0) {
+            return result;
+        }
+        for (Map.Entry<StreamId, List<String>> entry : stream.entries.subMap(start, true, end, true).entrySet()) {
+            if (result.size() >= count) {
+                break;
+            }
+            result.add(streamEntry(entry.getKey(), entry.getValue()));
+        }
+        return result;
+    }
+
+    private Object xgroup(List<String> args) {
+        checkMinArity(args, 2);
+        String subcommand = args.get(1).toUpperCase(Locale.ROOT);
+        if (subcommand.equals("CREATE")) {
+            checkMinArity(args, 5);
+            RedisStream stream = stream(args.get(2), false);
+            boolean mkstream = args.size() > 5 && args.get(5).equalsIgnoreCase("MKSTREAM");
+            if (stream == null) {
+                if (!mkstream) {
+                    throw new RedisError("ERR The XGROUP subcommand requires the key to exist. "
+                            + "Note that for CREATE you may want to use the MKSTREAM option to create an empty stream automatically.");
+                }
+                stream = stream(args.get(2), true);
+            }
+            if (stream.groups.containsKey(args.get(3))) {
+                throw new RedisError("BUSYGROUP Consumer Group name already exists");
+            }
+            StreamId lastDelivered = args.get(4).equals("$") ? stream.lastId : StreamId.parse(args.get(4), 0);
+            stream.groups.put(args.get(3), new ConsumerGroup(lastDelivered));
+            return Status.OK;
+        } else if (subcommand.equals("DESTROY")) {
+            checkArity(args, 4);
+            RedisStream stream = stream(args.get(2), false);
+            return stream != null && stream.groups.remove(args.get(3)) != null ? 1L : 0L;
+        }
+        throw new RedisError("ERR unknown subcommand '" + args.get(1) + "'");
+    }
+
+    /**
+     * XREADGROUP GROUP group consumer [COUNT n] [BLOCK ms] [NOACK] STREAMS key... id...
+     * BLOCK được xử lý ở {@link InMemoryRedisServer}: lệnh ở đây không bao giờ chờ.
+     */
+    private Object xreadgroup(List<String> args) {
+        checkMinArity(args, 7);
+        if (!args.get(1).equalsIgnoreCase("GROUP")) {
+            throw new RedisError("ERR syntax error");
+        }
+        String groupName = args.get(2);
+        String consumer = args.get(3);
+        long count = Long.MAX_VALUE;
+        boolean noAck = false;
+        int index = 4;
+        while (index < args.size() && !args.get(index).equalsIgnoreCase("STREAMS")) {
+            String option = args.get(index).toUpperCase(Locale.ROOT);
+            if (option.equals("COUNT") && index + 1 < args.size()) {
+                count = parseLong(args.get(++index));
+            } else if (option.equals("BLOCK") && index + 1 < args.size()) {
+                parseLong(args.get(++index));
+            } else if (option.equals("NOACK")) {
+                noAck = true;
+            } else {
+                throw new RedisError("ERR syntax error");
+            }
+            index++;
+        }
+        int streams = args.size() - index - 1;
+        if (streams <= 0 || streams % 2 != 0) {
+            throw new RedisError("ERR Unbalanced 'xreadgroup' list of streams: for each stream key an ID or '>' must be specified.");
+        }
+        streams /= 2;
+
+        long now = clock.getAsLong();
+        List<Object> result = new ArrayList<>();
+        for (int i = 0; i < streams; i++) {
+            String key = args.get(index + 1 + i);
+            String id = args.get(index + 1 + streams + i);
+            RedisStream stream = stream(key, false);
+            ConsumerGroup group = group(stream, key, groupName);
+            List<Object> entries = new ArrayList<>();
+
+            if (id.equals(">")) {
+                for (Map.Entry<StreamId, List<String>> entry : stream.entries.tailMap(group.lastDelivered, false).entrySet()) {
+                    if (entries.size() >= count) {
+                        break;
+                    }
+                    group.lastDelivered = entry.getKey();
+                    if (!noAck) {
+                        group.pending.put(entry.getKey(), new PendingEntry(consumer, now));
+                    }
+                    entries.add(streamEntry(entry.getKey(), entry.getValue()));
+                }
+                if (!entries.isEmpty()) {
+                    result.add(Arrays.asList(key, entries));
+                }
+            } else {
+                // ID cụ thể: đọc lại các entry đang chờ xác nhận của chính consumer này
+                for (Map.Entry<StreamId, PendingEntry> pending : group.pending.tailMap(StreamId.parse(id, 0), false).entrySet()) {
+                    if (entries.size() >= count) {
+                        break;
+                    }
+                    if (pending.getValue().consumer.equals(consumer)) {
+                        entries.add(streamEntry(pending.getKey(), stream.entries.get(pending.getKey())));
+                    }
+                }
+                result.add(Arrays.asList(key, entries));
+            }
+        }
+        return result.isEmpty() ? null : result;
+    }
+
+    private Object xack(List<String> args) {
+        checkMinArity(args, 4);
+        RedisStream stream = stream(args.get(1), false);
+        ConsumerGroup group = stream == null ? null : stream.groups.get(args.get(2));
+        if (group == null) {
+            return 0L;
+        }
+        long acked = 0;
+        for (String id : args.subList(3, args.size())) {
+            if (group.pending.remove(StreamId.parse(id, 0)) != null) {
+                acked++;
+            }
+        }
+        return acked;
+    }
+
+    /**
+     * XAUTOCLAIM key group consumer min-idle-time start [COUNT n] [JUSTID], theo Redis 7:
+     * xét tối đa COUNT * 10 entry của PEL, entry đã bị XDEL được bỏ khỏi PEL và trả về riêng
+     */
+    private Object xautoclaim(List<String> args) {
+        checkMinArity(args, 6);
+        String key = args.get(1);
+        RedisStream stream = stream(key, false);
+        ConsumerGroup group = group(stream, key, args.get(2));
+        String consumer = args.get(3);
+        long minIdle = parseLong(args.get(4));
+        StreamId start = StreamId.parse(args.get(5), 0);
+        long count = 100;
+        boolean justId = false;
+        for (int i = 6; i < args.size(); i++) {
+            if (args.get(i).equalsIgnoreCase("COUNT") && i + 1 < args.size()) {
+                count = parseLong(args.get(++i));
+            } else if (args.get(i).equalsIgnoreCase("JUSTID")) {
+                justId = true;
+            } else {
+                throw new RedisError("ERR syntax error");
+            }
+        }
+
+        long now = clock.getAsLong();
+        long attempts = count * 10;
+        List<Object> claimed = new ArrayList<>();
+        List<Object> deleted = new ArrayList<>();
+        Iterator<Map.Entry<StreamId, PendingEntry>> iterator = group.pending.tailMap(start, true).entrySet().iterator();
+        while (iterator.hasNext() && claimed.size() < count && attempts-- > 0) {
+            Map.Entry<StreamId, PendingEntry> pending = iterator.next();
+            if (now - pending.getValue().deliveredAt < minIdle) {
+                continue;
+            }
+            List<String> fields = stream.entries.get(pending.getKey());
+            if (fields == null) {
+                iterator.remove();
+                deleted.add(pending.getKey().toString());
+                continue;
+            }
+            pending.getValue().consumer = consumer;
+            pending.getValue().deliveredAt = now;
+            if (!justId) {
+                pending.getValue().deliveries++;
+            }
+            claimed.add(justId ? pending.getKey().toString() : streamEntry(pending.getKey(), fields));
+        }
+        StreamId cursor = iterator.hasNext() ? iterator.next().getKey() : StreamId.MIN;
+        return Arrays.asList(cursor.toString(), claimed, deleted);
+    }
+
+    /**
+     * XPENDING key group (tóm tắt) hoặc XPENDING key group [IDLE ms] start end count [consumer]
+     */
+    private Object xpending(List<String> args) {
+        checkMinArity(args, 3);
+        String key = args.get(1);
+        ConsumerGroup group = group(stream(key, false), key, args.get(2));
+        long now = clock.getAsLong();
+
+        if (args.size() == 3) {
+            if (group.pending.isEmpty()) {
+                return Arrays.asList(0L, null, null, null);
+            }
+            Map<String, Long> perConsumer = new LinkedHashMap<>();
+            for (PendingEntry pending : group.pending.values()) {
+                perConsumer.merge(pending.consumer, 1L, Long::sum);
+            }
+            List<Object> consumers = new ArrayList<>();
+            for (Map.Entry<String, Long> consumer : perConsumer.entrySet()) {
+                consumers.add(Arrays.asList(consumer.getKey(), String.valueOf(consumer.getValue())));
+            }
+            return Arrays.asList((long) group.pending.size(), group.pending.firstKey().toString(),
+                    group.pending.lastKey().toString(), consumers);
+        }
+
+        int index = 3;
+        long minIdle = 0;
+        if (args.get(index).equalsIgnoreCase("IDLE")) {
+            checkMinArity(args, 7);
+            minIdle = parseLong(args.get(index + 1));
+            index += 2;
+        }
+        checkMinArity(args, index + 3);
+        StreamId start = StreamId.parse(args.get(index), 0);
+        StreamId end = StreamId.parse(args.get(index + 1), Long.MAX_VALUE);
+        long count = parseLong(args.get(index + 2));
+        String consumer = args.size() > index + 3 ? args.get(index + 3) : null;
+
+        List<Object> result = new ArrayList<>();
+        if (start.compareTo(end) > 0) {
+            return result;
+        }
+        for (Map.Entry<StreamId, PendingEntry> pending : group.pending.subMap(start, true, end, true).entrySet()) {
+            if (result.size() >= count) {
+                break;
+            }
+            PendingEntry value = pending.getValue();
+            long idle = now - value.deliveredAt;
+            if ((consumer == null || consumer.equals(value.consumer)) && idle >= minIdle) {
+                result.add(Arrays.asList(pending.getKey().toString(), value.consumer, idle, value.deliveries));
+            }
+        }
+        return result;
+    }
+
+    private static ConsumerGroup group(RedisStream stream, String key, String groupName) {
+        ConsumerGroup group = stream == null ? null : stream.groups.get(groupName);
+        if (group == null) {
+            throw new RedisError("NOGROUP No such key '" + key + "' or consumer group '" + groupName + "'");
+        }
+        return group;
+    }
+
+    /**
+     * Một entry dạng [id, [field, value, ...]]; fields null khi entry đã bị xóa
+     */
+    private static List<Object> streamEntry(StreamId id, List<String> fields) {
+        return Arrays.asList(id.toString(), fields == null ? null : new ArrayList<>(fields));
+    }
+
+    // ----- Tiện ích -----
+
+    /**
+     * Chuẩn hóa chỉ số start/stop (hỗ trợ số âm) thành [from, to], null nếu rỗng
+     */
+    private static int[] range(long start, long stop, int size) {
+        if (start < 0) {
+            start = Math.max(0, start + size);
+        }
+        if (stop < 0) {
+            stop += size;
+        }
+        stop = Math.min(stop, size - 1);
+        if (start > stop || start >= size) {
+            return null;
+        }
+        return new int[]{(int) start, (int) stop};
+    }
+
+    private static String arg(List<String> args, int index, int arity) {
+        checkArity(args, arity);
+        return args.get(index);
+    }
+
+    private static void checkArity(List<String> args, int arity) {
+        if (args.size() != arity) {
+            throw wrongArity(args);
+        }
+    }
+
+    private static void checkMinArity(List<String> args, int arity) {
+        if (args.size() < arity) {
+            throw wrongArity(args);
+        }
+    }
+
+    private static RedisError wrongArity(List<String> args) {
+        return new RedisError("ERR wrong number of arguments for '" + args.get(0).toLowerCase(Locale.ROOT) + "' command");
+    }
+
+    private static long parseLong(String value) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new RedisError("ERR value is not an integer or out of range");
+        }
+    }
+
+    private static long parseInteger(String value) {
+        return parseLong(value);
+    }
+
+    static double parseDouble(String value) {
+        String normalized = value.toLowerCase(Locale.ROOT);
+        if (normalized.equals("inf") || normalized.equals("+inf")) {
+            return Double.POSITIVE_INFINITY;
+        } else if (normalized.equals("-inf")) {
+            return Double.NEGATIVE_INFINITY;
+        }
+        try {
+            double parsed = Double.parseDouble(value);
+            if (Double.isNaN(parsed)) {
+                throw new NumberFormatException();
+            }
+            return parsed;
+        } catch (NumberFormatException e) {
+            throw new RedisError("ERR value is not a valid float");
+        }
+    }
+
+    /**
+     * Định dạng số thực như Redis: số nguyên không có phần thập phân, vô cực là "inf"
+     */
+    static String formatDouble(double value) {
+        if (Double.isInfinite(value)) {
+            return value > 0 ? "inf" : "-inf";
+        }
+        if (value == Math.rint(value) && Math.abs(value) < 1e17) {
+            return String.valueOf((long) value);
+        }
+        return String.valueOf(value);
+    }
+
+    static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    static String text(byte[] value) {
+        return new String(value, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * So khớp glob kiểu Redis: *, ?, [abc], [^a], [a-z] và \ để thoát ký tự
+     */
+    static final class GlobMatcher {
+        private GlobMatcher() {
+        }
+
+        static boolean matches(String pattern, String text) {
+            return matches(pattern, 0, text, 0);
+        }
+
+        private static boolean matches(String pattern, int p, String text, int t) {
+            while (p < pattern.length()) {
+                char c = pattern.charAt(p);
+                if (c == '*') {
+                    while (p < pattern.length() && pattern.charAt(p) == '*') {
+                        p++;
+                    }
+                    if (p == pattern.length()) {
+                        return true;
+                    }
+                    for (int i = t; i <= text.length(); i++) {
+                        if (matches(pattern, p, text, i)) {
+                            return true;
+                        }
+                    }
+                    return false;
+                }
+                if (t >= text.length()) {
+                    return false;
+                }
+                if (c == '?') {
+                    p++;
+                    t++;
+                } else if (c == '[') {
+                    int end = pattern.indexOf(']', p + 1);
+                    if (end < 0) {
+                        return false;
+                    }
+                    if (!matchesClass(pattern.substring(p + 1, end), text.charAt(t))) {
+                        return false;
+                    }
+                    p = end + 1;
+                    t++;
+                } else {
+                    if (c == '\\' && p + 1 < pattern.length()) {
+                        c = pattern.charAt(++p);
+                    }
+                    if (c != text.charAt(t)) {
+                        return false;
+                    }
+                    p++;
+                    t++;
+                }
+            }
+            return t == text.length();
+        }
+
+        private static boolean matchesClass(String characterClass, char c) {
+            boolean negate = characterClass.startsWith("^");
+            String body = negate ? characterClass.substring(1) : characterClass;
+            boolean matched = false;
+            for (int i = 0; i < body.length() && !matched; i++) {
+                if (i + 2 < body.length() && body.charAt(i + 1) == '-') {
+                    matched = c >= body.charAt(i) && c <= body.charAt(i + 2);
+                    i += 2;
+                } else {
+                    matched = c == body.charAt(i);
+                }
+            }
+            return matched != negate;
+        }
+    }
+}
@@ -0,0 +1,914 @@
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.JedisPoolConfig;
+import redis.clients.jedis.Pipeline;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * InMemoryRedisServer - Server nói giao thức Redis chạy ngay trong JVM, dùng để kiểm thử
+ *
+ * Thay cho Redis thật ở localhost:6379 khi cần chạy nhanh và cho kết quả xác định:
+ * - Giao thức RESP2, và RESP3 sau lệnh HELLO 3
+ * - String (kể cả bitmap) có TTL, hash, list, set, sorted set, HyperLogLog (đếm chính xác)
+ * - Pub/sub kể cả PSUBSCRIBE, keyspace notification khi bật notify-keyspace-events (K/E)
+ * - MULTI/EXEC, SCAN/SSCAN với MATCH/COUNT/TYPE
+ * - Stream với consumer group: XADD, XREADGROUP (kể cả BLOCK), XACK, XAUTOCLAIM, XPENDING
+ * - EVAL/EVALSHA cho các script Lua mà component trong dự án dùng; không có trình thông
+ *   dịch Lua, mỗi script được nhận diện theo SHA1 và chạy bằng một hàm Java tương đương
+ *   (có thể đăng ký thêm bằng {@link #registerScript})
+ * - Đồng hồ điều khiển được ({@link #setClock}, {@link #advanceTime}) để kiểm thử TTL
+ *   mà không phải chờ
+ * - Độ trễ giả lập mỗi lượt round trip ({@link #setLatency}) để thấy rõ lợi ích của
+ *   pipeline và batching mà không cần Docker
+ *
+ * Mỗi kết nối chạy trên một thread riêng; mọi lệnh dữ liệu chạy tuần tự dưới một khóa
+ * như Redis đơn luồng.
+ */
+public class InMemoryRedisServer implements AutoCloseable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(InMemoryRedisServer.class);
+
+    // Script so sánh rồi xóa, dùng chung bởi RedisDistributedLock.releaseLock và lease của RedisCache
+    private static final String COMPARE_AND_DELETE_SCRIPT =
+            "if redis.call('get', KEYS[1]) == ARGV[1] then " +
+            "    return redis.call('del', KEYS[1]) " +
+            "else " +
+            "    return 0 " +
+            "end";
+
+    // Script aroundMe của RedisLeaderboard
+    private static final String AROUND_ME_SCRIPT =
+            "local rank = redis.call('zrevrank', KEYS[1], ARGV[1]) " +
+            "if not rank then return {} end " +
+            "local radius = tonumber(ARGV[2]) " +
+            "local start = rank - radius " +
+            "if start < 0 then start = 0 end " +
+            "local result = redis.call('zrevrange', KEYS[1], start, rank + radius, 'WITHSCORES') " +
+            "table.insert(result, 1, start) " +
+            "return result";
+
+    /**
+     * Hàm Java thay cho một script Lua, chạy nguyên tử dưới khóa của database
+     */
+    public interface ScriptHandler {
+        Object execute(InMemoryRedisDatabase database, List<String> keys, List<String> args);
+    }
+
+    /**
+     * Tin nhắn pub/sub gửi tới client (RESP3 dùng kiểu push '>')
+     */
+    private static final class Push {
+        final List<Object> items;
+
+        Push(Object... items) {
+            this.items = Arrays.asList(items);
+        }
+    }
+
+    // Lệnh SUBSCRIBE/UNSUBSCRIBE tự ghi phản hồi cho từng channel, không có phản hồi chung
+    private static final Object NO_REPLY = new Object();
+
+    private final int requestedPort;
+    private final InMemoryRedisDatabase database;
+    private final Map<String, ScriptHandler> scripts = new ConcurrentHashMap<>();
+    private final Map<String, Set<ClientConnection>> channels = new ConcurrentHashMap<>();
+    private final Map<String, Set<ClientConnection>> patterns = new ConcurrentHashMap<>();
+    private final Set<ClientConnection> clients = ConcurrentHashMap.newKeySet();
+    private final Map<String, String> config = new ConcurrentHashMap<>();
+    private final AtomicLong clockOffsetMillis = new AtomicLong();
+    private final AtomicInteger clientIds = new AtomicInteger();
+    private volatile Clock clock = Clock.systemUTC();
+    private volatile long latencyNanos;
+    private volatile ServerSocket serverSocket;
+    private ScheduledExecutorService expiryScheduler;
+
+    /**
+     * Khởi tạo server; port 0 để hệ điều hành chọn port trống
+     */
+    public InMemoryRedisServer(int port) {
+        this.requestedPort = port;
+        this.database = new InMemoryRedisDatabase(this::currentTimeMillis, this::onKeyspaceEvent);
+        this.config.put("notify-keyspace-events", "");
+
+        registerScript(COMPARE_AND_DELETE_SCRIPT, (db, keys, args) -> {
+            Object current = db.call("GET", keys.get(0));
+            if (current != null && InMemoryRedisDatabase.text((byte[]) current).equals(args.get(0))) {
+                return db.call("DEL", keys.get(0));
+            }
+            return 0L;
+        });
+        registerScript(AROUND_ME_SCRIPT, (db, keys, args) -> {
+            Long rank = (Long) db.call("ZREVRANK", keys.get(0), args.get(0));
+            if (rank == null) {
+                return new ArrayList<>();
+            }
+            long radius = Long.parseLong(args.get(1));
+            long start = Math.max(0, rank - radius);
+            List<Object> result = new ArrayList<>((List<?>) db.call("ZREVRANGE", keys.get(0),
+                    String.valueOf(start), String.valueOf(rank + radius), "WITHSCORES"));
+            result.add(0, start);
+            return result;
+        });
+    }
+
+    /**
+     * Mở cổng và bắt đầu nhận kết nối
+     */
+    public synchronized InMemoryRedisServer start() throws IOException {
+        if (serverSocket != null) {
+            return this;
+        }
+        serverSocket = new ServerSocket(requestedPort, 128, InetAddress.getLoopbackAddress());
+
+        Thread acceptor = new Thread(this::acceptLoop, "in-memory-redis-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+
+        // Active expiry: xóa key hết hạn định kỳ để phát sự kiện "expired" như Redis
+        expiryScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "in-memory-redis-expiry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        expiryScheduler.scheduleWithFixedDelay(database::expireDue, 100, 100, TimeUnit.MILLISECONDS);
+        return this;
+    }
+
+    public int getPort() {
+        ServerSocket socket = serverSocket;
+        if (socket == null) {
+            throw new IllegalStateException("Server chưa được khởi động");
+        }
+        return socket.getLocalPort();
+    }
+
+    /**
+     * Connection pool tới server này, cấu hình giống các component trong dự án
+     */
+    public JedisPool createPool() {
+        JedisPoolConfig poolConfig = new JedisPoolConfig();
+        poolConfig.setMaxTotal(10);
+        poolConfig.setMaxIdle(5);
+
+        return RedisTelemetry.global().createPool(poolConfig, "localhost", getPort());
+    }
+
+    /**
+     * Truy cập trực tiếp dữ liệu, không qua mạng (ví dụ để chuẩn bị dữ liệu kiểm thử)
+     */
+    public InMemoryRedisDatabase getDatabase() {
+        return database;
+    }
+
+    /**
+     * Đặt đồng hồ gốc, ví dụ Clock.fixed(...) để TTL chỉ trôi khi gọi {@link #advanceTime}
+     */
+    public void setClock(Clock clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * Dịch đồng hồ của server về phía trước; key hết hạn trong khoảng này bị xóa ngay
+     */
+    public void advanceTime(Duration duration) {
+        if (duration.isNegative()) {
+            throw new IllegalArgumentException("Không thể lùi đồng hồ");
+        }
+        clockOffsetMillis.addAndGet(duration.toMillis());
+        database.expireDue();
+    }
+
+    public long currentTimeMillis() {
+        return clock.millis() + clockOffsetMillis.get();
+    }
+
+    /**
+     * Độ trễ giả lập cho mỗi lượt round trip: server chờ trước khi gửi phản hồi, mỗi
+     * lần một lần cho cả nhóm lệnh pipeline đã nhận được, như độ trễ mạng thật
+     */
+    public void setLatency(Duration latency) {
+        if (latency.isNegative()) {
+            throw new IllegalArgumentException("latency không được âm");
+        }
+        this.latencyNanos = latency.toNanos();
+    }
+
+    /**
+     * Đăng ký hàm Java thay cho một script Lua; EVAL với đúng nội dung script (hoặc
+     * EVALSHA với SHA1 của nó) sẽ gọi handler
+     */
+    public void registerScript(String script, ScriptHandler handler) {
+        // Lệnh nhận từ client được giải mã theo ISO-8859-1, script đăng ký cũng được đưa về dạng đó
+        scripts.put(sha1(new String(script.getBytes(StandardCharsets.UTF_8), StandardCharsets.ISO_8859_1)), handler);
+    }
+
+    /**
+     * Gửi tin nhắn tới các client đã SUBSCRIBE/PSUBSCRIBE
+     *
+     * @return Số client nhận được
+     */
+    public long publish(String channel, String message) {
+        long receivers = 0;
+        for (ClientConnection client : channels.getOrDefault(channel, Set.of())) {
+            client.push(new Push("message", channel, message));
+            receivers++;
+        }
+        for (Map.Entry<String, Set<ClientConnection>> pattern : patterns.entrySet()) {
+            if (InMemoryRedisDatabase.GlobMatcher.matches(pattern.getKey(), channel)) {
+                for (ClientConnection client : pattern.getValue()) {
+                    client.push(new Push("pmessage", pattern.getKey(), channel, message));
+                    receivers++;
+                }
+            }
+        }
+        return receivers;
+    }
+
+    private void onKeyspaceEvent(String event, String key) {
+        String flags = config.getOrDefault("notify-keyspace-events", "");
+        if (flags.isEmpty() || channels.isEmpty() && patterns.isEmpty()) {
+            return;
+        }
+        if (flags.indexOf('K') >= 0) {
+            publish("__keyspace@0__:" + key, event);
+        }
+        if (flags.indexOf('E') >= 0) {
+            publish("__keyevent@0__:" + event, key);
+        }
+    }
+
+    private void acceptLoop() {
+        ServerSocket socket = serverSocket;
+        while (!socket.isClosed()) {
+            try {
+                Socket clientSocket = socket.accept();
+                clientSocket.setTcpNoDelay(true);
+                ClientConnection client = new ClientConnection(clientSocket, clientIds.incrementAndGet());
+                clients.add(client);
+                Thread thread = new Thread(client, "in-memory-redis-client-" + client.id);
+                thread.setDaemon(true);
+                thread.start();
+            } catch (IOException e) {
+                if (!socket.isClosed()) {
+                    LOGGER.warn("Lỗi khi nhận kết nối: {}", e.getMessage());
+                }
+            }
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (serverSocket == null) {
+            return;
+        }
+        try {
+            serverSocket.close();
+        } catch (IOException e) {
+            LOGGER.warn("Lỗi khi đóng server: {}", e.getMessage());
+        }
+        expiryScheduler.shutdownNow();
+        for (ClientConnection client : clients) {
+            client.close();
+        }
+        // Đánh thức các client đang chờ XREADGROUP BLOCK để thread của chúng kết thúc
+        synchronized (database) {
+            database.notifyAll();
+        }
+        serverSocket = null;
+    }
+
+    /**
+     * Một kết nối client: đọc lệnh RESP, thực thi và ghi phản hồi
+     */
+    private final class ClientConnection implements Runnable {
+        private final Socket socket;
+        private final int id;
+        private final InputStream in;
+        private final OutputStream out;
+        private final Set<String> subscribedChannels = new CopyOnWriteArraySet<>();
+        private final Set<String> subscribedPatterns = new CopyOnWriteArraySet<>();
+        private volatile int protocol = 2;
+        private List<List<String>> transaction;
+        private String name;
+
+        ClientConnection(Socket socket, int id) throws IOException {
+            this.socket = socket;
+            this.id = id;
+            this.in = new BufferedInputStream(socket.getInputStream());
+            this.out = new BufferedOutputStream(socket.getOutputStream());
+        }
+
+        @Override
+        public void run() {
+            try {
+                List<String> command;
+                while ((command = readCommand()) != null) {
+                    if (command.isEmpty()) {
+                        continue;
+                    }
+                    Object reply;
+                    try {
+                        reply = dispatch(command);
+                    } catch (InMemoryRedisDatabase.RedisError e) {
+                        reply = e;
+                    } catch (RuntimeException e) {
+                        reply = new InMemoryRedisDatabase.RedisError("ERR " + e);
+                    }
+
+                    if (reply != NO_REPLY) {
+                        synchronized (this) {
+                            writeReply(reply);
+                        }
+                    }
+                    // Hết lệnh trong buffer nghĩa là hết một lượt round trip của client
+                    if (in.available() == 0) {
+                        simulateLatency();
+                        synchronized (this) {
+                            out.flush();
+                        }
+                    }
+                    if (command.get(0).equalsIgnoreCase("QUIT")) {
+                        break;
+                    }
+                }
+            } catch (EOFException | SocketException e) {
+                // Client đóng kết nối
+            } catch (IOException e) {
+                LOGGER.warn("Lỗi kết nối client: {}", e.getMessage());
+            } finally {
+                close();
+            }
+        }
+
+        void close() {
+            clients.remove(this);
+            for (String channel : subscribedChannels) {
+                unsubscribe(channels, channel);
+            }
+            for (String pattern : subscribedPatterns) {
+                unsubscribe(patterns, pattern);
+            }
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // Bỏ qua
+            }
+        }
+
+        /**
+         * Gửi tin nhắn pub/sub ngay, không chờ lượt round trip của chính client này
+         */
+        synchronized void push(Push message) {
+            try {
+                writeReply(message);
+                out.flush();
+            } catch (IOException e) {
+                close();
+            }
+        }
+
+        private Object dispatch(List<String> command) {
+            String commandName = command.get(0).toUpperCase(Locale.ROOT);
+
+            if (transaction != null && !commandName.equals("EXEC") && !commandName.equals("DISCARD")
+                    && !commandName.equals("MULTI")) {
+                transaction.add(command);
+                return InMemoryRedisDatabase.Status.QUEUED;
+            }
+
+            switch (commandName) {
+                case "PING":
+                    if (!subscribedChannels.isEmpty() || !subscribedPatterns.isEmpty()) {
+                        return Arrays.asList("pong", command.size() > 1 ? command.get(1) : "");
+                    }
+                    return command.size() > 1 ? command.get(1) : new InMemoryRedisDatabase.Status("PONG");
+                case "ECHO":
+                    return argument(command, 1);
+                case "QUIT":
+                case "AUTH":
+                case "RESET":
+                    return InMemoryRedisDatabase.Status.OK;
+                case "SELECT":
+                    if (!argument(command, 1).equals("0")) {
+                        throw new InMemoryRedisDatabase.RedisError("ERR DB index is out of range");
+                    }
+                    return InMemoryRedisDatabase.Status.OK;
+                case "HELLO":
+                    return hello(command);
+                case "CLIENT":
+                    return client(command);
+                case "INFO":
+                    return "# Server\r\nredis_version:7.0.0\r\nredis_mode:standalone\r\n"
+                            + "# Replication\r\nrole:master\r\nconnected_slaves:0\r\n";
+                case "CONFIG":
+                    return config(command);
+                case "TIME":
+                    long micros = currentTimeMillis() * 1000;
+                    return Arrays.asList(String.valueOf(micros / 1_000_000), String.valueOf(micros % 1_000_000));
+                case "COMMAND":
+                    return new ArrayList<>();
+                case "SUBSCRIBE":
+                    subscribe(command, channels, subscribedChannels, "subscribe");
+                    return NO_REPLY;
+                case "PSUBSCRIBE":
+                    subscribe(command, patterns, subscribedPatterns, "psubscribe");
+                    return NO_REPLY;
+                case "UNSUBSCRIBE":
+                    unsubscribeAll(command, channels, subscribedChannels, "unsubscribe");
+                    return NO_REPLY;
+                case "PUNSUBSCRIBE":
+                    unsubscribeAll(command, patterns, subscribedPatterns, "punsubscribe");
+                    return NO_REPLY;
+                case "PUBLISH":
+                    if (command.size() != 3) {
+                        throw new InMemoryRedisDatabase.RedisError("ERR wrong number of arguments for 'publish' command");
+                    }
+                    synchronized (database) {
+                        return publish(command.get(1), command.get(2));
+                    }
+                case "EVAL":
+                    return eval(sha1(argument(command, 1)), command);
+                case "EVALSHA":
+                    return eval(argument(command, 1).toLowerCase(Locale.ROOT), command);
+                case "SCRIPT":
+                    return script(command);
+                case "MULTI":
+                    if (transaction != null) {
+                        throw new InMemoryRedisDatabase.RedisError("ERR MULTI calls can not be nested");
+                    }
+                    transaction = new ArrayList<>();
+                    return InMemoryRedisDatabase.Status.OK;
+                case "EXEC":
+                    return exec();
+                case "DISCARD":
+                    if (transaction == null) {
+                        throw new InMemoryRedisDatabase.RedisError("ERR DISCARD without MULTI");
+                    }
+                    transaction = null;
+                    return InMemoryRedisDatabase.Status.OK;
+                case "WATCH":
+                case "UNWATCH":
+                    throw new InMemoryRedisDatabase.RedisError("ERR WATCH is not supported by InMemoryRedisServer");
+                case "XREADGROUP":
+                    return readGroup(command);
+                default:
+                    return database.execute(command);
+            }
+        }
+
+        /**
+         * XREADGROUP với BLOCK: chạy lại lệnh mỗi khi XADD đánh thức, tới khi có entry
+         * hoặc hết thời gian chờ (BLOCK 0 là chờ mãi). Thời gian chờ theo đồng hồ thật.
+         */
+        private Object readGroup(List<String> command) {
+            long blockMillis = -1;
+            for (int i = 4; i + 1 < command.size() && !command.get(i).equalsIgnoreCase("STREAMS"); i++) {
+                if (command.get(i).equalsIgnoreCase("BLOCK") && command.get(i + 1).matches("\\d+")) {
+                    // BLOCK sai định dạng được database báo lỗi như Redis
+                    blockMillis = Long.parseLong(command.get(i + 1));
+                }
+            }
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(blockMillis);
+
+            synchronized (database) {
+                while (true) {
+                    Object reply = database.execute(command);
+                    if (reply != null || blockMillis < 0 || socket.isClosed()) {
+                        return reply;
+                    }
+                    long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                    if (blockMillis > 0 && remainingMillis <= 0) {
+                        return null;
+                    }
+                    try {
+                        database.wait(blockMillis == 0 ? 0 : remainingMillis);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return null;
+                    }
+                }
+            }
+        }
+
+        private Object hello(List<String> command) {
+            if (command.size() > 1) {
+                String version = command.get(1);
+                if (!version.equals("2") && !version.equals("3")) {
+                    throw new InMemoryRedisDatabase.RedisError("NOPROTO unsupported protocol version");
+                }
+                protocol = Integer.parseInt(version);
+            }
+            for (int i = 2; i + 1 < command.size(); i++) {
+                if (command.get(i).equalsIgnoreCase("SETNAME")) {
+                    name = command.get(i + 1);
+                }
+            }
+            Map<String, Object> info = new LinkedHashMap<>();
+            info.put("server", "redis");
+            info.put("version", "7.0.0");
+            info.put("proto", (long) protocol);
+            info.put("id", (long) id);
+            info.put("mode", "standalone");
+            info.put("role", "master");
+            info.put("modules", new ArrayList<>());
+            return info;
+        }
+
+        private Object client(List<String> command) {
+            String subcommand = argument(command, 1).toUpperCase(Locale.ROOT);
+            switch (subcommand) {
+                case "ID":
+                    return (long) id;
+                case "SETNAME":
+                    name = argument(command, 2);
+                    return InMemoryRedisDatabase.Status.OK;
+                case "GETNAME":
+                    return name;
+                default:
+                    return InMemoryRedisDatabase.Status.OK;
+            }
+        }
+
+        private Object config(List<String> command) {
+            String subcommand = argument(command, 1).toUpperCase(Locale.ROOT);
+            if (subcommand.equals("SET")) {
+                for (int i = 2; i + 1 < command.size(); i += 2) {
+                    config.put(command.get(i).toLowerCase(Locale.ROOT), command.get(i + 1));
+                }
+                return InMemoryRedisDatabase.Status.OK;
+            } else if (subcommand.equals("GET")) {
+                List<String> result = new ArrayList<>();
+                for (Map.Entry<String, String> entry : config.entrySet()) {
+                    if (InMemoryRedisDatabase.GlobMatcher.matches(argument(command, 2).toLowerCase(Locale.ROOT),
+                            entry.getKey())) {
+                        result.add(entry.getKey());
+                        result.add(entry.getValue());
+                    }
+                }
+                return result;
+            }
+            return InMemoryRedisDatabase.Status.OK;
+        }
+
+        private void subscribe(List<String> command, Map<String, Set<ClientConnection>> registry,
+                               Set<String> own, String kind) {
+            for (String target : command.subList(1, command.size())) {
+                registry.computeIfAbsent(target, k -> ConcurrentHashMap.newKeySet()).add(this);
+                own.add(target);
+                synchronized (this) {
+                    writeReply(new Push(kind, target, (long) subscriptionCount()));
+                }
+            }
+        }
+
+        private void unsubscribeAll(List<String> command, Map<String, Set<ClientConnection>> registry,
+                                    Set<String> own, String kind) {
+            Collection<String> targets = command.size() > 1
+                    ? command.subList(1, command.size()) : new ArrayList<>(own);
+            if (targets.isEmpty()) {
+                synchronized (this) {
+                    writeReply(new Push(kind, null, 0L));
+                }
+                return;
+            }
+            for (String target : targets) {
+                unsubscribe(registry, target);
+                own.remove(target);
+                synchronized (this) {
+                    writeReply(new Push(kind, target, (long) subscriptionCount()));
+                }
+            }
+        }
+
+        private void unsubscribe(Map<String, Set<ClientConnection>> registry, String target) {
+            registry.computeIfPresent(target, (k, subscribers) -> {
+                subscribers.remove(this);
+                return subscribers.isEmpty() ? null : subscribers;
+            });
+        }
+
+        private int subscriptionCount() {
+            return subscribedChannels.size() + subscribedPatterns.size();
+        }
+
+        private Object eval(String sha, List<String> command) {
+            ScriptHandler handler = scripts.get(sha);
+            if (handler == null) {
+                throw new InMemoryRedisDatabase.RedisError(
+                        "NOSCRIPT No matching script. InMemoryRedisServer only runs registered scripts.");
+            }
+            int numKeys = Integer.parseInt(argument(command, 2));
+            if (numKeys < 0 || command.size() < 3 + numKeys) {
+                throw new InMemoryRedisDatabase.RedisError("ERR Number of keys can't be greater than number of args");
+            }
+            List<String> keys = command.subList(3, 3 + numKeys);
+            List<String> args = command.subList(3 + numKeys, command.size());
+            synchronized (database) {
+                return handler.execute(database, keys, args);
+            }
+        }
+
+        private Object script(List<String> command) {
+            String subcommand = argument(command, 1).toUpperCase(Locale.ROOT);
+            switch (subcommand) {
+                case "LOAD":
+                    String sha = sha1(argument(command, 2));
+                    if (!scripts.containsKey(sha)) {
+                        throw new InMemoryRedisDatabase.RedisError(
+                                "ERR InMemoryRedisServer has no Java handler for this script");
+                    }
+                    return sha;
+                case "EXISTS":
+                    List<Long> result = new ArrayList<>();
+                    for (String candidate : command.subList(2, command.size())) {
+                        result.add(scripts.containsKey(candidate.toLowerCase(Locale.ROOT)) ? 1L : 0L);
+                    }
+                    return result;
+                case "FLUSH":
+                    return InMemoryRedisDatabase.Status.OK;
+                default:
+                    throw new InMemoryRedisDatabase.RedisError("ERR unknown subcommand '" + command.get(1) + "'");
+            }
+        }
+
+        private Object exec() {
+            if (transaction == null) {
+                throw new InMemoryRedisDatabase.RedisError("ERR EXEC without MULTI");
+            }
+            List<List<String>> queued = transaction;
+            transaction = null;
+            List<Object> results = new ArrayList<>(queued.size());
+            synchronized (database) {
+                for (List<String> command : queued) {
+                    try {
+                        results.add(dispatch(command));
+                    } catch (InMemoryRedisDatabase.RedisError e) {
+                        results.add(e);
+                    }
+                }
+            }
+            return results;
+        }
+
+        private String argument(List<String> command, int index) {
+            if (command.size() <= index) {
+                throw new InMemoryRedisDatabase.RedisError("ERR wrong number of arguments for '"
+                        + command.get(0).toLowerCase(Locale.ROOT) + "' command");
+            }
+            return command.get(index);
+        }
+
+        private void simulateLatency() {
+            long remaining = latencyNanos;
+            if (remaining <= 0) {
+                return;
+            }
+            long deadline = System.nanoTime() + remaining;
+            while (remaining > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                remaining = deadline - System.nanoTime();
+            }
+        }
+
+        // ----- RESP -----
+
+        /**
+         * Đọc một lệnh dạng mảng RESP hoặc inline; null khi client đóng kết nối
+         */
+        private List<String> readCommand() throws IOException {
+            int first = in.read();
+            if (first == -1) {
+                return null;
+            }
+            if (first != '*') {
+                String line = (char) first + readLine();
+                List<String> inline = new ArrayList<>();
+                for (String part : line.trim().split("\\s+")) {
+                    if (!part.isEmpty()) {
+                        inline.add(part);
+                    }
+                }
+                return inline;
+            }
+            int count = Integer.parseInt(readLine());
+            List<String> command = new ArrayList<>(Math.max(count, 0));
+            for (int i = 0; i < count; i++) {
+                if (in.read() != '$') {
+                    throw new IOException("Sai giao thức: cần bulk string");
+                }
+                int length = Integer.parseInt(readLine());
+                byte[] data = in.readNBytes(length);
+                if (data.length < length) {
+                    throw new EOFException();
+                }
+                readLine();
+                command.add(new String(data, StandardCharsets.ISO_8859_1));
+            }
+            return command;
+        }
+
+        private String readLine() throws IOException {
+            StringBuilder line = new StringBuilder();
+            int c;
+            while ((c = in.read()) != -1) {
+                if (c == '\r') {
+                    int next = in.read();
+                    if (next == '\n') {
+                        return line.toString();
+                    }
+                    line.append('\r');
+                    c = next;
+                    if (c == -1) {
+                        break;
+                    }
+                }
+                line.append((char) c);
+            }
+            throw new EOFException();
+        }
+
+        private void writeReply(Object reply) {
+            try {
+                write(reply);
+            } catch (IOException e) {
+                close();
+            }
+        }
+
+        private void write(Object reply) throws IOException {
+            if (reply == null) {
+                writeRaw(protocol == 3 ? "_\r\n" : "$-1\r\n");
+            } else if (reply instanceof InMemoryRedisDatabase.Status) {
+                writeRaw("+" + ((InMemoryRedisDatabase.Status) reply).getValue() + "\r\n");
+            } else if (reply instanceof InMemoryRedisDatabase.RedisError) {
+                writeRaw("-" + ((InMemoryRedisDatabase.RedisError) reply).getMessage() + "\r\n");
+            } else if (reply instanceof Long || reply instanceof Integer) {
+                writeRaw(":" + reply + "\r\n");
+            } else if (reply instanceof Double) {
+                String value = InMemoryRedisDatabase.formatDouble((Double) reply);
+                if (protocol == 3) {
+                    writeRaw("," + value + "\r\n");
+                } else {
+                    writeBulk(InMemoryRedisDatabase.bytes(value));
+                }
+            } else if (reply instanceof byte[]) {
+                writeBulk((byte[]) reply);
+            } else if (reply instanceof String) {
+                writeBulk(InMemoryRedisDatabase.bytes((String) reply));
+            } else if (reply instanceof Push) {
+                List<Object> items = ((Push) reply).items;
+                writeRaw((protocol == 3 ? ">" : "*") + items.size() + "\r\n");
+                for (Object item : items) {
+                    write(item);
+                }
+            } else if (reply instanceof Map) {
+                Map<?, ?> map = (Map<?, ?>) reply;
+                writeRaw(protocol == 3 ? "%" + map.size() + "\r\n" : "*" + map.size() * 2 + "\r\n");
+                for (Map.Entry<?, ?> entry : map.entrySet()) {
+                    write(entry.getKey());
+                    write(entry.getValue());
+                }
+            } else if (reply instanceof Set) {
+                Set<?> set = (Set<?>) reply;
+                writeRaw((protocol == 3 ? "~" : "*") + set.size() + "\r\n");
+                for (Object item : set) {
+                    write(item);
+                }
+            } else if (reply instanceof Collection) {
+                Collection<?> items = (Collection<?>) reply;
+                writeRaw("*" + items.size() + "\r\n");
+                for (Object item : items) {
+                    write(item);
+                }
+            } else {
+                throw new IllegalStateException("Không mã hóa được phản hồi kiểu " + reply.getClass().getName());
+            }
+        }
+
+        private void writeBulk(byte[] data) throws IOException {
+            writeRaw("$" + data.length + "\r\n");
+            out.write(data);
+            out.write('\r');
+            out.write('\n');
+        }
+
+        private void writeRaw(String text) throws IOException {
+            out.write(text.getBytes(StandardCharsets.ISO_8859_1));
+        }
+    }
+
+    private static String sha1(String script) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(script.getBytes(StandardCharsets.ISO_8859_1));
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Demo đồng hồ điều khiển được, script của khóa và lợi ích của pipeline khi có độ trễ mạng
+     */
+    public void demo() {
+        System.out.println("=== DEMO IN-MEMORY REDIS SERVER ===");
+        System.out.println("Server chạy ở localhost:" + getPort());
+
+        try (JedisPool pool = createPool(); Jedis jedis = pool.getResource()) {
+            jedis.setex("session:demo", 30, "active");
+            advanceTime(Duration.ofSeconds(29));
+            System.out.println("Sau 29 giây (giả lập): TTL = " + jedis.ttl("session:demo"));
+            advanceTime(Duration.ofSeconds(2));
+            System.out.println("Sau 31 giây (giả lập): exists = " + jedis.exists("session:demo"));
+
+            jedis.set("lock:demo", "owner-1");
+            System.out.println("Giải phóng khóa bằng EVAL với owner sai: "
+                    + jedis.eval(COMPARE_AND_DELETE_SCRIPT, 1, "lock:demo", "owner-2"));
+            System.out.println("Giải phóng khóa bằng EVAL với owner đúng: "
+                    + jedis.eval(COMPARE_AND_DELETE_SCRIPT, 1, "lock:demo", "owner-1"));
+
+            setLatency(Duration.ofMillis(1));
+            int commands = 200;
+            long start = System.nanoTime();
+            for (int i = 0; i < commands; i++) {
+                jedis.set("demo:" + i, "value");
+            }
+            long sequentialMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+            start = System.nanoTime();
+            Pipeline pipeline = jedis.pipelined();
+            for (int i = 0; i < commands; i++) {
+                pipeline.set("demo:" + i, "value");
+            }
+            pipeline.sync();
+            long pipelinedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            setLatency(Duration.ZERO);
+
+            System.out.println(commands + " lệnh SET với độ trễ 1ms mỗi round trip: tuần tự "
+                    + sequentialMillis + "ms, pipeline " + pipelinedMillis + "ms");
+        }
+    }
+
+    /**
+     * Không có tham số: chạy demo trên port ngẫu nhiên.
+     * Có tham số: chạy server ở port chỉ định (ví dụ 6379) cho tới khi dừng tiến trình,
+     * để chạy demo của các class khác mà không cần Redis thật. Tham số thứ hai (tùy chọn)
+     * là độ trễ giả lập tính bằng micro giây.
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0) {
+            try (InMemoryRedisServer server = new InMemoryRedisServer(0).start()) {
+                server.demo();
+            }
+            return;
+        }
+
+        InMemoryRedisServer server = new InMemoryRedisServer(Integer.parseInt(args[0])).start();
+        if (args.length > 1) {
+            server.setLatency(Duration.ofNanos(Long.parseLong(args[1]) * 1000));
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(server::close));
+        System.out.println("InMemoryRedisServer đang chạy ở localhost:" + server.getPort() + " (Ctrl+C để dừng)");
+        Thread.currentThread().join();
+    }
+}
@@ -0,0 +1,200 @@
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToIntFunction;
+
+/**
+ * LocalCache - Cache trong bộ nhớ JVM (L1) có giới hạn theo kích thước
+ *
+ * Lượt đọc không khóa: entry nằm trong một ConcurrentHashMap, và đọc chỉ bật cờ
+ * "vừa được dùng" của entry (một lần ghi, chỉ khi cờ đang tắt). Nhiều thread cùng đọc
+ * một key nóng vì thế không phải xếp hàng trên một lock.
+ *
+ * Việc giữ thứ tự và loại bỏ entry chỉ diễn ra khi ghi: dữ liệu được chia thành nhiều
+ * segment, mỗi segment có khóa riêng và một hàng đợi theo thứ tự ghi. Tổng "trọng lượng"
+ * các entry (ví dụ số byte ước lượng) không vượt quá maxWeight; khi vượt, entry cũ nhất
+ * trong segment bị loại, trừ khi đã được đọc kể từ lần xét trước — khi đó entry được
+ * xóa cờ và chuyển về cuối hàng đợi (thuật toán CLOCK, xấp xỉ LRU).
+ * Mỗi entry có thời điểm hết hạn riêng để giới hạn độ cũ của dữ liệu.
+ *
+ * @param <K> kiểu của key
+ * @param <V> kiểu của giá trị
+ */
+public class LocalCache<K, V> {
+    private static final int SEGMENT_COUNT = 16;
+
+    private static final class Entry<V> {
+        final V value;
+        final int weight;
+        final long expiresAt;
+        volatile boolean referenced;
+
+        Entry(V value, int weight, long expiresAt) {
+            this.value = value;
+            this.weight = weight;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private static final class Segment<K, V> {
+        // Chỉ truy cập trong khóa của segment; LinkedHashMap theo thứ tự truy cập để
+        // get(key) chuyển entry về cuối hàng đợi khi cho "cơ hội thứ hai"
+        final LinkedHashMap<K, Entry<V>> queue = new LinkedHashMap<>(16, 0.75f, true);
+        final long maxWeight;
+        long weight;
+
+        Segment(long maxWeight) {
+            this.maxWeight = maxWeight;
+        }
+    }
+
+    private final ConcurrentHashMap<K, Entry<V>> entries = new ConcurrentHashMap<>();
+    private final Segment<K, V>[] segments;
+    private final ToIntFunction<V> weigher;
+
+    /**
+     * @param maxWeight Tổng trọng lượng tối đa của cache
+     * @param weigher Hàm tính trọng lượng của một giá trị (ví dụ số byte ước lượng)
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public LocalCache(long maxWeight, ToIntFunction<V> weigher) {
+        if (maxWeight <= 0) {
+            throw new IllegalArgumentException("maxWeight phải lớn hơn 0");
+        }
+        this.weigher = Objects.requireNonNull(weigher, "weigher");
+        this.segments = new Segment[SEGMENT_COUNT];
+        long segmentWeight = Math.max(1, maxWeight / SEGMENT_COUNT);
+        for (int i = 0; i < SEGMENT_COUNT; i++) {
+            segments[i] = new Segment<>(segmentWeight);
+        }
+    }
+
+    /**
+     * Lấy giá trị còn hạn, hoặc null nếu không có
+     */
+    public V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (System.currentTimeMillis() >= entry.expiresAt) {
+            removeEntry(key, entry);
+            return null;
+        }
+        if (!entry.referenced) {
+            entry.referenced = true;
+        }
+        return entry.value;
+    }
+
+    /**
+     * Lưu giá trị đến thời điểm expiresAt (epoch millis).
+     * Giá trị nặng hơn sức chứa của một segment sẽ không được lưu.
+     */
+    public void put(K key, V value, long expiresAt) {
+        int weight = weigher.applyAsInt(value);
+        Segment<K, V> segment = segmentFor(key);
+        synchronized (segment) {
+            Entry<V> previous = segment.queue.remove(key);
+            if (previous != null) {
+                segment.weight -= previous.weight;
+            }
+            if (weight > segment.maxWeight) {
+                entries.remove(key);
+                return;
+            }
+
+            Entry<V> entry = new Entry<>(value, weight, expiresAt);
+            segment.queue.put(key, entry);
+            entries.put(key, entry);
+            segment.weight += weight;
+            evict(segment);
+        }
+    }
+
+    /**
+     * Loại entry cũ nhất cho tới khi segment không vượt sức chứa. Entry đã được đọc kể từ
+     * lần xét trước được giữ lại một vòng; sau một vòng mọi cờ đã bị xóa nên vòng lặp dừng.
+     */
+    private void evict(Segment<K, V> segment) {
+        long now = System.currentTimeMillis();
+        int secondChances = segment.queue.size();
+        while (segment.weight > segment.maxWeight) {
+            Map.Entry<K, Entry<V>> eldest = segment.queue.entrySet().iterator().next();
+            K key = eldest.getKey();
+            Entry<V> entry = eldest.getValue();
+            if (entry.referenced && now < entry.expiresAt && secondChances-- > 0) {
+                entry.referenced = false;
+                segment.queue.get(key);
+                continue;
+            }
+            segment.queue.remove(key);
+            entries.remove(key, entry);
+            segment.weight -= entry.weight;
+        }
+    }
+
+    public void remove(K key) {
+        Segment<K, V> segment = segmentFor(key);
+        synchronized (segment) {
+            Entry<V> previous = segment.queue.remove(key);
+            if (previous != null) {
+                entries.remove(key, previous);
+                segment.weight -= previous.weight;
+            }
+        }
+    }
+
+    /**
+     * Xóa entry hết hạn, chỉ khi key vẫn trỏ tới đúng entry đó (chưa bị ghi đè)
+     */
+    private void removeEntry(K key, Entry<V> entry) {
+        Segment<K, V> segment = segmentFor(key);
+        synchronized (segment) {
+            // remove(key, value) so sánh bằng equals, Entry không override nên là so sánh đồng nhất
+            if (segment.queue.remove(key, entry)) {
+                entries.remove(key, entry);
+                segment.weight -= entry.weight;
+            }
+        }
+    }
+
+    public void clear() {
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                for (Map.Entry<K, Entry<V>> entry : segment.queue.entrySet()) {
+                    entries.remove(entry.getKey(), entry.getValue());
+                }
+                segment.queue.clear();
+                segment.weight = 0;
+            }
+        }
+    }
+
+    /**
+     * Số entry hiện có (kể cả entry đã hết hạn nhưng chưa bị dọn)
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Tổng trọng lượng hiện tại
+     */
+    public long weight() {
+        long weight = 0;
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                weight += segment.weight;
+            }
+        }
+        return weight;
+    }
+
+    private Segment<K, V> segmentFor(K key) {
+        int hash = key.hashCode();
+        hash ^= (hash >>> 16);
+        return segments[hash & (SEGMENT_COUNT - 1)];
+    }
+}
@@ -0,0 +1,297 @@
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.JedisPoolConfig;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.exceptions.JedisException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * RedisBloomFilter - Kiểm tra thành viên xấp xỉ bằng Bloom filter trên bitmap của Redis
+ *
+ * Thay cho SADD/SISMEMBER trên tập hợp đầy đủ khi chỉ cần biết "chắc chắn chưa có"
+ * hoặc "có thể đã có". Kích thước bitmap (m) và số hàm băm (k) được tính từ số phần
+ * tử dự kiến và tỷ lệ dương tính giả mong muốn. Các vị trí bit được tính ở client,
+ * k lệnh SETBIT/GETBIT của một phần tử (hoặc cả lô phần tử) được gửi trong một pipeline.
+ *
+ * Bloom filter không hỗ trợ xóa phần tử, và không bao giờ trả về âm tính giả.
+ */
+public class RedisBloomFilter implements AutoCloseable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(RedisBloomFilter.class);
+    private static final String BLOOM_PREFIX = "bloom:";
+    // Bitmap của Redis tối đa 512MB = 2^32 bit
+    private static final long MAX_BITS = 1L << 32;
+
+    private final JedisPool jedisPool;
+    private final boolean ownsPool;
+    private final String key;
+    private final long bitCount;
+    private final int hashCount;
+
+    /**
+     * Khởi tạo với connection pool mặc định (localhost:6379)
+     *
+     * @param name Tên filter, bitmap được lưu ở key "bloom:" + name
+     * @param expectedInsertions Số phần tử dự kiến
+     * @param falsePositiveRate Tỷ lệ dương tính giả mong muốn, ví dụ 0.01 cho 1%
+     */
+    public RedisBloomFilter(String name, long expectedInsertions, double falsePositiveRate) {
+        this(createDefaultPool(), true, name, expectedInsertions, falsePositiveRate);
+    }
+
+    /**
+     * Dùng chung connection pool có sẵn
+     */
+    public RedisBloomFilter(JedisPool jedisPool, String name, long expectedInsertions, double falsePositiveRate) {
+        this(jedisPool, false, name, expectedInsertions, falsePositiveRate);
+    }
+
+    private RedisBloomFilter(JedisPool jedisPool, boolean ownsPool, String name,
+                             long expectedInsertions, double falsePositiveRate) {
+        if (expectedInsertions <= 0) {
+            throw new IllegalArgumentException("expectedInsertions phải lớn hơn 0");
+        }
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("falsePositiveRate phải nằm trong khoảng (0, 1)");
+        }
+        this.jedisPool = jedisPool;
+        this.ownsPool = ownsPool;
+        this.key = BLOOM_PREFIX + name;
+
+        // m = -n * ln(p) / (ln 2)^2, k = m / n * ln 2
+        long bits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        if (bits > MAX_BITS) {
+            throw new IllegalArgumentException("Bloom filter cần " + bits + " bit, vượt quá giới hạn bitmap của Redis");
+        }
+        this.bitCount = bits;
+        this.hashCount = Math.max(1, (int) Math.round((double) bits / expectedInsertions * Math.log(2)));
+    }
+
+    private static JedisPool createDefaultPool() {
+        JedisPoolConfig poolConfig = new JedisPoolConfig();
+        poolConfig.setMaxTotal(10);
+        poolConfig.setMaxIdle(5);
+
+        return RedisTelemetry.global().createPool(poolConfig, "localhost", 6379);
+    }
+
+    public long getBitCount() {
+        return bitCount;
+    }
+
+    public int getHashCount() {
+        return hashCount;
+    }
+
+    /**
+     * Thêm một phần tử (k lệnh SETBIT trong một pipeline)
+     */
+    public void add(String item) {
+        try (Jedis jedis = jedisPool.getResource()) {
+            Pipeline pipeline = jedis.pipelined();
+            for (long offset : offsets(item)) {
+                pipeline.setbit(key, offset, true);
+            }
+            pipeline.sync();
+        } catch (JedisException e) {
+            LOGGER.warn("Lỗi khi thêm vào Bloom filter: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Thêm nhiều phần tử trong một pipeline
+     */
+    public void addAll(Collection<String> items) {
+        try (Jedis jedis = jedisPool.getResource()) {
+            Pipeline pipeline = jedis.pipelined();
+            for (String item : items) {
+                for (long offset : offsets(item)) {
+                    pipeline.setbit(key, offset, true);
+                }
+            }
+            pipeline.sync();
+        } catch (JedisException e) {
+            LOGGER.warn("Lỗi khi thêm vào Bloom filter: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Kiểm tra phần tử (k lệnh GETBIT trong một pipeline)
+     *
+     * @return false nếu chắc chắn chưa từng thêm; true nếu có thể đã thêm.
+     *         Khi Redis lỗi trả về true để không bỏ sót phần tử.
+     */
+    public boolean mightContain(String item) {
+        try (Jedis jedis = jedisPool.getResource()) {
+            Pipeline pipeline = jedis.pipelined();
+            List<Response<Boolean>> bits = new ArrayList<>(hashCount);
+            for (long offset : offsets(item)) {
+                bits.add(pipeline.getbit(key, offset));
+            }
+            pipeline.sync();
+
+            for (Response<Boolean> bit : bits) {
+                if (!bit.get()) {
+                    return false;
+                }
+            }
+            return true;
+        } catch (JedisException e) {
+            LOGGER.warn("Lỗi khi kiểm tra Bloom filter: {}", e.getMessage());
+            return true;
+        }
+    }
+
+    /**
+     * Kiểm tra nhiều phần tử trong một pipeline
+     *
+     * @return Kết quả theo đúng thứ tự của items
+     */
+    public List<Boolean> mightContainAll(List<String> items) {
+        List<Boolean> result = new ArrayList<>(items.size());
+        try (Jedis jedis = jedisPool.getResource()) {
+            Pipeline pipeline = jedis.pipelined();
+            List<Response<Boolean>> bits = new ArrayList<>(items.size() * hashCount);
+            for (String item : items) {
+                for (long offset : offsets(item)) {
+                    bits.add(pipeline.getbit(key, offset));
+                }
+            }
+            pipeline.sync();
+
+            for (int i = 0; i < items.size(); i++) {
+                boolean present = true;
+                for (int j = 0; j < hashCount && present; j++) {
+                    present = bits.get(i * hashCount + j).get();
+                }
+                result.add(present);
+            }
+        } catch (JedisException e) {
+            LOGGER.warn("Lỗi khi kiểm tra Bloom filter: {}", e.getMessage());
+            result.clear();
+            for (int i = 0; i < items.size(); i++) {
+                result.add(true);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Xóa toàn bộ filter
+     */
+    public void clear() {
+        try (Jedis jedis = jedisPool.getResource()) {
+            jedis.del(key);
+        }
+    }
+
+    /**
+     * Số byte Redis dùng cho bitmap (MEMORY USAGE)
+     */
+    public long memoryUsage() {
+        try (Jedis jedis = jedisPool.getResource()) {
+            Long bytes = jedis.memoryUsage(key);
+            return bytes == null ? 0 : bytes;
+        }
+    }
+
+    /**
+     * Tính k vị trí bit bằng double hashing: vị trí thứ i = h1 + i * h2 (mod m)
+     */
+    private long[] offsets(String item) {
+        long h1 = fnv1a64(item.getBytes(StandardCharsets.UTF_8));
+        long h2 = mix64(h1 ^ 0x9E3779B97F4A7C15L) | 1;
+        long[] offsets = new long[hashCount];
+        for (int i = 0; i < hashCount; i++) {
+            offsets[i] = Long.remainderUnsigned(mix64(h1 + i * h2), bitCount);
+        }
+        return offsets;
+    }
+
+    private static long fnv1a64(byte[] data) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : data) {
+            hash ^= (b & 0xff);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    // Bước trộn của SplitMix64, phân tán đều các bit của giá trị băm
+    private static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    @Override
+    public void close() {
+        if (ownsPool) {
+            jedisPool.close();
+        }
+    }
+
+    /**
+     * Demo đo tỷ lệ dương tính giả và bộ nhớ so với tập hợp đầy đủ
+     */
+    public void demo() {
+        System.out.println("=== DEMO REDIS BLOOM FILTER ===");
+        clear();
+
+        int inserted = 100_000;
+        System.out.println("Bitmap " + bitCount + " bit, " + hashCount + " hàm băm");
+
+        List<String> members = new ArrayList<>(inserted);
+        for (int i = 0; i < inserted; i++) {
+            members.add("user-" + i);
+        }
+        for (int from = 0; from < inserted; from += 1000) {
+            addAll(members.subList(from, Math.min(inserted, from + 1000)));
+        }
+
+        System.out.println("mightContain(user-42): " + mightContain("user-42"));
+
+        List<String> absent = new ArrayList<>(inserted);
+        for (int i = 0; i < inserted; i++) {
+            absent.add("visitor-" + i);
+        }
+        int falsePositives = 0;
+        for (int from = 0; from < inserted; from += 1000) {
+            for (boolean present : mightContainAll(absent.subList(from, Math.min(inserted, from + 1000)))) {
+                if (present) {
+                    falsePositives++;
+                }
+            }
+        }
+        System.out.printf("Dương tính giả: %d/%d (%.3f%%)%n", falsePositives, inserted,
+                falsePositives * 100.0 / inserted);
+
+        String exactKey = "exact:bloom-baseline";
+        try (Jedis jedis = jedisPool.getResource()) {
+            jedis.del(exactKey);
+            Pipeline pipeline = jedis.pipelined();
+            for (int from = 0; from < inserted; from += 1000) {
+                pipeline.sadd(exactKey, members.subList(from, Math.min(inserted, from + 1000)).toArray(new String[0]));
+            }
+            pipeline.sync();
+            System.out.println("Bộ nhớ tập hợp đầy đủ (SADD): " + jedis.memoryUsage(exactKey) + " byte");
+            System.out.println("Bộ nhớ Bloom filter: " + memoryUsage() + " byte");
+            jedis.del(exactKey);
+        }
+    }
+
+    /**
+     * Phương thức main để chạy demo
+     */
+    public static void main(String[] args) {
+        try (RedisBloomFilter filter = new RedisBloomFilter("registered-users", 100_000, 0.01)) {
+            filter.demo();
+        }
+    }
+}
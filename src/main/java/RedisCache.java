@@ -0,0 +1,1449 @@
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.JedisPoolConfig;
+import redis.clients.jedis.JedisPubSub;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.exceptions.JedisException;
+import redis.clients.jedis.params.SetParams;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.ToIntBiFunction;
+import java.util.function.ToIntFunction;
+
+/**
+ * RedisCache - Cache tổng quát đặt trước database, dùng Redis làm nơi lưu trữ
+ *
+ * Tổng quát hóa luồng cache-aside trong {@code RedisDemo.demoCache}:
+ * - Read-through: khi cache miss, cache tự gọi loader để tải dữ liệu và lưu lại
+ * - Write-through: ghi vào database (qua {@link CacheWriter}) rồi cập nhật cache
+ * - Write-behind: cập nhật cache ngay, ghi xuống database theo lô ở background.
+ *   Nhiều lần ghi cùng một key trước khi flush được gộp lại thành một lần ghi.
+ *
+ * Cách serialize giá trị và TTL của từng entry đều có thể tùy chỉnh.
+ *
+ * Chống cache stampede khi key nóng hết hạn: single-flight trong JVM, lease ngắn
+ * trên Redis giữa các JVM, làm mới sớm theo xác suất (XFetch) và tùy chọn
+ * stale-while-revalidate.
+ *
+ * Tùy chọn bật thêm tầng L1 ({@link LocalCache}) trong JVM trước Redis (L2). Các
+ * JVM giữ L1 nhất quán qua kênh pub/sub: mỗi lần ghi hoặc xóa key sẽ publish tên
+ * key để các JVM khác bỏ bản sao cục bộ. Nếu Redis bật notify-keyspace-events,
+ * các lệnh DEL/hết hạn từ bên ngoài (ví dụ redis-cli) cũng được nhận.
+ * Với {@link #enableHotKeyCache}, L1 chỉ giữ các key nóng theo {@link HotKeyDetector},
+ * nên vài key chiếm phần lớn lượt đọc không còn dồn vào một node Redis.
+ *
+ * @param <K> kiểu của key (được chuyển thành chuỗi bằng {@link String#valueOf(Object)})
+ * @param <V> kiểu của giá trị
+ */
+public class RedisCache<K, V> implements AutoCloseable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(RedisCache.class);
+    private static final String LEASE_PREFIX = "lease:";
+    private static final String INVALIDATION_CHANNEL_PREFIX = "cache-invalidate:";
+    private static final String ENVELOPE_MARKER = "~c1|";
+    private static final long LEASE_POLL_MILLIS = 50;
+    private static final int REFRESH_THREADS = 2;
+    private static final long FLUSH_TIMEOUT_SECONDS = 30;
+    private static final long SUBSCRIBER_STOP_MILLIS = 5000;
+    private static final String RELEASE_LEASE_SCRIPT =
+            "if redis.call('get', KEYS[1]) == ARGV[1] then " +
+            "    return redis.call('del', KEYS[1]) " +
+            "else " +
+            "    return 0 " +
+            "end";
+
+    /**
+     * Chế độ ghi của cache
+     */
+    public enum WriteMode {
+        /** Chỉ cập nhật cache, không ghi xuống database */
+        NONE,
+        /** Ghi database đồng bộ rồi mới cập nhật cache */
+        WRITE_THROUGH,
+        /** Cập nhật cache ngay, ghi database theo lô ở background */
+        WRITE_BEHIND
+    }
+
+    /**
+     * Chuyển đổi giá trị sang chuỗi để lưu trong Redis và ngược lại
+     */
+    public interface Serializer<T> {
+        String serialize(T value);
+
+        T deserialize(String data);
+
+        /**
+         * Serializer cho giá trị kiểu chuỗi (lưu nguyên văn, ví dụ JSON)
+         */
+        static Serializer<String> string() {
+            return new Serializer<String>() {
+                @Override
+                public String serialize(String value) {
+                    return value;
+                }
+
+                @Override
+                public String deserialize(String data) {
+                    return data;
+                }
+            };
+        }
+    }
+
+    /**
+     * Ghi dữ liệu xuống nguồn dữ liệu gốc (database) theo lô
+     */
+    public interface CacheWriter<K, V> {
+        void writeAll(Map<K, V> entries);
+
+        void deleteAll(Set<K> keys);
+    }
+
+    /**
+     * Thống kê tỷ lệ hit theo từng tầng cache
+     */
+    public static final class CacheStats {
+        private final long l1Hits;
+        private final long l2Hits;
+        private final long misses;
+
+        CacheStats(long l1Hits, long l2Hits, long misses) {
+            this.l1Hits = l1Hits;
+            this.l2Hits = l2Hits;
+            this.misses = misses;
+        }
+
+        public long getL1Hits() {
+            return l1Hits;
+        }
+
+        public long getL2Hits() {
+            return l2Hits;
+        }
+
+        public long getMisses() {
+            return misses;
+        }
+
+        /**
+         * Tỷ lệ request được phục vụ từ L1 trên tổng số request
+         */
+        public double l1HitRatio() {
+            long total = l1Hits + l2Hits + misses;
+            return total == 0 ? 0 : (double) l1Hits / total;
+        }
+
+        /**
+         * Tỷ lệ hit của L2 trên số request đã miss L1
+         */
+        public double l2HitRatio() {
+            long total = l2Hits + misses;
+            return total == 0 ? 0 : (double) l2Hits / total;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("L1 hit %d (%.1f%%), L2 hit %d (%.1f%%), miss %d",
+                    l1Hits, l1HitRatio() * 100, l2Hits, l2HitRatio() * 100, misses);
+        }
+    }
+
+    /**
+     * Giá trị trong cache cùng thời gian tải (delta) và thời điểm hết hạn logic
+     */
+    private static final class CacheEntry<V> {
+        final V value;
+        final long deltaMillis;
+        final long expiresAt;
+
+        CacheEntry(V value, long deltaMillis, long expiresAt) {
+            this.value = value;
+            this.deltaMillis = deltaMillis;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private final JedisPool jedisPool;
+    private final boolean ownsPool;
+    private final String keyPrefix;
+    private final Serializer<V> serializer;
+    private final Function<K, V> loader;
+    private volatile Function<Set<K>, Map<K, V>> bulkLoader;
+    private volatile ToIntBiFunction<K, V> ttlPolicy;
+
+    private volatile WriteMode writeMode = WriteMode.NONE;
+    private volatile CacheWriter<K, V> writer;
+
+    // Hàng đợi write-behind: LinkedHashMap xếp key theo lần ghi mới nhất, ghi sau đè ghi trước.
+    // Giá trị null đánh dấu thao tác xóa.
+    private final Object pendingLock = new Object();
+    private LinkedHashMap<K, V> pendingWrites = new LinkedHashMap<>();
+    private int writeBehindBatchSize;
+    // Khác null khi write-behind đang chạy; chỉ đổi trong pendingLock
+    private ScheduledExecutorService flushExecutor;
+    private final AtomicBoolean flushScheduled = new AtomicBoolean(false);
+    // Mỗi lúc chỉ một lần flush chạy, để hai lần ghi cùng key không xuống database sai thứ tự
+    private final Object flushLock = new Object();
+    private volatile boolean closed;
+
+    // Chống cache stampede
+    private final Map<K, CompletableFuture<V>> inFlightLoads = new ConcurrentHashMap<>();
+    private final Set<K> refreshingKeys = ConcurrentHashMap.newKeySet();
+    private ExecutorService refreshExecutor;
+    private volatile long loadLeaseMillis = 3000;
+    private volatile double earlyRefreshBeta = 1.0;
+    private volatile int staleWhileRevalidateSeconds = 0;
+
+    // Tầng L1 trong JVM và kênh invalidation
+    private final String nodeId = UUID.randomUUID().toString();
+    private final String invalidationChannel;
+    private volatile LocalCache<String, V> localCache;
+    private volatile long localMaxStalenessMillis;
+    // Khác null: chỉ key nóng được đưa vào L1
+    private volatile HotKeyDetector hotKeyDetector;
+    private volatile boolean subscriberRunning;
+    private volatile JedisPubSub invalidationPubSub;
+    // Mở khi invalidationPubSub đã subscribe xong (hoặc thread bỏ cuộc), để close không
+    // unsubscribe trước khi subscribe
+    private volatile CountDownLatch invalidationSubscribed;
+    private Thread subscriberThread;
+    private final LongAdder l1Hits = new LongAdder();
+    private final LongAdder l2Hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Khởi tạo RedisCache với connection pool mặc định (localhost:6379)
+     *
+     * @param keyPrefix Tiền tố cho các key trong Redis, ví dụ "product:"
+     * @param serializer Cách chuyển đổi giá trị sang chuỗi
+     * @param loader Hàm tải dữ liệu từ database khi cache miss (có thể trả về null)
+     * @param defaultTtlSeconds Thời gian sống mặc định của một entry (giây)
+     */
+    public RedisCache(String keyPrefix, Serializer<V> serializer, Function<K, V> loader, int defaultTtlSeconds) {
+        this(createDefaultPool(), true, keyPrefix, serializer, loader, defaultTtlSeconds);
+    }
+
+    /**
+     * Khởi tạo RedisCache dùng chung một connection pool có sẵn.
+     * Pool không bị đóng khi đóng cache.
+     */
+    public RedisCache(JedisPool jedisPool, String keyPrefix, Serializer<V> serializer,
+                      Function<K, V> loader, int defaultTtlSeconds) {
+        this(jedisPool, false, keyPrefix, serializer, loader, defaultTtlSeconds);
+    }
+
+    private RedisCache(JedisPool jedisPool, boolean ownsPool, String keyPrefix, Serializer<V> serializer,
+                       Function<K, V> loader, int defaultTtlSeconds) {
+        if (defaultTtlSeconds <= 0) {
+            throw new IllegalArgumentException("defaultTtlSeconds phải lớn hơn 0");
+        }
+        this.jedisPool = Objects.requireNonNull(jedisPool, "jedisPool");
+        this.ownsPool = ownsPool;
+        this.keyPrefix = Objects.requireNonNull(keyPrefix, "keyPrefix");
+        this.serializer = Objects.requireNonNull(serializer, "serializer");
+        this.loader = Objects.requireNonNull(loader, "loader");
+        this.ttlPolicy = (key, value) -> defaultTtlSeconds;
+        this.invalidationChannel = INVALIDATION_CHANNEL_PREFIX + keyPrefix;
+    }
+
+    private static JedisPool createDefaultPool() {
+        JedisPoolConfig poolConfig = new JedisPoolConfig();
+        poolConfig.setMaxTotal(10);
+        poolConfig.setMaxIdle(5);
+        poolConfig.setMinIdle(1);
+        poolConfig.setTestOnBorrow(true);
+
+        return RedisTelemetry.global().createPool(poolConfig, "localhost", 6379);
+    }
+
+    /**
+     * Thiết lập TTL riêng cho từng entry, ví dụ sản phẩm hết hàng được cache ngắn hơn
+     *
+     * @param ttlPolicy Hàm trả về TTL (giây) cho một cặp key/giá trị
+     */
+    public void setTtlPolicy(ToIntBiFunction<K, V> ttlPolicy) {
+        this.ttlPolicy = Objects.requireNonNull(ttlPolicy, "ttlPolicy");
+    }
+
+    /**
+     * Thiết lập hàm tải nhiều key trong một lần truy vấn database, dùng cho {@link #getAll}.
+     * Key không có trong kết quả trả về được coi là không tồn tại.
+     * Nếu không thiết lập, getAll gọi loader lần lượt cho từng key bị miss.
+     */
+    public void setBulkLoader(Function<Set<K>, Map<K, V>> bulkLoader) {
+        this.bulkLoader = Objects.requireNonNull(bulkLoader, "bulkLoader");
+    }
+
+    /**
+     * Thời gian giữ lease trên Redis khi tải một key, để chỉ một JVM gọi loader.
+     * Các JVM khác chờ tối đa bằng thời gian này rồi mới tự tải. Đặt 0 để tắt.
+     */
+    public void setLoadLeaseMillis(long loadLeaseMillis) {
+        if (loadLeaseMillis < 0) {
+            throw new IllegalArgumentException("loadLeaseMillis không được âm");
+        }
+        this.loadLeaseMillis = loadLeaseMillis;
+    }
+
+    /**
+     * Hệ số beta của XFetch: lớn hơn 1 làm mới sớm hơn, 0 để tắt làm mới sớm
+     */
+    public void setEarlyRefreshBeta(double earlyRefreshBeta) {
+        if (earlyRefreshBeta < 0) {
+            throw new IllegalArgumentException("earlyRefreshBeta không được âm");
+        }
+        this.earlyRefreshBeta = earlyRefreshBeta;
+    }
+
+    /**
+     * Cho phép trả giá trị đã hết hạn trong tối đa số giây này trong khi làm mới ở background.
+     * Chỉ áp dụng cho các entry được ghi sau khi thiết lập.
+     */
+    public void setStaleWhileRevalidateSeconds(int staleWhileRevalidateSeconds) {
+        if (staleWhileRevalidateSeconds < 0) {
+            throw new IllegalArgumentException("staleWhileRevalidateSeconds không được âm");
+        }
+        this.staleWhileRevalidateSeconds = staleWhileRevalidateSeconds;
+    }
+
+    /**
+     * Bật tầng L1 trong JVM trước Redis
+     *
+     * @param maxWeight Tổng trọng lượng tối đa của L1
+     * @param weigher Hàm ước lượng trọng lượng (ví dụ số byte) của một giá trị
+     * @param maxStalenessMillis Thời gian tối đa một entry được giữ trong L1, giới hạn độ cũ
+     *                           khi bỏ lỡ thông báo invalidation
+     */
+    public synchronized void enableLocalCache(long maxWeight, ToIntFunction<V> weigher, long maxStalenessMillis) {
+        if (maxStalenessMillis <= 0) {
+            throw new IllegalArgumentException("maxStalenessMillis phải lớn hơn 0");
+        }
+        this.localCache = new LocalCache<>(maxWeight, weigher);
+        this.localMaxStalenessMillis = maxStalenessMillis;
+
+        if (subscriberThread == null) {
+            subscriberRunning = true;
+            subscriberThread = new Thread(this::runInvalidationSubscriber, "redis-cache-invalidation");
+            subscriberThread.setDaemon(true);
+            subscriberThread.start();
+        }
+    }
+
+    /**
+     * Bật L1 chỉ cho key nóng: mọi lượt đọc được ghi nhận vào detector, và chỉ key đang
+     * nóng mới được giữ lại trong JVM. Tốn ít bộ nhớ hơn L1 cho mọi key, trong khi phần
+     * lớn lượt đọc dồn vào key nóng được phục vụ tại chỗ. Key đã vào L1 vẫn được
+     * invalidation qua pub/sub như {@link #enableLocalCache}.
+     *
+     * @param detector Thường là {@link HotKeyDetector#global()}
+     */
+    public synchronized void enableHotKeyCache(HotKeyDetector detector, long maxWeight, ToIntFunction<V> weigher,
+                                               long maxStalenessMillis) {
+        this.hotKeyDetector = Objects.requireNonNull(detector, "detector");
+        enableLocalCache(maxWeight, weigher, maxStalenessMillis);
+    }
+
+    /**
+     * Thống kê hit/miss theo tầng kể từ khi tạo cache
+     */
+    public CacheStats getStats() {
+        return new CacheStats(l1Hits.sum(), l2Hits.sum(), misses.sum());
+    }
+
+    /**
+     * Bật chế độ write-through: mỗi lần put/remove ghi database đồng bộ trước.
+     * Nếu đang write-behind, các thao tác còn chờ được ghi hết trước khi chuyển chế độ.
+     *
+     * @throws IllegalStateException nếu còn thao tác write-behind không ghi được xuống database
+     */
+    public synchronized void enableWriteThrough(CacheWriter<K, V> writer) {
+        Objects.requireNonNull(writer, "writer");
+        ensureOpen();
+        int unflushed = stopWriteBehind();
+        this.writer = writer;
+        this.writeMode = WriteMode.WRITE_THROUGH;
+        if (unflushed > 0) {
+            throw unflushedWrites(unflushed);
+        }
+    }
+
+    /**
+     * Bật chế độ write-behind: ghi database theo lô ở background
+     *
+     * @param writer Nơi ghi dữ liệu gốc
+     * @param batchSize Số entry tối đa trong một lần gọi writer; đạt ngưỡng này sẽ flush sớm
+     * @param flushIntervalMillis Chu kỳ flush định kỳ (ms)
+     * @throws IllegalStateException nếu còn thao tác write-behind cũ không ghi được xuống database
+     */
+    public synchronized void enableWriteBehind(CacheWriter<K, V> writer, int batchSize, long flushIntervalMillis) {
+        if (batchSize <= 0 || flushIntervalMillis <= 0) {
+            throw new IllegalArgumentException("batchSize và flushIntervalMillis phải lớn hơn 0");
+        }
+        Objects.requireNonNull(writer, "writer");
+        ensureOpen();
+        int unflushed = stopWriteBehind();
+        if (unflushed > 0) {
+            throw unflushedWrites(unflushed);
+        }
+        this.writer = writer;
+        this.writeBehindBatchSize = batchSize;
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "redis-cache-write-behind");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::flush, flushIntervalMillis, flushIntervalMillis,
+                TimeUnit.MILLISECONDS);
+        synchronized (pendingLock) {
+            this.flushExecutor = executor;
+        }
+        this.writeMode = WriteMode.WRITE_BEHIND;
+    }
+
+    public WriteMode getWriteMode() {
+        return writeMode;
+    }
+
+    /**
+     * Lấy giá trị theo key (read-through)
+     *
+     * Khi nhiều caller cùng miss một key, chỉ một caller gọi loader (single-flight),
+     * các caller còn lại dùng chung kết quả. Key nóng sắp hết hạn được làm mới sớm
+     * ở background theo xác suất (XFetch) để tránh cả loạt request cùng miss.
+     *
+     * @return Giá trị từ cache, hoặc từ loader nếu cache miss; null nếu không tồn tại
+     */
+    public V get(K key) {
+        String redisKey = toRedisKey(key);
+        HotKeyDetector detector = hotKeyDetector;
+        if (detector != null) {
+            detector.record(redisKey);
+        }
+        LocalCache<String, V> l1 = localCache;
+        if (l1 != null) {
+            V local = l1.get(redisKey);
+            if (local != null) {
+                l1Hits.increment();
+                return local;
+            }
+        }
+
+        CacheEntry<V> entry;
+
+        String data;
+        try (Jedis jedis = jedisPool.getResource()) {
+            data = jedis.get(redisKey);
+        } catch (JedisException e) {
+            // Redis lỗi thì vẫn phục vụ được từ database, chỉ chậm hơn
+            LOGGER.warn("Lỗi khi đọc cache: {}", e.getMessage());
+            return loadSingleFlight(key, redisKey, false);
+        }
+        // Entry hỏng được coi như miss, loader sẽ ghi đè giá trị mới
+        entry = decodeOrNull(redisKey, data);
+
+        if (entry == null) {
+            misses.increment();
+            return loadSingleFlight(key, redisKey, true);
+        }
+
+        long now = System.currentTimeMillis();
+        if (now < entry.expiresAt) {
+            l2Hits.increment();
+            if (shouldRefreshEarly(entry, now)) {
+                refreshAsync(key, redisKey);
+            } else {
+                cacheLocally(redisKey, entry.value, entry.expiresAt);
+            }
+            return entry.value;
+        }
+
+        // Đã hết hạn logic nhưng còn trong thời gian stale: trả giá trị cũ, làm mới ở background
+        if (staleWhileRevalidateSeconds > 0) {
+            l2Hits.increment();
+            refreshAsync(key, redisKey);
+            return entry.value;
+        }
+        misses.increment();
+        return loadSingleFlight(key, redisKey, true);
+    }
+
+    /**
+     * Lấy nhiều key cùng lúc: một lệnh MGET, gom các key bị miss vào một lần gọi
+     * bulk loader, rồi ghi lại cache trong một pipeline với TTL riêng từng key.
+     *
+     * Lỗi cục bộ không làm hỏng cả lô: Redis lỗi thì toàn bộ được tải từ database,
+     * entry không giải mã được thì chỉ key đó được tải lại, ghi cache lỗi thì vẫn
+     * trả kết quả đã tải.
+     *
+     * @return Map các key tìm thấy theo thứ tự của keys; key không tồn tại không có trong kết quả
+     */
+    public Map<K, V> getAll(Collection<K> keys) {
+        Map<K, V> result = new LinkedHashMap<>();
+        List<K> remoteKeys = new ArrayList<>(keys.size());
+        LocalCache<String, V> l1 = localCache;
+        HotKeyDetector detector = hotKeyDetector;
+
+        for (K key : keys) {
+            String redisKey = toRedisKey(key);
+            if (detector != null) {
+                detector.record(redisKey);
+            }
+            V local = l1 == null ? null : l1.get(redisKey);
+            if (local != null) {
+                l1Hits.increment();
+                result.put(key, local);
+            } else if (!result.containsKey(key)) {
+                remoteKeys.add(key);
+                result.put(key, null);
+            }
+        }
+
+        Set<K> missing = new LinkedHashSet<>();
+        if (!remoteKeys.isEmpty()) {
+            String[] redisKeys = new String[remoteKeys.size()];
+            for (int i = 0; i < redisKeys.length; i++) {
+                redisKeys[i] = toRedisKey(remoteKeys.get(i));
+            }
+
+            List<String> cached;
+            try (Jedis jedis = jedisPool.getResource()) {
+                cached = jedis.mget(redisKeys);
+            } catch (JedisException e) {
+                LOGGER.warn("Lỗi khi đọc cache: {}", e.getMessage());
+                cached = Collections.nCopies(redisKeys.length, null);
+            }
+
+            long now = System.currentTimeMillis();
+            for (int i = 0; i < redisKeys.length; i++) {
+                K key = remoteKeys.get(i);
+                CacheEntry<V> entry = decodeOrNull(redisKeys[i], cached.get(i));
+
+                if (entry == null || (now >= entry.expiresAt && staleWhileRevalidateSeconds == 0)) {
+                    misses.increment();
+                    missing.add(key);
+                    continue;
+                }
+
+                l2Hits.increment();
+                result.put(key, entry.value);
+                if (now >= entry.expiresAt || shouldRefreshEarly(entry, now)) {
+                    refreshAsync(key, redisKeys[i]);
+                } else {
+                    cacheLocally(redisKeys[i], entry.value, entry.expiresAt);
+                }
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            long start = System.nanoTime();
+            Map<K, V> loaded = loadAll(missing);
+            long deltaMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+            Map<K, V> found = new LinkedHashMap<>();
+            for (K key : missing) {
+                V value = loaded.get(key);
+                if (value != null) {
+                    found.put(key, value);
+                    result.put(key, value);
+                }
+            }
+            storeAll(found, deltaMillis);
+        }
+
+        result.values().removeIf(Objects::isNull);
+        return result;
+    }
+
+    /**
+     * Ghi nhiều entry trong một pipeline, TTL mỗi entry theo ttlPolicy.
+     * Với write-through, database được ghi bằng một lần gọi writer.
+     */
+    public void putAll(Map<K, V> entries) {
+        ensureOpen();
+        if (entries.isEmpty()) {
+            return;
+        }
+        WriteMode mode = writeMode;
+
+        if (mode == WriteMode.WRITE_THROUGH) {
+            writer.writeAll(entries);
+        }
+
+        storeAll(entries, 0);
+
+        if (mode == WriteMode.WRITE_BEHIND) {
+            for (Map.Entry<K, V> entry : entries.entrySet()) {
+                enqueue(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Ghi giá trị với TTL theo ttlPolicy
+     */
+    public void put(K key, V value) {
+        put(key, value, ttlPolicy.applyAsInt(key, value));
+    }
+
+    /**
+     * Ghi giá trị với TTL chỉ định, xử lý theo chế độ ghi hiện tại
+     *
+     * @param ttlSeconds Thời gian sống của entry (giây)
+     * @throws IllegalStateException nếu cache đã đóng
+     */
+    public void put(K key, V value, int ttlSeconds) {
+        Objects.requireNonNull(value, "value");
+        ensureOpen();
+        WriteMode mode = writeMode;
+
+        if (mode == WriteMode.WRITE_THROUGH) {
+            writer.writeAll(singletonMap(key, value));
+        }
+
+        store(toRedisKey(key), value, ttlSeconds, 0);
+
+        if (mode == WriteMode.WRITE_BEHIND) {
+            enqueue(key, value);
+        }
+    }
+
+    /**
+     * Xóa entry khỏi cache (và khỏi database nếu có writer)
+     */
+    public void remove(K key) {
+        ensureOpen();
+        WriteMode mode = writeMode;
+
+        if (mode == WriteMode.WRITE_THROUGH) {
+            writer.deleteAll(singletonSet(key));
+        }
+
+        invalidate(key);
+
+        if (mode == WriteMode.WRITE_BEHIND) {
+            enqueue(key, null);
+        }
+    }
+
+    /**
+     * Chỉ xóa entry khỏi cache, lần đọc sau sẽ tải lại từ database
+     */
+    public void invalidate(K key) {
+        String redisKey = toRedisKey(key);
+        LocalCache<String, V> l1 = localCache;
+        if (l1 != null) {
+            l1.remove(redisKey);
+        }
+
+        try (Jedis jedis = jedisPool.getResource()) {
+            if (l1 == null) {
+                jedis.del(redisKey);
+            } else {
+                Pipeline pipeline = jedis.pipelined();
+                pipeline.del(redisKey);
+                pipeline.publish(invalidationChannel, nodeId + '|' + redisKey);
+                pipeline.sync();
+            }
+        } catch (JedisException e) {
+            LOGGER.warn("Lỗi khi xóa cache: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Số thao tác ghi đang chờ flush xuống database
+     */
+    public int pendingWriteCount() {
+        synchronized (pendingLock) {
+            return pendingWrites.size();
+        }
+    }
+
+    /**
+     * Ghi ngay các thao tác đang chờ xuống database (write-behind). Các lần flush (định kỳ,
+     * khi đầy lô hay gọi trực tiếp) chạy lần lượt, không chồng lên nhau.
+     *
+     * @return Số thao tác vẫn còn chờ sau lần flush này (khác 0 nếu writer lỗi)
+     */
+    public int flush() {
+        synchronized (flushLock) {
+            flushPending();
+            return pendingWriteCount();
+        }
+    }
+
+    private void flushPending() {
+        LinkedHashMap<K, V> batch;
+        synchronized (pendingLock) {
+            flushScheduled.set(false);
+            if (pendingWrites.isEmpty()) {
+                return;
+            }
+            batch = pendingWrites;
+            pendingWrites = new LinkedHashMap<>();
+        }
+
+        CacheWriter<K, V> currentWriter = writer;
+        List<K> keys = new ArrayList<>(batch.keySet());
+        for (int from = 0; from < keys.size(); from += writeBehindBatchSize) {
+            List<K> chunk = keys.subList(from, Math.min(keys.size(), from + writeBehindBatchSize));
+            Map<K, V> writes = new LinkedHashMap<>();
+            Set<K> deletes = new HashSet<>();
+            for (K key : chunk) {
+                V value = batch.get(key);
+                if (value == null) {
+                    deletes.add(key);
+                } else {
+                    writes.put(key, value);
+                }
+            }
+
+            try {
+                if (!writes.isEmpty()) {
+                    currentWriter.writeAll(writes);
+                }
+                if (!deletes.isEmpty()) {
+                    currentWriter.deleteAll(deletes);
+                }
+            } catch (RuntimeException e) {
+                LOGGER.warn("Lỗi khi ghi write-behind, sẽ thử lại: {}", e.getMessage());
+                requeue(batch, keys.subList(from, keys.size()));
+                return;
+            }
+        }
+    }
+
+    /**
+     * Đưa lại các thao tác ghi lỗi vào hàng đợi, trừ khi key đã có thao tác mới hơn
+     */
+    private void requeue(Map<K, V> batch, List<K> failedKeys) {
+        synchronized (pendingLock) {
+            LinkedHashMap<K, V> merged = new LinkedHashMap<>();
+            for (K key : failedKeys) {
+                if (!pendingWrites.containsKey(key)) {
+                    merged.put(key, batch.get(key));
+                }
+            }
+            merged.putAll(pendingWrites);
+            pendingWrites = merged;
+        }
+    }
+
+    private void enqueue(K key, V value) {
+        ScheduledExecutorService executor;
+        boolean full = false;
+        synchronized (pendingLock) {
+            executor = flushExecutor;
+            if (executor != null) {
+                // remove trước để key được xếp theo lần ghi mới nhất
+                pendingWrites.remove(key);
+                pendingWrites.put(key, value);
+                full = pendingWrites.size() >= writeBehindBatchSize;
+            }
+        }
+
+        if (executor == null) {
+            // Write-behind vừa bị dừng (đổi chế độ hoặc đóng cache): ghi thẳng xuống database
+            writeDirectly(key, value);
+        } else if (full && flushScheduled.compareAndSet(false, true)) {
+            try {
+                executor.execute(this::flush);
+            } catch (RejectedExecutionException e) {
+                flushScheduled.set(false);
+            }
+        }
+    }
+
+    /**
+     * Ghi một thao tác đồng bộ, sau khi các thao tác cũ hơn còn trong hàng đợi đã được ghi
+     */
+    private void writeDirectly(K key, V value) {
+        synchronized (flushLock) {
+            flushPending();
+            synchronized (pendingLock) {
+                // Thao tác này mới hơn, bản cũ chưa ghi được không cần thử lại nữa
+                pendingWrites.remove(key);
+            }
+            if (value == null) {
+                writer.deleteAll(singletonSet(key));
+            } else {
+                writer.writeAll(singletonMap(key, value));
+            }
+        }
+    }
+
+    /**
+     * Tải giá trị từ loader, đảm bảo mỗi key chỉ có một lần tải đang chạy trong JVM
+     *
+     * @param useLease true để giữ thêm lease trên Redis, tránh nhiều JVM cùng tải một key
+     */
+    private V loadSingleFlight(K key, String redisKey, boolean useLease) {
+        CompletableFuture<V> future = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlightLoads.putIfAbsent(key, future);
+        if (existing != null) {
+            try {
+                return existing.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+            }
+        }
+
+        try {
+            V value = useLease && loadLeaseMillis > 0 ? loadWithLease(key, redisKey) : loadAndStore(key, redisKey);
+            future.complete(value);
+            return value;
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlightLoads.remove(key, future);
+        }
+    }
+
+    /**
+     * Giữ lease trên Redis trong lúc tải. Nếu JVM khác đang giữ lease thì chờ giá trị
+     * được ghi vào cache; lease được trả mà không có giá trị (loader trả null hoặc lỗi)
+     * thì lấy lại lease và tự tải ngay, hết thời gian lease mới tự tải mà không có lease.
+     */
+    private V loadWithLease(K key, String redisKey) {
+        String leaseKey = LEASE_PREFIX + redisKey;
+        String token = UUID.randomUUID().toString();
+        long deadline = System.currentTimeMillis() + loadLeaseMillis;
+
+        while (!tryAcquireLease(leaseKey, token)) {
+            if (System.currentTimeMillis() >= deadline) {
+                return loadAndStore(key, redisKey);
+            }
+            try {
+                Thread.sleep(LEASE_POLL_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return loadAndStore(key, redisKey);
+            }
+
+            try (Jedis jedis = jedisPool.getResource()) {
+                // EXISTS trước GET: bên giữ lease ghi giá trị rồi mới trả lease, nên lease
+                // đã mất mà GET vẫn không có giá trị nghĩa là lần tải kia không ghi gì
+                Pipeline pipeline = jedis.pipelined();
+                Response<Boolean> leased = pipeline.exists(leaseKey);
+                Response<String> data = pipeline.get(redisKey);
+                pipeline.sync();
+
+                CacheEntry<V> entry = decodeOrNull(redisKey, data.get());
+                if (entry != null && System.currentTimeMillis() < entry.expiresAt) {
+                    return entry.value;
+                }
+                if (!leased.get()) {
+                    // Lease đã được trả hoặc hết hạn: thử lấy lại ngay
+                    continue;
+                }
+            } catch (JedisException e) {
+                return loadAndStore(key, redisKey);
+            }
+        }
+
+        try {
+            return loadAndStore(key, redisKey);
+        } finally {
+            releaseLease(leaseKey, token);
+        }
+    }
+
+    /**
+     * Làm mới key ở background; bỏ qua nếu key đang được làm mới (trong JVM này hoặc JVM khác)
+     */
+    private void refreshAsync(K key, String redisKey) {
+        if (!refreshingKeys.add(key)) {
+            return;
+        }
+
+        try {
+            refreshExecutor().execute(() -> {
+                String leaseKey = LEASE_PREFIX + redisKey;
+                String token = UUID.randomUUID().toString();
+                try {
+                    if (loadLeaseMillis <= 0) {
+                        loadAndStore(key, redisKey);
+                    } else if (tryAcquireLease(leaseKey, token)) {
+                        try {
+                            loadAndStore(key, redisKey);
+                        } finally {
+                            releaseLease(leaseKey, token);
+                        }
+                    }
+                } catch (RuntimeException e) {
+                    LOGGER.warn("Lỗi khi làm mới cache: {}", e.getMessage());
+                } finally {
+                    refreshingKeys.remove(key);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            refreshingKeys.remove(key);
+        }
+    }
+
+    private Map<K, V> loadAll(Set<K> keys) {
+        Function<Set<K>, Map<K, V>> currentBulkLoader = bulkLoader;
+        if (currentBulkLoader != null) {
+            Map<K, V> loaded = currentBulkLoader.apply(Collections.unmodifiableSet(keys));
+            return loaded == null ? Collections.emptyMap() : loaded;
+        }
+
+        Map<K, V> loaded = new HashMap<>();
+        for (K key : keys) {
+            V value = loader.apply(key);
+            if (value != null) {
+                loaded.put(key, value);
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Ghi nhiều entry (kèm invalidation cho L1 nếu bật) trong một round trip,
+     * TTL mỗi entry theo ttlPolicy
+     */
+    private void storeAll(Map<K, V> entries, long deltaMillis) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        LocalCache<String, V> l1 = localCache;
+        Map<String, V> localEntries = new LinkedHashMap<>();
+        Map<String, Long> expiries = new HashMap<>();
+
+        try (Jedis jedis = jedisPool.getResource()) {
+            Pipeline pipeline = jedis.pipelined();
+            long now = System.currentTimeMillis();
+            for (Map.Entry<K, V> entry : entries.entrySet()) {
+                String redisKey = toRedisKey(entry.getKey());
+                int ttl = ttlPolicy.applyAsInt(entry.getKey(), entry.getValue());
+                long expiresAt = now + ttl * 1000L;
+
+                pipeline.setex(redisKey, ttl + staleWhileRevalidateSeconds,
+                        encode(entry.getValue(), deltaMillis, expiresAt));
+                if (l1 != null) {
+                    pipeline.publish(invalidationChannel, nodeId + '|' + redisKey);
+                }
+                localEntries.put(redisKey, entry.getValue());
+                expiries.put(redisKey, expiresAt);
+            }
+            pipeline.sync();
+        } catch (JedisException e) {
+            LOGGER.warn("Lỗi khi ghi cache theo lô: {}", e.getMessage());
+            if (l1 != null) {
+                for (String redisKey : localEntries.keySet()) {
+                    l1.remove(redisKey);
+                }
+            }
+            return;
+        }
+
+        for (Map.Entry<String, V> entry : localEntries.entrySet()) {
+            cacheLocally(entry.getKey(), entry.getValue(), expiries.get(entry.getKey()));
+        }
+    }
+
+    private V loadAndStore(K key, String redisKey) {
+        long start = System.nanoTime();
+        V value = loader.apply(key);
+        long deltaMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        if (value != null) {
+            store(redisKey, value, ttlPolicy.applyAsInt(key, value), deltaMillis);
+        }
+        return value;
+    }
+
+    /**
+     * XFetch: xác suất làm mới tăng dần khi gần hết hạn và khi thời gian tải (delta) lớn
+     */
+    private boolean shouldRefreshEarly(CacheEntry<V> entry, long now) {
+        if (earlyRefreshBeta <= 0 || entry.deltaMillis <= 0) {
+            return false;
+        }
+        double random = 1.0 - ThreadLocalRandom.current().nextDouble();
+        return now - entry.deltaMillis * earlyRefreshBeta * Math.log(random) >= entry.expiresAt;
+    }
+
+    private boolean tryAcquireLease(String leaseKey, String token) {
+        try (Jedis jedis = jedisPool.getResource()) {
+            return "OK".equals(jedis.set(leaseKey, token, new SetParams().nx().px(loadLeaseMillis)));
+        } catch (JedisException e) {
+            LOGGER.warn("Lỗi khi lấy lease: {}", e.getMessage());
+            // Không lấy được lease thì vẫn tải, single-flight trong JVM đã giới hạn số lần tải
+            return true;
+        }
+    }
+
+    private void releaseLease(String leaseKey, String token) {
+        try (Jedis jedis = jedisPool.getResource()) {
+            jedis.eval(RELEASE_LEASE_SCRIPT, 1, leaseKey, token);
+        } catch (JedisException e) {
+            LOGGER.warn("Lỗi khi trả lease: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Ghi entry kèm metadata; key trong Redis sống thêm staleWhileRevalidateSeconds sau hạn logic
+     */
+    private void store(String redisKey, V value, int ttlSeconds, long deltaMillis) {
+        long expiresAt = System.currentTimeMillis() + ttlSeconds * 1000L;
+        String data = encode(value, deltaMillis, expiresAt);
+        LocalCache<String, V> l1 = localCache;
+
+        try (Jedis jedis = jedisPool.getResource()) {
+            if (l1 == null) {
+                jedis.setex(redisKey, ttlSeconds + staleWhileRevalidateSeconds, data);
+            } else {
+                // Ghi và báo các JVM khác bỏ bản sao L1 trong cùng một round trip
+                Pipeline pipeline = jedis.pipelined();
+                pipeline.setex(redisKey, ttlSeconds + staleWhileRevalidateSeconds, data);
+                pipeline.publish(invalidationChannel, nodeId + '|' + redisKey);
+                pipeline.sync();
+            }
+        } catch (JedisException e) {
+            LOGGER.warn("Lỗi khi ghi cache: {}", e.getMessage());
+            if (l1 != null) {
+                l1.remove(redisKey);
+            }
+            return;
+        }
+
+        cacheLocally(redisKey, value, expiresAt);
+    }
+
+    private void cacheLocally(String redisKey, V value, long expiresAt) {
+        LocalCache<String, V> l1 = localCache;
+        HotKeyDetector detector = hotKeyDetector;
+        if (l1 != null && (detector == null || detector.isHot(redisKey))) {
+            l1.put(redisKey, value, Math.min(expiresAt, System.currentTimeMillis() + localMaxStalenessMillis));
+        }
+    }
+
+    /**
+     * Lắng nghe kênh invalidation (và keyspace notification nếu có) để bỏ entry khỏi L1.
+     * Kênh invalidation được SUBSCRIBE đúng tên (tiền tố key có thể chứa ký tự glob), chỉ
+     * keyspace notification dùng PSUBSCRIBE với tiền tố đã được escape.
+     * Khi mất kết nối, L1 bị xóa toàn bộ vì có thể đã bỏ lỡ thông báo.
+     */
+    private void runInvalidationSubscriber() {
+        String keyspacePattern = "__keyspace@*__:" + escapeGlob(keyPrefix) + "*";
+
+        while (subscriberRunning) {
+            CountDownLatch subscribed = new CountDownLatch(1);
+            JedisPubSub pubSub = new JedisPubSub() {
+                @Override
+                public void onSubscribe(String channel, int subscribedChannels) {
+                    psubscribe(keyspacePattern);
+                    subscribed.countDown();
+                }
+
+                @Override
+                public void onMessage(String channel, String message) {
+                    LocalCache<String, V> l1 = localCache;
+                    int separator = message.indexOf('|');
+                    if (l1 != null && !message.regionMatches(0, nodeId, 0, separator)) {
+                        l1.remove(message.substring(separator + 1));
+                    }
+                }
+
+                @Override
+                public void onPMessage(String pattern, String channel, String message) {
+                    LocalCache<String, V> l1 = localCache;
+                    if (l1 != null && ("del".equals(message) || "expired".equals(message)
+                            || "evicted".equals(message))) {
+                        l1.remove(channel.substring(channel.indexOf(':') + 1));
+                    }
+                }
+            };
+            invalidationPubSub = pubSub;
+            invalidationSubscribed = subscribed;
+
+            try (Jedis jedis = jedisPool.getResource()) {
+                if (subscriberRunning) {
+                    jedis.subscribe(pubSub, invalidationChannel);
+                }
+            } catch (JedisException e) {
+                if (!subscriberRunning) {
+                    break;
+                }
+                LOGGER.warn("Mất kết nối kênh invalidation: {}", e.getMessage());
+                LocalCache<String, V> l1 = localCache;
+                if (l1 != null) {
+                    l1.clear();
+                }
+                try {
+                    Thread.sleep(1000);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            } finally {
+                subscribed.countDown();
+            }
+        }
+    }
+
+    /**
+     * Dừng thread lắng nghe invalidation: chờ subscribe xong rồi mới unsubscribe, lặp lại
+     * cho tới khi thread kết thúc (kể cả khi thread đang kết nối lại)
+     */
+    private void stopInvalidationSubscriber(Thread thread) {
+        subscriberRunning = false;
+        long deadline = System.currentTimeMillis() + SUBSCRIBER_STOP_MILLIS;
+        try {
+            while (thread.isAlive() && System.currentTimeMillis() < deadline) {
+                CountDownLatch subscribed = invalidationSubscribed;
+                if (subscribed != null) {
+                    subscribed.await(LEASE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                }
+                JedisPubSub pubSub = invalidationPubSub;
+                if (pubSub != null && pubSub.isSubscribed()) {
+                    pubSub.unsubscribe();
+                    pubSub.punsubscribe();
+                } else {
+                    // Đang chờ kết nối lại sau lỗi
+                    thread.interrupt();
+                }
+                thread.join(LEASE_POLL_MILLIS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (thread.isAlive()) {
+            LOGGER.warn("Thread lắng nghe invalidation chưa dừng sau {}ms", SUBSCRIBER_STOP_MILLIS);
+        }
+    }
+
+    /**
+     * Escape các ký tự đặc biệt của glob Redis để pattern chỉ khớp đúng chuỗi này
+     */
+    private static String escapeGlob(String text) {
+        StringBuilder escaped = new StringBuilder(text.length() + 8);
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '*' || c == '?' || c == '[' || c == ']' || c == '\\') {
+                escaped.append('\\');
+            }
+            escaped.append(c);
+        }
+        return escaped.toString();
+    }
+
+    private String encode(V value, long deltaMillis, long expiresAt) {
+        return ENVELOPE_MARKER + deltaMillis + '|' + expiresAt + '|' + serializer.serialize(value);
+    }
+
+    /**
+     * Giải mã entry; entry hỏng (envelope sai hoặc serializer lỗi) được ghi log và coi như miss
+     */
+    private CacheEntry<V> decodeOrNull(String redisKey, String data) {
+        try {
+            return decode(data);
+        } catch (RuntimeException e) {
+            LOGGER.warn("Không giải mã được entry {}, tải lại từ database: {}", redisKey, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Giải mã entry; giá trị ghi bởi phiên bản cũ (không có metadata) được coi là chưa hết hạn
+     */
+    private CacheEntry<V> decode(String data) {
+        if (data == null) {
+            return null;
+        }
+        if (!data.startsWith(ENVELOPE_MARKER)) {
+            return new CacheEntry<>(serializer.deserialize(data), 0, Long.MAX_VALUE);
+        }
+
+        int first = data.indexOf('|', ENVELOPE_MARKER.length());
+        int second = data.indexOf('|', first + 1);
+        long deltaMillis = Long.parseLong(data.substring(ENVELOPE_MARKER.length(), first));
+        long expiresAt = Long.parseLong(data.substring(first + 1, second));
+        return new CacheEntry<>(serializer.deserialize(data.substring(second + 1)), deltaMillis, expiresAt);
+    }
+
+    private synchronized ExecutorService refreshExecutor() {
+        if (refreshExecutor == null) {
+            refreshExecutor = Executors.newFixedThreadPool(REFRESH_THREADS, r -> {
+                Thread thread = new Thread(r, "redis-cache-refresh");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return refreshExecutor;
+    }
+
+    private String toRedisKey(K key) {
+        return keyPrefix + key;
+    }
+
+    /**
+     * Dừng write-behind: chờ lần flush đang chạy kết thúc rồi ghi nốt hàng đợi.
+     * Thao tác ghi đến sau đó được ghi thẳng xuống database (xem {@link #enqueue}).
+     *
+     * @return Số thao tác không ghi được, vẫn còn trong hàng đợi
+     */
+    private int stopWriteBehind() {
+        ScheduledExecutorService executor;
+        synchronized (pendingLock) {
+            executor = flushExecutor;
+            flushExecutor = null;
+        }
+        if (executor == null) {
+            return pendingWriteCount();
+        }
+
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(FLUSH_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                LOGGER.warn("Flush write-behind chưa kết thúc sau {} giây", FLUSH_TIMEOUT_SECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        int unflushed = flush();
+        if (unflushed > 0) {
+            LOGGER.warn("Còn {} thao tác write-behind chưa ghi được xuống database", unflushed);
+        }
+        return unflushed;
+    }
+
+    private IllegalStateException unflushedWrites(int unflushed) {
+        return new IllegalStateException("Còn " + unflushed
+                + " thao tác write-behind chưa ghi được xuống database, gọi flush() để thử lại");
+    }
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("Cache đã đóng");
+        }
+    }
+
+    private static <K, V> Map<K, V> singletonMap(K key, V value) {
+        Map<K, V> map = new LinkedHashMap<>();
+        map.put(key, value);
+        return map;
+    }
+
+    private static <K> Set<K> singletonSet(K key) {
+        Set<K> set = new HashSet<>();
+        set.add(key);
+        return set;
+    }
+
+    /**
+     * Flush các thao tác ghi còn lại rồi đóng kết nối. Sau khi đóng, put/remove bị từ chối.
+     *
+     * @throws IllegalStateException nếu còn thao tác write-behind không ghi được xuống database;
+     *                               kết nối vẫn được đóng
+     */
+    @Override
+    public void close() {
+        int unflushed;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            unflushed = stopWriteBehind();
+            if (refreshExecutor != null) {
+                refreshExecutor.shutdownNow();
+            }
+            if (subscriberThread != null) {
+                stopInvalidationSubscriber(subscriberThread);
+            }
+        }
+        if (ownsPool) {
+            jedisPool.close();
+        }
+        if (unflushed > 0) {
+            throw unflushedWrites(unflushed);
+        }
+    }
+
+    /**
+     * Demo minh họa read-through, write-through và write-behind
+     */
+    public static void demo() throws InterruptedException {
+        System.out.println("=== DEMO REDIS CACHE ===");
+
+        // Mô phỏng database sản phẩm: mỗi lần đọc mất 500ms
+        Map<String, String> database = new ConcurrentHashMap<>();
+        database.put("12345", "{\"id\":\"12345\",\"name\":\"Smartphone XYZ\",\"price\":5990000,\"inStock\":true}");
+
+        AtomicInteger databaseLoads = new AtomicInteger();
+        Function<String, String> loader = id -> {
+            databaseLoads.incrementAndGet();
+            try {
+                Thread.sleep(500);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return database.get(id);
+        };
+
+        List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+        CacheWriter<String, String> dbWriter = new CacheWriter<String, String>() {
+            @Override
+            public void writeAll(Map<String, String> entries) {
+                batchSizes.add(entries.size());
+                database.putAll(entries);
+            }
+
+            @Override
+            public void deleteAll(Set<String> keys) {
+                database.keySet().removeAll(keys);
+            }
+        };
+
+        try (RedisCache<String, String> cache =
+                     new RedisCache<>("product:", Serializer.string(), loader, 300)) {
+            cache.invalidate("12345");
+
+            System.out.println("\n1. Read-through");
+            long start = System.currentTimeMillis();
+            cache.get("12345");
+            System.out.println("Lần đọc đầu (cache miss): " + (System.currentTimeMillis() - start) + "ms");
+            start = System.currentTimeMillis();
+            String product = cache.get("12345");
+            System.out.println("Lần đọc sau (cache hit): " + (System.currentTimeMillis() - start) + "ms");
+            System.out.println("Dữ liệu: " + product);
+
+            System.out.println("\n2. Write-through");
+            cache.enableWriteThrough(dbWriter);
+            cache.put("12345", "{\"id\":\"12345\",\"name\":\"Smartphone XYZ\",\"price\":5490000,\"inStock\":true}");
+            System.out.println("Database sau khi ghi: " + database.get("12345"));
+
+            System.out.println("\n3. Write-behind (gộp nhiều lần ghi cùng key)");
+            cache.enableWriteBehind(dbWriter, 50, 1000);
+            batchSizes.clear();
+            for (int i = 0; i < 100; i++) {
+                cache.put("12345", "{\"id\":\"12345\",\"price\":" + (5000000 + i) + "}");
+                cache.put("p" + (i % 10), "{\"id\":\"p" + (i % 10) + "\",\"version\":" + i + "}");
+            }
+            System.out.println("200 lần ghi, đang chờ flush: " + cache.pendingWriteCount() + " key");
+            Thread.sleep(1500);
+            System.out.println("Số lần gọi database: " + batchSizes.size() + ", kích thước các lô: " + batchSizes);
+            System.out.println("Database: " + database.get("12345"));
+
+            System.out.println("\n4. Chống cache stampede: 50 thread cùng đọc key vừa hết hạn");
+            cache.enableWriteThrough(dbWriter);
+            cache.invalidate("12345");
+            databaseLoads.set(0);
+            int threads = 50;
+            CountDownLatch ready = new CountDownLatch(threads);
+            CountDownLatch done = new CountDownLatch(threads);
+            for (int i = 0; i < threads; i++) {
+                new Thread(() -> {
+                    ready.countDown();
+                    try {
+                        ready.await();
+                        cache.get("12345");
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        done.countDown();
+                    }
+                }).start();
+            }
+            done.await(10, TimeUnit.SECONDS);
+            System.out.println("Số lần truy vấn database: " + databaseLoads.get() + " (không có single-flight: " + threads + ")");
+
+            System.out.println("\n5. Lấy 50 sản phẩm: MGET + bulk loader + pipeline");
+            List<String> productIds = new ArrayList<>();
+            for (int i = 0; i < 50; i++) {
+                productIds.add("list-" + i);
+                database.put("list-" + i, "{\"id\":\"list-" + i + "\"}");
+            }
+            cache.setBulkLoader(ids -> {
+                databaseLoads.incrementAndGet();
+                try {
+                    Thread.sleep(500);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                Map<String, String> rows = new HashMap<>();
+                for (String id : ids) {
+                    rows.put(id, database.get(id));
+                }
+                return rows;
+            });
+            databaseLoads.set(0);
+            start = System.currentTimeMillis();
+            Map<String, String> products = cache.getAll(productIds);
+            System.out.println("Lần đầu (miss toàn bộ): " + products.size() + " sản phẩm, "
+                    + (System.currentTimeMillis() - start) + "ms, " + databaseLoads.get() + " lần truy vấn database");
+            start = System.currentTimeMillis();
+            cache.getAll(productIds);
+            System.out.println("Lần sau (hit toàn bộ): " + (System.currentTimeMillis() - start) + "ms");
+
+            System.out.println("\n6. Two-tier cache: L1 trong JVM trước Redis");
+            cache.enableLocalCache(16 * 1024 * 1024, value -> 40 + value.length() * 2, 5000);
+            cache.get("12345");
+            int reads = 100_000;
+            long startNanos = System.nanoTime();
+            for (int i = 0; i < reads; i++) {
+                cache.get("12345");
+            }
+            System.out.printf("Thời gian đọc trung bình: %.3f µs%n", (System.nanoTime() - startNanos) / 1000.0 / reads);
+            System.out.println("Thống kê: " + cache.getStats());
+
+            try (RedisCache<String, String> otherNode =
+                         new RedisCache<>("product:", Serializer.string(), loader, 300)) {
+                otherNode.enableLocalCache(1024 * 1024, value -> 40 + value.length() * 2, 5000);
+                otherNode.put("12345", "{\"id\":\"12345\",\"price\":4990000}");
+                Thread.sleep(200);
+                System.out.println("Sau khi node khác cập nhật, node này đọc: " + cache.get("12345"));
+            }
+
+            for (int i = 0; i < 10; i++) {
+                cache.invalidate("p" + i);
+            }
+            for (String id : productIds) {
+                cache.invalidate(id);
+            }
+            cache.invalidate("12345");
+        }
+    }
+
+    /**
+     * Phương thức main để chạy demo
+     */
+    public static void main(String[] args) {
+        try {
+            demo();
+        } catch (Exception e) {
+            System.err.println("Lỗi: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,273 @@
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisCluster;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.JedisPoolConfig;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.exceptions.JedisException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * RedisCounter - Bộ đếm trên Redis, tự chia bộ đếm nóng thành nhiều key con
+ *
+ * Bình thường mỗi bộ đếm là một key "counter:" + name tăng bằng INCRBY. Khi
+ * {@link HotKeyDetector} báo key nóng, mỗi lượt tăng được ghi vào một trong shardCount
+ * key con "counter:" + name + ":shard:" + i chọn ngẫu nhiên. Các key con không dùng hash
+ * tag nên với {@link #RedisCounter(JedisCluster, HotKeyDetector)} chúng nằm ở các slot
+ * (và node) khác nhau: tải ghi của một bộ đếm nóng được chia cho nhiều node thay vì dồn
+ * vào một core. Với Redis standalone mọi key con vẫn ở cùng một server, chia key không
+ * giảm tải cho server đó; cách dùng này chỉ để cùng mã chạy được trên cả hai loại triển khai.
+ *
+ * Lượt đọc cộng key chính và mọi key con, nên kết quả luôn đúng dù bộ đếm đang nóng,
+ * đã nguội hay chỉ nóng ở một số JVM. Với standalone các GET đi chung một pipeline; với
+ * Cluster các key ở slot khác nhau nên mỗi key là một lệnh riêng (lệnh nhiều key sẽ bị
+ * từ chối với lỗi CROSSSLOT), tức shardCount + 1 round trip cho mỗi lượt đọc.
+ */
+public class RedisCounter implements AutoCloseable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(RedisCounter.class);
+    private static final String COUNTER_PREFIX = "counter:";
+    private static final String SHARD_SEPARATOR = ":shard:";
+    private static final RedisKeys KEYS = new RedisKeys(COUNTER_PREFIX);
+
+    private final JedisPool jedisPool;
+    private final JedisCluster jedisCluster;
+    private final boolean ownsPool;
+    private final HotKeyDetector hotKeyDetector;
+    private volatile int shardCount = 8;
+
+    /**
+     * Khởi tạo với connection pool mặc định (localhost:6379) và {@link HotKeyDetector#global()}
+     */
+    public RedisCounter() {
+        JedisPoolConfig poolConfig = new JedisPoolConfig();
+        poolConfig.setMaxTotal(10);
+        poolConfig.setMaxIdle(5);
+
+        this.jedisPool = RedisTelemetry.global().createPool(poolConfig, "localhost", 6379);
+        this.jedisCluster = null;
+        this.ownsPool = true;
+        this.hotKeyDetector = HotKeyDetector.global();
+    }
+
+    /**
+     * Dùng chung connection pool và detector có sẵn (Redis standalone)
+     */
+    public RedisCounter(JedisPool jedisPool, HotKeyDetector hotKeyDetector) {
+        this.jedisPool = Objects.requireNonNull(jedisPool, "jedisPool");
+        this.jedisCluster = null;
+        this.ownsPool = false;
+        this.hotKeyDetector = Objects.requireNonNull(hotKeyDetector, "hotKeyDetector");
+    }
+
+    /**
+     * Dùng một Redis Cluster: key con của bộ đếm nóng được chia cho các node
+     */
+    public RedisCounter(JedisCluster jedisCluster, HotKeyDetector hotKeyDetector) {
+        this.jedisPool = null;
+        this.jedisCluster = Objects.requireNonNull(jedisCluster, "jedisCluster");
+        this.ownsPool = false;
+        this.hotKeyDetector = Objects.requireNonNull(hotKeyDetector, "hotKeyDetector");
+    }
+
+    /**
+     * Số key con của một bộ đếm nóng (mặc định 8). Chỉ được tăng, vì lượt đọc chỉ cộng
+     * các key con trong phạm vi shardCount hiện tại.
+     */
+    public void setShardCount(int shardCount) {
+        if (shardCount < this.shardCount) {
+            throw new IllegalArgumentException("Không được giảm số key con, các key con cũ sẽ không được đọc");
+        }
+        this.shardCount = shardCount;
+    }
+
+    /**
+     * Tăng bộ đếm thêm 1
+     */
+    public boolean increment(String name) {
+        return increment(name, 1);
+    }
+
+    /**
+     * Tăng bộ đếm thêm delta
+     *
+     * @return true nếu ghi thành công
+     */
+    public boolean increment(String name, long delta) {
+        HotKeyDetector detector = hotKeyDetector;
+        detector.record(COUNTER_PREFIX, name);
+        byte[] key = detector.isHot(COUNTER_PREFIX, name)
+                ? KEYS.key(name, SHARD_SEPARATOR, ThreadLocalRandom.current().nextInt(shardCount))
+                : KEYS.key(name);
+
+        if (jedisCluster != null) {
+            try {
+                jedisCluster.incrBy(key, delta);
+                return true;
+            } catch (JedisException e) {
+                LOGGER.warn("Lỗi khi tăng bộ đếm: {}", e.getMessage());
+                return false;
+            }
+        }
+        try (Jedis jedis = jedisPool.getResource()) {
+            jedis.incrBy(key, delta);
+            return true;
+        } catch (JedisException e) {
+            LOGGER.warn("Lỗi khi tăng bộ đếm: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Giá trị bộ đếm: tổng key chính và các key con, đọc trong một round trip
+     *
+     * @return Giá trị bộ đếm, 0 nếu chưa tồn tại hoặc có lỗi
+     */
+    public long get(String name) {
+        if (jedisCluster != null) {
+            try {
+                long total = 0;
+                for (byte[] key : allKeys(name)) {
+                    byte[] value = jedisCluster.get(key);
+                    if (value != null) {
+                        total += RedisKeys.parseLong(value);
+                    }
+                }
+                return total;
+            } catch (JedisException e) {
+                LOGGER.warn("Lỗi khi đọc bộ đếm: {}", e.getMessage());
+                return 0;
+            }
+        }
+        try (Jedis jedis = jedisPool.getResource()) {
+            Pipeline pipeline = jedis.pipelined();
+            List<Response<byte[]>> parts = new ArrayList<>();
+            for (byte[] key : allKeys(name)) {
+                parts.add(pipeline.get(key));
+            }
+            pipeline.sync();
+
+            long total = 0;
+            for (Response<byte[]> part : parts) {
+                byte[] value = part.get();
+                if (value != null) {
+                    total += RedisKeys.parseLong(value);
+                }
+            }
+            return total;
+        } catch (JedisException e) {
+            LOGGER.warn("Lỗi khi đọc bộ đếm: {}", e.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * Xóa bộ đếm cùng mọi key con
+     */
+    public boolean reset(String name) {
+        if (jedisCluster != null) {
+            try {
+                // Mỗi key một DEL: các key con ở slot khác nhau
+                for (byte[] key : allKeys(name)) {
+                    jedisCluster.del(key);
+                }
+                return true;
+            } catch (JedisException e) {
+                LOGGER.warn("Lỗi khi xóa bộ đếm: {}", e.getMessage());
+                return false;
+            }
+        }
+        try (Jedis jedis = jedisPool.getResource()) {
+            List<byte[]> keys = allKeys(name);
+            jedis.del(keys.toArray(new byte[0][]));
+            return true;
+        } catch (JedisException e) {
+            LOGGER.warn("Lỗi khi xóa bộ đếm: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private List<byte[]> allKeys(String name) {
+        int shards = shardCount;
+        List<byte[]> keys = new ArrayList<>(shards + 1);
+        keys.add(KEYS.key(name));
+        for (int i = 0; i < shards; i++) {
+            keys.add(KEYS.key(name, SHARD_SEPARATOR, i));
+        }
+        return keys;
+    }
+
+    @Override
+    public void close() {
+        if (ownsPool) {
+            jedisPool.close();
+        }
+    }
+
+    /**
+     * Demo: một bộ đếm bị tăng liên tục từ nhiều thread trở thành key nóng và được chia
+     * thành nhiều key con, tổng đọc được vẫn bằng số lần tăng
+     */
+    public void demo() throws InterruptedException {
+        System.out.println("=== DEMO REDIS COUNTER (CHIA KEY NÓNG) ===");
+
+        String hotName = "page-views:home";
+        String coldName = "page-views:about";
+        reset(hotName);
+        reset(coldName);
+
+        int threads = 4;
+        AtomicLong increments = new AtomicLong();
+        CountDownLatch done = new CountDownLatch(threads);
+        long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(3);
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                try {
+                    while (System.nanoTime() < end) {
+                        if (increment(hotName)) {
+                            increments.incrementAndGet();
+                        }
+                    }
+                } finally {
+                    done.countDown();
+                }
+            }, "counter-demo-" + t);
+            worker.start();
+        }
+        for (int i = 0; i < 5; i++) {
+            increment(coldName);
+        }
+        done.await();
+
+        System.out.println("Key nóng theo detector: " + hotKeyDetector.getHotKeys());
+        System.out.println(hotName + ": đã tăng " + increments.get() + " lần, đọc được " + get(hotName));
+        System.out.println(coldName + ": đọc được " + get(coldName) + " (không bị chia)");
+
+        int usedShards = 0;
+        for (int i = 0; i < shardCount; i++) {
+            byte[] shardKey = KEYS.key(hotName, SHARD_SEPARATOR, i);
+            if (jedisCluster != null) {
+                usedShards += jedisCluster.exists(shardKey) ? 1 : 0;
+            } else {
+                try (Jedis jedis = jedisPool.getResource()) {
+                    usedShards += jedis.exists(shardKey) ? 1 : 0;
+                }
+            }
+        }
+        System.out.println("Số key con của " + hotName + " đang dùng: " + usedShards + "/" + shardCount);
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        try (RedisCounter counter = new RedisCounter()) {
+            counter.demo();
+        }
+    }
+}
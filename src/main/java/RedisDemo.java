@@ -2,8 +2,11 @@ import redis.clients.jedis.Jedis;
 import redis.clients.jedis.JedisPool;
 import redis.clients.jedis.JedisPoolConfig;
 import redis.clients.jedis.exceptions.JedisException;
+import redis.clients.jedis.params.ScanParams;
+import redis.clients.jedis.resps.ScanResult;
 
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -19,7 +22,7 @@ public class RedisDemo implements AutoCloseable {
         poolConfig.setMaxTotal(10);
         poolConfig.setMaxIdle(5);
 
-        this.jedisPool = new JedisPool(poolConfig, "localhost", 6379);
+        this.jedisPool = RedisTelemetry.global().createPool(poolConfig, "localhost", 6379);
     }
 
     @Override
@@ -124,6 +127,8 @@ public class RedisDemo implements AutoCloseable {
 
             System.out.println("Command: LRANGE tasks 0 -1");
             System.out.println("Kết quả (danh sách còn lại): " + jedis.lrange(listKey, 0, -1));
+            System.out.println("Lưu ý: Task lấy bằng LPOP sẽ mất nếu consumer crash trước khi xử lý xong;");
+            System.out.println("hàng đợi tin cậy với xác nhận và giao lại: xem RedisReliableQueue");
 
             System.out.println("\n2.6. Lấy độ dài danh sách");
             System.out.println("Command: LLEN tasks");
@@ -174,6 +179,8 @@ public class RedisDemo implements AutoCloseable {
             System.out.println("Command: SDIFF team1 team2");
             Set<String> onlyTeam1 = jedis.sdiff("team1", "team2");
             System.out.println("Kết quả (thành viên chỉ thuộc team1): " + onlyTeam1);
+            System.out.println("Lưu ý: SMEMBERS/SINTER/SDIFF trả toàn bộ kết quả trong một lệnh; với set lớn");
+            System.out.println("hãy duyệt theo từng phần bằng SSCAN (xem RedisSetAlgebra)");
 
             System.out.println("\n3.7. Lấy số lượng thành viên");
             System.out.println("Command: SCARD team1");
@@ -322,10 +329,18 @@ public class RedisDemo implements AutoCloseable {
             System.out.println("Kết quả: " + exists);
 
             System.out.println("\n6.4. Lấy tất cả key theo pattern");
-            System.out.println("Command: KEYS key*");
-            Set<String> keys = jedis.keys("key*");
+            System.out.println("Command: SCAN 0 MATCH key* COUNT 100 (lặp lại đến khi cursor về 0)");
+            Set<String> keys = new HashSet<>();
+            ScanParams scanParams = new ScanParams().match("key*").count(100);
+            String cursor = ScanParams.SCAN_POINTER_START;
+            do {
+                ScanResult<String> scanResult = jedis.scan(cursor, scanParams);
+                keys.addAll(scanResult.getResult());
+                cursor = scanResult.getCursor();
+            } while (!ScanParams.SCAN_POINTER_START.equals(cursor));
             System.out.println("Kết quả (các key bắt đầu bằng 'key'): " + keys);
-            System.out.println("Lưu ý: Trong môi trường production, tránh dùng KEYS vì có thể ảnh hưởng hiệu suất");
+            System.out.println("Lưu ý: Không dùng KEYS trong production vì lệnh này chặn Redis khi quét toàn bộ keyspace;");
+            System.out.println("SCAN trả về từng phần nhỏ (xem RedisKeyScanner)");
 
             System.out.println("\n6.5. Đặt thời gian hết hạn cho key");
             System.out.println("Command: EXPIRE key1 60");
@@ -339,7 +354,6 @@ public class RedisDemo implements AutoCloseable {
             System.out.println("• RENAME: Đổi tên key");
             System.out.println("• PERSIST: Xóa thời gian hết hạn của key");
             System.out.println("• TYPE: Kiểm tra kiểu dữ liệu của key");
-            System.out.println("• SCAN: Lấy key theo pattern, an toàn hơn KEYS");
             System.out.println("• MULTI/EXEC: Thực hiện giao dịch (transaction)");
             System.out.println("• PUBLISH/SUBSCRIBE: Nhắn tin theo cơ chế pub/sub");
 
@@ -1,3 +1,5 @@
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import redis.clients.jedis.Jedis;
 import redis.clients.jedis.JedisPool;
 import redis.clients.jedis.JedisPoolConfig;
@@ -5,22 +7,30 @@ import redis.clients.jedis.exceptions.JedisException;
 import redis.clients.jedis.params.SetParams;
 
 import java.time.Duration;
+import java.util.Objects;
 import java.util.UUID;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.logging.Level;
-import java.util.logging.Logger;
 
 /**
  * RedisDistributedLock - Triển khai khóa phân tán với Redis
  */
 public class RedisDistributedLock implements AutoCloseable {
-    private static final Logger LOGGER = Logger.getLogger(RedisDistributedLock.class.getName());
+    private static final Logger LOGGER = LoggerFactory.getLogger(RedisDistributedLock.class);
     private static final String LOCK_PREFIX = "lock:";
+    private static final RedisKeys KEYS = new RedisKeys(LOCK_PREFIX);
+    // Script được mã hóa một lần thay vì ở mỗi lần giải phóng khóa
+    private static final byte[] RELEASE_SCRIPT = RedisKeys.encode(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then " +
+            "    return redis.call('del', KEYS[1]) " +
+            "else " +
+            "    return 0 " +
+            "end");
 
     private final JedisPool jedisPool;
+    private final boolean ownsPool;
 
     // Khởi tạo với cấu hình mặc định
     public RedisDistributedLock() {
@@ -32,18 +42,24 @@ public class RedisDistributedLock implements AutoCloseable {
         poolConfig.setTestOnBorrow(true);
         poolConfig.setTestOnReturn(true);
 
-        this.jedisPool = new JedisPool(poolConfig, "localhost", 6379);
+        this.jedisPool = RedisTelemetry.global().createPool(poolConfig, "localhost", 6379);
+        this.ownsPool = true;
+    }
+
+    // Dùng chung connection pool có sẵn, pool không bị đóng khi đóng lock manager
+    public RedisDistributedLock(JedisPool jedisPool) {
+        this.jedisPool = Objects.requireNonNull(jedisPool, "jedisPool");
+        this.ownsPool = false;
     }
 
     // Lấy khóa
     public boolean acquireLock(String lockKey, String requestId, int expirationSeconds) {
         try (Jedis jedis = jedisPool.getResource()) {
-            String key = LOCK_PREFIX + lockKey;
             SetParams params = new SetParams().nx().ex(expirationSeconds);
-            String result = jedis.set(key, requestId, params);
+            String result = jedis.set(KEYS.key(lockKey), RedisKeys.encode(requestId), params);
             return "OK".equals(result);
         } catch (JedisException e) {
-            LOGGER.log(Level.WARNING, "Lỗi khi lấy khóa: {0}", e.getMessage());
+            LOGGER.warn("Lỗi khi lấy khóa: {}", e.getMessage());
             return false;
         }
     }
@@ -76,18 +92,10 @@ public class RedisDistributedLock implements AutoCloseable {
     // Giải phóng khóa
     public boolean releaseLock(String lockKey, String requestId) {
         try (Jedis jedis = jedisPool.getResource()) {
-            String key = LOCK_PREFIX + lockKey;
-            String script =
-                    "if redis.call('get', KEYS[1]) == ARGV[1] then " +
-                    "    return redis.call('del', KEYS[1]) " +
-                    "else " +
-                    "    return 0 " +
-                    "end";
-
-            Object result = jedis.eval(script, 1, key, requestId);
+            Object result = jedis.eval(RELEASE_SCRIPT, 1, KEYS.key(lockKey), RedisKeys.encode(requestId));
             return result != null && ((Long) result) == 1L;
         } catch (JedisException e) {
-            LOGGER.log(Level.WARNING, "Lỗi khi giải phóng khóa: {0}", e.getMessage());
+            LOGGER.warn("Lỗi khi giải phóng khóa: {}", e.getMessage());
             return false;
         }
     }
@@ -95,7 +103,9 @@ public class RedisDistributedLock implements AutoCloseable {
     // Đóng kết nối Redis
     @Override
     public void close() {
-        jedisPool.close();
+        if (ownsPool) {
+            jedisPool.close();
+        }
     }
 
     /**
@@ -0,0 +1,715 @@
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.JedisPoolConfig;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.exceptions.JedisException;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * RedisHashMapper - Ánh xạ POJO sang Redis hash, chỉ ghi các field đã thay đổi
+ *
+ * Thay cho việc đọc/ghi lại toàn bộ hash bằng hgetAll/hset như trong
+ * {@code RedisDemo.demoHashes}:
+ * - Mỗi đối tượng được nạp về kèm ảnh chụp giá trị các field; khi lưu, chỉ các field
+ *   khác ảnh chụp được gửi trong một lệnh HSET (field bị đặt null thì HDEL)
+ * - Có thể nạp một phần field bằng HMGET thay vì HGETALL
+ * - Field kiểu long/double/float được tăng nguyên tử bằng HINCRBY/HINCRBYFLOAT
+ *
+ * Metadata của class (danh sách field, MethodHandle để đọc/ghi, bộ chuyển đổi kiểu)
+ * được tính một lần cho mỗi class, lưu trong cache static và dùng chung cho mọi mapper
+ * của class đó, không dùng reflection ở mỗi lần gọi. Field kiểu nguyên thủy được đọc/ghi
+ * bằng MethodHandle đúng kiểu (invokeExact) và ảnh chụp lưu trong mảng long, nên không
+ * boxing/unboxing ở mỗi lần nạp, so sánh hay lưu.
+ * Hỗ trợ field kiểu String, số nguyên/thực, boolean (kể cả dạng boxed) và enum.
+ * Class cần có constructor không tham số; field static/transient bị bỏ qua.
+ *
+ * Như các component khác, lỗi Redis được ghi log và trả về giá trị báo lỗi (null, false
+ * hoặc -1 tùy phương thức) thay vì ném JedisException.
+ *
+ * @param <T> kiểu đối tượng
+ */
+public class RedisHashMapper<T> implements AutoCloseable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(RedisHashMapper.class);
+    private static final Map<Class<?>, ClassMeta> METADATA = new ConcurrentHashMap<>();
+    private static final ThreadLocal<SaveScratch> SAVE_SCRATCH = ThreadLocal.withInitial(SaveScratch::new);
+
+    /**
+     * Đối tượng đang được theo dõi thay đổi, gắn với một key trong Redis
+     */
+    public static final class Tracked<T> {
+        private final String id;
+        private final T entity;
+        // Ảnh chụp: field nguyên thủy trong bits, field tham chiếu trong references
+        private final long[] bits;
+        private final Object[] references;
+
+        Tracked(String id, T entity, int fieldCount) {
+            this.id = id;
+            this.entity = entity;
+            this.bits = new long[fieldCount];
+            this.references = new Object[fieldCount];
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        /**
+         * Đối tượng để đọc và sửa trực tiếp; thay đổi được ghi khi gọi {@link RedisHashMapper#save}
+         */
+        public T get() {
+            return entity;
+        }
+    }
+
+    /**
+     * Cách lưu giá trị của field: ba kiểu nguyên thủy được quy về long/double/boolean,
+     * còn lại (String, kiểu boxed, enum) là tham chiếu
+     */
+    private enum Kind {
+        LONG,
+        DOUBLE,
+        BOOLEAN,
+        REFERENCE
+    }
+
+    /**
+     * Metadata của một field: tên, MethodHandle đọc/ghi, chuyển đổi từ chuỗi.
+     * Với field nguyên thủy, getter có kiểu (Object)long|double|boolean và setter
+     * (Object, long|double|boolean)void; với field tham chiếu là (Object)Object.
+     */
+    private static final class FieldMeta {
+        final String name;
+        final Class<?> type;
+        final Kind kind;
+        final MethodHandle getter;
+        final MethodHandle setter;
+        final Function<String, Object> parser;
+
+        FieldMeta(String name, Class<?> type, Kind kind, MethodHandle getter, MethodHandle setter,
+                  Function<String, Object> parser) {
+            this.name = name;
+            this.type = type;
+            this.kind = kind;
+            this.getter = getter;
+            this.setter = setter;
+            this.parser = parser;
+        }
+
+        boolean isIntegral() {
+            return type == int.class || type == Integer.class || type == long.class || type == Long.class
+                    || type == short.class || type == Short.class;
+        }
+
+        boolean isFloating() {
+            return type == double.class || type == Double.class || type == float.class || type == Float.class;
+        }
+
+        /**
+         * Giá trị của field nguyên thủy dưới dạng long (double lưu theo bit)
+         */
+        long readBits(Object entity) {
+            try {
+                switch (kind) {
+                    case LONG:
+                        return (long) getter.invokeExact(entity);
+                    case DOUBLE:
+                        return Double.doubleToLongBits((double) getter.invokeExact(entity));
+                    default:
+                        return (boolean) getter.invokeExact(entity) ? 1 : 0;
+                }
+            } catch (Throwable e) {
+                throw new IllegalStateException("Không đọc được field " + name, e);
+            }
+        }
+
+        Object readReference(Object entity) {
+            try {
+                return (Object) getter.invokeExact(entity);
+            } catch (Throwable e) {
+                throw new IllegalStateException("Không đọc được field " + name, e);
+            }
+        }
+
+        void writeBits(Object entity, long bits) {
+            try {
+                switch (kind) {
+                    case LONG:
+                        setter.invokeExact(entity, bits);
+                        break;
+                    case DOUBLE:
+                        setter.invokeExact(entity, Double.longBitsToDouble(bits));
+                        break;
+                    default:
+                        setter.invokeExact(entity, bits != 0);
+                        break;
+                }
+            } catch (Throwable e) {
+                throw new IllegalStateException("Không ghi được field " + name, e);
+            }
+        }
+
+        void writeReference(Object entity, Object value) {
+            try {
+                setter.invokeExact(entity, value);
+            } catch (Throwable e) {
+                throw new IllegalStateException("Không ghi được field " + name, e);
+            }
+        }
+
+        /**
+         * Chuyển chuỗi từ Redis sang giá trị của field nguyên thủy, theo đúng kiểu khai báo
+         */
+        long parseBits(String raw) {
+            if (kind == Kind.BOOLEAN) {
+                return Boolean.parseBoolean(raw) ? 1 : 0;
+            } else if (kind == Kind.DOUBLE) {
+                return Double.doubleToLongBits(type == float.class ? Float.parseFloat(raw) : Double.parseDouble(raw));
+            } else if (type == int.class) {
+                return Integer.parseInt(raw);
+            } else if (type == short.class) {
+                return Short.parseShort(raw);
+            }
+            return Long.parseLong(raw);
+        }
+
+        /**
+         * Chuỗi ghi vào Redis cho field nguyên thủy, giống String.valueOf của kiểu khai báo
+         */
+        String formatBits(long bits) {
+            if (kind == Kind.BOOLEAN) {
+                return bits != 0 ? "true" : "false";
+            } else if (kind == Kind.DOUBLE) {
+                double value = Double.longBitsToDouble(bits);
+                return type == float.class ? Float.toString((float) value) : Double.toString(value);
+            }
+            return Long.toString(bits);
+        }
+
+        /**
+         * Chuỗi ghi vào Redis cho field tham chiếu; enum ghi theo name() để Enum.valueOf
+         * đọc lại được kể cả khi enum override toString
+         */
+        String formatReference(Object value) {
+            return type.isEnum() ? ((Enum<?>) value).name() : String.valueOf(value);
+        }
+    }
+
+    /**
+     * Giá trị mới của các field thay đổi trong một lần save, dùng lại giữa các lần gọi
+     * trên cùng thread; chỉ được ghi vào ảnh chụp sau khi Redis ghi thành công
+     */
+    private static final class SaveScratch {
+        int[] indexes = new int[0];
+        long[] bits = new long[0];
+        Object[] references = new Object[0];
+
+        void ensureCapacity(int fieldCount) {
+            if (indexes.length < fieldCount) {
+                indexes = new int[fieldCount];
+                bits = new long[fieldCount];
+                references = new Object[fieldCount];
+            }
+        }
+    }
+
+    private static final class ClassMeta {
+        final MethodHandle constructor;
+        final FieldMeta[] fields;
+        final Map<String, Integer> indexByName;
+
+        ClassMeta(MethodHandle constructor, FieldMeta[] fields) {
+            this.constructor = constructor;
+            this.fields = fields;
+            Map<String, Integer> index = new HashMap<>();
+            for (int i = 0; i < fields.length; i++) {
+                index.put(fields[i].name, i);
+            }
+            this.indexByName = Collections.unmodifiableMap(index);
+        }
+    }
+
+    private final JedisPool jedisPool;
+    private final boolean ownsPool;
+    private final String keyPrefix;
+    private final ClassMeta meta;
+
+    /**
+     * Khởi tạo với connection pool mặc định (localhost:6379)
+     *
+     * @param type Class của đối tượng
+     * @param keyPrefix Tiền tố key, ví dụ "user:" để đối tượng id 1001 nằm ở "user:1001"
+     */
+    public RedisHashMapper(Class<T> type, String keyPrefix) {
+        JedisPoolConfig poolConfig = new JedisPoolConfig();
+        poolConfig.setMaxTotal(10);
+        poolConfig.setMaxIdle(5);
+
+        this.jedisPool = RedisTelemetry.global().createPool(poolConfig, "localhost", 6379);
+        this.ownsPool = true;
+        this.keyPrefix = keyPrefix;
+        this.meta = METADATA.computeIfAbsent(type, RedisHashMapper::introspect);
+    }
+
+    /**
+     * Dùng chung connection pool có sẵn
+     */
+    public RedisHashMapper(JedisPool jedisPool, Class<T> type, String keyPrefix) {
+        this.jedisPool = jedisPool;
+        this.ownsPool = false;
+        this.keyPrefix = keyPrefix;
+        this.meta = METADATA.computeIfAbsent(type, RedisHashMapper::introspect);
+    }
+
+    /**
+     * Lưu đối tượng mới: mọi field khác null được ghi trong một lệnh HSET
+     *
+     * @return Đối tượng được theo dõi để các lần lưu sau chỉ ghi field thay đổi, hoặc null nếu lỗi
+     */
+    public Tracked<T> create(String id, T entity) {
+        Tracked<T> tracked = new Tracked<>(id, entity, meta.fields.length);
+        Map<String, String> hash = new LinkedHashMap<>();
+        for (int i = 0; i < meta.fields.length; i++) {
+            FieldMeta field = meta.fields[i];
+            if (field.kind == Kind.REFERENCE) {
+                Object value = field.readReference(entity);
+                tracked.references[i] = value;
+                if (value != null) {
+                    hash.put(field.name, field.formatReference(value));
+                }
+            } else {
+                long bits = field.readBits(entity);
+                tracked.bits[i] = bits;
+                hash.put(field.name, field.formatBits(bits));
+            }
+        }
+
+        try (Jedis jedis = jedisPool.getResource()) {
+            String key = keyPrefix + id;
+            Pipeline pipeline = jedis.pipelined();
+            pipeline.del(key);
+            if (!hash.isEmpty()) {
+                pipeline.hset(key, hash);
+            }
+            pipeline.sync();
+        } catch (JedisException e) {
+            LOGGER.warn("Lỗi khi tạo đối tượng: {}", e.getMessage());
+            return null;
+        }
+        return tracked;
+    }
+
+    /**
+     * Nạp toàn bộ đối tượng bằng HGETALL
+     *
+     * @return Đối tượng được theo dõi, hoặc null nếu key không tồn tại hoặc lỗi
+     */
+    public Tracked<T> load(String id) {
+        Map<String, String> hash;
+        try (Jedis jedis = jedisPool.getResource()) {
+            hash = jedis.hgetAll(keyPrefix + id);
+        } catch (JedisException e) {
+            LOGGER.warn("Lỗi khi nạp đối tượng: {}", e.getMessage());
+            return null;
+        }
+        if (hash.isEmpty()) {
+            return null;
+        }
+
+        T entity = newInstance();
+        for (FieldMeta field : meta.fields) {
+            String raw = hash.get(field.name);
+            if (raw != null) {
+                writeRaw(field, entity, raw);
+            }
+        }
+        return snapshot(id, entity);
+    }
+
+    /**
+     * Chỉ nạp các field cần dùng bằng HMGET. Field không được nạp giữ giá trị mặc định
+     * và chỉ được ghi khi bị gán giá trị khác.
+     *
+     * @return Đối tượng được theo dõi, hoặc null nếu không field nào tồn tại hoặc lỗi
+     */
+    public Tracked<T> load(String id, String... fieldNames) {
+        FieldMeta[] requested = new FieldMeta[fieldNames.length];
+        for (int i = 0; i < fieldNames.length; i++) {
+            requested[i] = field(fieldNames[i]);
+        }
+
+        List<String> values;
+        try (Jedis jedis = jedisPool.getResource()) {
+            values = jedis.hmget(keyPrefix + id, fieldNames);
+        } catch (JedisException e) {
+            LOGGER.warn("Lỗi khi nạp đối tượng: {}", e.getMessage());
+            return null;
+        }
+
+        T entity = newInstance();
+        boolean found = false;
+        for (int i = 0; i < requested.length; i++) {
+            String raw = values.get(i);
+            if (raw != null) {
+                writeRaw(requested[i], entity, raw);
+                found = true;
+            }
+        }
+        return found ? snapshot(id, entity) : null;
+    }
+
+    /**
+     * Tên các field đã thay đổi so với lần nạp/lưu gần nhất
+     */
+    public List<String> dirtyFields(Tracked<T> tracked) {
+        List<String> dirty = new ArrayList<>();
+        for (int i = 0; i < meta.fields.length; i++) {
+            FieldMeta field = meta.fields[i];
+            boolean changed = field.kind == Kind.REFERENCE
+                    ? !equal(tracked.references[i], field.readReference(tracked.entity))
+                    : tracked.bits[i] != field.readBits(tracked.entity);
+            if (changed) {
+                dirty.add(field.name);
+            }
+        }
+        return dirty;
+    }
+
+    /**
+     * Ghi các field đã thay đổi: một HSET cho field có giá trị và một HDEL cho field bị
+     * đặt null, gửi chung một pipeline. Không gọi Redis nếu không có thay đổi.
+     * Khi lỗi, ảnh chụp giữ nguyên để lần save sau ghi lại các field này.
+     *
+     * @return Số field đã ghi, hoặc -1 nếu lỗi
+     */
+    public int save(Tracked<T> tracked) {
+        Map<String, String> changed = null;
+        List<String> removed = null;
+        SaveScratch scratch = SAVE_SCRATCH.get();
+        scratch.ensureCapacity(meta.fields.length);
+        int dirtyCount = 0;
+
+        for (int i = 0; i < meta.fields.length; i++) {
+            FieldMeta field = meta.fields[i];
+            String value;
+            if (field.kind == Kind.REFERENCE) {
+                Object reference = field.readReference(tracked.entity);
+                if (equal(tracked.references[i], reference)) {
+                    continue;
+                }
+                scratch.references[dirtyCount] = reference;
+                value = reference == null ? null : field.formatReference(reference);
+            } else {
+                long bits = field.readBits(tracked.entity);
+                if (tracked.bits[i] == bits) {
+                    continue;
+                }
+                scratch.bits[dirtyCount] = bits;
+                value = field.formatBits(bits);
+            }
+            scratch.indexes[dirtyCount++] = i;
+
+            if (value == null) {
+                if (removed == null) {
+                    removed = new ArrayList<>();
+                }
+                removed.add(field.name);
+            } else {
+                if (changed == null) {
+                    changed = new LinkedHashMap<>();
+                }
+                changed.put(field.name, value);
+            }
+        }
+        if (dirtyCount == 0) {
+            return 0;
+        }
+
+        try (Jedis jedis = jedisPool.getResource()) {
+            String key = keyPrefix + tracked.id;
+            if (changed != null && removed == null) {
+                jedis.hset(key, changed);
+            } else {
+                Pipeline pipeline = jedis.pipelined();
+                if (changed != null) {
+                    pipeline.hset(key, changed);
+                }
+                pipeline.hdel(key, removed.toArray(new String[0]));
+                pipeline.sync();
+            }
+        } catch (JedisException e) {
+            LOGGER.warn("Lỗi khi lưu đối tượng: {}", e.getMessage());
+            Arrays.fill(scratch.references, 0, dirtyCount, null);
+            return -1;
+        }
+
+        for (int d = 0; d < dirtyCount; d++) {
+            int index = scratch.indexes[d];
+            if (meta.fields[index].kind == Kind.REFERENCE) {
+                tracked.references[index] = scratch.references[d];
+                // Không giữ tham chiếu tới giá trị của đối tượng trong scratch của thread
+                scratch.references[d] = null;
+            } else {
+                tracked.bits[index] = scratch.bits[d];
+            }
+        }
+        return dirtyCount;
+    }
+
+    /**
+     * Tăng nguyên tử một field số trên Redis (HINCRBY hoặc HINCRBYFLOAT) và cập nhật
+     * đối tượng cùng ảnh chụp theo giá trị Redis trả về, để lần save sau không ghi đè.
+     * Field số nguyên phải là long/Long: HINCRBY trả về số 64-bit, nếu thu hẹp về int/short
+     * thì lỗi tràn chỉ phát hiện được sau khi Redis đã bị thay đổi.
+     *
+     * @return Giá trị mới của field, hoặc null nếu lỗi
+     * @throws IllegalArgumentException nếu field không phải kiểu số hoặc là số nguyên hẹp hơn long
+     */
+    public Number increment(Tracked<T> tracked, String fieldName, Number delta) {
+        FieldMeta field = field(fieldName);
+        if (!field.isIntegral() && !field.isFloating()) {
+            throw new IllegalArgumentException("Field " + fieldName + " không phải kiểu số");
+        }
+        if (field.isIntegral() && field.type != long.class && field.type != Long.class) {
+            throw new IllegalArgumentException("Field " + fieldName + " kiểu " + field.type.getSimpleName()
+                    + " không chứa được kết quả 64-bit của HINCRBY, cần kiểu long");
+        }
+        String key = keyPrefix + tracked.id;
+        String updated;
+
+        try (Jedis jedis = jedisPool.getResource()) {
+            updated = field.isIntegral()
+                    ? Long.toString(jedis.hincrBy(key, fieldName, delta.longValue()))
+                    : Double.toString(jedis.hincrByFloat(key, fieldName, delta.doubleValue()));
+        } catch (JedisException e) {
+            LOGGER.warn("Lỗi khi tăng field: {}", e.getMessage());
+            return null;
+        }
+
+        int index = meta.indexByName.get(fieldName);
+        if (field.kind == Kind.REFERENCE) {
+            Object value = field.parser.apply(updated);
+            field.writeReference(tracked.entity, value);
+            tracked.references[index] = value;
+            return (Number) value;
+        }
+        long bits = field.parseBits(updated);
+        field.writeBits(tracked.entity, bits);
+        tracked.bits[index] = bits;
+        return field.kind == Kind.DOUBLE ? (Number) Double.longBitsToDouble(bits) : (Number) bits;
+    }
+
+    /**
+     * Xóa đối tượng khỏi Redis
+     *
+     * @return true nếu key tồn tại và đã bị xóa, false nếu không tồn tại hoặc lỗi
+     */
+    public boolean delete(String id) {
+        try (Jedis jedis = jedisPool.getResource()) {
+            return jedis.del(keyPrefix + id) > 0;
+        } catch (JedisException e) {
+            LOGGER.warn("Lỗi khi xóa đối tượng: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private FieldMeta field(String name) {
+        Integer index = meta.indexByName.get(name);
+        if (index == null) {
+            throw new IllegalArgumentException("Không có field " + name);
+        }
+        return meta.fields[index];
+    }
+
+    @SuppressWarnings("unchecked")
+    private T newInstance() {
+        try {
+            return (T) meta.constructor.invoke();
+        } catch (Throwable e) {
+            throw new IllegalStateException("Không tạo được đối tượng", e);
+        }
+    }
+
+    /**
+     * Chụp giá trị hiện tại của mọi field làm mốc so sánh cho save
+     */
+    private Tracked<T> snapshot(String id, T entity) {
+        Tracked<T> tracked = new Tracked<>(id, entity, meta.fields.length);
+        for (int i = 0; i < meta.fields.length; i++) {
+            FieldMeta field = meta.fields[i];
+            if (field.kind == Kind.REFERENCE) {
+                tracked.references[i] = field.readReference(entity);
+            } else {
+                tracked.bits[i] = field.readBits(entity);
+            }
+        }
+        return tracked;
+    }
+
+    private static void writeRaw(FieldMeta field, Object entity, String raw) {
+        if (field.kind == Kind.REFERENCE) {
+            field.writeReference(entity, field.parser.apply(raw));
+        } else {
+            field.writeBits(entity, field.parseBits(raw));
+        }
+    }
+
+    private static boolean equal(Object a, Object b) {
+        return a == null ? b == null : a.equals(b);
+    }
+
+    /**
+     * Tính metadata của class một lần: constructor, các field và bộ chuyển đổi kiểu
+     */
+    private static ClassMeta introspect(Class<?> type) {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(type, MethodHandles.lookup());
+            MethodHandle constructor = lookup.unreflectConstructor(type.getDeclaredConstructor());
+
+            List<FieldMeta> fields = new ArrayList<>();
+            for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+                MethodHandles.Lookup classLookup = MethodHandles.privateLookupIn(c, MethodHandles.lookup());
+                for (Field field : c.getDeclaredFields()) {
+                    int modifiers = field.getModifiers();
+                    if (Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers) || field.isSynthetic()) {
+                        continue;
+                    }
+                    Class<?> fieldType = field.getType();
+                    Kind kind = kindOf(fieldType);
+                    // Field nguyên thủy quy về long/double/boolean (explicitCastArguments cho phép
+                    // thu hẹp int <- long khi ghi), field tham chiếu quy về Object
+                    Class<?> valueType = kind == Kind.LONG ? long.class
+                            : kind == Kind.DOUBLE ? double.class
+                            : kind == Kind.BOOLEAN ? boolean.class
+                            : Object.class;
+                    MethodHandle getter = MethodHandles.explicitCastArguments(classLookup.unreflectGetter(field),
+                            MethodType.methodType(valueType, Object.class));
+                    MethodHandle setter = MethodHandles.explicitCastArguments(classLookup.unreflectSetter(field),
+                            MethodType.methodType(void.class, Object.class, valueType));
+                    Function<String, Object> parser = kind == Kind.REFERENCE ? parserFor(fieldType) : null;
+                    fields.add(new FieldMeta(field.getName(), fieldType, kind, getter, setter, parser));
+                }
+            }
+            return new ClassMeta(constructor, fields.toArray(new FieldMeta[0]));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalArgumentException("Không ánh xạ được class " + type.getName(), e);
+        }
+    }
+
+    private static Kind kindOf(Class<?> type) {
+        if (type == int.class || type == long.class || type == short.class) {
+            return Kind.LONG;
+        } else if (type == double.class || type == float.class) {
+            return Kind.DOUBLE;
+        } else if (type == boolean.class) {
+            return Kind.BOOLEAN;
+        }
+        return Kind.REFERENCE;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Function<String, Object> parserFor(Class<?> type) {
+        if (type == String.class) {
+            return s -> s;
+        } else if (type == Integer.class) {
+            return Integer::valueOf;
+        } else if (type == Long.class) {
+            return Long::valueOf;
+        } else if (type == Short.class) {
+            return Short::valueOf;
+        } else if (type == Double.class) {
+            return Double::valueOf;
+        } else if (type == Float.class) {
+            return Float::valueOf;
+        } else if (type == Boolean.class) {
+            return Boolean::valueOf;
+        } else if (type.isEnum()) {
+            Class<? extends Enum> enumType = (Class<? extends Enum>) type;
+            return s -> Enum.valueOf(enumType, s);
+        }
+        throw new IllegalArgumentException("Không hỗ trợ kiểu field " + type.getName());
+    }
+
+    @Override
+    public void close() {
+        if (ownsPool) {
+            jedisPool.close();
+        }
+    }
+
+    /**
+     * Đối tượng mẫu cho demo, tương ứng hash user:1001 trong RedisDemo.demoHashes
+     */
+    public static class User {
+        private String name;
+        private String email;
+        private int age;
+        private String phone;
+        private String address;
+        private long visits;
+
+        @Override
+        public String toString() {
+            return "User{name=" + name + ", email=" + email + ", age=" + age + ", phone=" + phone
+                    + ", address=" + address + ", visits=" + visits + "}";
+        }
+    }
+
+    /**
+     * Demo ghi field thay đổi, nạp một phần và tăng bộ đếm nguyên tử
+     */
+    public void demo() {
+        System.out.println("=== DEMO REDIS HASH MAPPER ===");
+
+        User user = new User();
+        user.name = "Nguyen Van A";
+        user.email = "nguyenvana@example.com";
+        user.age = 30;
+        user.phone = "0901234567";
+        user.address = "Ho Chi Minh City";
+        user.visits = 10;
+
+        RedisHashMapper<User> mapper = new RedisHashMapper<>(jedisPool, User.class, keyPrefix);
+        Tracked<User> tracked = mapper.create("1001", user);
+        System.out.println("Đã tạo: " + tracked.get());
+
+        Tracked<User> loaded = mapper.load("1001");
+        loaded.get().email = "a.nguyen@example.com";
+        System.out.println("Field thay đổi: " + mapper.dirtyFields(loaded));
+        System.out.println("save() ghi " + mapper.save(loaded) + " field (HSET user:1001 email ...)");
+        System.out.println("save() lần nữa ghi " + mapper.save(loaded) + " field (không gọi Redis)");
+
+        Tracked<User> partial = mapper.load("1001", "name", "visits");
+        System.out.println("Nạp một phần bằng HMGET: " + partial.get());
+
+        Number visits = mapper.increment(partial, "visits", 5);
+        System.out.println("HINCRBY visits 5 -> " + visits);
+
+        mapper.delete("1001");
+    }
+
+    /**
+     * Phương thức main để chạy demo
+     */
+    public static void main(String[] args) {
+        try (RedisHashMapper<User> mapper = new RedisHashMapper<>(User.class, "user:")) {
+            mapper.demo();
+        }
+    }
+}
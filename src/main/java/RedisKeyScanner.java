@@ -0,0 +1,456 @@
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.ConnectionPool;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisCluster;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.JedisPoolConfig;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.exceptions.JedisException;
+import redis.clients.jedis.params.ScanParams;
+import redis.clients.jedis.resps.ScanResult;
+import redis.clients.jedis.util.JedisClusterCRC16;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * RedisKeyScanner - Duyệt key theo pattern bằng SCAN thay cho KEYS
+ *
+ * KEYS quét toàn bộ keyspace trong một lệnh và chặn Redis (đơn luồng) trong suốt
+ * thời gian đó. SCAN trả về từng phần nhỏ theo cursor nên các client khác vẫn được
+ * phục vụ xen kẽ. Class này bọc SCAN thành Stream/Iterator lười (chỉ tải lô tiếp
+ * theo khi cần) và cung cấp các thao tác theo lô (UNLINK, EXPIRE, TTL) chạy song
+ * song với số luồng giới hạn.
+ *
+ * Với Redis Cluster, mỗi node master được quét lần lượt và thao tác theo lô được
+ * gửi đến đúng node chứa key.
+ *
+ * Lưu ý: SCAN có thể trả về một key nhiều lần, các thao tác theo lô đều idempotent.
+ */
+public class RedisKeyScanner implements AutoCloseable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(RedisKeyScanner.class);
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 30;
+
+    /**
+     * Thao tác áp dụng cho một lô key trên node chứa các key đó
+     */
+    public interface BatchAction {
+        /**
+         * @return Số key bị ảnh hưởng
+         */
+        long apply(Jedis jedis, List<String> keys);
+    }
+
+    /**
+     * Một node Redis cần quét
+     */
+    private interface Node {
+        Jedis open();
+    }
+
+    private final JedisPool jedisPool;
+    private final JedisCluster jedisCluster;
+    private final boolean ownsConnection;
+    private volatile int scanCount = 500;
+    private volatile int parallelism = 4;
+
+    /**
+     * Khởi tạo với connection pool mặc định (localhost:6379)
+     */
+    public RedisKeyScanner() {
+        JedisPoolConfig poolConfig = new JedisPoolConfig();
+        poolConfig.setMaxTotal(10);
+        poolConfig.setMaxIdle(5);
+
+        this.jedisPool = RedisTelemetry.global().createPool(poolConfig, "localhost", 6379);
+        this.jedisCluster = null;
+        this.ownsConnection = true;
+    }
+
+    /**
+     * Dùng chung một connection pool có sẵn (Redis standalone)
+     */
+    public RedisKeyScanner(JedisPool jedisPool) {
+        this.jedisPool = Objects.requireNonNull(jedisPool, "jedisPool");
+        this.jedisCluster = null;
+        this.ownsConnection = false;
+    }
+
+    /**
+     * Quét toàn bộ các node master của một Redis Cluster
+     */
+    public RedisKeyScanner(JedisCluster jedisCluster) {
+        this.jedisPool = null;
+        this.jedisCluster = Objects.requireNonNull(jedisCluster, "jedisCluster");
+        this.ownsConnection = false;
+    }
+
+    /**
+     * Gợi ý số key Redis xét trong mỗi lần gọi SCAN (COUNT). Giá trị lớn giảm số
+     * round trip nhưng mỗi lệnh chạy lâu hơn.
+     */
+    public void setScanCount(int scanCount) {
+        if (scanCount <= 0) {
+            throw new IllegalArgumentException("scanCount phải lớn hơn 0");
+        }
+        this.scanCount = scanCount;
+    }
+
+    /**
+     * Số lô được xử lý đồng thời trong các thao tác theo lô
+     */
+    public void setParallelism(int parallelism) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("parallelism phải lớn hơn 0");
+        }
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Stream lười các key khớp pattern. Mỗi lần cần thêm key mới gọi SCAN một lần,
+     * kết nối chỉ được giữ trong lúc gọi lệnh.
+     *
+     * @param match Pattern kiểu glob, ví dụ "session:*"
+     * @param type Kiểu dữ liệu cần lọc ("string", "hash", ...), hoặc null để lấy mọi kiểu
+     */
+    public Stream<String> stream(String match, String type) {
+        return StreamSupport.stream(
+                Spliterators.spliteratorUnknownSize(iterator(match, type), Spliterator.NONNULL), false);
+    }
+
+    /**
+     * Iterator lười các key khớp pattern, duyệt lần lượt từng node
+     */
+    public Iterator<String> iterator(String match, String type) {
+        Iterator<Node> nodes = nodes().iterator();
+
+        return new Iterator<String>() {
+            private Iterator<List<String>> batches = Collections.emptyIterator();
+            private Iterator<String> current = Collections.emptyIterator();
+
+            @Override
+            public boolean hasNext() {
+                while (!current.hasNext()) {
+                    if (batches.hasNext()) {
+                        current = batches.next().iterator();
+                    } else if (nodes.hasNext()) {
+                        batches = batches(nodes.next(), match, type);
+                    } else {
+                        return false;
+                    }
+                }
+                return true;
+            }
+
+            @Override
+            public String next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return current.next();
+            }
+        };
+    }
+
+    /**
+     * Đếm số key khớp pattern mà không tải toàn bộ vào bộ nhớ
+     */
+    public long count(String match, String type) {
+        return stream(match, type).count();
+    }
+
+    /**
+     * Xóa các key khớp pattern bằng UNLINK (giải phóng bộ nhớ ở background thread của Redis)
+     *
+     * Với Redis Cluster, các key trong một lô SCAN của một node thuộc nhiều slot khác nhau,
+     * mà lệnh nhiều key chỉ được chấp nhận khi mọi key cùng slot (nếu không Redis trả lỗi
+     * CROSSSLOT). Lô được chia theo slot và mỗi nhóm gửi một UNLINK trong cùng pipeline.
+     *
+     * @return Số key đã xóa
+     */
+    public long unlink(String match, String type) {
+        return forEachBatch(match, type, (jedis, keys) -> {
+            if (jedisCluster == null) {
+                return jedis.unlink(keys.toArray(new String[0]));
+            }
+
+            Map<Integer, List<String>> keysBySlot = new HashMap<>();
+            for (String key : keys) {
+                keysBySlot.computeIfAbsent(JedisClusterCRC16.getSlot(key), slot -> new ArrayList<>()).add(key);
+            }
+            Pipeline pipeline = jedis.pipelined();
+            List<Response<Long>> responses = new ArrayList<>(keysBySlot.size());
+            for (List<String> slotKeys : keysBySlot.values()) {
+                responses.add(pipeline.unlink(slotKeys.toArray(new String[0])));
+            }
+            pipeline.sync();
+
+            long removed = 0;
+            for (Response<Long> response : responses) {
+                removed += response.get();
+            }
+            return removed;
+        });
+    }
+
+    /**
+     * Đặt thời gian hết hạn cho các key khớp pattern, mỗi lô gửi trong một pipeline
+     *
+     * @return Số key được đặt thời gian hết hạn
+     */
+    public long expire(String match, String type, long seconds) {
+        return forEachBatch(match, type, (jedis, keys) -> {
+            Pipeline pipeline = jedis.pipelined();
+            List<Response<Long>> responses = new ArrayList<>(keys.size());
+            for (String key : keys) {
+                responses.add(pipeline.expire(key, seconds));
+            }
+            pipeline.sync();
+
+            long updated = 0;
+            for (Response<Long> response : responses) {
+                updated += response.get();
+            }
+            return updated;
+        });
+    }
+
+    /**
+     * Lấy TTL (giây) của các key khớp pattern, mỗi lô gửi trong một pipeline.
+     * Consumer được gọi từ nhiều thread nên phải thread-safe.
+     *
+     * @param consumer Nhận key và TTL (-1 nếu không hết hạn, -2 nếu key đã bị xóa)
+     * @return Số key đã kiểm tra
+     */
+    public long inspectTtl(String match, String type, BiConsumer<String, Long> consumer) {
+        return forEachBatch(match, type, (jedis, keys) -> {
+            Pipeline pipeline = jedis.pipelined();
+            List<Response<Long>> responses = new ArrayList<>(keys.size());
+            for (String key : keys) {
+                responses.add(pipeline.ttl(key));
+            }
+            pipeline.sync();
+
+            for (int i = 0; i < keys.size(); i++) {
+                consumer.accept(keys.get(i), responses.get(i).get());
+            }
+            return keys.size();
+        });
+    }
+
+    /**
+     * Áp dụng thao tác cho từng lô key khớp pattern. Tối đa {@code parallelism} lô chạy
+     * đồng thời; việc quét tạm dừng khi các lô đang chờ xử lý đã đầy.
+     * Lô bị lỗi Redis được ghi log và bỏ qua. Khi thread gọi bị interrupt, việc quét dừng lại
+     * nhưng các lô đã gửi vẫn được chờ xong để số key trả về khớp với những gì đã làm.
+     *
+     * @return Tổng số key bị ảnh hưởng do các lô trả về
+     * @throws RuntimeException lỗi đầu tiên (không phải JedisException) do action ném ra;
+     *                          việc quét dừng lại sau khi các lô đã gửi kết thúc
+     */
+    public long forEachBatch(String match, String type, BatchAction action) {
+        int workers = parallelism;
+        ExecutorService executor = Executors.newFixedThreadPool(workers, r -> {
+            Thread thread = new Thread(r, "redis-key-scanner");
+            thread.setDaemon(true);
+            return thread;
+        });
+        int maxQueuedBatches = workers * 2;
+        Semaphore permits = new Semaphore(maxQueuedBatches);
+        AtomicLong affected = new AtomicLong();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        try {
+            for (Node node : nodes()) {
+                Iterator<List<String>> batches = batches(node, match, type);
+                // Dừng quét khi một lô đã lỗi
+                while (failure.get() == null && batches.hasNext()) {
+                    List<String> batch = batches.next();
+                    if (batch.isEmpty()) {
+                        continue;
+                    }
+
+                    permits.acquire();
+                    executor.execute(() -> {
+                        try (Jedis jedis = node.open()) {
+                            affected.addAndGet(action.apply(jedis, batch));
+                        } catch (JedisException e) {
+                            LOGGER.warn("Lỗi khi xử lý lô key: {}", e.getMessage());
+                        } catch (RuntimeException | Error e) {
+                            failure.compareAndSet(null, e);
+                        } finally {
+                            permits.release();
+                        }
+                    });
+                }
+            }
+            // Chờ các lô còn lại hoàn tất
+            permits.acquire(maxQueuedBatches);
+        } catch (InterruptedException e) {
+            executor.shutdown();
+            awaitTermination(executor);
+            Thread.currentThread().interrupt();
+        } finally {
+            executor.shutdown();
+        }
+
+        Throwable error = failure.get();
+        if (error instanceof Error) {
+            throw (Error) error;
+        }
+        if (error != null) {
+            throw (RuntimeException) error;
+        }
+        return affected.get();
+    }
+
+    /**
+     * Chờ các lô đang chạy kết thúc, kể cả khi bị interrupt thêm trong lúc chờ
+     */
+    private static void awaitTermination(ExecutorService executor) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(SHUTDOWN_TIMEOUT_SECONDS);
+        while (true) {
+            try {
+                if (!executor.awaitTermination(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                    LOGGER.warn("Các lô key chưa xử lý xong sau {} giây", SHUTDOWN_TIMEOUT_SECONDS);
+                }
+                return;
+            } catch (InterruptedException e) {
+                // Tiếp tục chờ; caller sẽ đặt lại cờ interrupt
+            }
+        }
+    }
+
+    /**
+     * Các lô key trả về bởi SCAN trên một node. Lô có thể rỗng khi MATCH/TYPE lọc hết.
+     */
+    private Iterator<List<String>> batches(Node node, String match, String type) {
+        ScanParams params = new ScanParams().count(scanCount);
+        if (match != null) {
+            params.match(match);
+        }
+
+        return new Iterator<List<String>>() {
+            private String cursor = ScanParams.SCAN_POINTER_START;
+            private boolean finished;
+
+            @Override
+            public boolean hasNext() {
+                return !finished;
+            }
+
+            @Override
+            public List<String> next() {
+                if (finished) {
+                    throw new NoSuchElementException();
+                }
+                try (Jedis jedis = node.open()) {
+                    ScanResult<String> result = type == null
+                            ? jedis.scan(cursor, params)
+                            : jedis.scan(cursor, params, type);
+                    cursor = result.getCursor();
+                    finished = result.isCompleteIteration();
+                    return result.getResult();
+                }
+            }
+        };
+    }
+
+    /**
+     * Danh sách node cần quét: pool hiện tại, hoặc mọi node master của cluster
+     */
+    private List<Node> nodes() {
+        if (jedisCluster == null) {
+            return Collections.singletonList(jedisPool::getResource);
+        }
+
+        List<Node> masters = new ArrayList<>();
+        for (Map.Entry<String, ConnectionPool> entry : jedisCluster.getClusterNodes().entrySet()) {
+            ConnectionPool pool = entry.getValue();
+            Node node = () -> new Jedis(pool.getResource());
+            try (Jedis jedis = node.open()) {
+                if (jedis.info("replication").contains("role:master")) {
+                    masters.add(node);
+                }
+            } catch (JedisException e) {
+                LOGGER.warn("Bỏ qua node {}: {}", entry.getKey(), e.getMessage());
+            }
+        }
+        return masters;
+    }
+
+    @Override
+    public void close() {
+        if (ownsConnection) {
+            jedisPool.close();
+        }
+    }
+
+    /**
+     * Demo so sánh KEYS và SCAN trên keyspace có nhiều key
+     */
+    public void demo() {
+        System.out.println("=== DEMO REDIS KEY SCANNER ===");
+
+        int total = 20_000;
+        try (Jedis jedis = jedisPool.getResource()) {
+            Pipeline pipeline = jedis.pipelined();
+            for (int i = 0; i < total; i++) {
+                pipeline.set("scan-demo:" + i, "value");
+            }
+            pipeline.sync();
+        }
+        System.out.println("Đã tạo " + total + " key scan-demo:*");
+
+        long start = System.currentTimeMillis();
+        long counted = count("scan-demo:*", "string");
+        System.out.println("SCAN MATCH scan-demo:* TYPE string: " + counted + " key, "
+                + (System.currentTimeMillis() - start) + "ms (chia thành nhiều lệnh nhỏ)");
+
+        System.out.println("5 key đầu tiên: " + Arrays.toString(stream("scan-demo:*", null).limit(5).toArray()));
+
+        long expired = expire("scan-demo:1*", null, 60);
+        System.out.println("EXPIRE 60 cho scan-demo:1*: " + expired + " key");
+
+        AtomicLong withTtl = new AtomicLong();
+        inspectTtl("scan-demo:*", null, (key, ttl) -> {
+            if (ttl > 0) {
+                withTtl.incrementAndGet();
+            }
+        });
+        System.out.println("Số key có TTL: " + withTtl.get());
+
+        start = System.currentTimeMillis();
+        long removed = unlink("scan-demo:*", null);
+        System.out.println("UNLINK: " + removed + " key, " + (System.currentTimeMillis() - start) + "ms");
+    }
+
+    /**
+     * Phương thức main để chạy demo
+     */
+    public static void main(String[] args) {
+        try (RedisKeyScanner scanner = new RedisKeyScanner()) {
+            scanner.demo();
+        }
+    }
+}
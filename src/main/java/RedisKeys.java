@@ -0,0 +1,216 @@
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * RedisKeys - Tạo key dạng byte[] từ một tiền tố đã mã hóa sẵn
+ *
+ * Ghép chuỗi kiểu {@code PREFIX + id} rồi để Jedis mã hóa UTF-8 tốn vài lần cấp phát
+ * cho mỗi lệnh (StringBuilder, String, byte[]) và phải làm lại cho mỗi lệnh dùng cùng key.
+ * Ở đây tiền tố được mã hóa một lần; với phần đuôi ASCII (UUID, số, id thông thường) key
+ * được ghi thẳng vào một mảng byte[] đúng kích thước — một lần cấp phát duy nhất và dùng
+ * lại được cho mọi lệnh trong cùng thao tác. Phần đuôi có ký tự ngoài ASCII đi qua
+ * đường mã hóa UTF-8 thông thường.
+ *
+ * Các hàm static {@link #parseLong(byte[])} và {@link #encode(long)} đọc/ghi số nguyên
+ * trực tiếp trên byte[] thay vì qua String (ví dụ {@code Long.parseLong(jedis.get(key))}).
+ */
+public final class RedisKeys {
+    private final String prefix;
+    private final byte[] prefixBytes;
+
+    /**
+     * @param prefix Tiền tố của key, ví dụ "session:"
+     */
+    public RedisKeys(String prefix) {
+        this.prefix = prefix;
+        this.prefixBytes = prefix.getBytes(StandardCharsets.UTF_8);
+    }
+
+    public String getPrefix() {
+        return prefix;
+    }
+
+    /**
+     * @return Tiền tố + suffix, mã hóa UTF-8
+     */
+    public byte[] key(String suffix) {
+        int prefixLength = prefixBytes.length;
+        byte[] key = new byte[prefixLength + suffix.length()];
+        System.arraycopy(prefixBytes, 0, key, 0, prefixLength);
+        if (!writeAscii(suffix, key, prefixLength)) {
+            return concat(prefixBytes, suffix.getBytes(StandardCharsets.UTF_8));
+        }
+        return key;
+    }
+
+    /**
+     * Key con đánh số của một key, ví dụ "counter:" + name + ":shard:" + 3
+     *
+     * @return Tiền tố + suffix + separator + id ở dạng thập phân, mã hóa UTF-8
+     */
+    public byte[] key(String suffix, String separator, long id) {
+        int prefixLength = prefixBytes.length;
+        int separatorOffset = prefixLength + suffix.length();
+        byte[] key = new byte[separatorOffset + separator.length() + decimalLength(id)];
+        System.arraycopy(prefixBytes, 0, key, 0, prefixLength);
+        if (!writeAscii(suffix, key, prefixLength) || !writeAscii(separator, key, separatorOffset)) {
+            return concat(concat(prefixBytes, (suffix + separator).getBytes(StandardCharsets.UTF_8)), encode(id));
+        }
+        writeDecimal(id, key, key.length);
+        return key;
+    }
+
+    /**
+     * @return Tiền tố + số id ở dạng thập phân
+     */
+    public byte[] key(long id) {
+        int prefixLength = prefixBytes.length;
+        byte[] key = new byte[prefixLength + decimalLength(id)];
+        System.arraycopy(prefixBytes, 0, key, 0, prefixLength);
+        writeDecimal(id, key, key.length);
+        return key;
+    }
+
+    /**
+     * Mã hóa UTF-8, không qua CharsetEncoder khi chuỗi chỉ gồm ký tự ASCII
+     */
+    public static byte[] encode(String value) {
+        int length = value.length();
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c >= 0x80) {
+                return value.getBytes(StandardCharsets.UTF_8);
+            }
+            bytes[i] = (byte) c;
+        }
+        return bytes;
+    }
+
+    /**
+     * Số nguyên ở dạng thập phân, như Redis lưu giá trị của INCR
+     */
+    public static byte[] encode(long value) {
+        byte[] bytes = new byte[decimalLength(value)];
+        writeDecimal(value, bytes, bytes.length);
+        return bytes;
+    }
+
+    /**
+     * Đọc số nguyên từ reply dạng byte[] (ví dụ GET của một bộ đếm), cùng quy tắc với
+     * Long.parseLong nhưng không tạo String trung gian
+     *
+     * @throws NumberFormatException nếu value là null hoặc không phải số nguyên hợp lệ
+     */
+    public static long parseLong(byte[] value) {
+        if (value == null || value.length == 0) {
+            throw new NumberFormatException("Không phải số nguyên: " + describe(value));
+        }
+        boolean negative = value[0] == '-';
+        int start = negative || value[0] == '+' ? 1 : 0;
+        if (start == value.length) {
+            throw new NumberFormatException("Không phải số nguyên: " + describe(value));
+        }
+        // Tích lũy ở miền âm như Long.parseLong để biểu diễn được Long.MIN_VALUE
+        long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+        long multiplyLimit = limit / 10;
+        long result = 0;
+        for (int i = start; i < value.length; i++) {
+            int digit = value[i] - '0';
+            if (digit < 0 || digit > 9 || result < multiplyLimit) {
+                throw new NumberFormatException("Không phải số nguyên: " + describe(value));
+            }
+            result *= 10;
+            if (result < limit + digit) {
+                throw new NumberFormatException("Không phải số nguyên: " + describe(value));
+            }
+            result -= digit;
+        }
+        return negative ? result : -result;
+    }
+
+    /**
+     * Ghi value vào target từ offset nếu value chỉ gồm ký tự ASCII
+     *
+     * @return false nếu gặp ký tự ngoài ASCII, khi đó target ghi dở và không được dùng
+     */
+    private static boolean writeAscii(String value, byte[] target, int offset) {
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c >= 0x80) {
+                return false;
+            }
+            target[offset + i] = (byte) c;
+        }
+        return true;
+    }
+
+    private static String describe(byte[] value) {
+        return value == null ? "null" : "\"" + new String(value, StandardCharsets.UTF_8) + "\"";
+    }
+
+    private static int decimalLength(long value) {
+        if (value == Long.MIN_VALUE) {
+            return 20;
+        }
+        int length = value < 0 ? 2 : 1;
+        long remaining = Math.abs(value);
+        while (remaining >= 10) {
+            remaining /= 10;
+            length++;
+        }
+        return length;
+    }
+
+    /**
+     * Ghi value ở dạng thập phân vào target, kết thúc ngay trước vị trí end
+     */
+    private static void writeDecimal(long value, byte[] target, int end) {
+        // Ghi từ miền âm để xử lý được Long.MIN_VALUE
+        long remaining = value < 0 ? value : -value;
+        int position = end;
+        do {
+            target[--position] = (byte) ('0' - (remaining % 10));
+            remaining /= 10;
+        } while (remaining != 0);
+        if (value < 0) {
+            target[--position] = '-';
+        }
+    }
+
+    private static byte[] concat(byte[] first, byte[] second) {
+        byte[] result = new byte[first.length + second.length];
+        System.arraycopy(first, 0, result, 0, first.length);
+        System.arraycopy(second, 0, result, first.length, second.length);
+        return result;
+    }
+
+    /**
+     * Demo so sánh key tạo bằng ghép chuỗi và bằng RedisKeys
+     */
+    public void demo() {
+        System.out.println("=== DEMO REDIS KEYS ===");
+
+        String sessionId = "3f1c9a52-8d4e-4b7a-9c61-0e2f5d8b7a44";
+        byte[] fromString = (prefix + sessionId).getBytes(StandardCharsets.UTF_8);
+        byte[] fromKeys = key(sessionId);
+        System.out.println("Key: " + new String(fromKeys, StandardCharsets.UTF_8));
+        System.out.println("Giống key tạo bằng ghép chuỗi: " + Arrays.equals(fromString, fromKeys));
+        System.out.println("Key có ký tự Unicode: " + new String(key("người-dùng"), StandardCharsets.UTF_8));
+        System.out.println("Key theo số: " + new String(key(-42L), StandardCharsets.UTF_8));
+
+        byte[] counter = encode(Long.MIN_VALUE);
+        System.out.println("parseLong(\"" + new String(counter, StandardCharsets.US_ASCII) + "\") = "
+                + parseLong(counter));
+        try {
+            parseLong("12a".getBytes(StandardCharsets.US_ASCII));
+        } catch (NumberFormatException e) {
+            System.out.println("Reply không hợp lệ: " + e.getMessage());
+        }
+    }
+
+    public static void main(String[] args) {
+        new RedisKeys("session:").demo();
+    }
+}
@@ -0,0 +1,619 @@
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.JedisPoolConfig;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.Transaction;
+import redis.clients.jedis.exceptions.JedisDataException;
+import redis.clients.jedis.exceptions.JedisException;
+import redis.clients.jedis.resps.Tuple;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * RedisLeaderboard - Bảng xếp hạng chịu tải cao dựa trên Sorted Set
+ *
+ * Mở rộng {@code RedisDemo.demoSortedSets} cho môi trường production:
+ * - Điểm cộng thêm được gộp trong bộ nhớ theo từng người chơi và ghi xuống Redis
+ *   định kỳ bằng một lô ZINCRBY (MULTI/EXEC), thay vì mỗi lần cộng điểm một round trip
+ * - Top-N được cache cục bộ trong thời gian ngắn
+ * - "Xung quanh tôi" (các người chơi quanh thứ hạng của mình) lấy bằng một lệnh Lua
+ * - Bảng theo ngày và theo tuần; bảng tuần được tổng hợp từ 7 bảng ngày bằng ZUNIONSTORE
+ *
+ * Điểm đang nằm trong bộ đệm chưa được phản ánh trong các truy vấn cho đến lần flush tiếp theo.
+ *
+ * ZINCRBY không idempotent, nên mỗi lô được ghi trong một MULTI/EXEC kèm marker
+ * "flushed:" + id của JVM trỏ tới id của lô. Nếu lỗi xảy ra khi không biết EXEC đã chạy
+ * hay chưa (ví dụ mất kết nối lúc chờ phản hồi), lần flush sau kiểm tra marker và chỉ
+ * ghi lại khi lô chưa được áp dụng, nên điểm không bị cộng hai lần.
+ *
+ * Khi Redis không truy cập được, flush định kỳ lùi dần (gấp đôi chu kỳ sau mỗi lần lỗi,
+ * tối đa MAX_FLUSH_BACKOFF_MILLIS) và chỉ log WARN ở lần lỗi đầu tiên của mỗi đợt sự cố.
+ */
+public class RedisLeaderboard implements AutoCloseable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(RedisLeaderboard.class);
+    private static final String LEADERBOARD_PREFIX = "leaderboard:";
+    private static final DateTimeFormatter DAY_FORMAT = DateTimeFormatter.BASIC_ISO_DATE;
+    private static final int DAILY_RETENTION_DAYS = 8;
+    private static final int WEEKLY_CACHE_SECONDS = 60;
+    private static final long FLUSH_MARKER_SECONDS = TimeUnit.DAYS.toSeconds(1);
+    private static final long MAX_FLUSH_BACKOFF_MILLIS = 30_000;
+    private static final String WEEKLY_SUFFIX = ":weekly";
+    private static final String WEEKLY_EMPTY_SUFFIX = ":weekly:empty";
+
+    // Trả về {vị trí bắt đầu, member1, score1, member2, score2, ...} quanh thứ hạng của ARGV[1]
+    private static final String AROUND_ME_SCRIPT =
+            "local rank = redis.call('zrevrank', KEYS[1], ARGV[1]) " +
+            "if not rank then return {} end " +
+            "local radius = tonumber(ARGV[2]) " +
+            "local start = rank - radius " +
+            "if start < 0 then start = 0 end " +
+            "local result = redis.call('zrevrange', KEYS[1], start, rank + radius, 'WITHSCORES') " +
+            "table.insert(result, 1, start) " +
+            "return result";
+
+    /**
+     * Khoảng thời gian của bảng xếp hạng
+     */
+    public enum Period {
+        ALL_TIME,
+        DAILY,
+        WEEKLY
+    }
+
+    /**
+     * Một dòng trong bảng xếp hạng
+     */
+    public static final class Entry {
+        private final String member;
+        private final double score;
+        private final long rank;
+
+        Entry(String member, double score, long rank) {
+            this.member = member;
+            this.score = score;
+            this.rank = rank;
+        }
+
+        public String getMember() {
+            return member;
+        }
+
+        public double getScore() {
+            return score;
+        }
+
+        /**
+         * Thứ hạng bắt đầu từ 1
+         */
+        public long getRank() {
+            return rank;
+        }
+
+        @Override
+        public String toString() {
+            return "#" + rank + " " + member + " (" + score + ")";
+        }
+    }
+
+    /**
+     * Một lô điểm đã gửi xuống Redis, kèm id để nhận biết khi ghi lại
+     */
+    private static final class FlushBatch {
+        final String id = UUID.randomUUID().toString();
+        final Map<String, Double> increments;
+        final String dailyKey;
+
+        FlushBatch(Map<String, Double> increments, String dailyKey) {
+            this.increments = increments;
+            this.dailyKey = dailyKey;
+        }
+    }
+
+    private static final class CachedTop {
+        final int size;
+        final long expiresAt;
+        final List<Entry> entries;
+
+        CachedTop(int size, long expiresAt, List<Entry> entries) {
+            this.size = size;
+            this.expiresAt = expiresAt;
+            this.entries = entries;
+        }
+    }
+
+    private final JedisPool jedisPool;
+    private final boolean ownsPool;
+    private final String boardKey;
+    private final Map<String, Double> pendingIncrements = new ConcurrentHashMap<>();
+    private final String flushMarkerKey;
+    // Lô ghi lỗi, chưa biết đã được áp dụng hay chưa; chỉ truy cập trong flush()
+    private FlushBatch failedBatch;
+    // Số lần flush lỗi liên tiếp và thời điểm flush định kỳ được thử lại; chỉ truy cập trong flush()
+    private int consecutiveFailures;
+    private long retryAtMillis;
+    private final long flushIntervalMillis;
+    private final int maxPendingMembers;
+    private final ScheduledExecutorService flushExecutor;
+    private final AtomicBoolean flushScheduled = new AtomicBoolean(false);
+    private final AtomicLong flushCount = new AtomicLong();
+    private final Map<Period, CachedTop> topCache = new ConcurrentHashMap<>();
+    private volatile long topCacheMillis = 1000;
+    private volatile String aroundMeSha;
+
+    /**
+     * Khởi tạo bảng xếp hạng với connection pool mặc định (localhost:6379),
+     * flush mỗi 100ms hoặc khi có 1000 người chơi đang chờ ghi
+     */
+    public RedisLeaderboard(String boardName) {
+        this(createDefaultPool(), true, boardName, 100, 1000);
+    }
+
+    /**
+     * Dùng chung connection pool có sẵn
+     *
+     * @param flushIntervalMillis Chu kỳ ghi bộ đệm xuống Redis (ms)
+     * @param maxPendingMembers Số người chơi khác nhau trong bộ đệm để flush sớm
+     */
+    public RedisLeaderboard(JedisPool jedisPool, String boardName, long flushIntervalMillis, int maxPendingMembers) {
+        this(jedisPool, false, boardName, flushIntervalMillis, maxPendingMembers);
+    }
+
+    private RedisLeaderboard(JedisPool jedisPool, boolean ownsPool, String boardName,
+                             long flushIntervalMillis, int maxPendingMembers) {
+        if (flushIntervalMillis <= 0 || maxPendingMembers <= 0) {
+            throw new IllegalArgumentException("flushIntervalMillis và maxPendingMembers phải lớn hơn 0");
+        }
+        this.jedisPool = jedisPool;
+        this.ownsPool = ownsPool;
+        this.boardKey = LEADERBOARD_PREFIX + boardName;
+        this.flushMarkerKey = boardKey + ":flushed:" + UUID.randomUUID();
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.maxPendingMembers = maxPendingMembers;
+        this.flushExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "redis-leaderboard-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.flushExecutor.scheduleWithFixedDelay(this::scheduledFlush, flushIntervalMillis, flushIntervalMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    private static JedisPool createDefaultPool() {
+        JedisPoolConfig poolConfig = new JedisPoolConfig();
+        poolConfig.setMaxTotal(10);
+        poolConfig.setMaxIdle(5);
+
+        return RedisTelemetry.global().createPool(poolConfig, "localhost", 6379);
+    }
+
+    /**
+     * Thời gian cache kết quả top-N cục bộ (ms), 0 để tắt
+     */
+    public void setTopCacheMillis(long topCacheMillis) {
+        if (topCacheMillis < 0) {
+            throw new IllegalArgumentException("topCacheMillis không được âm");
+        }
+        this.topCacheMillis = topCacheMillis;
+    }
+
+    /**
+     * Cộng điểm cho người chơi. Chỉ cập nhật bộ đệm trong bộ nhớ, không gọi Redis;
+     * nhiều lần cộng cho cùng người chơi được gộp thành một ZINCRBY.
+     */
+    public void addScore(String member, double delta) {
+        pendingIncrements.merge(member, delta, Double::sum);
+
+        if (pendingIncrements.size() >= maxPendingMembers && flushScheduled.compareAndSet(false, true)) {
+            try {
+                flushExecutor.execute(this::scheduledFlush);
+            } catch (RuntimeException e) {
+                flushScheduled.set(false);
+            }
+        }
+    }
+
+    /**
+     * Flush từ thread nền: bỏ qua khi đang trong thời gian backoff sau lỗi kết nối
+     */
+    private synchronized void scheduledFlush() {
+        if (consecutiveFailures > 0 && System.currentTimeMillis() < retryAtMillis) {
+            flushScheduled.set(false);
+            return;
+        }
+        flush();
+    }
+
+    /**
+     * Ghi toàn bộ điểm đang chờ xuống Redis trong một transaction:
+     * ZINCRBY vào bảng tổng và bảng ngày hiện tại cho mỗi người chơi.
+     * Lô lỗi lần trước được xử lý trước; trong lúc đó điểm mới vẫn gộp trong bộ đệm.
+     * Gọi trực tiếp luôn thử ghi, kể cả khi flush định kỳ đang backoff.
+     */
+    public synchronized void flush() {
+        flushScheduled.set(false);
+        if (failedBatch != null) {
+            if (!apply(failedBatch, true)) {
+                return;
+            }
+            failedBatch = null;
+        }
+        if (pendingIncrements.isEmpty()) {
+            return;
+        }
+
+        // remove() lấy và xóa nguyên tử, lần cộng đến sau sẽ vào bộ đệm mới
+        Map<String, Double> batch = new HashMap<>();
+        for (String member : pendingIncrements.keySet()) {
+            Double delta = pendingIncrements.remove(member);
+            if (delta != null) {
+                batch.put(member, delta);
+            }
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        FlushBatch flushBatch = new FlushBatch(batch, dailyKey(today()));
+        if (!apply(flushBatch, false)) {
+            failedBatch = flushBatch;
+        }
+    }
+
+    /**
+     * Ghi một lô trong MULTI/EXEC cùng marker của lô.
+     *
+     * Lệnh bị Redis từ chối trong EXEC (ví dụ WRONGTYPE) không làm các lệnh khác rollback
+     * và sẽ lỗi lại nếu gửi lại, nên lô bị bỏ kèm log ERROR và không được tính là flush thành công.
+     *
+     * @param retry true nếu lô đã từng được gửi: bỏ qua khi marker cho thấy lô đã được áp dụng
+     * @return true nếu không cần gửi lại lô
+     */
+    private boolean apply(FlushBatch batch, boolean retry) {
+        try (Jedis jedis = jedisPool.getResource()) {
+            if (retry && batch.id.equals(jedis.get(flushMarkerKey))) {
+                recordSuccess();
+                return true;
+            }
+            Transaction transaction = jedis.multi();
+            for (Map.Entry<String, Double> entry : batch.increments.entrySet()) {
+                transaction.zincrby(boardKey, entry.getValue(), entry.getKey());
+                transaction.zincrby(batch.dailyKey, entry.getValue(), entry.getKey());
+            }
+            transaction.expire(batch.dailyKey, TimeUnit.DAYS.toSeconds(DAILY_RETENTION_DAYS));
+            transaction.setex(flushMarkerKey, FLUSH_MARKER_SECONDS, batch.id);
+            List<Object> replies = transaction.exec();
+            recordSuccess();
+
+            int rejected = 0;
+            JedisDataException firstError = null;
+            for (Object reply : replies) {
+                if (reply instanceof JedisDataException) {
+                    rejected++;
+                    if (firstError == null) {
+                        firstError = (JedisDataException) reply;
+                    }
+                }
+            }
+            if (rejected > 0) {
+                LOGGER.error("Redis từ chối {}/{} lệnh của lô điểm, bỏ lô: {}",
+                        rejected, replies.size(), firstError.getMessage());
+                return true;
+            }
+            flushCount.incrementAndGet();
+            return true;
+        } catch (JedisException e) {
+            recordFailure(e);
+            return false;
+        }
+    }
+
+    private void recordSuccess() {
+        if (consecutiveFailures > 0) {
+            LOGGER.info("Ghi điểm xuống Redis trở lại bình thường sau {} lần lỗi", consecutiveFailures);
+            consecutiveFailures = 0;
+        }
+    }
+
+    private void recordFailure(JedisException e) {
+        consecutiveFailures++;
+        long backoff = Math.min(flushIntervalMillis << Math.min(consecutiveFailures - 1, 16),
+                MAX_FLUSH_BACKOFF_MILLIS);
+        retryAtMillis = System.currentTimeMillis() + backoff;
+        if (consecutiveFailures == 1) {
+            LOGGER.warn("Lỗi khi ghi điểm, sẽ thử lại với backoff: {}", e.getMessage());
+        } else {
+            LOGGER.debug("Ghi điểm vẫn lỗi (lần {}), thử lại sau {}ms: {}",
+                    consecutiveFailures, backoff, e.getMessage());
+        }
+    }
+
+    /**
+     * Số lần flush lỗi kết nối liên tiếp, 0 khi Redis đang ghi bình thường
+     */
+    public synchronized int getConsecutiveFlushFailures() {
+        return consecutiveFailures;
+    }
+
+    /**
+     * Số lần đã flush thành công xuống Redis
+     */
+    public long getFlushCount() {
+        return flushCount.get();
+    }
+
+    /**
+     * Top-N người chơi của bảng tổng
+     */
+    public List<Entry> top(int n) {
+        return top(Period.ALL_TIME, n);
+    }
+
+    /**
+     * Top-N người chơi theo khoảng thời gian. Kết quả được cache cục bộ trong
+     * topCacheMillis; một kết quả lớn hơn đã cache được dùng lại cho n nhỏ hơn.
+     *
+     * @return Tối đa n dòng, rỗng nếu n <= 0
+     */
+    public List<Entry> top(Period period, int n) {
+        if (n <= 0) {
+            return Collections.emptyList();
+        }
+        long now = System.currentTimeMillis();
+        CachedTop cached = topCache.get(period);
+        if (cached != null && cached.size >= n && now < cached.expiresAt) {
+            return cached.entries.subList(0, Math.min(n, cached.entries.size()));
+        }
+
+        List<Entry> entries = new ArrayList<>(n);
+        try (Jedis jedis = jedisPool.getResource()) {
+            String key = keyFor(jedis, period);
+            long rank = 1;
+            for (Tuple tuple : jedis.zrevrangeWithScores(key, 0, n - 1)) {
+                entries.add(new Entry(tuple.getElement(), tuple.getScore(), rank++));
+            }
+        } catch (JedisException e) {
+            LOGGER.warn("Lỗi khi lấy top: {}", e.getMessage());
+            return cached != null
+                    ? cached.entries.subList(0, Math.min(n, cached.entries.size()))
+                    : Collections.emptyList();
+        }
+
+        entries = Collections.unmodifiableList(entries);
+        if (topCacheMillis > 0) {
+            topCache.put(period, new CachedTop(n, now + topCacheMillis, entries));
+        }
+        return entries;
+    }
+
+    /**
+     * Các người chơi quanh thứ hạng của member (radius người phía trên và phía dưới),
+     * lấy trong một lần gọi Lua script
+     *
+     * @return Danh sách theo thứ hạng, rỗng nếu member chưa có điểm
+     */
+    public List<Entry> aroundMe(String member, int radius) {
+        return aroundMe(Period.ALL_TIME, member, radius);
+    }
+
+    public List<Entry> aroundMe(Period period, String member, int radius) {
+        try (Jedis jedis = jedisPool.getResource()) {
+            String key = keyFor(jedis, period);
+            List<?> result = (List<?>) evalAroundMe(jedis, key, member, radius);
+            if (result.isEmpty()) {
+                return Collections.emptyList();
+            }
+
+            long rank = ((Long) result.get(0)) + 1;
+            List<Entry> entries = new ArrayList<>((result.size() - 1) / 2);
+            for (int i = 1; i + 1 < result.size(); i += 2) {
+                entries.add(new Entry((String) result.get(i), Double.parseDouble((String) result.get(i + 1)), rank++));
+            }
+            return entries;
+        } catch (JedisException e) {
+            LOGGER.warn("Lỗi khi lấy thứ hạng xung quanh: {}", e.getMessage());
+            return Collections.emptyList();
+        }
+    }
+
+    /**
+     * Điểm hiện tại trên Redis của người chơi trong bảng tổng, hoặc null nếu chưa có
+     */
+    public Double score(String member) {
+        try (Jedis jedis = jedisPool.getResource()) {
+            return jedis.zscore(boardKey, member);
+        } catch (JedisException e) {
+            LOGGER.warn("Lỗi khi lấy điểm: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Thứ hạng (bắt đầu từ 1) trong bảng tổng, hoặc null nếu chưa có
+     */
+    public Long rank(String member) {
+        try (Jedis jedis = jedisPool.getResource()) {
+            Long rank = jedis.zrevrank(boardKey, member);
+            return rank == null ? null : rank + 1;
+        } catch (JedisException e) {
+            LOGGER.warn("Lỗi khi lấy thứ hạng: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Xóa toàn bộ dữ liệu của bảng (bảng tổng, các bảng ngày và bảng tuần)
+     */
+    public void reset() {
+        synchronized (this) {
+            pendingIncrements.clear();
+            failedBatch = null;
+        }
+        topCache.clear();
+        LocalDate today = today();
+        try (Jedis jedis = jedisPool.getResource()) {
+            List<String> keys = new ArrayList<>();
+            keys.add(boardKey);
+            keys.add(flushMarkerKey);
+            keys.add(boardKey + WEEKLY_SUFFIX);
+            keys.add(boardKey + WEEKLY_EMPTY_SUFFIX);
+            for (int i = 0; i < DAILY_RETENTION_DAYS; i++) {
+                keys.add(dailyKey(today.minusDays(i)));
+            }
+            jedis.del(keys.toArray(new String[0]));
+        }
+    }
+
+    private Object evalAroundMe(Jedis jedis, String key, String member, int radius) {
+        String sha = aroundMeSha;
+        if (sha == null) {
+            sha = jedis.scriptLoad(AROUND_ME_SCRIPT);
+            aroundMeSha = sha;
+        }
+        try {
+            return jedis.evalsha(sha, 1, key, member, String.valueOf(radius));
+        } catch (JedisDataException e) {
+            if (e.getMessage() == null || !e.getMessage().startsWith("NOSCRIPT")) {
+                throw e;
+            }
+            // Script cache của Redis bị xóa (restart, SCRIPT FLUSH): nạp lại
+            aroundMeSha = jedis.scriptLoad(AROUND_ME_SCRIPT);
+            return jedis.evalsha(aroundMeSha, 1, key, member, String.valueOf(radius));
+        }
+    }
+
+    /**
+     * Key của bảng theo khoảng thời gian. Bảng tuần được tổng hợp bằng ZUNIONSTORE
+     * từ 7 bảng ngày gần nhất và giữ trong WEEKLY_CACHE_SECONDS trước khi tổng hợp lại.
+     * Redis không giữ sorted set rỗng, nên kết quả rỗng được nhớ bằng key đánh dấu riêng
+     * để không tổng hợp lại ở mỗi lần gọi.
+     */
+    private String keyFor(Jedis jedis, Period period) {
+        switch (period) {
+            case DAILY:
+                return dailyKey(today());
+            case WEEKLY:
+                String weeklyKey = boardKey + WEEKLY_SUFFIX;
+                String emptyKey = boardKey + WEEKLY_EMPTY_SUFFIX;
+                if (jedis.exists(weeklyKey, emptyKey) == 0) {
+                    LocalDate today = today();
+                    String[] days = new String[7];
+                    for (int i = 0; i < days.length; i++) {
+                        days[i] = dailyKey(today.minusDays(i));
+                    }
+                    Pipeline pipeline = jedis.pipelined();
+                    Response<Long> size = pipeline.zunionstore(weeklyKey, days);
+                    pipeline.expire(weeklyKey, WEEKLY_CACHE_SECONDS);
+                    pipeline.sync();
+                    if (size.get() == 0) {
+                        jedis.setex(emptyKey, WEEKLY_CACHE_SECONDS, "1");
+                    }
+                }
+                return weeklyKey;
+            default:
+                return boardKey;
+        }
+    }
+
+    private String dailyKey(LocalDate day) {
+        return boardKey + ":daily:" + DAY_FORMAT.format(day);
+    }
+
+    private static LocalDate today() {
+        return LocalDate.now(ZoneOffset.UTC);
+    }
+
+    /**
+     * Ghi nốt điểm còn trong bộ đệm rồi đóng kết nối
+     */
+    @Override
+    public void close() {
+        flushExecutor.shutdown();
+        try {
+            flushExecutor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+        if (ownsPool) {
+            jedisPool.close();
+        }
+    }
+
+    /**
+     * Demo: 100.000 lần cộng điểm từ 4 thread, top-N, xung quanh tôi và bảng tuần
+     */
+    public void demo() throws InterruptedException {
+        System.out.println("=== DEMO REDIS LEADERBOARD ===");
+        reset();
+
+        int updates = 100_000;
+        int players = 1000;
+        int threads = 4;
+        CountDownLatch done = new CountDownLatch(threads);
+        long start = System.nanoTime();
+
+        for (int t = 0; t < threads; t++) {
+            new Thread(() -> {
+                try {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    for (int i = 0; i < updates / threads; i++) {
+                        addScore("player-" + random.nextInt(players), random.nextInt(1, 11));
+                    }
+                } finally {
+                    done.countDown();
+                }
+            }).start();
+        }
+        done.await(1, TimeUnit.MINUTES);
+        flush();
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        System.out.println(updates + " lần cộng điểm trong " + elapsedMillis + "ms, "
+                + getFlushCount() + " lô gửi xuống Redis");
+
+        System.out.println("\nTop 5 (bảng tổng):");
+        for (Entry entry : top(5)) {
+            System.out.println("  " + entry);
+        }
+
+        System.out.println("\nXung quanh player-42:");
+        for (Entry entry : aroundMe("player-42", 2)) {
+            System.out.println("  " + entry);
+        }
+
+        System.out.println("\nTop 3 tuần này (ZUNIONSTORE từ 7 bảng ngày):");
+        for (Entry entry : top(Period.WEEKLY, 3)) {
+            System.out.println("  " + entry);
+        }
+    }
+
+    /**
+     * Phương thức main để chạy demo
+     */
+    public static void main(String[] args) {
+        try (RedisLeaderboard leaderboard = new RedisLeaderboard("game:scores")) {
+            leaderboard.demo();
+        } catch (Exception e) {
+            System.err.println("Lỗi: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,513 @@
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogWriter;
+import org.HdrHistogram.Recorder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.PrintStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * RedisLoadGenerator - Tạo tải open-loop cho các component và đo độ trễ dưới tải
+ *
+ * Khác với demo() của từng class (một client gửi request tuần tự), công cụ này gửi
+ * request theo lịch cố định với tốc độ mục tiêu, không phụ thuộc request trước đã xong
+ * hay chưa. Độ trễ của mỗi request được tính từ thời điểm lẽ ra nó phải được gửi theo
+ * lịch, không phải thời điểm thực sự được gửi: khi hệ thống chậm và request xếp hàng,
+ * thời gian chờ trong hàng đợi cũng được tính (tránh coordinated omission).
+ *
+ * Key được chọn theo phân phối Zipf: một số ít client ID, khóa, sản phẩm nhận phần lớn
+ * lưu lượng như trong thực tế. Độ trễ được ghi bằng HdrHistogram, mỗi lần chạy ghi ra
+ * một file .hlog (histogram theo từng giây) và một file .hgrm (phân phối percentile).
+ *
+ * Chạy nhiều tốc độ liên tiếp để tìm điểm bão hòa của một component:
+ *   mvn exec:java -Dexec.mainClass="RedisLoadGenerator" \
+ *       -Dexec.args="scenario=cache rates=1000,2000,5000,10000 duration=30 keys=100000 zipf=0.99"
+ */
+public class RedisLoadGenerator {
+    private static final Logger LOGGER = LoggerFactory.getLogger(RedisLoadGenerator.class);
+
+    /**
+     * Component được tạo tải
+     */
+    public enum Scenario {
+        RATE_LIMITER, LOCK, SESSION, CACHE
+    }
+
+    /**
+     * Một thao tác trên component với key thứ keyIndex
+     */
+    private interface Operation extends AutoCloseable {
+        void execute(int keyIndex) throws Exception;
+
+        @Override
+        void close();
+    }
+
+    /**
+     * Sinh chỉ số key theo phân phối Zipf: key thứ i có xác suất tỷ lệ với 1 / (i + 1)^exponent.
+     * Hàm phân phối tích lũy được tính trước, mỗi lần sinh là một phép tìm kiếm nhị phân.
+     */
+    public static class ZipfianGenerator {
+        private final double[] cumulative;
+
+        public ZipfianGenerator(int items, double exponent) {
+            if (items <= 0) {
+                throw new IllegalArgumentException("items phải lớn hơn 0");
+            }
+            if (exponent < 0) {
+                throw new IllegalArgumentException("exponent không được âm");
+            }
+            cumulative = new double[items];
+            double sum = 0;
+            for (int i = 0; i < items; i++) {
+                sum += 1.0 / Math.pow(i + 1, exponent);
+                cumulative[i] = sum;
+            }
+            for (int i = 0; i < items; i++) {
+                cumulative[i] /= sum;
+            }
+        }
+
+        public int next() {
+            double u = ThreadLocalRandom.current().nextDouble();
+            int index = Arrays.binarySearch(cumulative, u);
+            index = index >= 0 ? index : -index - 1;
+            return Math.min(index, cumulative.length - 1);
+        }
+    }
+
+    /**
+     * Kết quả một lần chạy ở một tốc độ mục tiêu (độ trễ tính bằng micro giây)
+     */
+    public static class Result {
+        private final int targetRate;
+        private final double achievedRate;
+        private final long errors;
+        private final Histogram histogram;
+
+        Result(int targetRate, double achievedRate, long errors, Histogram histogram) {
+            this.targetRate = targetRate;
+            this.achievedRate = achievedRate;
+            this.errors = errors;
+            this.histogram = histogram;
+        }
+
+        public int getTargetRate() {
+            return targetRate;
+        }
+
+        public double getAchievedRate() {
+            return achievedRate;
+        }
+
+        public long getErrors() {
+            return errors;
+        }
+
+        public Histogram getHistogram() {
+            return histogram;
+        }
+
+        /**
+         * Component được coi là bão hòa khi không theo kịp 95% tốc độ mục tiêu
+         */
+        public boolean isSaturated() {
+            return achievedRate < targetRate * 0.95;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%8d %10.0f %9.2f %9.2f %9.2f %9.2f %7d%s",
+                    targetRate, achievedRate,
+                    histogram.getValueAtPercentile(50) / 1000.0,
+                    histogram.getValueAtPercentile(99) / 1000.0,
+                    histogram.getValueAtPercentile(99.9) / 1000.0,
+                    histogram.getMaxValue() / 1000.0,
+                    errors, isSaturated() ? "  bão hòa" : "");
+        }
+    }
+
+    private final Scenario scenario;
+    private volatile int keys = 10_000;
+    private volatile double zipfExponent = 0.99;
+    private volatile int workers = 32;
+    private volatile int durationSeconds = 30;
+    private volatile int warmupSeconds = 5;
+    private volatile File outputDirectory = new File(".");
+
+    public RedisLoadGenerator(Scenario scenario) {
+        this.scenario = scenario;
+    }
+
+    /**
+     * Số key phân biệt (client ID, khóa, phiên, sản phẩm)
+     */
+    public void setKeys(int keys) {
+        if (keys <= 0) {
+            throw new IllegalArgumentException("keys phải lớn hơn 0");
+        }
+        this.keys = keys;
+    }
+
+    /**
+     * Số mũ Zipf: 0 là phân phối đều, càng lớn lưu lượng càng dồn vào ít key
+     */
+    public void setZipfExponent(double zipfExponent) {
+        if (zipfExponent < 0) {
+            throw new IllegalArgumentException("zipfExponent không được âm");
+        }
+        this.zipfExponent = zipfExponent;
+    }
+
+    /**
+     * Số thread thực thi request; request vượt quá khả năng xử lý sẽ xếp hàng
+     */
+    public void setWorkers(int workers) {
+        if (workers <= 0) {
+            throw new IllegalArgumentException("workers phải lớn hơn 0");
+        }
+        this.workers = workers;
+    }
+
+    /**
+     * Thời gian đo (giây), không tính thời gian khởi động
+     */
+    public void setDurationSeconds(int durationSeconds) {
+        if (durationSeconds <= 0) {
+            throw new IllegalArgumentException("durationSeconds phải lớn hơn 0");
+        }
+        this.durationSeconds = durationSeconds;
+    }
+
+    /**
+     * Thời gian khởi động (giây) trước khi bắt đầu ghi nhận kết quả
+     */
+    public void setWarmupSeconds(int warmupSeconds) {
+        if (warmupSeconds < 0) {
+            throw new IllegalArgumentException("warmupSeconds không được âm");
+        }
+        this.warmupSeconds = warmupSeconds;
+    }
+
+    /**
+     * Thư mục ghi file .hlog và .hgrm
+     */
+    public void setOutputDirectory(File outputDirectory) {
+        this.outputDirectory = outputDirectory;
+    }
+
+    /**
+     * Chạy lần lượt từng tốc độ và in bảng tổng hợp để tìm điểm bão hòa
+     */
+    public List<Result> sweep(int... targetRates) throws Exception {
+        List<Result> results = new ArrayList<>();
+        for (int rate : targetRates) {
+            results.add(run(rate));
+        }
+
+        System.out.println();
+        System.out.println("=== " + scenario + ": tổng hợp (độ trễ tính bằng ms) ===");
+        System.out.println("  target   achieved       p50       p99     p99.9       max  errors");
+        for (Result result : results) {
+            System.out.println(result);
+        }
+        return results;
+    }
+
+    /**
+     * Tạo tải với tốc độ cố định targetRate request/giây
+     */
+    public Result run(int targetRate) throws Exception {
+        if (targetRate <= 0) {
+            throw new IllegalArgumentException("targetRate phải lớn hơn 0");
+        }
+        System.out.println("=== " + scenario + " @ " + targetRate + " req/s ===");
+
+        ZipfianGenerator keyGenerator = new ZipfianGenerator(keys, zipfExponent);
+        // Request theo lịch trong thời gian khởi động được ghi riêng và không tính vào kết quả
+        Recorder warmupRecorder = new Recorder(3);
+        Recorder recorder = new Recorder(3);
+        Histogram total = new Histogram(3);
+        LongAdder completed = new LongAdder();
+        LongAdder errors = new LongAdder();
+        AtomicInteger workerIndex = new AtomicInteger();
+
+        String baseName = scenario.name().toLowerCase(Locale.ROOT) + "-" + targetRate;
+        ExecutorService executor = Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "redis-load-worker-" + workerIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "redis-load-reporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        try (Operation operation = createOperation();
+             PrintStream log = new PrintStream(new File(outputDirectory, baseName + ".hlog"))) {
+            HistogramLogWriter logWriter = new HistogramLogWriter(log);
+            long startMillis = System.currentTimeMillis();
+            logWriter.outputLogFormatVersion();
+            logWriter.outputStartTime(startMillis);
+            logWriter.setBaseTime(startMillis);
+            logWriter.outputLegend();
+
+            long startNanos = System.nanoTime();
+            long measureStartNanos = startNanos + TimeUnit.SECONDS.toNanos(warmupSeconds);
+            long endNanos = measureStartNanos + TimeUnit.SECONDS.toNanos(durationSeconds);
+
+            Runnable report = new Runnable() {
+                private Histogram interval;
+                private Histogram warmupInterval;
+
+                @Override
+                public void run() {
+                    boolean measuring = System.nanoTime() > measureStartNanos;
+                    Histogram histogram;
+                    if (measuring) {
+                        histogram = interval = recorder.getIntervalHistogram(interval);
+                        total.add(interval);
+                        logWriter.outputIntervalHistogram(interval);
+                    } else {
+                        histogram = warmupInterval = warmupRecorder.getIntervalHistogram(warmupInterval);
+                    }
+                    System.out.printf(Locale.ROOT, "%s %6d req  p50=%.2fms p99=%.2fms max=%.2fms%n",
+                            measuring ? "    " : "[wu]", histogram.getTotalCount(),
+                            histogram.getValueAtPercentile(50) / 1000.0,
+                            histogram.getValueAtPercentile(99) / 1000.0,
+                            histogram.getMaxValue() / 1000.0);
+                }
+            };
+            reporter.scheduleAtFixedRate(report, 1, 1, TimeUnit.SECONDS);
+
+            // Lịch gửi cố định: request thứ i lẽ ra phải bắt đầu tại startNanos + i / targetRate giây
+            for (long i = 0; ; i++) {
+                long intendedStart = startNanos + i * 1_000_000_000L / targetRate;
+                if (intendedStart >= endNanos) {
+                    break;
+                }
+                long wait = intendedStart - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+
+                int keyIndex = keyGenerator.next();
+                executor.execute(() -> {
+                    try {
+                        operation.execute(keyIndex);
+                    } catch (Exception e) {
+                        if (intendedStart >= measureStartNanos) {
+                            errors.increment();
+                        }
+                    }
+                    // Tính từ thời điểm theo lịch, gồm cả thời gian xếp hàng chờ worker
+                    long latencyMicros = (System.nanoTime() - intendedStart) / 1000;
+                    if (intendedStart < measureStartNanos) {
+                        warmupRecorder.recordValue(latencyMicros);
+                    } else {
+                        recorder.recordValue(latencyMicros);
+                        completed.increment();
+                    }
+                });
+            }
+
+            executor.shutdown();
+            if (!executor.awaitTermination(durationSeconds + 60L, TimeUnit.SECONDS)) {
+                LOGGER.warn("Còn {} request chưa xong khi hết thời gian chờ",
+                        executor.shutdownNow().size());
+            }
+            double elapsedSeconds = (System.nanoTime() - measureStartNanos) / 1e9;
+
+            reporter.shutdown();
+            reporter.awaitTermination(5, TimeUnit.SECONDS);
+            report.run();
+
+            Result result = new Result(targetRate, completed.sum() / elapsedSeconds, errors.sum(), total);
+            writePercentiles(total, new File(outputDirectory, baseName + ".hgrm"));
+            System.out.printf(Locale.ROOT, "Đạt %.0f req/s, p99=%.2fms, p99.9=%.2fms, lỗi: %d%n",
+                    result.getAchievedRate(), total.getValueAtPercentile(99) / 1000.0,
+                    total.getValueAtPercentile(99.9) / 1000.0, result.getErrors());
+            return result;
+        } finally {
+            executor.shutdownNow();
+            reporter.shutdownNow();
+        }
+    }
+
+    private static void writePercentiles(Histogram histogram, File file) throws FileNotFoundException {
+        try (PrintStream out = new PrintStream(file)) {
+            // Giá trị ghi theo micro giây, xuất theo mili giây
+            histogram.outputPercentileDistribution(out, 1000.0);
+        }
+    }
+
+    /**
+     * Tạo component và thao tác tương ứng với kịch bản
+     */
+    private Operation createOperation() {
+        switch (scenario) {
+            case RATE_LIMITER: {
+                RedisRateLimiter limiter = new RedisRateLimiter();
+                return new Operation() {
+                    @Override
+                    public void execute(int keyIndex) {
+                        limiter.allowRequest("load-client-" + keyIndex, 1_000_000, 60);
+                    }
+
+                    @Override
+                    public void close() {
+                        limiter.close();
+                    }
+                };
+            }
+            case LOCK: {
+                RedisDistributedLock lock = new RedisDistributedLock();
+                return new Operation() {
+                    @Override
+                    public void execute(int keyIndex) {
+                        String lockKey = "load-" + keyIndex;
+                        String requestId = UUID.randomUUID().toString();
+                        if (lock.acquireLock(lockKey, requestId, 5)) {
+                            lock.releaseLock(lockKey, requestId);
+                        }
+                    }
+
+                    @Override
+                    public void close() {
+                        lock.close();
+                    }
+                };
+            }
+            case SESSION: {
+                RedisSessionManager sessionManager = new RedisSessionManager();
+                String[] sessionIds = new String[keys];
+                for (int i = 0; i < keys; i++) {
+                    Map<String, String> userData = new HashMap<>();
+                    userData.put("username", "load-user-" + i);
+                    sessionIds[i] = sessionManager.createSession("load-user-" + i, userData, 3600);
+                }
+                return new Operation() {
+                    @Override
+                    public void execute(int keyIndex) {
+                        // 90% đọc phiên có sẵn, 10% tạo phiên mới như lúc đăng nhập
+                        if (ThreadLocalRandom.current().nextInt(10) == 0) {
+                            sessionManager.createSession("load-user-" + keyIndex, new HashMap<>(), 60);
+                        } else {
+                            sessionManager.getSession(sessionIds[keyIndex]);
+                        }
+                    }
+
+                    @Override
+                    public void close() {
+                        sessionManager.close();
+                    }
+                };
+            }
+            case CACHE: {
+                RedisCache<String, String> cache = new RedisCache<>("load-product:",
+                        RedisCache.Serializer.string(), id -> "{\"id\":\"" + id + "\",\"price\":100000}", 300);
+                return new Operation() {
+                    @Override
+                    public void execute(int keyIndex) {
+                        cache.get("product-" + keyIndex);
+                    }
+
+                    @Override
+                    public void close() {
+                        cache.close();
+                    }
+                };
+            }
+            default:
+                throw new IllegalArgumentException("Kịch bản không hỗ trợ: " + scenario);
+        }
+    }
+
+    /**
+     * Demo tìm điểm bão hòa của cache với ba mức tải ngắn
+     */
+    public void demo() throws Exception {
+        System.out.println("=== DEMO REDIS LOAD GENERATOR ===");
+        setDurationSeconds(5);
+        setWarmupSeconds(2);
+        sweep(500, 2000, 8000);
+    }
+
+    /**
+     * Tham số dạng key=value: scenario, rates, duration, warmup, keys, zipf, workers, out,
+     * embedded, latencyMicros.
+     * Không có tham số thì chạy demo.
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0) {
+            new RedisLoadGenerator(Scenario.CACHE).demo();
+            return;
+        }
+
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Tham số phải có dạng key=value: " + arg);
+            }
+            options.put(arg.substring(0, separator), arg.substring(separator + 1));
+        }
+
+        Scenario scenario = Scenario.valueOf(
+                options.getOrDefault("scenario", "cache").toUpperCase(Locale.ROOT).replace('-', '_'));
+        RedisLoadGenerator generator = new RedisLoadGenerator(scenario);
+        if (options.containsKey("duration")) {
+            generator.setDurationSeconds(Integer.parseInt(options.get("duration")));
+        }
+        if (options.containsKey("warmup")) {
+            generator.setWarmupSeconds(Integer.parseInt(options.get("warmup")));
+        }
+        if (options.containsKey("keys")) {
+            generator.setKeys(Integer.parseInt(options.get("keys")));
+        }
+        if (options.containsKey("zipf")) {
+            generator.setZipfExponent(Double.parseDouble(options.get("zipf")));
+        }
+        if (options.containsKey("workers")) {
+            generator.setWorkers(Integer.parseInt(options.get("workers")));
+        }
+        if (options.containsKey("out")) {
+            generator.setOutputDirectory(new File(options.get("out")));
+        }
+
+        String[] rates = options.getOrDefault("rates", "1000").split(",");
+        int[] targetRates = new int[rates.length];
+        for (int i = 0; i < rates.length; i++) {
+            targetRates[i] = Integer.parseInt(rates[i].trim());
+        }
+
+        // embedded=true: chạy với InMemoryRedisServer ở localhost:6379 thay cho Redis thật
+        if (Boolean.parseBoolean(options.getOrDefault("embedded", "false"))) {
+            try (InMemoryRedisServer server = new InMemoryRedisServer(6379).start()) {
+                server.setLatency(Duration.ofNanos(Long.parseLong(options.getOrDefault("latencyMicros", "0")) * 1000));
+                generator.sweep(targetRates);
+            }
+        } else {
+            generator.sweep(targetRates);
+        }
+    }
+}
@@ -1,7 +1,17 @@
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import redis.clients.jedis.Jedis;
 import redis.clients.jedis.JedisPool;
 import redis.clients.jedis.JedisPoolConfig;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
 import redis.clients.jedis.exceptions.JedisException;
+import redis.clients.jedis.params.SetParams;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * RedisRateLimiter - Triển khai cơ chế giới hạn tốc độ truy cập với Redis
@@ -9,10 +19,34 @@ import redis.clients.jedis.exceptions.JedisException;
  * Class này cung cấp phương thức để giới hạn số lượng request từ một client
  * trong một khoảng thời gian (cửa sổ thời gian) nhất định, sử dụng thuật toán
  * "Fixed Window Counter" đơn giản dựa trên Redis.
+ *
+ * Khi bật {@link #enableHotKeyLeasing(HotKeyDetector)}, client có key nóng không còn hỏi
+ * Redis cho từng request: JVM lấy trước một lô quyền (lease) bằng một lệnh INCRBY và tiêu
+ * dần ở local trong tối đa LEASE_MILLIS. Lease gắn với cửa sổ đã đếm nó: thời hạn của lease
+ * không vượt quá PTTL của bộ đếm, nên quyền của cửa sổ cũ không được dùng sang cửa sổ mới.
+ * Quyền đã lấy mà chưa dùng khi lease hết hạn sẽ mất, nên với request đi qua lease giới
+ * hạn thực tế có thể thấp hơn maxRequests một chút.
+ *
+ * Đường không dùng lease đọc bộ đếm rồi mới INCR (không nguyên tử), nên khi nhiều request
+ * của cùng client đến đồng thời, số request được chấp nhận có thể vượt maxRequests một ít.
  */
-public class RedisRateLimiter {
+public class RedisRateLimiter implements AutoCloseable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(RedisRateLimiter.class);
     private final JedisPool jedisPool;
     private static final String RATE_LIMITER_PREFIX = "ratelimit:";
+    private static final RedisKeys KEYS = new RedisKeys(RATE_LIMITER_PREFIX);
+    private static final byte[] FIRST_REQUEST = RedisKeys.encode(1);
+    private static final byte[] ZERO = RedisKeys.encode(0);
+    // Lease sống tối đa 100ms (và không quá phần còn lại của cửa sổ), chứa 1/20 giới hạn,
+    // không quá 1000 quyền
+    private static final long LEASE_MILLIS = 100;
+    private static final int LEASE_DIVISOR = 20;
+    private static final int MAX_LEASE = 1000;
+    // Quá số lease này thì dọn các lease đã hết hạn của client không còn gửi request
+    private static final int LEASE_SWEEP_THRESHOLD = 64;
+    
+    private volatile HotKeyDetector hotKeyDetector;
+    private final Map<String, Lease> leases = new ConcurrentHashMap<>();
     
     /**
      * Khởi tạo RedisRateLimiter với các cấu hình mặc định
@@ -26,7 +60,7 @@ public class RedisRateLimiter {
         poolConfig.setTestOnReturn(true);
         poolConfig.setTestWhileIdle(true);
         
-        this.jedisPool = new JedisPool(poolConfig, "localhost", 6379);
+        this.jedisPool = RedisTelemetry.global().createPool(poolConfig, "localhost", 6379);
     }
     
     /**
@@ -44,7 +78,17 @@ public class RedisRateLimiter {
         poolConfig.setTestOnReturn(true);
         poolConfig.setTestWhileIdle(true);
         
-        this.jedisPool = new JedisPool(poolConfig, host, port);
+        this.jedisPool = RedisTelemetry.global().createPool(poolConfig, host, port);
+    }
+    
+    /**
+     * Bật lease local cho các client có key nóng theo detector
+     */
+    public void enableHotKeyLeasing(HotKeyDetector detector) {
+        if (detector == null) {
+            throw new IllegalArgumentException("Detector không được null");
+        }
+        this.hotKeyDetector = detector;
     }
     
     /**
@@ -56,17 +100,30 @@ public class RedisRateLimiter {
      * @return true nếu request được chấp nhận, false nếu vượt quá giới hạn
      */
     public boolean allowRequest(String clientId, int maxRequests, int windowSeconds) {
+        HotKeyDetector detector = hotKeyDetector;
+        if (detector != null) {
+            detector.record(RATE_LIMITER_PREFIX, clientId);
+            if (detector.isHot(RATE_LIMITER_PREFIX, clientId)) {
+                return allowLeased(clientId, maxRequests, windowSeconds);
+            }
+            if (!leases.isEmpty()) {
+                // Key đã nguội: bỏ lease còn lại để map không giữ client cũ mãi
+                leases.remove(clientId);
+            }
+        }
+        
         try (Jedis jedis = jedisPool.getResource()) {
-            String key = RATE_LIMITER_PREFIX + clientId;
+            // Key dạng byte[] được tạo một lần và dùng cho mọi lệnh bên dưới
+            byte[] key = KEYS.key(clientId);
             
             // Kiểm tra xem key đã tồn tại chưa, nếu chưa tạo mới
             if (!jedis.exists(key)) {
-                jedis.setex(key, windowSeconds, "1");
+                jedis.setex(key, windowSeconds, FIRST_REQUEST);
                 return true;
             }
             
-            // Lấy số lượng request hiện tại
-            long currentRequests = Long.parseLong(jedis.get(key));
+            // Lấy số lượng request hiện tại, đọc thẳng từ byte[] không qua String
+            long currentRequests = RedisKeys.parseLong(jedis.get(key));
             
             // Kiểm tra giới hạn
             if (currentRequests < maxRequests) {
@@ -77,12 +134,69 @@ public class RedisRateLimiter {
                 return false;
             }
         } catch (JedisException e) {
-            System.err.println("Lỗi khi kiểm tra giới hạn tốc độ: " + e.getMessage());
+            LOGGER.warn("Lỗi khi kiểm tra giới hạn tốc độ: {}", e.getMessage());
             // Trong trường hợp lỗi, cho phép request để tránh chặn toàn bộ hệ thống
             return true;
         }
     }
     
+    /**
+     * Tiêu một quyền từ lease local, hết thì lấy lô mới từ Redis
+     */
+    private boolean allowLeased(String clientId, int maxRequests, int windowSeconds) {
+        Lease lease = leases.get(clientId);
+        if (lease != null && lease.tryAcquire()) {
+            return true;
+        }
+        
+        int batch = Math.max(1, Math.min(maxRequests / LEASE_DIVISOR, MAX_LEASE));
+        try (Jedis jedis = jedisPool.getResource()) {
+            byte[] key = KEYS.key(clientId);
+            
+            // SET NX tạo cửa sổ mới với TTL nếu chưa có, INCRBY lấy cả lô, PTTL cho biết
+            // cửa sổ còn bao lâu; tất cả trong cùng round trip
+            Pipeline pipeline = jedis.pipelined();
+            pipeline.set(key, ZERO, SetParams.setParams().nx().ex(windowSeconds));
+            Response<Long> counter = pipeline.incrBy(key, batch);
+            Response<Long> windowTtl = pipeline.pttl(key);
+            pipeline.sync();
+            
+            // Chỉ nhận phần còn nằm trong giới hạn; phần vượt quá không được dùng
+            long before = counter.get() - batch;
+            int granted = (int) Math.min(batch, Math.max(0, maxRequests - before));
+            if (granted == 0) {
+                leases.remove(clientId, lease);
+                return false;
+            }
+            
+            long windowMillis = windowTtl.get();
+            if (windowMillis == -1) {
+                // Key hết hạn giữa SET NX và INCRBY nên INCRBY tạo lại key không có TTL
+                jedis.expire(key, windowSeconds);
+                windowMillis = TimeUnit.SECONDS.toMillis(windowSeconds);
+            }
+            if (granted > 1 && windowMillis > 0) {
+                installLease(clientId, new Lease(granted - 1, Math.min(LEASE_MILLIS, windowMillis)));
+            }
+            return true;
+        } catch (JedisException e) {
+            LOGGER.warn("Lỗi khi lấy lease giới hạn tốc độ: {}", e.getMessage());
+            return true;
+        }
+    }
+    
+    /**
+     * Gộp lease mới vào lease còn hiệu lực của client thay vì ghi đè, để quyền của các
+     * lần lấy lô đồng thời không bị mất. Lease còn hiệu lực nghĩa là cửa sổ của nó chưa
+     * kết thúc, nên lô mới được đếm trong cùng cửa sổ và dùng chung thời hạn (sớm hơn).
+     */
+    private void installLease(String clientId, Lease fresh) {
+        if (leases.size() >= LEASE_SWEEP_THRESHOLD) {
+            leases.values().removeIf(Lease::isExpired);
+        }
+        leases.merge(clientId, fresh, (current, added) -> current.addPermits(added) ? current : added);
+    }
+    
     /**
      * Lấy số lượng request còn lại được phép từ một client
      * 
@@ -92,7 +206,7 @@ public class RedisRateLimiter {
      */
     public int getRemainingRequests(String clientId, int maxRequests) {
         try (Jedis jedis = jedisPool.getResource()) {
-            String key = RATE_LIMITER_PREFIX + clientId;
+            byte[] key = KEYS.key(clientId);
             
             // Nếu key không tồn tại, nghĩa là client chưa gửi request nào
             if (!jedis.exists(key)) {
@@ -100,13 +214,13 @@ public class RedisRateLimiter {
             }
             
             // Lấy số lượng request hiện tại và tính số còn lại
-            long currentRequests = Long.parseLong(jedis.get(key));
+            long currentRequests = RedisKeys.parseLong(jedis.get(key));
             int remaining = (int) (maxRequests - currentRequests);
             
             // Đảm bảo giá trị không âm
             return Math.max(0, remaining);
         } catch (JedisException e) {
-            System.err.println("Lỗi khi lấy số request còn lại: " + e.getMessage());
+            LOGGER.warn("Lỗi khi lấy số request còn lại: {}", e.getMessage());
             return 0;
         }
     }
@@ -119,7 +233,7 @@ public class RedisRateLimiter {
      */
     public long getRemainingWindowTime(String clientId) {
         try (Jedis jedis = jedisPool.getResource()) {
-            String key = RATE_LIMITER_PREFIX + clientId;
+            byte[] key = KEYS.key(clientId);
             
             // Nếu key không tồn tại, không có giới hạn nào đang được áp dụng
             if (!jedis.exists(key)) {
@@ -128,7 +242,7 @@ public class RedisRateLimiter {
             
             return jedis.ttl(key);
         } catch (JedisException e) {
-            System.err.println("Lỗi khi lấy thời gian còn lại: " + e.getMessage());
+            LOGGER.warn("Lỗi khi lấy thời gian còn lại: {}", e.getMessage());
             return 0;
         }
     }
@@ -140,19 +254,74 @@ public class RedisRateLimiter {
      * @return true nếu reset thành công, false nếu thất bại
      */
     public boolean resetLimit(String clientId) {
+        leases.remove(clientId);
         try (Jedis jedis = jedisPool.getResource()) {
-            String key = RATE_LIMITER_PREFIX + clientId;
-            long result = jedis.del(key);
+            long result = jedis.del(KEYS.key(clientId));
             return result > 0;
         } catch (JedisException e) {
-            System.err.println("Lỗi khi reset giới hạn: " + e.getMessage());
+            LOGGER.warn("Lỗi khi reset giới hạn: {}", e.getMessage());
             return false;
         }
     }
     
+    /**
+     * Lô quyền đã lấy từ Redis, tiêu ở local cho tới khi hết hoặc hết hạn
+     */
+    private static final class Lease {
+        private final AtomicInteger remaining;
+        // Chỉ bị hạ xuống khi gộp, trong hàm merge của map (tuần tự theo client)
+        private volatile long expiresAt;
+        
+        /**
+         * @param lifetimeMillis Thời hạn tính từ lúc nhận phản hồi của Redis; vì thời điểm
+         *                       này muộn hơn lúc Redis tính PTTL, lease hết hạn trước cửa sổ
+         */
+        Lease(int permits, long lifetimeMillis) {
+            this.remaining = new AtomicInteger(permits);
+            this.expiresAt = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(lifetimeMillis);
+        }
+        
+        boolean isExpired() {
+            return System.nanoTime() - expiresAt >= 0;
+        }
+        
+        /**
+         * Thêm quyền của một lease khác cùng cửa sổ; hạn dùng là hạn sớm hơn của hai lease
+         * vì lease mới có thể được lấy khi cửa sổ chỉ còn ít thời gian
+         *
+         * @return false nếu lease này đã hết hạn, khi đó không thêm gì
+         */
+        boolean addPermits(Lease other) {
+            if (isExpired()) {
+                return false;
+            }
+            if (other.expiresAt - expiresAt < 0) {
+                expiresAt = other.expiresAt;
+            }
+            remaining.addAndGet(other.remaining.get());
+            return true;
+        }
+        
+        boolean tryAcquire() {
+            if (isExpired()) {
+                return false;
+            }
+            while (true) {
+                int current = remaining.get();
+                if (current <= 0) {
+                    return false;
+                }
+                if (remaining.compareAndSet(current, current - 1)) {
+                    return true;
+                }
+            }
+        }
+    }
+    
     /**
      * Đóng kết nối đến Redis pool
      */
+    @Override
     public void close() {
         jedisPool.close();
     }
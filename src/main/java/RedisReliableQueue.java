@@ -0,0 +1,503 @@
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.JedisPoolConfig;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.StreamEntryID;
+import redis.clients.jedis.Transaction;
+import redis.clients.jedis.exceptions.JedisDataException;
+import redis.clients.jedis.exceptions.JedisException;
+import redis.clients.jedis.params.XAutoClaimParams;
+import redis.clients.jedis.params.XPendingParams;
+import redis.clients.jedis.params.XReadGroupParams;
+import redis.clients.jedis.resps.StreamEntry;
+import redis.clients.jedis.resps.StreamPendingEntry;
+import redis.clients.jedis.util.SafeEncoder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * RedisReliableQueue - Hàng đợi công việc tin cậy trên Redis Streams
+ *
+ * Khác với LPUSH/LPOP trong {@code RedisDemo.demoLists}, task không bị mất khi
+ * consumer crash: XREADGROUP chỉ chuyển task sang danh sách "đang xử lý" (PEL) của
+ * consumer group, task chỉ bị xóa khi consumer xác nhận (XACK). Task không được
+ * xác nhận trong thời gian visibility timeout sẽ được consumer khác nhận lại
+ * (XAUTOCLAIM).
+ *
+ * Mỗi lần poll lấy cả một lô task (COUNT) và chờ bằng BLOCK thay vì polling liên tục,
+ * nên throughput của worker tăng theo kích thước lô.
+ *
+ * Task bị giao quá {@link #setMaxDeliveries maxDeliveries} lần mà vẫn không được xác nhận
+ * (ví dụ task lỗi làm handler luôn ném exception) được chuyển sang stream dead-letter
+ * "queue:" + queueName + ":dead" thay vì bị XAUTOCLAIM nhận lại mãi.
+ */
+public class RedisReliableQueue implements AutoCloseable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(RedisReliableQueue.class);
+    private static final String QUEUE_PREFIX = "queue:";
+    private static final String PAYLOAD_FIELD = "payload";
+    private static final String DEAD_LETTER_SUFFIX = ":dead";
+    // Field thêm vào entry dead-letter: ID gốc và số lần đã giao
+    private static final String SOURCE_ID_FIELD = "source-id";
+    private static final String DELIVERIES_FIELD = "deliveries";
+    private static final int SOCKET_TIMEOUT_MILLIS = 30_000;
+
+    /**
+     * Một task đã được giao cho consumer, cần {@link #ack} sau khi xử lý xong
+     */
+    public static final class Message {
+        private final StreamEntryID id;
+        private final String payload;
+        private final boolean redelivered;
+
+        Message(StreamEntryID id, String payload, boolean redelivered) {
+            this.id = id;
+            this.payload = payload;
+            this.redelivered = redelivered;
+        }
+
+        public String getId() {
+            return id.toString();
+        }
+
+        public String getPayload() {
+            return payload;
+        }
+
+        /**
+         * true nếu task được nhận lại sau khi consumer trước đó không xác nhận kịp
+         */
+        public boolean isRedelivered() {
+            return redelivered;
+        }
+
+        @Override
+        public String toString() {
+            return id + "=" + payload;
+        }
+    }
+
+    private final JedisPool jedisPool;
+    private final boolean ownsPool;
+    private final String streamKey;
+    private final String deadLetterKey;
+    private final String group;
+    private volatile long visibilityTimeoutMillis = 30_000;
+    private volatile int maxDeliveries = 5;
+    // Vị trí XAUTOCLAIM tiếp theo trong PEL; quay về 0-0 khi đã quét hết một vòng
+    private volatile StreamEntryID claimCursor = new StreamEntryID(0, 0);
+
+    /**
+     * Khởi tạo hàng đợi với connection pool mặc định (localhost:6379)
+     *
+     * @param queueName Tên hàng đợi, stream được lưu ở key "queue:" + queueName
+     * @param group Tên consumer group; các worker cùng group chia nhau task
+     */
+    public RedisReliableQueue(String queueName, String group) {
+        JedisPoolConfig poolConfig = new JedisPoolConfig();
+        poolConfig.setMaxTotal(10);
+        poolConfig.setMaxIdle(5);
+
+        // Socket timeout phải lớn hơn thời gian BLOCK của XREADGROUP
+        this.jedisPool = RedisTelemetry.global().createPool(poolConfig, "localhost", 6379, SOCKET_TIMEOUT_MILLIS);
+        this.ownsPool = true;
+        this.streamKey = QUEUE_PREFIX + queueName;
+        this.deadLetterKey = streamKey + DEAD_LETTER_SUFFIX;
+        this.group = group;
+        createGroup();
+    }
+
+    /**
+     * Dùng chung connection pool có sẵn. Socket timeout của pool phải lớn hơn
+     * blockMillis truyền vào {@link #poll}.
+     */
+    public RedisReliableQueue(JedisPool jedisPool, String queueName, String group) {
+        this.jedisPool = jedisPool;
+        this.ownsPool = false;
+        this.streamKey = QUEUE_PREFIX + queueName;
+        this.deadLetterKey = streamKey + DEAD_LETTER_SUFFIX;
+        this.group = group;
+        createGroup();
+    }
+
+    /**
+     * Thời gian tối đa một task được giữ bởi consumer chưa xác nhận trước khi giao lại
+     */
+    public void setVisibilityTimeoutMillis(long visibilityTimeoutMillis) {
+        if (visibilityTimeoutMillis <= 0) {
+            throw new IllegalArgumentException("visibilityTimeoutMillis phải lớn hơn 0");
+        }
+        this.visibilityTimeoutMillis = visibilityTimeoutMillis;
+    }
+
+    /**
+     * Số lần giao tối đa của một task; lần nhận lại vượt quá số này chuyển task sang dead-letter
+     */
+    public void setMaxDeliveries(int maxDeliveries) {
+        if (maxDeliveries < 1) {
+            throw new IllegalArgumentException("maxDeliveries phải lớn hơn 0");
+        }
+        this.maxDeliveries = maxDeliveries;
+    }
+
+    private void createGroup() {
+        try (Jedis jedis = jedisPool.getResource()) {
+            jedis.xgroupCreate(streamKey, group, new StreamEntryID(0, 0), true);
+        } catch (JedisDataException e) {
+            // BUSYGROUP: group đã tồn tại
+            if (e.getMessage() == null || !e.getMessage().startsWith("BUSYGROUP")) {
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Thêm một task vào hàng đợi
+     *
+     * @return ID của task, hoặc null nếu lỗi
+     */
+    public String enqueue(String payload) {
+        try (Jedis jedis = jedisPool.getResource()) {
+            return jedis.xadd(streamKey, StreamEntryID.NEW_ENTRY,
+                    Collections.singletonMap(PAYLOAD_FIELD, payload)).toString();
+        } catch (JedisException e) {
+            LOGGER.warn("Lỗi khi thêm task: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Thêm nhiều task trong một pipeline
+     *
+     * @return Số task đã thêm
+     */
+    public int enqueueAll(List<String> payloads) {
+        try (Jedis jedis = jedisPool.getResource()) {
+            Pipeline pipeline = jedis.pipelined();
+            for (String payload : payloads) {
+                pipeline.xadd(streamKey, StreamEntryID.NEW_ENTRY, Collections.singletonMap(PAYLOAD_FIELD, payload));
+            }
+            pipeline.sync();
+            return payloads.size();
+        } catch (JedisException e) {
+            LOGGER.warn("Lỗi khi thêm task theo lô: {}", e.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * Lấy tối đa batchSize task cho consumer. Task quá visibility timeout của consumer
+     * khác được nhận lại trước; nếu không có, chờ task mới tối đa blockMillis.
+     * Mỗi lần gọi XAUTOCLAIM tiếp tục từ cursor lần trước trả về, nên với PEL lớn các
+     * entry phía sau cũng được xét tới thay vì chỉ quét lại đầu PEL. Task nhận lại đã bị
+     * giao quá maxDeliveries lần được chuyển sang dead-letter thay vì trả về.
+     *
+     * @param consumer Tên consumer (duy nhất cho mỗi worker)
+     * @param batchSize Số task tối đa trong một lô
+     * @param blockMillis Thời gian chờ tối đa khi hàng đợi rỗng (0 để không chờ)
+     * @return Danh sách task, rỗng nếu hết thời gian chờ hoặc lỗi
+     */
+    public List<Message> poll(String consumer, int batchSize, int blockMillis) {
+        List<Message> messages = new ArrayList<>(batchSize);
+
+        try (Jedis jedis = jedisPool.getResource()) {
+            Map.Entry<StreamEntryID, List<StreamEntry>> claimed = jedis.xautoclaim(streamKey, group, consumer,
+                    visibilityTimeoutMillis, claimCursor, new XAutoClaimParams().count(batchSize));
+            claimCursor = claimed.getKey();
+            List<StreamEntry> reclaimed = new ArrayList<>(claimed.getValue().size());
+            for (StreamEntry entry : claimed.getValue()) {
+                // Entry đã bị xóa khỏi stream (ví dụ bị trim) được trả về dạng null
+                if (entry != null && entry.getFields() != null) {
+                    reclaimed.add(entry);
+                }
+            }
+            if (!reclaimed.isEmpty()) {
+                for (StreamEntry entry : withinDeliveryLimit(jedis, consumer, reclaimed)) {
+                    messages.add(new Message(entry.getID(), entry.getFields().get(PAYLOAD_FIELD), true));
+                }
+            }
+
+            int remaining = batchSize - messages.size();
+            if (remaining > 0) {
+                XReadGroupParams params = new XReadGroupParams().count(remaining);
+                if (messages.isEmpty() && blockMillis > 0) {
+                    params.block(blockMillis);
+                }
+
+                List<Map.Entry<String, List<StreamEntry>>> streams = jedis.xreadGroup(group, consumer, params,
+                        Collections.singletonMap(streamKey, StreamEntryID.UNRECEIVED_ENTRY));
+                if (streams != null) {
+                    for (Map.Entry<String, List<StreamEntry>> stream : streams) {
+                        for (StreamEntry entry : stream.getValue()) {
+                            messages.add(new Message(entry.getID(), entry.getFields().get(PAYLOAD_FIELD), false));
+                        }
+                    }
+                }
+            }
+        } catch (JedisException e) {
+            LOGGER.warn("Lỗi khi lấy task: {}", e.getMessage());
+        }
+        return messages;
+    }
+
+    /**
+     * Đọc số lần giao của các task vừa nhận lại (XAUTOCLAIM đã tăng số này) trong một
+     * pipeline XPENDING, chuyển task quá maxDeliveries sang dead-letter
+     *
+     * @return Các task còn được giao cho consumer
+     */
+    private List<StreamEntry> withinDeliveryLimit(Jedis jedis, String consumer, List<StreamEntry> reclaimed) {
+        Pipeline pipeline = jedis.pipelined();
+        List<Response<List<StreamPendingEntry>>> pending = new ArrayList<>(reclaimed.size());
+        for (StreamEntry entry : reclaimed) {
+            pending.add(pipeline.xpending(streamKey, group,
+                    XPendingParams.xPendingParams(entry.getID(), entry.getID(), 1).consumer(consumer)));
+        }
+        pipeline.sync();
+
+        int limit = maxDeliveries;
+        List<StreamEntry> deliverable = new ArrayList<>(reclaimed.size());
+        List<StreamEntry> dead = new ArrayList<>();
+        List<Long> deadDeliveries = new ArrayList<>();
+        for (int i = 0; i < reclaimed.size(); i++) {
+            List<StreamPendingEntry> info = pending.get(i).get();
+            long deliveries = info.isEmpty() ? 0 : info.get(0).getDeliveredTimes();
+            if (deliveries > limit) {
+                dead.add(reclaimed.get(i));
+                deadDeliveries.add(deliveries);
+            } else {
+                deliverable.add(reclaimed.get(i));
+            }
+        }
+        if (!dead.isEmpty()) {
+            moveToDeadLetter(jedis, dead, deadDeliveries);
+        }
+        return deliverable;
+    }
+
+    /**
+     * Chép task sang stream dead-letter rồi XACK + XDEL khỏi hàng đợi trong cùng MULTI/EXEC,
+     * nên task không bị mất hay nằm ở cả hai nơi
+     */
+    private void moveToDeadLetter(Jedis jedis, List<StreamEntry> entries, List<Long> deliveries) {
+        StreamEntryID[] ids = new StreamEntryID[entries.size()];
+        Transaction transaction = jedis.multi();
+        for (int i = 0; i < ids.length; i++) {
+            StreamEntry entry = entries.get(i);
+            ids[i] = entry.getID();
+            Map<String, String> fields = new LinkedHashMap<>(entry.getFields());
+            fields.put(SOURCE_ID_FIELD, entry.getID().toString());
+            fields.put(DELIVERIES_FIELD, String.valueOf(deliveries.get(i)));
+            transaction.xadd(deadLetterKey, StreamEntryID.NEW_ENTRY, fields);
+        }
+        transaction.xack(streamKey, group, ids);
+        transaction.xdel(streamKey, ids);
+        transaction.exec();
+        LOGGER.warn("Chuyển {} task sang dead-letter {} sau hơn {} lần giao", ids.length, deadLetterKey, maxDeliveries);
+    }
+
+    /**
+     * Xác nhận đã xử lý xong các task: XACK rồi XDEL trong một pipeline để stream không phình ra
+     *
+     * @return Số task được xác nhận
+     */
+    public long ack(List<Message> messages) {
+        if (messages.isEmpty()) {
+            return 0;
+        }
+        StreamEntryID[] ids = new StreamEntryID[messages.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = messages.get(i).id;
+        }
+
+        try (Jedis jedis = jedisPool.getResource()) {
+            Pipeline pipeline = jedis.pipelined();
+            Response<Long> acked = pipeline.xack(streamKey, group, ids);
+            pipeline.xdel(streamKey, ids);
+            pipeline.sync();
+            return acked.get();
+        } catch (JedisException e) {
+            LOGGER.warn("Lỗi khi xác nhận task: {}", e.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * Lấy một lô task, xử lý bằng handler rồi xác nhận. Nếu handler ném exception,
+     * cả lô không được xác nhận và sẽ được giao lại sau visibility timeout; mọi task
+     * trong lô đều bị tính thêm một lần giao (xem {@link #setMaxDeliveries}).
+     *
+     * @return Số task đã xử lý thành công
+     */
+    public int processBatch(String consumer, int batchSize, int blockMillis, Consumer<List<Message>> handler) {
+        List<Message> messages = poll(consumer, batchSize, blockMillis);
+        if (messages.isEmpty()) {
+            return 0;
+        }
+
+        try {
+            handler.accept(messages);
+        } catch (RuntimeException e) {
+            LOGGER.warn("Xử lý lô task thất bại, sẽ được giao lại: {}", e.getMessage());
+            return 0;
+        }
+        ack(messages);
+        return messages.size();
+    }
+
+    /**
+     * Số task đã giao cho consumer nhưng chưa được xác nhận
+     */
+    public long pendingCount() {
+        try (Jedis jedis = jedisPool.getResource()) {
+            // Đọc phản hồi thô: với PEL rỗng Redis trả ID min/max là nil, bộ dựng
+            // StreamPendingSummary của Jedis 4.3 ném NullPointerException với nil
+            List<?> summary = (List<?>) jedis.xpending(SafeEncoder.encode(streamKey), SafeEncoder.encode(group));
+            return (Long) summary.get(0);
+        } catch (JedisException e) {
+            LOGGER.warn("Lỗi khi lấy số task đang xử lý: {}", e.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * Số task còn trong stream (chưa giao hoặc chưa xác nhận)
+     */
+    public long size() {
+        try (Jedis jedis = jedisPool.getResource()) {
+            return jedis.xlen(streamKey);
+        } catch (JedisException e) {
+            LOGGER.warn("Lỗi khi lấy kích thước hàng đợi: {}", e.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * Số task đã bị chuyển sang dead-letter
+     */
+    public long deadLetterSize() {
+        try (Jedis jedis = jedisPool.getResource()) {
+            return jedis.xlen(deadLetterKey);
+        } catch (JedisException e) {
+            LOGGER.warn("Lỗi khi lấy kích thước dead-letter: {}", e.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * Đọc tối đa count task cũ nhất trong dead-letter (không xóa). ID của Message là ID
+     * trong stream dead-letter; ID gốc nằm ở field "source-id".
+     */
+    public List<Message> deadLetters(int count) {
+        List<Message> messages = new ArrayList<>();
+        try (Jedis jedis = jedisPool.getResource()) {
+            for (StreamEntry entry : jedis.xrange(deadLetterKey, "-", "+", count)) {
+                messages.add(new Message(entry.getID(), entry.getFields().get(PAYLOAD_FIELD), true));
+            }
+        } catch (JedisException e) {
+            LOGGER.warn("Lỗi khi đọc dead-letter: {}", e.getMessage());
+        }
+        return messages;
+    }
+
+    /**
+     * Xóa toàn bộ hàng đợi (kể cả consumer group và dead-letter)
+     */
+    public void clear() {
+        try (Jedis jedis = jedisPool.getResource()) {
+            jedis.del(streamKey, deadLetterKey);
+        }
+        createGroup();
+    }
+
+    @Override
+    public void close() {
+        if (ownsPool) {
+            jedisPool.close();
+        }
+    }
+
+    /**
+     * Demo: nhiều worker xử lý theo lô, một worker "crash" mà không mất task
+     */
+    public void demo() throws InterruptedException {
+        System.out.println("=== DEMO REDIS RELIABLE QUEUE ===");
+        clear();
+        setVisibilityTimeoutMillis(1000);
+
+        int total = 10_000;
+        List<String> tasks = new ArrayList<>(total);
+        for (int i = 0; i < total; i++) {
+            tasks.add("task-" + i);
+        }
+        enqueueAll(tasks);
+        System.out.println("Đã thêm " + total + " task trong một pipeline");
+
+        // Worker lỗi: nhận một lô rồi "crash" (không xác nhận)
+        List<Message> lost = poll("crashed-worker", 100, 0);
+        System.out.println("Worker crashed-worker nhận " + lost.size() + " task rồi dừng đột ngột");
+
+        Set<String> processed = ConcurrentHashMap.newKeySet();
+        AtomicInteger redelivered = new AtomicInteger();
+        AtomicBoolean running = new AtomicBoolean(true);
+        int workers = 3;
+        CountDownLatch done = new CountDownLatch(workers);
+        long start = System.currentTimeMillis();
+
+        for (int w = 0; w < workers; w++) {
+            String consumer = "worker-" + w;
+            new Thread(() -> {
+                try {
+                    while (running.get()) {
+                        processBatch(consumer, 100, 500, batch -> {
+                            for (Message message : batch) {
+                                processed.add(message.getPayload());
+                                if (message.isRedelivered()) {
+                                    redelivered.incrementAndGet();
+                                }
+                            }
+                        });
+                    }
+                } finally {
+                    done.countDown();
+                }
+            }).start();
+        }
+
+        long deadline = System.currentTimeMillis() + 30_000;
+        while (processed.size() < total && System.currentTimeMillis() < deadline) {
+            Thread.sleep(100);
+        }
+        running.set(false);
+        done.await(5, TimeUnit.SECONDS);
+
+        System.out.println("Đã xử lý: " + processed.size() + "/" + total + " task trong "
+                + (System.currentTimeMillis() - start) + "ms");
+        System.out.println("Task được giao lại sau khi worker crash: " + redelivered.get());
+        System.out.println("Task chưa xác nhận: " + pendingCount() + ", còn trong stream: " + size());
+    }
+
+    /**
+     * Phương thức main để chạy demo
+     */
+    public static void main(String[] args) {
+        try (RedisReliableQueue queue = new RedisReliableQueue("tasks", "workers")) {
+            queue.demo();
+        } catch (Exception e) {
+            System.err.println("Lỗi: " + e.getMessage());
+        }
+    }
+}
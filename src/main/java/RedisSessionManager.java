@@ -1,3 +1,5 @@
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import redis.clients.jedis.Jedis;
 import redis.clients.jedis.JedisPool;
 import redis.clients.jedis.JedisPoolConfig;
@@ -12,6 +14,7 @@ import java.util.UUID;
  * Tập trung vào cơ chế tự động hết hạn (expiration)
  */
 public class RedisSessionManager implements AutoCloseable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(RedisSessionManager.class);
     private final JedisPool jedisPool;
     private static final String SESSION_PREFIX = "session:";
 
@@ -21,7 +24,7 @@ public class RedisSessionManager implements AutoCloseable {
         poolConfig.setMaxTotal(10);
         poolConfig.setMaxIdle(5);
 
-        this.jedisPool = new JedisPool(poolConfig, "localhost", 6379);
+        this.jedisPool = RedisTelemetry.global().createPool(poolConfig, "localhost", 6379);
     }
 
     // Tạo phiên mới
@@ -44,7 +47,7 @@ public class RedisSessionManager implements AutoCloseable {
 
             return sessionId;
         } catch (JedisException e) {
-            System.err.println("Lỗi khi tạo phiên: " + e.getMessage());
+            LOGGER.warn("Lỗi khi tạo phiên: {}", e.getMessage());
             return null;
         }
     }
@@ -54,14 +57,12 @@ public class RedisSessionManager implements AutoCloseable {
         try (Jedis jedis = jedisPool.getResource()) {
             String sessionKey = SESSION_PREFIX + sessionId;
 
-            // Nếu phiên không tồn tại hoặc đã hết hạn, Redis sẽ tự động trả về null
-            if (!jedis.exists(sessionKey)) {
-                return null;
-            }
-
-            return jedis.hgetAll(sessionKey);
+            // Phiên không tồn tại hoặc đã hết hạn thì HGETALL trả về map rỗng (Redis không
+            // lưu hash rỗng), nên không cần thêm một round trip EXISTS
+            Map<String, String> session = jedis.hgetAll(sessionKey);
+            return session.isEmpty() ? null : session;
         } catch (JedisException e) {
-            System.err.println("Lỗi khi lấy phiên: " + e.getMessage());
+            LOGGER.warn("Lỗi khi lấy phiên: {}", e.getMessage());
             return null;
         }
     }
@@ -0,0 +1,324 @@
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.JedisPoolConfig;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.Transaction;
+import redis.clients.jedis.exceptions.JedisException;
+import redis.clients.jedis.params.ScanParams;
+import redis.clients.jedis.resps.ScanResult;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.UUID;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * RedisSetAlgebra - Phép giao và phép hiệu trên các set lớn mà không chặn Redis
+ *
+ * SMEMBERS/SINTER/SDIFF trong {@code RedisDemo.demoSets} trả về toàn bộ kết quả trong
+ * một lệnh: với set hàng triệu phần tử, Redis bận suốt thời gian tính và JVM phải giữ
+ * cả kết quả trong heap. Class này duyệt set nguồn bằng SSCAN theo từng phần, kiểm tra
+ * mỗi phần với các set còn lại bằng SMISMEMBER trong một pipeline, và trả kết quả dưới
+ * dạng Stream lười: bộ nhớ dùng chỉ tỷ lệ với kích thước một phần, mỗi lệnh Redis đều ngắn.
+ *
+ * Lưu ý: kết quả không phải snapshot nguyên tử; SSCAN có thể trả một phần tử nhiều lần
+ * nếu set thay đổi kích thước trong lúc duyệt.
+ */
+public class RedisSetAlgebra implements AutoCloseable {
+    private static final String TEMP_KEY_SEPARATOR = ":tmp:";
+    private static final long TEMP_KEY_SECONDS = 3600;
+
+    private final JedisPool jedisPool;
+    private final boolean ownsPool;
+    private volatile int chunkSize = 1000;
+
+    /**
+     * Khởi tạo với connection pool mặc định (localhost:6379)
+     */
+    public RedisSetAlgebra() {
+        JedisPoolConfig poolConfig = new JedisPoolConfig();
+        poolConfig.setMaxTotal(10);
+        poolConfig.setMaxIdle(5);
+
+        this.jedisPool = RedisTelemetry.global().createPool(poolConfig, "localhost", 6379);
+        this.ownsPool = true;
+    }
+
+    /**
+     * Dùng chung connection pool có sẵn
+     */
+    public RedisSetAlgebra(JedisPool jedisPool) {
+        this.jedisPool = jedisPool;
+        this.ownsPool = false;
+    }
+
+    /**
+     * Gợi ý số phần tử mỗi lần SSCAN (COUNT), cũng là số phần tử mỗi lệnh SMISMEMBER
+     */
+    public void setChunkSize(int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize phải lớn hơn 0");
+        }
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Giao của các set. Set nhỏ nhất (theo SCARD) được duyệt, các set khác chỉ được
+     * kiểm tra thành viên, nên chi phí tỷ lệ với kích thước set nhỏ nhất.
+     *
+     * @return Stream lười các phần tử thuộc mọi set
+     */
+    public Stream<String> intersect(String... keys) {
+        if (keys.length == 0) {
+            return Stream.empty();
+        }
+
+        String smallest;
+        List<String> others = new ArrayList<>(Arrays.asList(keys));
+        try (Jedis jedis = jedisPool.getResource()) {
+            Pipeline pipeline = jedis.pipelined();
+            List<Response<Long>> sizes = new ArrayList<>(keys.length);
+            for (String key : keys) {
+                sizes.add(pipeline.scard(key));
+            }
+            pipeline.sync();
+
+            int smallestIndex = 0;
+            for (int i = 1; i < keys.length; i++) {
+                if (sizes.get(i).get() < sizes.get(smallestIndex).get()) {
+                    smallestIndex = i;
+                }
+            }
+            if (sizes.get(smallestIndex).get() == 0) {
+                return Stream.empty();
+            }
+            smallest = others.remove(smallestIndex);
+        }
+
+        return filtered(smallest, others, true);
+    }
+
+    /**
+     * Hiệu của set key với các set others (phần tử thuộc key nhưng không thuộc set nào trong others)
+     *
+     * @return Stream lười các phần tử của hiệu
+     */
+    public Stream<String> difference(String key, String... others) {
+        return filtered(key, Arrays.asList(others), false);
+    }
+
+    /**
+     * Đếm số phần tử của phép giao mà không giữ kết quả trong bộ nhớ
+     */
+    public long intersectCount(String... keys) {
+        return intersect(keys).count();
+    }
+
+    /**
+     * Ghi kết quả của một stream (ví dụ {@link #intersect}) vào set đích theo từng phần.
+     * Các phần được SADD vào một key tạm, mỗi phần mượn connection riêng nên stream có thể
+     * đọc Redis trong lúc ghi (kể cả đọc chính set đích); cuối cùng key tạm được RENAME đè
+     * lên đích trong một transaction, nên người đọc chỉ thấy set cũ hoặc set mới đầy đủ.
+     * Key tạm có TTL, được gia hạn sau mỗi phần, để không bị bỏ lại nếu tiến trình dừng giữa chừng.
+     *
+     * @return Số phần tử phân biệt của set đích
+     */
+    public long store(String destination, Stream<String> members) {
+        String tempKey = destination + TEMP_KEY_SEPARATOR + UUID.randomUUID();
+        long written = 0;
+        List<String> chunk = new ArrayList<>(chunkSize);
+        Iterator<String> iterator = members.iterator();
+
+        try {
+            while (iterator.hasNext()) {
+                chunk.add(iterator.next());
+                if (chunk.size() == chunkSize) {
+                    written += writeChunk(tempKey, chunk);
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                written += writeChunk(tempKey, chunk);
+            }
+
+            try (Jedis jedis = jedisPool.getResource()) {
+                if (written == 0) {
+                    jedis.del(destination);
+                    return 0;
+                }
+                // RENAME giữ TTL của key tạm, PERSIST bỏ nó trong cùng transaction
+                Transaction transaction = jedis.multi();
+                transaction.rename(tempKey, destination);
+                transaction.persist(destination);
+                transaction.exec();
+            }
+            return written;
+        } catch (RuntimeException e) {
+            deleteQuietly(tempKey);
+            throw e;
+        }
+    }
+
+    /**
+     * SADD một phần vào key tạm và gia hạn TTL của nó
+     *
+     * @return Số phần tử mới (SADD không đếm phần tử đã có, nên tổng là số phần tử phân biệt)
+     */
+    private long writeChunk(String tempKey, List<String> chunk) {
+        try (Jedis jedis = jedisPool.getResource()) {
+            Pipeline pipeline = jedis.pipelined();
+            Response<Long> added = pipeline.sadd(tempKey, chunk.toArray(new String[0]));
+            pipeline.expire(tempKey, TEMP_KEY_SECONDS);
+            pipeline.sync();
+            return added.get();
+        }
+    }
+
+    private void deleteQuietly(String key) {
+        try (Jedis jedis = jedisPool.getResource()) {
+            jedis.del(key);
+        } catch (JedisException e) {
+            // Key tạm sẽ tự hết hạn sau TEMP_KEY_SECONDS
+        }
+    }
+
+    /**
+     * Duyệt source bằng SSCAN, giữ phần tử nếu nó thuộc mọi set trong others
+     * (keepIfMember = true) hoặc không thuộc set nào (keepIfMember = false)
+     */
+    private Stream<String> filtered(String source, List<String> others, boolean keepIfMember) {
+        ScanParams params = new ScanParams().count(chunkSize);
+
+        Iterator<String> iterator = new Iterator<String>() {
+            private String cursor = ScanParams.SCAN_POINTER_START;
+            private boolean finished;
+            private Iterator<String> current = Collections.emptyIterator();
+
+            @Override
+            public boolean hasNext() {
+                while (!current.hasNext()) {
+                    if (finished) {
+                        return false;
+                    }
+                    current = nextChunk().iterator();
+                }
+                return true;
+            }
+
+            @Override
+            public String next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return current.next();
+            }
+
+            private List<String> nextChunk() {
+                try (Jedis jedis = jedisPool.getResource()) {
+                    ScanResult<String> scan = jedis.sscan(source, cursor, params);
+                    cursor = scan.getCursor();
+                    finished = scan.isCompleteIteration();
+
+                    List<String> members = scan.getResult();
+                    if (members.isEmpty() || others.isEmpty()) {
+                        return members;
+                    }
+
+                    String[] candidates = members.toArray(new String[0]);
+                    Pipeline pipeline = jedis.pipelined();
+                    List<Response<List<Boolean>>> memberships = new ArrayList<>(others.size());
+                    for (String other : others) {
+                        memberships.add(pipeline.smismember(other, candidates));
+                    }
+                    pipeline.sync();
+
+                    List<String> kept = new ArrayList<>(candidates.length);
+                    for (int i = 0; i < candidates.length; i++) {
+                        boolean keep = true;
+                        for (Response<List<Boolean>> membership : memberships) {
+                            if (membership.get().get(i) != keepIfMember) {
+                                keep = false;
+                                break;
+                            }
+                        }
+                        if (keep) {
+                            kept.add(candidates[i]);
+                        }
+                    }
+                    return kept;
+                } catch (JedisException e) {
+                    finished = true;
+                    throw e;
+                }
+            }
+        };
+
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.NONNULL), false);
+    }
+
+    @Override
+    public void close() {
+        if (ownsPool) {
+            jedisPool.close();
+        }
+    }
+
+    /**
+     * Demo phép giao và phép hiệu trên hai set 500.000 phần tử
+     */
+    public void demo() {
+        System.out.println("=== DEMO REDIS SET ALGEBRA ===");
+
+        int size = 500_000;
+        try (Jedis jedis = jedisPool.getResource()) {
+            jedis.del("followers:a", "followers:b");
+            Pipeline pipeline = jedis.pipelined();
+            List<String> a = new ArrayList<>(1000);
+            List<String> b = new ArrayList<>(1000);
+            for (int i = 0; i < size; i++) {
+                a.add("user-" + i);
+                b.add("user-" + (i + size / 2));
+                if (a.size() == 1000) {
+                    pipeline.sadd("followers:a", a.toArray(new String[0]));
+                    pipeline.sadd("followers:b", b.toArray(new String[0]));
+                    a.clear();
+                    b.clear();
+                }
+            }
+            pipeline.sync();
+        }
+        System.out.println("Đã tạo followers:a và followers:b, mỗi set " + size + " phần tử");
+
+        long start = System.currentTimeMillis();
+        long common = intersectCount("followers:a", "followers:b");
+        System.out.println("Số phần tử chung (SSCAN + SMISMEMBER): " + common + ", "
+                + (System.currentTimeMillis() - start) + "ms, không có lệnh nào trả về cả set");
+
+        System.out.println("5 phần tử chỉ thuộc followers:a: "
+                + Arrays.toString(difference("followers:a", "followers:b").limit(5).toArray()));
+
+        long stored = store("followers:common", intersect("followers:a", "followers:b"));
+        System.out.println("Đã ghi " + stored + " phần tử vào followers:common theo từng phần");
+
+        try (Jedis jedis = jedisPool.getResource()) {
+            jedis.unlink("followers:a", "followers:b", "followers:common");
+        }
+    }
+
+    /**
+     * Phương thức main để chạy demo
+     */
+    public static void main(String[] args) {
+        try (RedisSetAlgebra setAlgebra = new RedisSetAlgebra()) {
+            setAlgebra.demo();
+        }
+    }
+}
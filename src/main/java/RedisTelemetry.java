@@ -0,0 +1,763 @@
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.apache.commons.pool2.PooledObject;
+import org.apache.commons.pool2.PooledObjectFactory;
+import org.apache.commons.pool2.impl.DefaultPooledObject;
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.CommandArguments;
+import redis.clients.jedis.CommandObject;
+import redis.clients.jedis.Connection;
+import redis.clients.jedis.DefaultJedisClientConfig;
+import redis.clients.jedis.DefaultJedisSocketFactory;
+import redis.clients.jedis.HostAndPort;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisClientConfig;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.JedisPoolConfig;
+import redis.clients.jedis.Protocol;
+import redis.clients.jedis.Protocol.Command;
+import redis.clients.jedis.args.Rawable;
+import redis.clients.jedis.commands.ProtocolCommand;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * RedisTelemetry - Lớp đo lường (metrics + tracing) dùng chung cho các component Redis
+ *
+ * Connection pool tạo qua {@link #createPool} dùng một Connection được bọc lại để đo
+ * từng lệnh Redis: số lệnh, số lỗi và phân bố độ trễ theo cặp (lệnh, tiền tố key),
+ * ví dụ (GET, "session:"), (SET, "lock:"), (INCR, "ratelimit:"). Thời gian chờ mượn
+ * connection từ pool và thời gian tạo connection mới được đo riêng, lần kết nối đầu
+ * tiên không bị tính là chờ mượn. Lệnh chậm hơn ngưỡng được xuất thành span với các
+ * thuộc tính theo quy ước của OpenTelemetry cho database (db.system, db.operation, ...)
+ * qua {@link SpanExporter}; mặc định span được ghi log WARN qua slf4j.
+ *
+ * Chi phí trên mỗi lệnh: hai lần System.nanoTime(), một lần tra ConcurrentHashMap theo
+ * lệnh, so khớp tiền tố key trực tiếp trên byte[], một lần ghi histogram và một LongAdder
+ * — không cấp phát bộ nhớ cho mỗi lệnh sau khi JIT đã tối ưu.
+ * Tắt hoàn toàn bằng -Dredis.telemetry.enabled=false, khi đó createPool trả về JedisPool
+ * thường.
+ *
+ * Lệnh gửi ngoài executeCommand (pipeline, transaction, PING khi kiểm tra connection)
+ * chỉ được đếm ở cột "không đo"; độ trễ của cả lô được tính vào dòng PIPELINE.
+ */
+public final class RedisTelemetry {
+    private static final Logger LOGGER = LoggerFactory.getLogger(RedisTelemetry.class);
+    private static final Logger SPAN_LOGGER = LoggerFactory.getLogger(RedisTelemetry.class.getName() + ".span");
+
+    public static final String ENABLED_PROPERTY = "redis.telemetry.enabled";
+
+    // Tiền tố key là phần tới dấu ':' đầu tiên trong MAX_PREFIX_BYTES byte đầu của key
+    private static final int MAX_PREFIX_BYTES = 32;
+    // Số tiền tố tối đa cho mỗi lệnh; vượt quá thì gộp vào OTHER_PREFIX
+    private static final int MAX_PREFIXES_PER_COMMAND = 64;
+    private static final String NO_PREFIX = "-";
+    private static final String OTHER_PREFIX = "*";
+
+    // Histogram lưu micro giây, giá trị lớn hơn 1 phút được ghi là 1 phút
+    private static final long MAX_TRACKED_MICROS = TimeUnit.MINUTES.toMicros(1);
+
+    private static final Set<Command> KEYLESS_COMMANDS = EnumSet.of(
+            Command.PING, Command.ECHO, Command.AUTH, Command.SELECT, Command.QUIT, Command.INFO,
+            Command.CONFIG, Command.CLIENT, Command.CLUSTER, Command.SCRIPT, Command.FUNCTION,
+            Command.OBJECT, Command.MEMORY, Command.TIME, Command.DBSIZE, Command.FLUSHDB,
+            Command.FLUSHALL, Command.SCAN, Command.MULTI, Command.EXEC, Command.DISCARD,
+            Command.UNWATCH, Command.PUBLISH, Command.SUBSCRIBE, Command.UNSUBSCRIBE,
+            Command.PSUBSCRIBE, Command.PUNSUBSCRIBE);
+    private static final Set<Command> SCRIPT_COMMANDS = EnumSet.of(
+            Command.EVAL, Command.EVALSHA, Command.EVAL_RO, Command.EVALSHA_RO,
+            Command.FCALL, Command.FCALL_RO);
+
+    private static final RedisTelemetry GLOBAL = new RedisTelemetry();
+
+    /**
+     * Nơi nhận span của các lệnh chậm (ví dụ chuyển sang OpenTelemetry SDK)
+     */
+    public interface SpanExporter {
+        void export(Span span);
+    }
+
+    /**
+     * Span của một lệnh Redis hoặc một lần mượn connection chậm
+     */
+    public static final class Span {
+        private final String name;
+        private final Instant start;
+        private final Duration duration;
+        private final Map<String, String> attributes;
+        private final Throwable error;
+
+        Span(String name, Instant start, Duration duration, Map<String, String> attributes, Throwable error) {
+            this.name = name;
+            this.start = start;
+            this.duration = duration;
+            this.attributes = Collections.unmodifiableMap(attributes);
+            this.error = error;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public Instant getStart() {
+            return start;
+        }
+
+        public Duration getDuration() {
+            return duration;
+        }
+
+        public Map<String, String> getAttributes() {
+            return attributes;
+        }
+
+        /**
+         * @return Lỗi của lệnh, hoặc null nếu lệnh thành công
+         */
+        public Throwable getError() {
+            return error;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s %.3f ms %s%s", name, duration.toNanos() / 1e6, attributes,
+                    error == null ? "" : " lỗi=" + error.getMessage());
+        }
+    }
+
+    /**
+     * Ảnh chụp số liệu của một cặp (lệnh, tiền tố key)
+     */
+    public static final class Stats {
+        private final String command;
+        private final String keyPrefix;
+        private final long calls;
+        private final long untimed;
+        private final long errors;
+        private final double meanMicros;
+        private final long p50Micros;
+        private final long p99Micros;
+        private final long maxMicros;
+
+        Stats(String command, String keyPrefix, Timer timer) {
+            this.command = command;
+            this.keyPrefix = keyPrefix;
+            Histogram copy = timer.histogram.copy();
+            this.calls = copy.getTotalCount();
+            this.untimed = timer.untimed.sum();
+            this.errors = timer.errors.sum();
+            this.meanMicros = calls == 0 ? 0 : timer.totalNanos.sum() / 1000.0 / calls;
+            this.p50Micros = copy.getValueAtPercentile(50);
+            this.p99Micros = copy.getValueAtPercentile(99);
+            this.maxMicros = copy.getMaxValue();
+        }
+
+        public String getCommand() {
+            return command;
+        }
+
+        public String getKeyPrefix() {
+            return keyPrefix;
+        }
+
+        public long getCalls() {
+            return calls;
+        }
+
+        public long getUntimed() {
+            return untimed;
+        }
+
+        public long getErrors() {
+            return errors;
+        }
+
+        public double getMeanMicros() {
+            return meanMicros;
+        }
+
+        public long getP50Micros() {
+            return p50Micros;
+        }
+
+        public long getP99Micros() {
+            return p99Micros;
+        }
+
+        public long getMaxMicros() {
+            return maxMicros;
+        }
+    }
+
+    private final ConcurrentHashMap<ProtocolCommand, CommandMetrics> commands = new ConcurrentHashMap<>();
+    private final CommandMetrics pipelineMetrics = new CommandMetrics("PIPELINE", -1);
+    private final Timer borrowTimer = new Timer();
+    private final Timer connectTimer = new Timer();
+    // Tổng thời gian tạo connection của từng thread, để trừ khỏi thời gian chờ mượn
+    private final ThreadLocal<long[]> connectNanos = ThreadLocal.withInitial(() -> new long[1]);
+    private volatile long slowThresholdNanos = TimeUnit.MILLISECONDS.toNanos(100);
+    private volatile SpanExporter spanExporter = span -> SPAN_LOGGER.warn("Lệnh Redis chậm: {}", span);
+
+    /**
+     * Instance dùng chung cho mọi component trong tiến trình
+     */
+    public static RedisTelemetry global() {
+        return GLOBAL;
+    }
+
+    /**
+     * @return false nếu telemetry bị tắt bằng -Dredis.telemetry.enabled=false
+     */
+    public static boolean isEnabled() {
+        return Boolean.parseBoolean(System.getProperty(ENABLED_PROPERTY, "true"));
+    }
+
+    /**
+     * Tạo connection pool có đo lường, timeout mặc định của Jedis
+     */
+    public JedisPool createPool(GenericObjectPoolConfig<Jedis> poolConfig, String host, int port) {
+        return createPool(poolConfig, host, port, Protocol.DEFAULT_TIMEOUT);
+    }
+
+    /**
+     * Tạo connection pool có đo lường
+     *
+     * @param timeoutMillis Connection timeout và socket timeout
+     */
+    public JedisPool createPool(GenericObjectPoolConfig<Jedis> poolConfig, String host, int port, int timeoutMillis) {
+        JedisClientConfig clientConfig = DefaultJedisClientConfig.builder()
+                .connectionTimeoutMillis(timeoutMillis)
+                .socketTimeoutMillis(timeoutMillis)
+                .build();
+        return createPool(poolConfig, new HostAndPort(host, port), clientConfig);
+    }
+
+    /**
+     * Tạo connection pool có đo lường với cấu hình client đầy đủ. Mật khẩu (AUTH),
+     * database (SELECT), tên client và SSL trong clientConfig được áp dụng cho mọi
+     * connection như với JedisPool thường.
+     */
+    public JedisPool createPool(GenericObjectPoolConfig<Jedis> poolConfig, HostAndPort address,
+                                JedisClientConfig clientConfig) {
+        if (!isEnabled()) {
+            return new JedisPool(poolConfig, address, clientConfig);
+        }
+        return new InstrumentedPool(poolConfig, new ConnectionFactory(address, clientConfig), address);
+    }
+
+    /**
+     * Ngưỡng để xuất span; Duration.ZERO xuất mọi lệnh (chỉ nên dùng khi debug)
+     */
+    public void setSlowCallThreshold(Duration threshold) {
+        if (threshold.isNegative()) {
+            throw new IllegalArgumentException("Ngưỡng lệnh chậm không được âm");
+        }
+        this.slowThresholdNanos = threshold.toNanos();
+    }
+
+    /**
+     * @param exporter Nơi nhận span, null để tắt việc xuất span
+     */
+    public void setSpanExporter(SpanExporter exporter) {
+        this.spanExporter = exporter;
+    }
+
+    /**
+     * Số liệu của mọi cặp (lệnh, tiền tố key) đã gặp, sắp xếp theo tổng thời gian giảm dần
+     */
+    public List<Stats> snapshot() {
+        List<Stats> result = new ArrayList<>();
+        List<CommandMetrics> all = new ArrayList<>(commands.values());
+        all.add(pipelineMetrics);
+        for (CommandMetrics metrics : all) {
+            for (PrefixTimer prefix : metrics.prefixes) {
+                if (prefix.timer.isUsed()) {
+                    result.add(new Stats(metrics.name, prefix.name, prefix.timer));
+                }
+            }
+            if (metrics.other.timer.isUsed()) {
+                result.add(new Stats(metrics.name, OTHER_PREFIX, metrics.other.timer));
+            }
+        }
+        result.sort(Comparator.comparingDouble((Stats stats) -> stats.getMeanMicros() * stats.getCalls()).reversed());
+        return result;
+    }
+
+    /**
+     * Thời gian chờ mượn connection từ các pool (errors = số lần mượn thất bại)
+     */
+    public Stats getBorrowStats() {
+        return new Stats("BORROW", NO_PREFIX, borrowTimer);
+    }
+
+    /**
+     * Thời gian tạo connection mới (kết nối, AUTH, SELECT), không tính vào BORROW
+     * và không xuất span (errors = số lần kết nối thất bại)
+     */
+    public Stats getConnectStats() {
+        return new Stats("CONNECT", NO_PREFIX, connectTimer);
+    }
+
+    /**
+     * Bảng số liệu dạng văn bản
+     */
+    public String format() {
+        StringBuilder report = new StringBuilder(String.format("%-12s %-14s %10s %9s %7s %10s %8s %8s %8s%n",
+                "Lệnh", "Tiền tố", "Số lệnh", "Không đo", "Lỗi", "TB (µs)", "p50", "p99", "max"));
+        List<Stats> rows = new ArrayList<>(snapshot());
+        rows.add(getBorrowStats());
+        rows.add(getConnectStats());
+        for (Stats stats : rows) {
+            report.append(String.format("%-12s %-14s %10d %9d %7d %10.1f %8d %8d %8d%n",
+                    stats.getCommand(), stats.getKeyPrefix(), stats.getCalls(), stats.getUntimed(),
+                    stats.getErrors(), stats.getMeanMicros(), stats.getP50Micros(),
+                    stats.getP99Micros(), stats.getMaxMicros()));
+        }
+        return report.toString();
+    }
+
+    private void record(CommandArguments args, long nanos, Throwable error, HostAndPort address) {
+        CommandMetrics metrics = metricsFor(args.getCommand());
+        PrefixTimer prefix = metrics.prefixFor(args);
+        prefix.timer.record(nanos, error != null);
+        if (nanos >= slowThresholdNanos && !args.isBlocking()) {
+            Map<String, String> attributes = baseAttributes(address);
+            attributes.put("db.operation", metrics.name);
+            attributes.put("db.redis.key_prefix", prefix.name);
+            exportSpan("redis " + metrics.name, nanos, attributes, error);
+        }
+    }
+
+    private void recordUntimed(CommandArguments args) {
+        metricsFor(args.getCommand()).prefixFor(args).timer.untimed.increment();
+    }
+
+    private void recordPipeline(long nanos, int commandCount, Throwable error, HostAndPort address) {
+        pipelineMetrics.prefixes[0].timer.record(nanos, error != null);
+        if (nanos >= slowThresholdNanos) {
+            Map<String, String> attributes = baseAttributes(address);
+            attributes.put("db.operation", "PIPELINE");
+            attributes.put("db.redis.command_count", Integer.toString(commandCount));
+            exportSpan("redis PIPELINE", nanos, attributes, error);
+        }
+    }
+
+    private void recordConnect(long nanos, Throwable error) {
+        connectTimer.record(nanos, error != null);
+        connectNanos.get()[0] += nanos;
+    }
+
+    private void recordBorrow(long nanos, Throwable error, HostAndPort address) {
+        borrowTimer.record(nanos, error != null);
+        if (nanos >= slowThresholdNanos) {
+            exportSpan("redis.pool.borrow", nanos, baseAttributes(address), error);
+        }
+    }
+
+    private CommandMetrics metricsFor(ProtocolCommand command) {
+        CommandMetrics metrics = commands.get(command);
+        if (metrics == null) {
+            metrics = commands.computeIfAbsent(command, CommandMetrics::of);
+        }
+        return metrics;
+    }
+
+    private static Map<String, String> baseAttributes(HostAndPort address) {
+        Map<String, String> attributes = new LinkedHashMap<>();
+        attributes.put("db.system", "redis");
+        attributes.put("net.peer.name", address.getHost());
+        attributes.put("net.peer.port", Integer.toString(address.getPort()));
+        return attributes;
+    }
+
+    private void exportSpan(String name, long nanos, Map<String, String> attributes, Throwable error) {
+        SpanExporter exporter = spanExporter;
+        if (exporter == null) {
+            return;
+        }
+        Instant start = Instant.now().minusNanos(nanos);
+        try {
+            exporter.export(new Span(name, start, Duration.ofNanos(nanos), attributes, error));
+        } catch (RuntimeException e) {
+            // Lỗi của exporter không được làm hỏng lệnh Redis
+            LOGGER.warn("Lỗi khi xuất span: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Bộ đếm và histogram độ trễ, an toàn khi ghi đồng thời từ nhiều thread.
+     * Số lệnh và độ trễ lớn nhất lấy từ histogram, nên mỗi lần ghi chỉ chạm histogram
+     * và tổng thời gian (cần cho giá trị trung bình chính xác tới nano giây).
+     */
+    private static final class Timer {
+        final LongAdder untimed = new LongAdder();
+        final LongAdder errors = new LongAdder();
+        final LongAdder totalNanos = new LongAdder();
+        final ConcurrentHistogram histogram = new ConcurrentHistogram(MAX_TRACKED_MICROS, 2);
+
+        void record(long nanos, boolean failed) {
+            totalNanos.add(nanos);
+            histogram.recordValue(Math.min(Math.max(nanos / 1000, 1), MAX_TRACKED_MICROS));
+            if (failed) {
+                errors.increment();
+            }
+        }
+
+        boolean isUsed() {
+            return histogram.getTotalCount() + untimed.sum() > 0;
+        }
+    }
+
+    private static final class PrefixTimer {
+        final byte[] prefix;
+        final String name;
+        final Timer timer = new Timer();
+
+        PrefixTimer(byte[] prefix, String name) {
+            this.prefix = prefix;
+            this.name = name;
+        }
+
+        boolean matches(byte[] key, int length) {
+            if (prefix == null || prefix.length != length) {
+                return false;
+            }
+            for (int i = 0; i < length; i++) {
+                if (prefix[i] != key[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Số liệu của một lệnh, chia theo tiền tố key. Mảng tiền tố là copy-on-write nên
+     * đường đọc không cần khóa; chỉ lần đầu gặp một tiền tố mới phải đồng bộ.
+     */
+    private static final class CommandMetrics {
+        final String name;
+        // Vị trí key trong danh sách tham số: 1 cho lệnh thường, -1 nếu lệnh không có key,
+        // 3 cho EVAL/EVALSHA/FCALL (sau script và numkeys)
+        final int keyIndex;
+        final PrefixTimer other = new PrefixTimer(null, OTHER_PREFIX);
+        volatile PrefixTimer[] prefixes;
+
+        CommandMetrics(String name, int keyIndex) {
+            this.name = name;
+            this.keyIndex = keyIndex;
+            this.prefixes = new PrefixTimer[]{new PrefixTimer(new byte[0], NO_PREFIX)};
+        }
+
+        static CommandMetrics of(ProtocolCommand command) {
+            String name = new String(command.getRaw(), StandardCharsets.US_ASCII);
+            int keyIndex = 1;
+            if (KEYLESS_COMMANDS.contains(command)) {
+                keyIndex = -1;
+            } else if (SCRIPT_COMMANDS.contains(command)) {
+                keyIndex = 3;
+            }
+            return new CommandMetrics(name, keyIndex);
+        }
+
+        PrefixTimer prefixFor(CommandArguments args) {
+            byte[] key = keyIndex < 0 || args.size() <= keyIndex ? null : keyOf(args);
+            int length = key == null ? 0 : prefixLength(key);
+            PrefixTimer[] current = prefixes;
+            for (PrefixTimer candidate : current) {
+                if (candidate.matches(key, length)) {
+                    return candidate;
+                }
+            }
+            return addPrefix(key, length);
+        }
+
+        private byte[] keyOf(CommandArguments args) {
+            // Phần tử 0 là tên lệnh, key nằm ở vị trí keyIndex
+            Iterator<Rawable> iterator = args.iterator();
+            for (int i = 0; i < keyIndex - 1; i++) {
+                iterator.next();
+            }
+            Rawable beforeKey = iterator.next();
+            if (keyIndex == 3) {
+                // EVAL script numkeys key...: numkeys = 0 nghĩa là script không nhận key nào
+                byte[] numKeys = beforeKey.getRaw();
+                if (numKeys.length == 1 && numKeys[0] == '0') {
+                    return null;
+                }
+            }
+            return iterator.next().getRaw();
+        }
+
+        private static int prefixLength(byte[] key) {
+            int limit = Math.min(key.length, MAX_PREFIX_BYTES);
+            for (int i = 0; i < limit; i++) {
+                if (key[i] == ':') {
+                    return i + 1;
+                }
+            }
+            return 0;
+        }
+
+        private synchronized PrefixTimer addPrefix(byte[] key, int length) {
+            PrefixTimer[] current = prefixes;
+            for (PrefixTimer candidate : current) {
+                if (candidate.matches(key, length)) {
+                    return candidate;
+                }
+            }
+            if (current.length >= MAX_PREFIXES_PER_COMMAND) {
+                return other;
+            }
+            byte[] prefix = Arrays.copyOf(key, length);
+            PrefixTimer created = new PrefixTimer(prefix, new String(prefix, StandardCharsets.UTF_8));
+            PrefixTimer[] grown = Arrays.copyOf(current, current.length + 1);
+            grown[current.length] = created;
+            prefixes = grown;
+            return created;
+        }
+    }
+
+    /**
+     * Connection đo thời gian của từng lệnh. Mỗi Connection chỉ được một thread dùng
+     * tại một thời điểm (đảm bảo bởi pool), nên cờ inCommand không cần đồng bộ.
+     */
+    private final class InstrumentedConnection extends Connection {
+        private final HostAndPort address;
+        private boolean inCommand;
+
+        InstrumentedConnection(HostAndPort address, JedisClientConfig clientConfig) {
+            super(new DefaultJedisSocketFactory(address, clientConfig), clientConfig);
+            this.address = address;
+        }
+
+        @Override
+        public <T> T executeCommand(CommandObject<T> commandObject) {
+            CommandArguments args = commandObject.getArguments();
+            long start = System.nanoTime();
+            Throwable error = null;
+            inCommand = true;
+            try {
+                return super.executeCommand(commandObject);
+            } catch (RuntimeException e) {
+                error = e;
+                throw e;
+            } finally {
+                inCommand = false;
+                record(args, System.nanoTime() - start, error, address);
+            }
+        }
+
+        @Override
+        public Object executeCommand(CommandArguments args) {
+            long start = System.nanoTime();
+            Throwable error = null;
+            inCommand = true;
+            try {
+                return super.executeCommand(args);
+            } catch (RuntimeException e) {
+                error = e;
+                throw e;
+            } finally {
+                inCommand = false;
+                record(args, System.nanoTime() - start, error, address);
+            }
+        }
+
+        @Override
+        public void sendCommand(CommandArguments args) {
+            if (!inCommand) {
+                recordUntimed(args);
+            }
+            super.sendCommand(args);
+        }
+
+        @Override
+        public List<Object> getMany(int count) {
+            long start = System.nanoTime();
+            Throwable error = null;
+            try {
+                return super.getMany(count);
+            } catch (RuntimeException e) {
+                error = e;
+                throw e;
+            } finally {
+                recordPipeline(System.nanoTime() - start, count, error, address);
+            }
+        }
+    }
+
+    /**
+     * Tương đương JedisFactory của Jedis nhưng tạo Jedis trên InstrumentedConnection
+     */
+    private final class ConnectionFactory implements PooledObjectFactory<Jedis> {
+        private final HostAndPort address;
+        private final JedisClientConfig clientConfig;
+
+        ConnectionFactory(HostAndPort address, JedisClientConfig clientConfig) {
+            this.address = address;
+            this.clientConfig = clientConfig;
+        }
+
+        @Override
+        public PooledObject<Jedis> makeObject() {
+            long start = System.nanoTime();
+            Throwable error = null;
+            try {
+                // Connection đã AUTH và SELECT theo clientConfig khi kết nối, nhưng Jedis(Connection)
+                // luôn coi database hiện tại là 0; SELECT lại để hai bên khớp nhau
+                Jedis jedis = new Jedis(new InstrumentedConnection(address, clientConfig));
+                if (jedis.getDB() != clientConfig.getDatabase()) {
+                    jedis.select(clientConfig.getDatabase());
+                }
+                return new DefaultPooledObject<>(jedis);
+            } catch (RuntimeException e) {
+                error = e;
+                throw e;
+            } finally {
+                recordConnect(System.nanoTime() - start, error);
+            }
+        }
+
+        @Override
+        public void destroyObject(PooledObject<Jedis> pooledJedis) {
+            Jedis jedis = pooledJedis.getObject();
+            if (!jedis.getConnection().isConnected()) {
+                return;
+            }
+            try {
+                if (!jedis.isBroken()) {
+                    jedis.quit();
+                }
+            } catch (RuntimeException e) {
+                // Connection sắp bị đóng, bỏ qua lỗi khi QUIT
+            }
+            try {
+                jedis.disconnect();
+            } catch (RuntimeException e) {
+                LOGGER.warn("Lỗi khi đóng connection: {}", e.getMessage());
+            }
+        }
+
+        @Override
+        public boolean validateObject(PooledObject<Jedis> pooledJedis) {
+            Jedis jedis = pooledJedis.getObject();
+            try {
+                return jedis.getConnection().isConnected() && "PONG".equals(jedis.ping());
+            } catch (RuntimeException e) {
+                return false;
+            }
+        }
+
+        @Override
+        public void activateObject(PooledObject<Jedis> pooledJedis) {
+            // Lần mượn trước có thể đã SELECT sang database khác
+            Jedis jedis = pooledJedis.getObject();
+            if (jedis.getDB() != clientConfig.getDatabase()) {
+                jedis.select(clientConfig.getDatabase());
+            }
+        }
+
+        @Override
+        public void passivateObject(PooledObject<Jedis> pooledJedis) {
+        }
+    }
+
+    /**
+     * JedisPool đo thời gian chờ mượn connection
+     */
+    private final class InstrumentedPool extends JedisPool {
+        private final HostAndPort address;
+
+        InstrumentedPool(GenericObjectPoolConfig<Jedis> poolConfig, ConnectionFactory factory, HostAndPort address) {
+            super(poolConfig, factory);
+            this.address = address;
+        }
+
+        @Override
+        public Jedis getResource() {
+            long[] connect = connectNanos.get();
+            long connectBefore = connect[0];
+            long start = System.nanoTime();
+            Throwable error = null;
+            try {
+                return super.getResource();
+            } catch (RuntimeException e) {
+                error = e;
+                throw e;
+            } finally {
+                // Pool tạo connection mới ngay trong thread mượn; thời gian đó đã tính vào CONNECT
+                long waited = System.nanoTime() - start - (connect[0] - connectBefore);
+                recordBorrow(Math.max(0, waited), error, address);
+            }
+        }
+    }
+
+    /**
+     * Demo: chạy rate limiter, phiên và khóa trên InMemoryRedisServer có độ trễ giả lập,
+     * rồi in bảng số liệu
+     */
+    public void demo() throws Exception {
+        System.out.println("=== DEMO REDIS TELEMETRY ===");
+
+        try (InMemoryRedisServer server = new InMemoryRedisServer(0).start()) {
+            // Mọi round trip chậm 2ms, ngưỡng 5ms: chỉ lệnh bị chậm thêm mới thành span
+            server.setLatency(Duration.ofMillis(2));
+            setSlowCallThreshold(Duration.ofMillis(5));
+
+            RedisRateLimiter rateLimiter = new RedisRateLimiter("localhost", server.getPort());
+            try {
+                int allowed = 0;
+                for (int i = 0; i < 15; i++) {
+                    if (rateLimiter.allowRequest("client1", 10, 60)) {
+                        allowed++;
+                    }
+                }
+                System.out.println("Rate limiter cho phép " + allowed + "/15 request");
+            } finally {
+                rateLimiter.close();
+            }
+
+            JedisPoolConfig poolConfig = new JedisPoolConfig();
+            poolConfig.setMaxTotal(10);
+            poolConfig.setMaxIdle(5);
+            try (JedisPool pool = createPool(poolConfig, "localhost", server.getPort());
+                 Jedis jedis = pool.getResource()) {
+                jedis.hset("session:demo", "userId", "42");
+                jedis.expire("session:demo", 60);
+                jedis.hgetAll("session:demo");
+                jedis.set("lock:order-1", "owner");
+                jedis.del("lock:order-1");
+
+                // Lệnh chậm: server trả lời sau 10ms nên lệnh này được xuất thành span
+                server.setLatency(Duration.ofMillis(10));
+                jedis.get("session:slow");
+                server.setLatency(Duration.ofMillis(2));
+            }
+        }
+
+        System.out.println("\nSố liệu theo lệnh và tiền tố key:");
+        System.out.print(format());
+    }
+
+    public static void main(String[] args) throws Exception {
+        global().demo();
+    }
+}
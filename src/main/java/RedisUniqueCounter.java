@@ -0,0 +1,277 @@
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.JedisPoolConfig;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.exceptions.JedisException;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * RedisUniqueCounter - Đếm số phần tử phân biệt (xấp xỉ) theo khung thời gian bằng HyperLogLog
+ *
+ * Thay cho việc lưu tập hợp đầy đủ các user ID rồi dùng SCARD như trong
+ * {@code RedisDemo.demoSets}: mỗi HyperLogLog chỉ tốn tối đa ~12KB bất kể số phần tử,
+ * sai số chuẩn khoảng 0.81% (cố định bởi Redis). Mỗi khung thời gian (giờ/ngày) là một
+ * key riêng; số phần tử phân biệt của nhiều khung được tính bằng PFCOUNT trên nhiều key
+ * hoặc gộp lại bằng PFMERGE.
+ */
+public class RedisUniqueCounter implements AutoCloseable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(RedisUniqueCounter.class);
+    private static final String HLL_PREFIX = "hll:";
+    private static final int ADD_BATCH_SIZE = 1000;
+
+    /**
+     * Độ rộng của một khung thời gian
+     */
+    public enum Granularity {
+        HOURLY(ChronoUnit.HOURS, DateTimeFormatter.ofPattern("yyyyMMddHH")),
+        DAILY(ChronoUnit.DAYS, DateTimeFormatter.ofPattern("yyyyMMdd"));
+
+        private final ChronoUnit unit;
+        private final DateTimeFormatter format;
+
+        Granularity(ChronoUnit unit, DateTimeFormatter format) {
+            this.unit = unit;
+            this.format = format;
+        }
+    }
+
+    private final JedisPool jedisPool;
+    private final boolean ownsPool;
+    private final String keyPrefix;
+    private final Granularity granularity;
+    private final int retentionBuckets;
+
+    /**
+     * Khởi tạo với connection pool mặc định (localhost:6379)
+     *
+     * @param name Tên bộ đếm, ví dụ "active-users"
+     * @param granularity Độ rộng khung thời gian
+     * @param retentionBuckets Số khung thời gian được giữ lại trước khi tự hết hạn, ít nhất 1
+     */
+    public RedisUniqueCounter(String name, Granularity granularity, int retentionBuckets) {
+        this(null, true, name, granularity, retentionBuckets);
+    }
+
+    /**
+     * Dùng chung connection pool có sẵn
+     */
+    public RedisUniqueCounter(JedisPool jedisPool, String name, Granularity granularity, int retentionBuckets) {
+        this(Objects.requireNonNull(jedisPool, "jedisPool"), false, name, granularity, retentionBuckets);
+    }
+
+    private RedisUniqueCounter(JedisPool jedisPool, boolean ownsPool, String name, Granularity granularity,
+                               int retentionBuckets) {
+        if (retentionBuckets < 1) {
+            throw new IllegalArgumentException("retentionBuckets phải lớn hơn 0");
+        }
+        this.jedisPool = ownsPool ? createDefaultPool() : jedisPool;
+        this.ownsPool = ownsPool;
+        this.keyPrefix = HLL_PREFIX + name + ":";
+        this.granularity = Objects.requireNonNull(granularity, "granularity");
+        this.retentionBuckets = retentionBuckets;
+    }
+
+    private static JedisPool createDefaultPool() {
+        JedisPoolConfig poolConfig = new JedisPoolConfig();
+        poolConfig.setMaxTotal(10);
+        poolConfig.setMaxIdle(5);
+
+        return RedisTelemetry.global().createPool(poolConfig, "localhost", 6379);
+    }
+
+    /**
+     * Ghi nhận các phần tử vào khung thời gian hiện tại
+     */
+    public void add(String... ids) {
+        add(now(), ids);
+    }
+
+    /**
+     * Ghi nhận các phần tử vào khung thời gian chứa thời điểm at (UTC)
+     */
+    public void add(LocalDateTime at, String... ids) {
+        if (ids.length == 0) {
+            return;
+        }
+        String key = bucketKey(at);
+        try (Jedis jedis = jedisPool.getResource()) {
+            Pipeline pipeline = jedis.pipelined();
+            pipeline.pfadd(key, ids);
+            pipeline.expire(key, retentionSeconds());
+            pipeline.sync();
+        } catch (JedisException e) {
+            LOGGER.warn("Lỗi khi ghi HyperLogLog: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Ghi nhận nhiều phần tử vào khung thời gian hiện tại, chia thành các lệnh PFADD
+     * tối đa ADD_BATCH_SIZE phần tử trong một pipeline
+     */
+    public void addAll(Collection<String> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        String key = bucketKey(now());
+        try (Jedis jedis = jedisPool.getResource()) {
+            Pipeline pipeline = jedis.pipelined();
+            List<String> chunk = new ArrayList<>(ADD_BATCH_SIZE);
+            for (String id : ids) {
+                chunk.add(id);
+                if (chunk.size() == ADD_BATCH_SIZE) {
+                    pipeline.pfadd(key, chunk.toArray(new String[0]));
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                pipeline.pfadd(key, chunk.toArray(new String[0]));
+            }
+            pipeline.expire(key, retentionSeconds());
+            pipeline.sync();
+        } catch (JedisException e) {
+            LOGGER.warn("Lỗi khi ghi HyperLogLog: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Số phần tử phân biệt (xấp xỉ) trong khung thời gian hiện tại
+     */
+    public long count() {
+        return count(now(), now());
+    }
+
+    /**
+     * Số phần tử phân biệt (xấp xỉ) trong các khung thời gian từ from đến to (bao gồm hai đầu).
+     * Redis tính hợp của nhiều HyperLogLog ngay trong PFCOUNT, không tạo key mới.
+     *
+     * @throws IllegalArgumentException nếu from sau to
+     */
+    public long count(LocalDateTime from, LocalDateTime to) {
+        try (Jedis jedis = jedisPool.getResource()) {
+            return jedis.pfcount(bucketKeys(from, to));
+        } catch (JedisException e) {
+            LOGGER.warn("Lỗi khi đếm HyperLogLog: {}", e.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * Gộp các khung thời gian từ from đến to vào destination bằng PFMERGE, ví dụ để lưu
+     * số liệu tuần từ các khung ngày
+     *
+     * @param destinationName Tên key đích (sẽ có tiền tố của bộ đếm)
+     * @param ttlSeconds Thời gian sống của key đích
+     * @throws IllegalArgumentException nếu from sau to
+     */
+    public void merge(String destinationName, LocalDateTime from, LocalDateTime to, long ttlSeconds) {
+        String destination = keyPrefix + destinationName;
+        try (Jedis jedis = jedisPool.getResource()) {
+            Pipeline pipeline = jedis.pipelined();
+            pipeline.pfmerge(destination, bucketKeys(from, to));
+            pipeline.expire(destination, ttlSeconds);
+            pipeline.sync();
+        } catch (JedisException e) {
+            LOGGER.warn("Lỗi khi gộp HyperLogLog: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Số byte Redis dùng cho khung thời gian hiện tại (MEMORY USAGE)
+     */
+    public long memoryUsage() {
+        try (Jedis jedis = jedisPool.getResource()) {
+            Long bytes = jedis.memoryUsage(bucketKey(now()));
+            return bytes == null ? 0 : bytes;
+        }
+    }
+
+    private String[] bucketKeys(LocalDateTime from, LocalDateTime to) {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("from không được sau to");
+        }
+        List<String> keys = new ArrayList<>();
+        LocalDateTime bucket = from.truncatedTo(granularity.unit);
+        LocalDateTime end = to.truncatedTo(granularity.unit);
+        while (!bucket.isAfter(end)) {
+            keys.add(bucketKey(bucket));
+            bucket = bucket.plus(1, granularity.unit);
+        }
+        return keys.toArray(new String[0]);
+    }
+
+    private String bucketKey(LocalDateTime at) {
+        return keyPrefix + granularity.format.format(at);
+    }
+
+    private long retentionSeconds() {
+        return granularity.unit.getDuration().getSeconds() * retentionBuckets;
+    }
+
+    private static LocalDateTime now() {
+        return LocalDateTime.now(ZoneOffset.UTC);
+    }
+
+    @Override
+    public void close() {
+        if (ownsPool) {
+            jedisPool.close();
+        }
+    }
+
+    /**
+     * Demo so sánh HyperLogLog với tập hợp đầy đủ (SADD/SCARD) về độ chính xác và bộ nhớ
+     */
+    public void demo() {
+        System.out.println("=== DEMO REDIS HYPERLOGLOG ===");
+
+        int users = 200_000;
+        List<String> ids = new ArrayList<>(users);
+        for (int i = 0; i < users; i++) {
+            ids.add("user-" + i);
+        }
+
+        String exactKey = "exact:active-users";
+        try (Jedis jedis = jedisPool.getResource()) {
+            jedis.del(exactKey, bucketKey(now()));
+            Pipeline pipeline = jedis.pipelined();
+            for (int from = 0; from < users; from += ADD_BATCH_SIZE) {
+                pipeline.sadd(exactKey, ids.subList(from, Math.min(users, from + ADD_BATCH_SIZE)).toArray(new String[0]));
+            }
+            pipeline.sync();
+        }
+        addAll(ids);
+
+        try (Jedis jedis = jedisPool.getResource()) {
+            long exact = jedis.scard(exactKey);
+            long approx = count();
+            Long exactBytes = jedis.memoryUsage(exactKey);
+            System.out.println("Số user thực tế (SCARD): " + exact + ", bộ nhớ: " + exactBytes + " byte");
+            System.out.printf("Ước lượng (PFCOUNT): %d, sai số %.2f%%, bộ nhớ: %d byte%n",
+                    approx, Math.abs(approx - exact) * 100.0 / exact, memoryUsage());
+            jedis.del(exactKey);
+        }
+
+        LocalDateTime yesterday = now().minusDays(1);
+        add(yesterday, "user-1", "user-2", "new-user");
+        System.out.println("User phân biệt trong 2 ngày: " + count(yesterday, now()));
+    }
+
+    /**
+     * Phương thức main để chạy demo
+     */
+    public static void main(String[] args) {
+        try (RedisUniqueCounter counter = new RedisUniqueCounter("active-users", Granularity.DAILY, 7)) {
+            counter.demo();
+        }
+    }
+}
@@ -0,0 +1,137 @@
+import org.junit.jupiter.api.Test;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.exceptions.JedisDataException;
+import redis.clients.jedis.exceptions.JedisNoScriptException;
+import redis.clients.jedis.params.ScanParams;
+import redis.clients.jedis.params.SetParams;
+import redis.clients.jedis.resps.ScanResult;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Ngữ nghĩa của server giả lập mà các kiểm thử component dựa vào
+ */
+class InMemoryRedisServerTest extends RedisComponentTest {
+
+    @Test
+    void ttlOnlyElapsesWhenClockIsAdvanced() {
+        try (Jedis jedis = pool.getResource()) {
+            jedis.setex("session", 10, "data");
+            assertEquals(10, jedis.ttl("session"));
+            jedis.set("persistent", "v");
+            assertEquals(-1, jedis.ttl("persistent"));
+            assertEquals(-2, jedis.ttl("missing"));
+
+            server.advanceTime(Duration.ofSeconds(9));
+            assertEquals("data", jedis.get("session"));
+            assertEquals(1000, jedis.pttl("session"));
+
+            server.advanceTime(Duration.ofSeconds(1));
+            assertNull(jedis.get("session"));
+            assertFalse(jedis.exists("session"));
+        }
+    }
+
+    @Test
+    void setNxExOnlyWritesAbsentKeys() {
+        try (Jedis jedis = pool.getResource()) {
+            SetParams nxEx = new SetParams().nx().ex(5);
+            assertEquals("OK", jedis.set("lock", "a", nxEx));
+            assertNull(jedis.set("lock", "b", nxEx));
+            assertEquals("a", jedis.get("lock"));
+            assertEquals(5, jedis.ttl("lock"));
+
+            server.advanceTime(Duration.ofSeconds(5));
+            assertEquals("OK", jedis.set("lock", "b", nxEx));
+            assertEquals("b", jedis.get("lock"));
+        }
+    }
+
+    @Test
+    void incrByCreatesAndKeepsTtl() {
+        try (Jedis jedis = pool.getResource()) {
+            assertEquals(5, jedis.incrBy("counter", 5));
+            assertEquals(2, jedis.incrBy("counter", -3));
+
+            jedis.setex("window", 10, "1");
+            assertEquals(11, jedis.incrBy("window", 10));
+            assertEquals(10, jedis.ttl("window"));
+
+            jedis.set("text", "abc");
+            assertThrows(JedisDataException.class, () -> jedis.incrBy("text", 1));
+        }
+    }
+
+    @Test
+    void zaddAndZrevrangeOrderByScore() {
+        try (Jedis jedis = pool.getResource()) {
+            jedis.zadd("board", 10, "alice");
+            jedis.zadd("board", 30, "bob");
+            jedis.zadd("board", 20, "carol");
+            jedis.zincrby("board", 25, "alice");
+
+            assertEquals(Arrays.asList("alice", "bob", "carol"), jedis.zrevrange("board", 0, -1));
+            assertEquals(Arrays.asList("alice", "bob"), jedis.zrevrange("board", 0, 1));
+            assertEquals(0L, jedis.zrevrank("board", "alice"));
+            assertEquals(35.0, jedis.zscore("board", "alice"));
+            assertTrue(jedis.zrevrange("missing", 0, -1).isEmpty());
+        }
+    }
+
+    @Test
+    void scriptsAreMatchedBySha1() {
+        String script = "return redis.call('get', KEYS[1])";
+        server.registerScript(script, (db, keys, args) -> db.call("GET", keys.get(0)));
+
+        try (Jedis jedis = pool.getResource()) {
+            jedis.set("key", "value");
+            String sha = jedis.scriptLoad(script);
+            assertEquals(40, sha.length());
+            assertEquals("value", jedis.evalsha(sha, 1, "key"));
+            assertEquals("value", jedis.eval(script, 1, "key"));
+
+            assertThrows(JedisNoScriptException.class,
+                    () -> jedis.evalsha("0000000000000000000000000000000000000000", 1, "key"));
+        }
+    }
+
+    @Test
+    void scanCursorReturnsEveryKeyExactlyOnce() {
+        Set<String> expected = new HashSet<>();
+        try (Jedis jedis = pool.getResource()) {
+            for (int i = 0; i < 250; i++) {
+                jedis.set("scan:" + i, "v");
+                expected.add("scan:" + i);
+            }
+            jedis.hset("scan:hash", "field", "v");
+            jedis.set("other", "v");
+
+            List<String> seen = new ArrayList<>();
+            ScanParams params = new ScanParams().match("scan:*").count(20);
+            String cursor = ScanParams.SCAN_POINTER_START;
+            int calls = 0;
+            do {
+                ScanResult<String> page = jedis.scan(cursor, params, "string");
+                seen.addAll(page.getResult());
+                cursor = page.getCursor();
+                calls++;
+            } while (!ScanParams.SCAN_POINTER_START.equals(cursor));
+
+            assertTrue(calls > 1, "COUNT 20 phải cần nhiều lần SCAN");
+            assertEquals(expected.size(), seen.size());
+            assertEquals(expected, new HashSet<>(seen));
+            assertFalse(seen.contains("scan:hash"));
+        }
+    }
+}
@@ -0,0 +1,313 @@
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.params.SetParams;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RedisCacheTest extends RedisComponentTest {
+    private final List<RedisCache<String, String>> caches = new ArrayList<>();
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+        for (RedisCache<String, String> cache : caches) {
+            try {
+                cache.close();
+            } catch (IllegalStateException e) {
+                // Test write-behind lỗi cố ý để lại thao tác chưa ghi
+            }
+        }
+    }
+
+    private RedisCache<String, String> cache(String prefix, Function<String, String> loader) {
+        RedisCache<String, String> cache = new RedisCache<>(pool, prefix, RedisCache.Serializer.string(), loader, 60);
+        caches.add(cache);
+        return cache;
+    }
+
+    @Test
+    void missLoadsOnceAndHitServesFromRedis() {
+        AtomicInteger loads = new AtomicInteger();
+        RedisCache<String, String> cache = cache("product:", key -> {
+            loads.incrementAndGet();
+            return key.equals("missing") ? null : "value-" + key;
+        });
+
+        assertEquals("value-1", cache.get("1"));
+        assertEquals("value-1", cache.get("1"));
+        assertEquals(1, loads.get());
+        assertNull(cache.get("missing"));
+
+        RedisCache.CacheStats stats = cache.getStats();
+        assertEquals(1, stats.getL2Hits());
+        assertEquals(2, stats.getMisses());
+    }
+
+    @Test
+    void corruptEntryIsTreatedAsMiss() {
+        RedisCache<String, String> cache = cache("product:", key -> "fresh");
+        try (Jedis jedis = pool.getResource()) {
+            jedis.set("product:1", "~c1|not-an-envelope");
+        }
+
+        assertEquals("fresh", cache.get("1"));
+        assertEquals("fresh", cache.get("1"));
+    }
+
+    @Test
+    void concurrentMissesShareOneLoad() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        RedisCache<String, String> cache = cache("product:", key -> {
+            loads.incrementAndGet();
+            await(release);
+            return "value-" + key;
+        });
+
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            results.add(executor.submit(() -> cache.get("1")));
+        }
+        waitUntil(() -> loads.get() == 1);
+        // Cho các caller còn lại thời gian xếp hàng sau lần tải đang chạy
+        Thread.sleep(100);
+        release.countDown();
+
+        for (Future<String> result : results) {
+            assertEquals("value-1", result.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void leaseMakesOtherNodeWaitForValue() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger otherLoads = new AtomicInteger();
+        RedisCache<String, String> first = cache("product:", key -> {
+            loading.countDown();
+            await(release);
+            return "from-first";
+        });
+        RedisCache<String, String> second = cache("product:", key -> {
+            otherLoads.incrementAndGet();
+            return "from-second";
+        });
+        first.setLoadLeaseMillis(5000);
+        second.setLoadLeaseMillis(5000);
+
+        Future<String> firstResult = executor.submit(() -> first.get("1"));
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+        Future<String> secondResult = executor.submit(() -> second.get("1"));
+        Thread.sleep(150);
+        assertFalse(secondResult.isDone());
+        release.countDown();
+
+        assertEquals("from-first", firstResult.get(5, TimeUnit.SECONDS));
+        assertEquals("from-first", secondResult.get(5, TimeUnit.SECONDS));
+        assertEquals(0, otherLoads.get());
+        try (Jedis jedis = pool.getResource()) {
+            assertFalse(jedis.exists("lease:product:1"));
+        }
+    }
+
+    @Test
+    void releasedLeaseWithoutValueLetsWaiterLoadAtOnce() throws Exception {
+        assertWaiterLoadsAfterRelease(() -> null);
+    }
+
+    @Test
+    void failedLoadReleasesLeaseToWaiter() throws Exception {
+        assertWaiterLoadsAfterRelease(() -> {
+            throw new IllegalStateException("database down");
+        });
+    }
+
+    /**
+     * Node thứ nhất giữ lease rồi tải không ra giá trị; node thứ hai phải tự tải ngay khi
+     * lease được trả thay vì chờ hết loadLeaseMillis
+     */
+    private void assertWaiterLoadsAfterRelease(Supplier<String> failingLoad) throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        RedisCache<String, String> first = cache("product:", key -> {
+            loading.countDown();
+            await(release);
+            return failingLoad.get();
+        });
+        RedisCache<String, String> second = cache("product:", key -> "from-second");
+        first.setLoadLeaseMillis(5000);
+        second.setLoadLeaseMillis(5000);
+
+        Future<String> firstResult = executor.submit(() -> first.get("1"));
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+        Future<String> secondResult = executor.submit(() -> second.get("1"));
+        Thread.sleep(150);
+        assertFalse(secondResult.isDone());
+
+        long released = System.nanoTime();
+        release.countDown();
+        assertEquals("from-second", secondResult.get(5, TimeUnit.SECONDS));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - released) < 1000);
+        try {
+            assertNull(firstResult.get(5, TimeUnit.SECONDS));
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+    }
+
+    @Test
+    void abandonedLeaseIsWaitedOutThenLoadedLocally() {
+        AtomicInteger loads = new AtomicInteger();
+        RedisCache<String, String> cache = cache("product:", key -> {
+            loads.incrementAndGet();
+            return "value";
+        });
+        cache.setLoadLeaseMillis(200);
+        try (Jedis jedis = pool.getResource()) {
+            // Lease của một node đã chết; đồng hồ server cố định nên lease không tự hết hạn
+            jedis.set("lease:product:1", "dead-node", new SetParams().px(200));
+        }
+
+        long start = System.nanoTime();
+        assertEquals("value", cache.get("1"));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 200);
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void earlyRefreshDisabledWithZeroBeta() {
+        AtomicInteger loads = new AtomicInteger();
+        RedisCache<String, String> cache = cache("product:", key -> slowLoad(loads));
+        cache.setEarlyRefreshBeta(0);
+
+        cache.get("1");
+        for (int i = 0; i < 50; i++) {
+            cache.get("1");
+        }
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void xfetchRefreshesInBackgroundBeforeExpiry() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        RedisCache<String, String> cache = cache("product:", key -> slowLoad(loads));
+        // delta * beta lớn hơn nhiều so với TTL: lần đọc sau gần như chắc chắn làm mới sớm
+        cache.setEarlyRefreshBeta(1e9);
+
+        assertEquals("value-1", cache.get("1"));
+        assertEquals(1, loads.get());
+
+        // Lượt đọc vẫn trả giá trị đang có ngay, việc tải chạy ở background
+        assertTrue(cache.get("1").startsWith("value-"));
+        waitUntil(() -> {
+            cache.get("1");
+            return loads.get() >= 2;
+        });
+    }
+
+    @Test
+    void writeBehindCoalescesAndFlushes() {
+        Map<String, String> database = new HashMap<>();
+        RedisCache<String, String> cache = cache("product:", database::get);
+        cache.enableWriteBehind(writer(database), 100, 60_000);
+
+        cache.put("1", "a");
+        cache.put("1", "b");
+        cache.put("2", "c");
+        assertEquals(2, cache.pendingWriteCount());
+        assertTrue(database.isEmpty());
+
+        assertEquals(0, cache.flush());
+        assertEquals("b", database.get("1"));
+        assertEquals("c", database.get("2"));
+
+        cache.remove("2");
+        cache.close();
+        assertFalse(database.containsKey("2"));
+        assertThrows(IllegalStateException.class, () -> cache.put("3", "d"));
+    }
+
+    @Test
+    void closeReportsWritesThatCouldNotBeFlushed() {
+        AtomicInteger failures = new AtomicInteger();
+        RedisCache<String, String> cache = cache("product:", key -> null);
+        cache.enableWriteBehind(new RedisCache.CacheWriter<String, String>() {
+            @Override
+            public void writeAll(Map<String, String> entries) {
+                failures.incrementAndGet();
+                throw new IllegalStateException("database down");
+            }
+
+            @Override
+            public void deleteAll(Set<String> keys) {
+            }
+        }, 100, 60_000);
+
+        cache.put("1", "a");
+        assertEquals(1, cache.flush());
+        assertThrows(IllegalStateException.class, cache::close);
+        assertTrue(failures.get() >= 2);
+    }
+
+    private static RedisCache.CacheWriter<String, String> writer(Map<String, String> database) {
+        return new RedisCache.CacheWriter<String, String>() {
+            @Override
+            public synchronized void writeAll(Map<String, String> entries) {
+                database.putAll(entries);
+            }
+
+            @Override
+            public synchronized void deleteAll(Set<String> keys) {
+                database.keySet().removeAll(keys);
+            }
+        };
+    }
+
+    private static String slowLoad(AtomicInteger loads) {
+        try {
+            Thread.sleep(5);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return "value-" + loads.incrementAndGet();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "hết thời gian chờ");
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+/**
+ * Lớp cơ sở cho kiểm thử component: mỗi lớp kiểm thử có một InMemoryRedisServer riêng
+ * trên port trống. Trước mỗi test dữ liệu bị xóa và đồng hồ của server bị cố định, nên
+ * TTL chỉ trôi khi test gọi {@link InMemoryRedisServer#advanceTime}.
+ */
+abstract class RedisComponentTest {
+    static final Instant START = Instant.parse("2024-01-01T00:00:00Z");
+
+    static InMemoryRedisServer server;
+    static JedisPool pool;
+
+    @BeforeAll
+    static void startServer() throws IOException {
+        server = new InMemoryRedisServer(0).start();
+        pool = server.createPool();
+    }
+
+    @AfterAll
+    static void stopServer() {
+        pool.close();
+        server.close();
+    }
+
+    @BeforeEach
+    void resetServer() {
+        server.setClock(Clock.fixed(START, ZoneOffset.UTC));
+        try (Jedis jedis = pool.getResource()) {
+            jedis.flushAll();
+        }
+    }
+}
@@ -0,0 +1,84 @@
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import redis.clients.jedis.Jedis;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RedisCounterTest extends RedisComponentTest {
+    private HotKeyDetector detector;
+    private RedisCounter counter;
+
+    @BeforeEach
+    void setUp() {
+        detector = new HotKeyDetector(1, 0.5, 1000, 4, Duration.ofMinutes(1));
+        counter = new RedisCounter(pool, detector);
+    }
+
+    @AfterEach
+    void tearDown() {
+        counter.close();
+        detector.close();
+    }
+
+    @Test
+    void coldCounterUsesASingleKey() {
+        for (int i = 0; i < 10; i++) {
+            assertTrue(counter.increment("cold"));
+        }
+        assertEquals(10, counter.get("cold"));
+        try (Jedis jedis = pool.getResource()) {
+            assertEquals(Set.of("counter:cold"), jedis.keys("counter:*"));
+        }
+    }
+
+    @Test
+    void hotCounterIsSpreadOverShardsAndSummedOnRead() {
+        counter.increment("views", 5);
+        detector.markHot("counter:views", Duration.ofHours(1));
+        for (int i = 0; i < 200; i++) {
+            counter.increment("views");
+        }
+
+        assertEquals(205, counter.get("views"));
+        try (Jedis jedis = pool.getResource()) {
+            Set<String> keys = jedis.keys("counter:views:shard:*");
+            assertTrue(keys.size() > 1, "key con: " + keys);
+            assertEquals("5", jedis.get("counter:views"));
+        }
+
+        assertTrue(counter.reset("views"));
+        assertEquals(0, counter.get("views"));
+        try (Jedis jedis = pool.getResource()) {
+            assertTrue(jedis.keys("counter:*").isEmpty());
+        }
+    }
+
+    @Test
+    void detectorMatchesPrefixAndIdLikeTheJoinedKey() {
+        assertFalse(detector.isHot("counter:", "views"));
+        detector.markHot("counter:views", Duration.ofHours(1));
+
+        assertTrue(detector.isHot("counter:", "views"));
+        assertTrue(detector.isHot("counter:view", "s"));
+        assertFalse(detector.isHot("counter:", "view"));
+        assertFalse(detector.isHot("ratelimit:", "views"));
+
+        detector.markHot("counter:người-xem", Duration.ofMillis(-1));
+        assertFalse(detector.isHot("counter:", "người-xem"));
+    }
+
+    @Test
+    void shardKeysMatchStringConcatenation() {
+        RedisKeys keys = new RedisKeys("counter:");
+        assertEquals("counter:views:shard:7", new String(keys.key("views", ":shard:", 7), StandardCharsets.UTF_8));
+        assertEquals("counter:lượt-xem:shard:12",
+                new String(keys.key("lượt-xem", ":shard:", 12), StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,69 @@
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import redis.clients.jedis.Jedis;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RedisDistributedLockTest extends RedisComponentTest {
+    private RedisDistributedLock lock;
+
+    @BeforeEach
+    void setUp() {
+        lock = new RedisDistributedLock(pool);
+    }
+
+    @AfterEach
+    void tearDown() {
+        lock.close();
+    }
+
+    @Test
+    void onlyOneOwnerUntilReleased() {
+        assertTrue(lock.acquireLock("order:42", "owner-a", 30));
+        assertFalse(lock.acquireLock("order:42", "owner-b", 30));
+
+        assertTrue(lock.releaseLock("order:42", "owner-a"));
+        assertTrue(lock.acquireLock("order:42", "owner-b", 30));
+    }
+
+    @Test
+    void releaseByAnotherOwnerKeepsTheLock() {
+        assertTrue(lock.acquireLock("order:42", "owner-a", 30));
+
+        assertFalse(lock.releaseLock("order:42", "owner-b"));
+        assertFalse(lock.acquireLock("order:42", "owner-b", 30));
+        try (Jedis jedis = pool.getResource()) {
+            assertEquals("owner-a", jedis.get("lock:order:42"));
+        }
+    }
+
+    @Test
+    void expiredLockCanBeTakenOver() {
+        assertTrue(lock.acquireLock("order:42", "owner-a", 5));
+        try (Jedis jedis = pool.getResource()) {
+            assertEquals(5, jedis.ttl("lock:order:42"));
+        }
+
+        server.advanceTime(Duration.ofSeconds(4));
+        assertFalse(lock.acquireLock("order:42", "owner-b", 5));
+
+        server.advanceTime(Duration.ofSeconds(1));
+        assertTrue(lock.acquireLock("order:42", "owner-b", 5));
+        // Chủ cũ không được xóa khóa của chủ mới sau khi khóa của mình đã hết hạn
+        assertFalse(lock.releaseLock("order:42", "owner-a"));
+        assertTrue(lock.releaseLock("order:42", "owner-b"));
+    }
+
+    @Test
+    void closeKeepsSharedPoolOpen() {
+        lock.close();
+        try (Jedis jedis = pool.getResource()) {
+            assertEquals("PONG", jedis.ping());
+        }
+    }
+}
@@ -0,0 +1,98 @@
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import redis.clients.jedis.Jedis;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RedisHashMapperTest extends RedisComponentTest {
+    enum Status {
+        ACTIVE {
+            @Override
+            public String toString() {
+                return "Đang hoạt động";
+            }
+        },
+        BLOCKED
+    }
+
+    static class Account {
+        private String name;
+        private Status status;
+        private int level;
+        private long visits;
+        private double balance;
+    }
+
+    private RedisHashMapper<Account> mapper;
+
+    @BeforeEach
+    void setUp() {
+        mapper = new RedisHashMapper<>(pool, Account.class, "account:");
+    }
+
+    @AfterEach
+    void tearDown() {
+        mapper.close();
+    }
+
+    @Test
+    void enumOverridingToStringRoundTrips() {
+        Account account = new Account();
+        account.name = "a";
+        account.status = Status.ACTIVE;
+        mapper.create("1", account);
+
+        try (Jedis jedis = pool.getResource()) {
+            assertEquals("ACTIVE", jedis.hget("account:1", "status"));
+        }
+        assertEquals(Status.ACTIVE, mapper.load("1").get().status);
+
+        RedisHashMapper.Tracked<Account> loaded = mapper.load("1");
+        loaded.get().status = Status.BLOCKED;
+        assertEquals(1, mapper.save(loaded));
+        assertEquals(Status.BLOCKED, mapper.load("1").get().status);
+    }
+
+    @Test
+    void saveWritesOnlyChangedFieldsAndUpdatesTheSnapshot() {
+        Account account = new Account();
+        account.name = "a";
+        account.level = 1;
+        RedisHashMapper.Tracked<Account> tracked = mapper.create("1", account);
+
+        account.level = 2;
+        account.name = null;
+        assertEquals(Arrays.asList("name", "level"), mapper.dirtyFields(tracked));
+        assertEquals(2, mapper.save(tracked));
+        assertEquals(Collections.emptyList(), mapper.dirtyFields(tracked));
+        assertEquals(0, mapper.save(tracked));
+
+        RedisHashMapper.Tracked<Account> loaded = mapper.load("1");
+        assertNull(loaded.get().name);
+        assertEquals(2, loaded.get().level);
+    }
+
+    @Test
+    void incrementRejectsNarrowFieldsBeforeTouchingRedis() {
+        Account account = new Account();
+        account.level = Integer.MAX_VALUE;
+        RedisHashMapper.Tracked<Account> tracked = mapper.create("1", account);
+
+        assertThrows(IllegalArgumentException.class, () -> mapper.increment(tracked, "level", 1));
+        assertThrows(IllegalArgumentException.class, () -> mapper.increment(tracked, "name", 1));
+        try (Jedis jedis = pool.getResource()) {
+            assertEquals(String.valueOf(Integer.MAX_VALUE), jedis.hget("account:1", "level"));
+        }
+
+        assertEquals(5L, mapper.increment(tracked, "visits", 5));
+        assertEquals(1.5, mapper.increment(tracked, "balance", 1.5));
+        assertEquals(5L, tracked.get().visits);
+        assertEquals(0, mapper.save(tracked));
+    }
+}
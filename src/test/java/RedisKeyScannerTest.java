@@ -0,0 +1,98 @@
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.Pipeline;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RedisKeyScannerTest extends RedisComponentTest {
+    private RedisKeyScanner scanner;
+
+    @BeforeEach
+    void setUp() {
+        scanner = new RedisKeyScanner(pool);
+        // COUNT nhỏ để mỗi thao tác phải đi qua nhiều cursor
+        scanner.setScanCount(25);
+        scanner.setParallelism(3);
+
+        try (Jedis jedis = pool.getResource()) {
+            Pipeline pipeline = jedis.pipelined();
+            for (int i = 0; i < 300; i++) {
+                pipeline.set("session:" + i, "data");
+            }
+            for (int i = 0; i < 40; i++) {
+                pipeline.hset("session:meta:" + i, "user", "u" + i);
+            }
+            pipeline.set("product:1", "data");
+            pipeline.sync();
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        scanner.close();
+    }
+
+    @Test
+    void streamVisitsEveryMatchingKeyOnce() {
+        Set<String> keys = scanner.stream("session:*", null).collect(Collectors.toSet());
+        assertEquals(340, keys.size());
+        assertEquals(340, scanner.count("session:*", null));
+        assertEquals(40, scanner.count("session:*", "hash"));
+        assertEquals(300, scanner.count("session:*", "string"));
+        assertEquals(0, scanner.count("missing:*", null));
+    }
+
+    @Test
+    void unlinkRemovesOnlyMatchingKeys() {
+        assertEquals(40, scanner.unlink("session:meta:*", null));
+        assertEquals(300, scanner.unlink("session:*", null));
+
+        try (Jedis jedis = pool.getResource()) {
+            assertEquals(1, jedis.dbSize());
+            assertTrue(jedis.exists("product:1"));
+        }
+    }
+
+    @Test
+    void expireUsesServerClock() {
+        assertEquals(300, scanner.expire("session:*", "string", 30));
+
+        Map<String, Long> ttls = new ConcurrentHashMap<>();
+        assertEquals(340, scanner.inspectTtl("session:*", null, ttls::put));
+        assertEquals(30L, ttls.get("session:0"));
+        assertEquals(-1L, ttls.get("session:meta:0"));
+
+        server.advanceTime(Duration.ofSeconds(30));
+        assertEquals(40, scanner.count("session:*", null));
+    }
+
+    @Test
+    void callbackFailureIsPropagated() {
+        AtomicInteger calls = new AtomicInteger();
+        IllegalStateException thrown = assertThrows(IllegalStateException.class,
+                () -> scanner.forEachBatch("session:*", null, (jedis, keys) -> {
+                    calls.incrementAndGet();
+                    throw new IllegalStateException("callback lỗi");
+                }));
+        assertEquals("callback lỗi", thrown.getMessage());
+        // Việc quét dừng sau lô lỗi, chỉ các lô đã gửi mới chạy
+        assertTrue(calls.get() < 14, "đã chạy " + calls.get() + " lô");
+    }
+
+    @Test
+    void sharedPoolMustNotBeNull() {
+        assertThrows(NullPointerException.class, () -> new RedisKeyScanner((JedisPool) null));
+    }
+}
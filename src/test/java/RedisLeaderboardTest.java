@@ -0,0 +1,169 @@
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+
+import java.net.ServerSocket;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RedisLeaderboardTest extends RedisComponentTest {
+    private RedisLeaderboard board;
+
+    @BeforeEach
+    void setUp() {
+        // Chu kỳ flush dài để test tự gọi flush()
+        board = new RedisLeaderboard(pool, "test", 60_000, 10_000);
+        board.setTopCacheMillis(0);
+    }
+
+    @AfterEach
+    void tearDown() {
+        board.close();
+    }
+
+    @Test
+    void scoresAreBufferedUntilFlush() {
+        board.addScore("alice", 10);
+        board.addScore("alice", 5);
+        assertNull(board.score("alice"));
+
+        board.flush();
+        assertEquals(15.0, board.score("alice"));
+        assertEquals(1, board.getFlushCount());
+
+        // Không còn gì chờ ghi: flush rỗng không gửi transaction mới
+        board.flush();
+        assertEquals(1, board.getFlushCount());
+    }
+
+    @Test
+    void topOrdersByScoreAndBoundsResult() {
+        board.addScore("alice", 10);
+        board.addScore("bob", 30);
+        board.addScore("carol", 20);
+        board.flush();
+
+        assertEquals(Arrays.asList("bob", "carol", "alice"), members(board.top(10)));
+        assertEquals(Arrays.asList("bob", "carol"), members(board.top(2)));
+        assertTrue(board.top(0).isEmpty());
+        assertTrue(board.top(-1).isEmpty());
+
+        RedisLeaderboard.Entry first = board.top(1).get(0);
+        assertEquals(1, first.getRank());
+        assertEquals(30.0, first.getScore());
+        assertEquals(3L, board.rank("alice"));
+        assertNull(board.rank("nobody"));
+    }
+
+    @Test
+    void dailyBoardGetsTheSameIncrements() {
+        board.addScore("alice", 10);
+        board.flush();
+        board.addScore("alice", 1);
+        board.flush();
+
+        List<RedisLeaderboard.Entry> daily = board.top(RedisLeaderboard.Period.DAILY, 5);
+        assertEquals(1, daily.size());
+        assertEquals(11.0, daily.get(0).getScore());
+    }
+
+    @Test
+    void aroundMeRunsScriptBySha() {
+        for (int i = 1; i <= 9; i++) {
+            board.addScore("player-" + i, i * 10);
+        }
+        board.flush();
+
+        List<RedisLeaderboard.Entry> around = board.aroundMe("player-5", 2);
+        assertEquals(Arrays.asList("player-7", "player-6", "player-5", "player-4", "player-3"), members(around));
+        assertEquals(3, around.get(0).getRank());
+        assertEquals(Arrays.asList("player-9", "player-8"), members(board.aroundMe("player-9", 1)));
+        assertTrue(board.aroundMe("nobody", 2).isEmpty());
+
+        // Script cache bị xóa (như sau khi Redis restart): component nạp lại script
+        try (Jedis jedis = pool.getResource()) {
+            jedis.scriptFlush();
+        }
+        assertEquals(3, board.aroundMe("player-5", 1).size());
+    }
+
+    @Test
+    void resetRemovesBoardsAndPendingScores() {
+        board.addScore("alice", 10);
+        board.flush();
+        board.addScore("bob", 10);
+
+        board.reset();
+        board.flush();
+        assertTrue(board.top(10).isEmpty());
+        assertTrue(board.top(RedisLeaderboard.Period.DAILY, 10).isEmpty());
+    }
+
+    @Test
+    void rejectedCommandsDropTheBatchWithoutCountingAFlush() {
+        try (Jedis jedis = pool.getResource()) {
+            jedis.set("leaderboard:test", "not a sorted set");
+        }
+        board.addScore("alice", 10);
+        board.flush();
+        assertEquals(0, board.getFlushCount());
+        assertEquals(0, board.getConsecutiveFlushFailures());
+
+        // Lô đã bị bỏ: sau khi sửa key, flush không ghi lại điểm cũ
+        try (Jedis jedis = pool.getResource()) {
+            jedis.del("leaderboard:test");
+        }
+        board.flush();
+        assertNull(board.score("alice"));
+        board.addScore("alice", 1);
+        board.flush();
+        assertEquals(1.0, board.score("alice"));
+        assertEquals(1, board.getFlushCount());
+    }
+
+    @Test
+    void emptyWeeklyUnionIsCachedLikeANonEmptyOne() {
+        assertTrue(board.top(RedisLeaderboard.Period.WEEKLY, 10).isEmpty());
+
+        board.addScore("alice", 10);
+        board.flush();
+        // Kết quả rỗng vẫn được giữ trong WEEKLY_CACHE_SECONDS
+        assertTrue(board.top(RedisLeaderboard.Period.WEEKLY, 10).isEmpty());
+
+        server.advanceTime(Duration.ofSeconds(60));
+        assertEquals(Arrays.asList("alice"), members(board.top(RedisLeaderboard.Period.WEEKLY, 10)));
+    }
+
+    @Test
+    void scheduledFlushBacksOffWhileRedisIsDown() throws Exception {
+        int deadPort;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            deadPort = socket.getLocalPort();
+        }
+        try (JedisPool deadPool = new JedisPool("localhost", deadPort);
+             RedisLeaderboard offline = new RedisLeaderboard(deadPool, "offline", 10, 10_000)) {
+            offline.addScore("alice", 10);
+            Thread.sleep(600);
+
+            // Không backoff thì ~60 lần thử; gấp đôi chu kỳ mỗi lần lỗi chỉ còn vài lần
+            int failures = offline.getConsecutiveFlushFailures();
+            assertTrue(failures >= 1 && failures <= 8, "số lần thử: " + failures);
+
+            // Gọi flush() trực tiếp vẫn thử ngay
+            offline.flush();
+            assertTrue(offline.getConsecutiveFlushFailures() > failures);
+        }
+    }
+
+    private static List<String> members(List<RedisLeaderboard.Entry> entries) {
+        return entries.stream().map(RedisLeaderboard.Entry::getMember).collect(Collectors.toList());
+    }
+}
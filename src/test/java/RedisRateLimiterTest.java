@@ -0,0 +1,123 @@
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RedisRateLimiterTest extends RedisComponentTest {
+    private RedisRateLimiter limiter;
+
+    @BeforeEach
+    void setUp() {
+        limiter = new RedisRateLimiter("localhost", server.getPort());
+    }
+
+    @AfterEach
+    void tearDown() {
+        limiter.close();
+    }
+
+    @Test
+    void rejectsOverLimitUntilWindowEnds() {
+        for (int i = 0; i < 3; i++) {
+            assertTrue(limiter.allowRequest("client", 3, 10));
+        }
+        assertFalse(limiter.allowRequest("client", 3, 10));
+        assertEquals(0, limiter.getRemainingRequests("client", 3));
+        assertEquals(10, limiter.getRemainingWindowTime("client"));
+
+        server.advanceTime(Duration.ofSeconds(9));
+        assertFalse(limiter.allowRequest("client", 3, 10));
+
+        server.advanceTime(Duration.ofSeconds(1));
+        assertEquals(3, limiter.getRemainingRequests("client", 3));
+        assertEquals(0, limiter.getRemainingWindowTime("client"));
+        assertTrue(limiter.allowRequest("client", 3, 10));
+        assertEquals(2, limiter.getRemainingRequests("client", 3));
+    }
+
+    @Test
+    void clientsAreCountedSeparately() {
+        assertTrue(limiter.allowRequest("a", 1, 10));
+        assertFalse(limiter.allowRequest("a", 1, 10));
+        assertTrue(limiter.allowRequest("b", 1, 10));
+    }
+
+    @Test
+    void resetStartsANewWindow() {
+        assertTrue(limiter.allowRequest("client", 1, 10));
+        assertFalse(limiter.allowRequest("client", 1, 10));
+
+        assertTrue(limiter.resetLimit("client"));
+        assertTrue(limiter.allowRequest("client", 1, 10));
+        assertFalse(limiter.resetLimit("other"));
+    }
+
+    @Test
+    void leasedPermitsNeverExceedLimit() throws Exception {
+        try (HotKeyDetector detector = new HotKeyDetector(1, 0.5, 1000, 4, Duration.ofMinutes(1))) {
+            detector.markHot("ratelimit:hot", Duration.ofHours(1));
+            limiter.enableHotKeyLeasing(detector);
+
+            int maxRequests = 200;
+            ExecutorService executor = Executors.newFixedThreadPool(4);
+            try {
+                List<Future<Integer>> results = new ArrayList<>();
+                for (int t = 0; t < 4; t++) {
+                    results.add(executor.submit(() -> {
+                        int allowed = 0;
+                        for (int i = 0; i < maxRequests; i++) {
+                            if (limiter.allowRequest("hot", maxRequests, 60)) {
+                                allowed++;
+                            }
+                        }
+                        return allowed;
+                    }));
+                }
+                int total = 0;
+                for (Future<Integer> result : results) {
+                    total += result.get();
+                }
+                assertTrue(total > 0);
+                assertTrue(total <= maxRequests, "đã cho qua " + total + " > " + maxRequests);
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    @Test
+    void leaseDoesNotOutliveWindow() throws Exception {
+        try (HotKeyDetector detector = new HotKeyDetector(1, 0.5, 1000, 4, Duration.ofMinutes(1))) {
+            detector.markHot("ratelimit:hot", Duration.ofHours(1));
+            limiter.enableHotKeyLeasing(detector);
+
+            // Lô 5 quyền; lô thứ hai được lấy khi cửa sổ chỉ còn 50ms
+            for (int i = 0; i < 5; i++) {
+                assertTrue(limiter.allowRequest("hot", 100, 10));
+            }
+            server.advanceTime(Duration.ofMillis(9_950));
+            assertTrue(limiter.allowRequest("hot", 100, 10));
+
+            // Cửa sổ kết thúc trên cả hai đồng hồ; 4 quyền còn lại của lô cũ phải bị bỏ
+            Thread.sleep(60);
+            server.advanceTime(Duration.ofMillis(50));
+            int allowed = 0;
+            for (int i = 0; i < 150; i++) {
+                if (limiter.allowRequest("hot", 100, 10)) {
+                    allowed++;
+                }
+            }
+            assertEquals(100, allowed);
+        }
+    }
+}
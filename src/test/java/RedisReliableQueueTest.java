@@ -0,0 +1,124 @@
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RedisReliableQueueTest extends RedisComponentTest {
+    private RedisReliableQueue queue;
+
+    @BeforeEach
+    void setUp() {
+        queue = new RedisReliableQueue(pool, "tasks", "workers");
+        queue.setVisibilityTimeoutMillis(1000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        queue.close();
+    }
+
+    @Test
+    void ackedTasksLeaveTheStream() {
+        assertEquals(5, queue.enqueueAll(Arrays.asList("t1", "t2", "t3", "t4", "t5")));
+
+        List<RedisReliableQueue.Message> batch = queue.poll("worker-1", 3, 0);
+        assertEquals(Arrays.asList("t1", "t2", "t3"), payloads(batch));
+        assertFalse(batch.get(0).isRedelivered());
+        assertEquals(3, queue.pendingCount());
+
+        assertEquals(3, queue.ack(batch));
+        assertEquals(0, queue.pendingCount());
+        assertEquals(2, queue.size());
+        assertEquals(Arrays.asList("t4", "t5"), payloads(queue.poll("worker-1", 10, 0)));
+    }
+
+    @Test
+    void unackedTasksAreRedeliveredAfterVisibilityTimeout() {
+        queue.enqueueAll(Arrays.asList("t1", "t2"));
+        assertEquals(2, queue.poll("crashed", 10, 0).size());
+
+        // Chưa quá visibility timeout: không có gì để nhận lại
+        assertTrue(queue.poll("worker-1", 10, 0).isEmpty());
+
+        server.advanceTime(Duration.ofMillis(1000));
+        List<RedisReliableQueue.Message> redelivered = queue.poll("worker-1", 10, 0);
+        assertEquals(Arrays.asList("t1", "t2"), payloads(redelivered));
+        assertTrue(redelivered.get(0).isRedelivered());
+    }
+
+    @Test
+    void poisonTaskMovesToDeadLetterAfterMaxDeliveries() {
+        queue.setMaxDeliveries(3);
+        queue.enqueueAll(Arrays.asList("bad", "good"));
+        AtomicInteger attempts = new AtomicInteger();
+
+        for (int i = 0; i < 5; i++) {
+            // Lô một task: task lỗi không kéo task tốt vào dead-letter cùng nó
+            queue.processBatch("worker-1", 1, 0, batch -> {
+                for (RedisReliableQueue.Message message : batch) {
+                    if (message.getPayload().equals("bad")) {
+                        attempts.incrementAndGet();
+                        throw new IllegalStateException("task lỗi");
+                    }
+                }
+            });
+            server.advanceTime(Duration.ofMillis(1000));
+        }
+
+        // Lần giao thứ tư bị chặn: task chuyển sang dead-letter thay vì được nhận lại mãi
+        assertEquals(3, attempts.get());
+        assertEquals(0, queue.size());
+        assertEquals(0, queue.pendingCount());
+        assertEquals(1, queue.deadLetterSize());
+        assertEquals(Arrays.asList("bad"), payloads(queue.deadLetters(10)));
+    }
+
+    @Test
+    void blockingPollWakesUpOnEnqueue() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<List<RedisReliableQueue.Message>> result = executor.submit(() -> queue.poll("worker-1", 10, 1500));
+            Thread.sleep(100);
+            assertFalse(result.isDone());
+
+            long start = System.nanoTime();
+            queue.enqueue("t1");
+            assertEquals(Arrays.asList("t1"), payloads(result.get(5, TimeUnit.SECONDS)));
+            assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1000);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void clearRemovesTasksAndDeadLetters() {
+        queue.setMaxDeliveries(1);
+        queue.enqueue("bad");
+        queue.poll("worker-1", 10, 0);
+        server.advanceTime(Duration.ofMillis(1000));
+        assertTrue(queue.poll("worker-1", 10, 0).isEmpty());
+        assertEquals(1, queue.deadLetterSize());
+
+        queue.clear();
+        assertEquals(0, queue.deadLetterSize());
+        queue.enqueue("t1");
+        assertEquals(Arrays.asList("t1"), payloads(queue.poll("worker-1", 10, 0)));
+    }
+
+    private static List<String> payloads(List<RedisReliableQueue.Message> messages) {
+        return messages.stream().map(RedisReliableQueue.Message::getPayload).collect(Collectors.toList());
+    }
+}
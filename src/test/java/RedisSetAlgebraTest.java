@@ -0,0 +1,93 @@
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.JedisPoolConfig;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RedisSetAlgebraTest extends RedisComponentTest {
+    private RedisSetAlgebra setAlgebra;
+
+    @BeforeEach
+    void setUp() {
+        setAlgebra = new RedisSetAlgebra(pool);
+        setAlgebra.setChunkSize(3);
+        try (Jedis jedis = pool.getResource()) {
+            jedis.sadd("a", members(0, 10));
+            jedis.sadd("b", members(5, 15));
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        setAlgebra.close();
+    }
+
+    @Test
+    void intersectAndDifferenceScanInChunks() {
+        assertEquals(set(members(5, 10)), setAlgebra.intersect("a", "b").collect(Collectors.toSet()));
+        assertEquals(set(members(0, 5)), setAlgebra.difference("a", "b").collect(Collectors.toSet()));
+        assertEquals(0, setAlgebra.intersectCount("a", "missing"));
+    }
+
+    @Test
+    void storeCanOverwriteItsOwnSource() {
+        long stored = setAlgebra.store("a", setAlgebra.intersect("a", "b"));
+
+        assertEquals(5, stored);
+        try (Jedis jedis = pool.getResource()) {
+            assertEquals(set(members(5, 10)), jedis.smembers("a"));
+            assertEquals(-1, jedis.ttl("a"));
+            // Không để lại key tạm
+            assertEquals(set("a", "b"), jedis.keys("*"));
+        }
+    }
+
+    @Test
+    void storeCountsDistinctMembersAndDeletesOnEmptyResult() {
+        assertEquals(2, setAlgebra.store("dest", Stream.of("x", "x", "y", "x")));
+        try (Jedis jedis = pool.getResource()) {
+            assertEquals(2, jedis.scard("dest"));
+        }
+
+        assertEquals(0, setAlgebra.store("dest", Stream.empty()));
+        try (Jedis jedis = pool.getResource()) {
+            assertFalse(jedis.exists("dest"));
+        }
+    }
+
+    @Test
+    void storeWorksWithASingleConnectionPool() {
+        JedisPoolConfig config = new JedisPoolConfig();
+        config.setMaxTotal(1);
+        config.setMaxWait(Duration.ofSeconds(1));
+        try (JedisPool single = new JedisPool(config, "localhost", server.getPort());
+             RedisSetAlgebra singleAlgebra = new RedisSetAlgebra(single)) {
+            singleAlgebra.setChunkSize(3);
+            assertEquals(5, singleAlgebra.store("common", singleAlgebra.intersect("a", "b")));
+        }
+        try (Jedis jedis = pool.getResource()) {
+            assertTrue(jedis.sismember("common", "m5"));
+        }
+    }
+
+    private static String[] members(int from, int to) {
+        return IntStream.range(from, to).mapToObj(i -> "m" + i).toArray(String[]::new);
+    }
+
+    private static Set<String> set(String... values) {
+        return new HashSet<>(Arrays.asList(values));
+    }
+}
@@ -0,0 +1,89 @@
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import redis.clients.jedis.DefaultJedisClientConfig;
+import redis.clients.jedis.HostAndPort;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisClientConfig;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.JedisPoolConfig;
+import redis.clients.jedis.exceptions.JedisException;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RedisTelemetryTest extends RedisComponentTest {
+    private final RedisTelemetry telemetry = new RedisTelemetry();
+    private final List<RedisTelemetry.Span> spans = new CopyOnWriteArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        server.setLatency(Duration.ZERO);
+    }
+
+    private JedisPool createPool(JedisClientConfig clientConfig) {
+        telemetry.setSpanExporter(spans::add);
+        return telemetry.createPool(new JedisPoolConfig(), new HostAndPort("localhost", server.getPort()), clientConfig);
+    }
+
+    @Test
+    void commandsAreCountedByKeyPrefix() {
+        try (JedisPool instrumented = createPool(DefaultJedisClientConfig.builder().build());
+             Jedis jedis = instrumented.getResource()) {
+            jedis.set("session:1", "a");
+            jedis.get("session:1");
+            jedis.get("session:2");
+            jedis.eval("return redis.call('get', KEYS[1])", 1, "lock:1");
+        } catch (JedisException e) {
+            // Script chưa đăng ký với server giả lập; lệnh vẫn phải được đếm
+        }
+
+        assertEquals(2, calls("GET", "session:"));
+        assertEquals(1, calls("SET", "session:"));
+        assertEquals(1, calls("EVAL", "lock:"));
+    }
+
+    @Test
+    void slowConnectIsNotReportedAsBorrowWait() {
+        // AUTH khi kết nối mất một round trip, mỗi round trip chậm 150ms
+        server.setLatency(Duration.ofMillis(150));
+        JedisClientConfig clientConfig = DefaultJedisClientConfig.builder().password("secret").build();
+        try (JedisPool instrumented = createPool(clientConfig)) {
+            instrumented.getResource().close();
+            server.setLatency(Duration.ZERO);
+        }
+
+        assertEquals(1, telemetry.getConnectStats().getCalls());
+        assertTrue(telemetry.getConnectStats().getMaxMicros() >= 150_000);
+        assertEquals(1, telemetry.getBorrowStats().getCalls());
+        assertTrue(telemetry.getBorrowStats().getMaxMicros() < 100_000);
+        assertTrue(spans.stream().noneMatch(span -> span.getName().equals("redis.pool.borrow")), spans.toString());
+    }
+
+    @Test
+    void databaseFromClientConfigIsSelected() {
+        // Server giả lập chỉ có database 0: SELECT 1 thất bại chứng tỏ cấu hình được áp dụng
+        JedisClientConfig clientConfig = DefaultJedisClientConfig.builder().database(1).build();
+        try (JedisPool instrumented = createPool(clientConfig)) {
+            assertThrows(JedisException.class, instrumented::getResource);
+        }
+        assertEquals(1, telemetry.getConnectStats().getErrors());
+
+        try (JedisPool instrumented = createPool(DefaultJedisClientConfig.builder().database(0).build());
+             Jedis jedis = instrumented.getResource()) {
+            assertEquals(0, jedis.getDB());
+            assertEquals("PONG", jedis.ping());
+        }
+    }
+
+    private long calls(String command, String prefix) {
+        return telemetry.snapshot().stream()
+                .filter(stats -> stats.getCommand().equals(command) && stats.getKeyPrefix().equals(prefix))
+                .mapToLong(RedisTelemetry.Stats::getCalls)
+                .sum();
+    }
+}
@@ -0,0 +1,83 @@
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import redis.clients.jedis.Jedis;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RedisUniqueCounterTest extends RedisComponentTest {
+    private static final LocalDateTime DAY_END = LocalDateTime.of(2024, 3, 1, 23, 59, 59);
+    private static final LocalDateTime NEXT_DAY = LocalDateTime.of(2024, 3, 2, 0, 0);
+
+    private RedisUniqueCounter daily;
+
+    @BeforeEach
+    void setUp() {
+        daily = new RedisUniqueCounter(pool, "visitors", RedisUniqueCounter.Granularity.DAILY, 7);
+    }
+
+    @AfterEach
+    void tearDown() {
+        daily.close();
+    }
+
+    @Test
+    void bucketsSplitExactlyAtTheBoundary() {
+        daily.add(DAY_END, "a", "b");
+        daily.add(NEXT_DAY, "b", "c");
+
+        assertEquals(2, daily.count(DAY_END.withHour(0), DAY_END));
+        assertEquals(2, daily.count(NEXT_DAY, NEXT_DAY.withHour(23)));
+        // Hợp của hai khung: "b" chỉ được đếm một lần
+        assertEquals(3, daily.count(DAY_END, NEXT_DAY));
+        assertEquals(0, daily.count(NEXT_DAY.plusDays(1), NEXT_DAY.plusDays(2)));
+    }
+
+    @Test
+    void hourlyBucketsUseTheHourBoundary() {
+        try (RedisUniqueCounter hourly = new RedisUniqueCounter(pool, "visitors",
+                RedisUniqueCounter.Granularity.HOURLY, 24)) {
+            hourly.add(LocalDateTime.of(2024, 3, 1, 9, 59, 59), "a");
+            hourly.add(LocalDateTime.of(2024, 3, 1, 10, 0), "b");
+
+            assertEquals(1, hourly.count(LocalDateTime.of(2024, 3, 1, 9, 0), LocalDateTime.of(2024, 3, 1, 9, 30)));
+            assertEquals(2, hourly.count(LocalDateTime.of(2024, 3, 1, 9, 30), LocalDateTime.of(2024, 3, 1, 10, 30)));
+        }
+    }
+
+    @Test
+    void mergeWritesTheUnionWithTtl() {
+        daily.add(DAY_END, "a", "b");
+        daily.add(NEXT_DAY, "b", "c");
+        daily.add(NEXT_DAY.plusDays(1), "d");
+
+        daily.merge("first-two-days", DAY_END, NEXT_DAY, 3600);
+
+        try (Jedis jedis = pool.getResource()) {
+            assertEquals(3, jedis.pfcount("hll:visitors:first-two-days"));
+            assertEquals(3600, jedis.ttl("hll:visitors:first-two-days"));
+        }
+    }
+
+    @Test
+    void bucketsExpireAfterRetention() {
+        daily.add(DAY_END, "a");
+        try (Jedis jedis = pool.getResource()) {
+            assertEquals(TimeUnit.DAYS.toSeconds(7), jedis.ttl("hll:visitors:20240301"));
+        }
+    }
+
+    @Test
+    void rejectsInvalidRetentionAndReversedRange() {
+        assertThrows(IllegalArgumentException.class, () ->
+                new RedisUniqueCounter(pool, "visitors", RedisUniqueCounter.Granularity.DAILY, 0));
+        assertThrows(IllegalArgumentException.class, () ->
+                new RedisUniqueCounter(pool, "visitors", RedisUniqueCounter.Granularity.DAILY, -1));
+        assertThrows(IllegalArgumentException.class, () -> daily.count(NEXT_DAY, DAY_END));
+        assertThrows(IllegalArgumentException.class, () -> daily.merge("x", NEXT_DAY, DAY_END, 60));
+    }
+}